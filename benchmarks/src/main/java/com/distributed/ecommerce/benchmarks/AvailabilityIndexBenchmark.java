@@ -0,0 +1,99 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.availability.StockTable;
+import com.distributed.ecommerce.inventory.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares availability lookups in the primitive {@link StockTable} against a boxed
+ * {@code HashMap<Long, Product>} at catalog sizes, and prints the heap retained per SKU by
+ * each at the start of the trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class AvailabilityIndexBenchmark {
+    
+    private static final int LOOKUPS = 1 << 16;
+    
+    @Param({"10000", "1000000"})
+    int skus;
+    
+    private StockTable stockTable;
+    private Map<Long, Product> boxedMap;
+    private long[] lookupIds;
+    private int cursor;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        stockTable = measure("StockTable", () -> {
+            StockTable table = new StockTable(skus);
+            for (int i = 1; i <= skus; i++) {
+                table.put(i, 1_000, i % 10);
+            }
+            return table;
+        });
+        boxedMap = measure("HashMap<Long, Product>", () -> {
+            Map<Long, Product> map = new HashMap<>();
+            for (int i = 1; i <= skus; i++) {
+                Product product = new Product("Produto " + i, "Benchmark product", new BigDecimal("99.90"), 1_000);
+                product.setId((long) i);
+                product.setReservedQuantity(i % 10);
+                map.put((long) i, product);
+            }
+            return map;
+        });
+        System.out.printf("StockTable footprint (computed): %.1f bytes/SKU%n", (double) stockTable.footprintBytes() / skus);
+        
+        SplittableRandom random = new SplittableRandom(42);
+        lookupIds = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupIds[i] = random.nextInt(skus) + 1;
+        }
+    }
+    
+    @Benchmark
+    public int stockTableLookup() {
+        long stock = stockTable.get(nextId());
+        return StockTable.availableOf(stock);
+    }
+    
+    @Benchmark
+    public int boxedMapLookup() {
+        return boxedMap.get(nextId()).getAvailableQuantity();
+    }
+    
+    private long nextId() {
+        return lookupIds[cursor++ & (LOOKUPS - 1)];
+    }
+    
+    /**
+     * Builds the structure and prints the heap it retains, measured as the difference in used
+     * heap after full collections. Approximate, but stable at these sizes.
+     */
+    private <T> T measure(String name, Supplier<T> builder) {
+        long before = usedHeap();
+        T built = builder.get();
+        long after = usedHeap();
+        System.out.printf("%n%s: %d SKUs retain ~%.1f bytes/SKU%n", name, skus, (double) (after - before) / skus);
+        return built;
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,89 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files and exits with status 1 when any benchmark
+ * regressed by more than the allowed percentage.
+ * 
+ * Usage: {@code BenchmarkRegressionCheck <baseline.json> <current.json> [maxRegressionPercent]}
+ */
+public final class BenchmarkRegressionCheck {
+    
+    private static final double DEFAULT_MAX_REGRESSION_PERCENT = 10.0;
+    
+    private BenchmarkRegressionCheck() {}
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkRegressionCheck <baseline.json> <current.json> [maxRegressionPercent]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_MAX_REGRESSION_PERCENT;
+        
+        Map<String, Result> baseline = load(new File(args[0]));
+        Map<String, Result> current = load(new File(args[1]));
+        
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Result> entry : new TreeMap<>(current).entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", after.score, "new");
+                continue;
+            }
+            
+            double change = (after.score - before.score) / before.score * 100.0;
+            // Throughput regresses when it drops, time-based modes when they grow
+            double regression = after.higherIsBetter() ? -change : change;
+            boolean regressed = regression > maxRegression;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n",
+                    entry.getKey(), before.score, after.score, change, regressed ? "  REGRESSION" : "");
+        }
+        
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, maxRegression);
+            System.exit(1);
+        }
+    }
+    
+    private static Map<String, Result> load(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            params.fieldNames().forEachRemaining(name ->
+                    key.append(' ').append(name).append('=').append(params.path(name).asText()));
+            key.append(" [").append(run.path("mode").asText()).append(']');
+            
+            JsonNode metric = run.path("primaryMetric");
+            results.put(key.toString(), new Result(run.path("mode").asText(), metric.path("score").asDouble()));
+        }
+        return results;
+    }
+    
+    private static final class Result {
+        private final String mode;
+        private final double score;
+        
+        private Result(String mode, double score) {
+            this.mode = mode;
+            this.score = score;
+        }
+        
+        private boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.orders.search.CustomerNameTokens;
+import com.distributed.ecommerce.orders.search.CustomerOrderSearch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of finding a page of orders by customer name through the
+ * {@code order_customer_tokens} index ({@link CustomerOrderSearch}) and through the
+ * {@code LIKE '%...%'} scan it replaced, on an orders table of {@code orders} rows.
+ * <p>
+ * Orders are inserted with plain JDBC batches, tokens included, and only up to the requested
+ * count: a database that already holds them is reused, which is how the 50 million order runs
+ * against PostgreSQL are meant to be repeated. Customer names are drawn from common Brazilian
+ * first names and surnames with a skewed distribution, so some surnames match millions of
+ * orders and others a few hundred.
+ * <p>
+ * Options (all {@code --name=value}): {@code orders}, {@code queries} (comma separated),
+ * {@code iterations} per query for the token index, {@code like-iterations} for the scan
+ * (0 skips it), {@code page-size}, {@code jdbc-url}/{@code jdbc-user}/{@code jdbc-password} to
+ * run against PostgreSQL instead of H2, and {@code output} for the JSON report.
+ */
+public final class CustomerSearchLatencySuite {
+    
+    private static final String[] FIRST_NAMES = {
+            "Maria", "José", "Ana", "João", "Antônio", "Francisco", "Carlos", "Paulo", "Pedro", "Lucas",
+            "Luiz", "Marcos", "Luís", "Gabriel", "Rafael", "Francisca", "Daniel", "Marcelo", "Bruno", "Eduardo",
+            "Felipe", "Raimundo", "Rodrigo", "Manoel", "Mateus", "André", "Fernando", "Fábio", "Leonardo", "Gustavo",
+            "Juliana", "Márcia", "Fernanda", "Patrícia", "Aline", "Adriana", "Sandra", "Camila", "Amanda", "Bruna",
+            "Jéssica", "Letícia", "Júlia", "Luciana", "Vanessa", "Mariana", "Gabriela", "Vera", "Vitória", "Larissa"
+    };
+    
+    private static final String[] SURNAMES = {
+            "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+            "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes", "Soares", "Fernandes", "Vieira", "Barbosa",
+            "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes", "Marques", "Machado", "Mendes", "Freitas",
+            "Cardoso", "Ramos", "Gonçalves", "Santana", "Teixeira", "Araújo", "Pinto", "Correia", "Cavalcanti", "Monteiro",
+            "Moura", "Campos", "Barros", "Castro", "Reis", "Bezerra", "Batista", "Sampaio", "Siqueira", "Xavier",
+            "Brandão", "Quintanilha", "Vasconcelos", "Figueiredo", "Albuquerque", "Bittencourt", "Guimarães", "Queiroz",
+            "Zanetti", "Wanderley"
+    };
+    
+    private static final String DEFAULT_QUERIES = "Silva,Maria Silva,Ana Pereira Costa,Vasconcelos,Zanetti,Jéssica Wanderley,sil,Quint";
+    private static final int SEED_BATCH_SIZE = 5_000;
+    
+    private final Map<String, String> options;
+    private final long orders;
+    private final int iterations;
+    private final int likeIterations;
+    private final int pageSize;
+    
+    private CustomerSearchLatencySuite(Map<String, String> options) {
+        this.options = options;
+        this.orders = Long.parseLong(options.getOrDefault("orders", "1000000"));
+        this.iterations = Integer.parseInt(options.getOrDefault("iterations", "200"));
+        this.likeIterations = Integer.parseInt(options.getOrDefault("like-iterations", "5"));
+        this.pageSize = Integer.parseInt(options.getOrDefault("page-size", "20"));
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unrecognized argument: " + arg + " (expected --name=value)");
+                System.exit(2);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        
+        CustomerSearchLatencySuite suite = new CustomerSearchLatencySuite(options);
+        List<RunResult> results = suite.runAll();
+        
+        String output = options.getOrDefault("output", "benchmarks/target/customer-search-result.json");
+        suite.writeJson(results, new File(output));
+        System.out.println("Results written to " + output);
+        System.exit(0);
+    }
+    
+    private List<RunResult> runAll() {
+        List<RunResult> results = new ArrayList<>();
+        try (ConfigurableApplicationContext context = startOrders()) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            CustomerOrderSearch search = context.getBean(CustomerOrderSearch.class);
+            seed(jdbcTemplate);
+            
+            for (String query : options.getOrDefault("queries", DEFAULT_QUERIES).split(",")) {
+                List<String> terms = CustomerOrderSearch.terms(query);
+                RunResult tokens = measure("tokenIndex", query, iterations,
+                        () -> search.findOrderIds(terms, null, pageSize).size());
+                results.add(tokens);
+                print(tokens);
+                if (likeIterations > 0) {
+                    RunResult like = measure("likeScan", query, likeIterations,
+                            () -> jdbcTemplate.queryForList("SELECT id FROM orders WHERE customer_name LIKE ? ORDER BY id DESC LIMIT ?",
+                                    Long.class, "%" + query + "%", pageSize).size());
+                    results.add(like);
+                    print(like);
+                }
+            }
+        }
+        return results;
+    }
+    
+    private ConfigurableApplicationContext startOrders() {
+        String backfillArg = "--order.customer-search.backfill-on-startup=false";
+        String jdbcUrl = options.get("jdbc-url");
+        if (jdbcUrl != null) {
+            return EmbeddedOrders.startExternal(jdbcUrl, options.getOrDefault("jdbc-user", "order_user"),
+                    options.getOrDefault("jdbc-password", "order_password"), 4, backfillArg);
+        }
+        return EmbeddedOrders.start("customer_search", 4, backfillArg);
+    }
+    
+    /**
+     * Inserts orders with ids following the highest one present until the table holds {@code orders} rows.
+     */
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Long present = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+        long missing = orders - (present == null ? 0 : present);
+        if (missing <= 0) {
+            System.out.printf("Reusing %d existing orders%n", present);
+            return;
+        }
+        long start = System.nanoTime();
+        long nextId = maxId == null ? 1 : maxId + 1;
+        SplittableRandom random = new SplittableRandom(nextId);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        BigDecimal total = new BigDecimal("99.90");
+        List<Object[]> orderRows = new ArrayList<>(SEED_BATCH_SIZE);
+        List<Object[]> tokenRows = new ArrayList<>(SEED_BATCH_SIZE * 3);
+        for (long i = 0; i < missing; i++) {
+            long orderId = nextId + i;
+            String name = FIRST_NAMES[skewed(random, FIRST_NAMES.length)] + " "
+                    + SURNAMES[skewed(random, SURNAMES.length)] + " " + SURNAMES[skewed(random, SURNAMES.length)];
+            orderRows.add(new Object[] {orderId, name, "cliente" + orderId + "@example.com", "Rua A, " + orderId,
+                    total, "APROVADO", now, now});
+            for (String token : CustomerNameTokens.of(name)) {
+                tokenRows.add(new Object[] {orderId, token});
+            }
+            if (orderRows.size() == SEED_BATCH_SIZE || i == missing - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO orders (id, customer_name, customer_email, customer_address, "
+                        + "total_amount, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", orderRows);
+                jdbcTemplate.batchUpdate("INSERT INTO order_customer_tokens (order_id, token) VALUES (?, ?)", tokenRows);
+                orderRows.clear();
+                tokenRows.clear();
+            }
+        }
+        System.out.printf("Seeded %d orders in %d s%n", missing, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+    
+    /**
+     * Picks an index with a roughly Zipf-like bias towards the start of the array, as real name frequencies have.
+     */
+    private static int skewed(SplittableRandom random, int size) {
+        double u = random.nextDouble();
+        return Math.min(size - 1, (int) (size * u * u * u));
+    }
+    
+    private static RunResult measure(String method, String query, int iterations, Search search) {
+        // A few unmeasured runs so plans and caches are warm
+        int matched = 0;
+        for (int i = 0; i < Math.min(3, iterations); i++) {
+            matched = search.run();
+        }
+        Histogram latency = new Histogram(TimeUnit.MINUTES.toMicros(10), 3);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            search.run();
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), latency.getHighestTrackableValue()));
+        }
+        RunResult result = new RunResult(method, query, iterations, matched);
+        result.p50Micros = latency.getValueAtPercentile(50.0);
+        result.p99Micros = latency.getValueAtPercentile(99.0);
+        result.maxMicros = latency.getMaxValue();
+        return result;
+    }
+    
+    private static void print(RunResult result) {
+        System.out.printf("%-10s %-22s iterations=%-4d results=%-3d p50=%.2fms p99=%.2fms max=%.2fms%n",
+                result.method, "\"" + result.query + "\"", result.iterations, result.results,
+                result.p50Micros / 1000.0, result.p99Micros / 1000.0, result.maxMicros / 1000.0);
+    }
+    
+    private void writeJson(List<RunResult> results, File file) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (RunResult result : results) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("method", result.method);
+            row.put("query", result.query);
+            row.put("orders", orders);
+            row.put("iterations", result.iterations);
+            row.put("results", result.results);
+            row.put("p50Micros", result.p50Micros);
+            row.put("p99Micros", result.p99Micros);
+            row.put("maxMicros", result.maxMicros);
+            rows.add(row);
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, rows);
+    }
+    
+    @FunctionalInterface
+    private interface Search {
+        int run();
+    }
+    
+    private static final class RunResult {
+        private final String method;
+        private final String query;
+        private final int iterations;
+        private final int results;
+        private long p50Micros;
+        private long p99Micros;
+        private long maxMicros;
+        
+        private RunResult(String method, String query, int iterations, int results) {
+            this.method = method;
+            this.query = query;
+            this.iterations = iterations;
+            this.results = results;
+        }
+    }
+}
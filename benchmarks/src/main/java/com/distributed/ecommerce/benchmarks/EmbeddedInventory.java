@@ -0,0 +1,65 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.InventoryServiceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots inventory-service without a web server against an in-memory H2 database.
+ * Settings are passed as command-line arguments so they take precedence over the
+ * PostgreSQL configuration in the service's application.properties.
+ */
+public final class EmbeddedInventory {
+    
+    private EmbeddedInventory() {}
+    
+    public static ConfigurableApplicationContext start(String databaseName, int poolSize, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--inventory.invalidation.bus=memory",
+                "--inventory.availability-snapshot.enabled=false"
+        ));
+        args.addAll(Arrays.asList(extraArgs));
+        return run(poolSize, args);
+    }
+    
+    /**
+     * Boots against an existing database (e.g. PostgreSQL) using the service's own schema settings.
+     */
+    public static ConfigurableApplicationContext startExternal(String jdbcUrl, String username, String password,
+                                                               int poolSize, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password
+        ));
+        args.addAll(Arrays.asList(extraArgs));
+        return run(poolSize, args);
+    }
+    
+    private static ConfigurableApplicationContext run(int poolSize, List<String> datasourceArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.distributed.ecommerce=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--tracing.enabled=false",
+                "--inventory.initialize-sample-data=false"
+        ));
+        args.addAll(datasourceArgs);
+        return SpringApplication.run(InventoryServiceApplication.class, args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,63 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.orders.OrderServiceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots order-service without a web server against an in-memory H2 database, the
+ * counterpart of {@link EmbeddedInventory}. Calls to the inventory service are not
+ * exercised, so its URL only has to be present.
+ */
+public final class EmbeddedOrders {
+    
+    private EmbeddedOrders() {}
+    
+    public static ConfigurableApplicationContext start(String databaseName, int poolSize, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+        ));
+        args.addAll(Arrays.asList(extraArgs));
+        return run(poolSize, args);
+    }
+    
+    /**
+     * Boots against an existing database (e.g. PostgreSQL) using the service's own schema settings.
+     */
+    public static ConfigurableApplicationContext startExternal(String jdbcUrl, String username, String password,
+                                                               int poolSize, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password
+        ));
+        args.addAll(Arrays.asList(extraArgs));
+        return run(poolSize, args);
+    }
+    
+    private static ConfigurableApplicationContext run(int poolSize, List<String> datasourceArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.distributed.ecommerce=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--tracing.enabled=false",
+                "--inventory.service.url=http://localhost:8081"
+        ));
+        args.addAll(datasourceArgs);
+        return SpringApplication.run(OrderServiceApplication.class, args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,89 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.dto.ReservationItemRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationRequest;
+import com.distributed.ecommerce.orders.dto.CreateOrderRequest;
+import com.distributed.ecommerce.orders.dto.OrderItemDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson (de)serialization of the two request bodies on the checkout path:
+ * the order submitted by the frontend and the reservation sent to inventory-service.
+ * The mapper is built with Spring's defaults so it matches the one used by the controllers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    
+    @Param({"1", "5", "30"})
+    private int itemCount;
+    
+    private ObjectWriter createOrderWriter;
+    private ObjectReader createOrderReader;
+    private ObjectWriter reservationWriter;
+    private ObjectReader reservationReader;
+    
+    private CreateOrderRequest createOrderRequest;
+    private ReservationRequest reservationRequest;
+    private byte[] createOrderJson;
+    private byte[] reservationJson;
+    
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        createOrderWriter = objectMapper.writerFor(CreateOrderRequest.class);
+        createOrderReader = objectMapper.readerFor(CreateOrderRequest.class);
+        reservationWriter = objectMapper.writerFor(ReservationRequest.class);
+        reservationReader = objectMapper.readerFor(ReservationRequest.class);
+        
+        List<OrderItemDto> orderItems = new ArrayList<>();
+        List<ReservationItemRequest> reservationItems = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            OrderItemDto item = new OrderItemDto((long) i + 1, "Produto " + i, 1 + (i % 3), new BigDecimal("199.99"));
+            orderItems.add(item);
+            reservationItems.add(new ReservationItemRequest(item.getProductId(), item.getQuantity()));
+            total = total.add(item.getSubtotal());
+        }
+        
+        createOrderRequest = new CreateOrderRequest("João Silva", "joao@email.com", "Rua das Flores, 123",
+                "(65) 99999-9999", orderItems, total);
+        reservationRequest = new ReservationRequest(42L, reservationItems);
+        
+        createOrderJson = createOrderWriter.writeValueAsBytes(createOrderRequest);
+        reservationJson = reservationWriter.writeValueAsBytes(reservationRequest);
+    }
+    
+    @Benchmark
+    public byte[] serializeCreateOrderRequest() throws Exception {
+        return createOrderWriter.writeValueAsBytes(createOrderRequest);
+    }
+    
+    @Benchmark
+    public CreateOrderRequest deserializeCreateOrderRequest() throws Exception {
+        return createOrderReader.readValue(createOrderJson);
+    }
+    
+    @Benchmark
+    public byte[] serializeReservationRequest() throws Exception {
+        return reservationWriter.writeValueAsBytes(reservationRequest);
+    }
+    
+    @Benchmark
+    public ReservationRequest deserializeReservationRequest() throws Exception {
+        return reservationReader.readValue(reservationJson);
+    }
+}
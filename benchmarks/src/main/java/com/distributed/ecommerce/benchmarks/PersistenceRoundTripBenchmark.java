@@ -0,0 +1,145 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.dto.ReservationItemRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationResponse;
+import com.distributed.ecommerce.inventory.model.Product;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.service.InventoryService;
+import com.distributed.ecommerce.orders.id.OrderIdGenerator;
+import com.distributed.ecommerce.orders.model.Order;
+import com.distributed.ecommerce.orders.model.OrderItem;
+import com.distributed.ecommerce.orders.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists orders and reservations of {@code lines} items with Hibernate JDBC batching off
+ * ({@code batchSize=1}, one INSERT per row as with IDENTITY keys) and on, and prints the
+ * database round trips per operation at the end of each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PersistenceRoundTripBenchmark {
+    
+    @State(Scope.Benchmark)
+    public static class OrderState {
+        
+        @Param({"1", "50"})
+        int batchSize;
+        
+        @Param({"1", "30"})
+        int lines;
+        
+        ConfigurableApplicationContext context;
+        OrderRepository orderRepository;
+        OrderIdGenerator orderIdGenerator;
+        TransactionTemplate transactionTemplate;
+        RoundTripCounter counter;
+        long baseline;
+        final AtomicLong operations = new AtomicLong();
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = EmbeddedOrders.start("order_round_trips_" + batchSize + "_" + lines, 4, batchingArgs(batchSize));
+            orderRepository = context.getBean(OrderRepository.class);
+            orderIdGenerator = context.getBean(OrderIdGenerator.class);
+            transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            counter = context.getBean(RoundTripCounter.class);
+            baseline = counter.getRoundTrips();
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            report("order", batchSize, lines, counter.getRoundTrips() - baseline, operations.get());
+            context.close();
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class InventoryState {
+        
+        @Param({"1", "50"})
+        int batchSize;
+        
+        @Param({"1", "30"})
+        int lines;
+        
+        ConfigurableApplicationContext context;
+        InventoryService inventoryService;
+        RoundTripCounter counter;
+        long baseline;
+        long[] productIds;
+        final AtomicLong orderIds = new AtomicLong();
+        final AtomicLong operations = new AtomicLong();
+        
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = EmbeddedInventory.start("inventory_round_trips_" + batchSize + "_" + lines, 4, batchingArgs(batchSize));
+            inventoryService = context.getBean(InventoryService.class);
+            counter = context.getBean(RoundTripCounter.class);
+            
+            List<Product> products = new ArrayList<>(lines);
+            for (int i = 0; i < lines; i++) {
+                products.add(new Product("Produto " + i, "Benchmark product", new BigDecimal("99.90"), Integer.MAX_VALUE / 2));
+            }
+            productIds = context.getBean(ProductRepository.class).saveAll(products).stream()
+                    .mapToLong(Product::getId)
+                    .toArray();
+            baseline = counter.getRoundTrips();
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            report("reservation", batchSize, lines, counter.getRoundTrips() - baseline, operations.get());
+            context.close();
+        }
+    }
+    
+    @Benchmark
+    public Order persistOrder(OrderState state) {
+        state.operations.incrementAndGet();
+        return state.transactionTemplate.execute(status -> {
+            Order created = new Order("Cliente Benchmark", "cliente@example.com", "Rua A, 123", "11999999999",
+                    new BigDecimal("99.90").multiply(BigDecimal.valueOf(state.lines)));
+            created.setId(state.orderIdGenerator.nextId());
+            for (int i = 0; i < state.lines; i++) {
+                created.addItem(new OrderItem((long) i + 1, "Produto " + i, 1, new BigDecimal("99.90")));
+            }
+            return state.orderRepository.save(created);
+        });
+    }
+    
+    @Benchmark
+    public ReservationResponse reserveInventory(InventoryState state) {
+        state.operations.incrementAndGet();
+        List<ReservationItemRequest> items = new ArrayList<>(state.lines);
+        for (long productId : state.productIds) {
+            items.add(new ReservationItemRequest(productId, 1));
+        }
+        return state.inventoryService.reserveInventory(new ReservationRequest(state.orderIds.incrementAndGet(), items));
+    }
+    
+    private static String[] batchingArgs(int batchSize) {
+        return new String[] {
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "--context.initializer.classes=" + RoundTripCounter.class.getName()
+        };
+    }
+    
+    private static void report(String operation, int batchSize, int lines, long roundTrips, long operations) {
+        System.out.printf("%n%s: batchSize=%d lines=%d -> %.2f round trips per %s (%d operations)%n",
+                operation, batchSize, lines, (double) roundTrips / operations, operation, operations);
+    }
+}
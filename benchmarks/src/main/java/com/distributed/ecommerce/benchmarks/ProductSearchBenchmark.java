@@ -0,0 +1,78 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.search.TrigramIndex;
+import com.distributed.ecommerce.inventory.search.Trigrams;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product search over a synthetic catalog: the {@link TrigramIndex} against a linear scan of
+ * normalized names, for exact words, a prefix still being typed and a typo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+    
+    private static final String[] TYPES = {"Camiseta", "Calça", "Tênis", "Notebook", "Smartphone", "Fone",
+            "Mochila", "Relógio", "Cadeira", "Monitor", "Teclado", "Mouse", "Jaqueta", "Bermuda", "Garrafa"};
+    private static final String[] BRANDS = {"Aurora", "Boreal", "Cobalto", "Delta", "Estrela", "Farol",
+            "Granito", "Horizonte", "Ipê", "Jatobá", "Kappa", "Lótus", "Magma", "Netuno", "Orion"};
+    private static final String[] ADJECTIVES = {"Básica", "Esportiva", "Premium", "Slim", "Gamer", "Sem Fio",
+            "Impermeável", "Ergonômica", "Compacta", "Térmica", "Infantil", "Profissional"};
+    private static final String[] COLORS = {"Preto", "Branco", "Azul", "Vermelho", "Verde", "Cinza", "Rosa", "Bege"};
+    
+    @Param({"100000", "1000000"})
+    int products;
+    
+    @Param({"camiseta aurora preto", "noteb", "smatphone boreal"})
+    String query;
+    
+    private TrigramIndex index;
+    private String[] normalizedNames;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        TrigramIndex.Builder builder = TrigramIndex.builder(products);
+        normalizedNames = new String[products];
+        for (int i = 0; i < products; i++) {
+            String name = TYPES[random.nextInt(TYPES.length)] + " " + BRANDS[random.nextInt(BRANDS.length)] + " "
+                    + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + COLORS[random.nextInt(COLORS.length)]
+                    + " " + (random.nextInt(900) + 100);
+            builder.add(i + 1, name, "Produto de benchmark");
+            normalizedNames[i] = Trigrams.normalize(name);
+        }
+        index = builder.build();
+        System.out.printf("%n%d products: %d trigrams, %.1f bytes/product of posting lists%n",
+                products, index.getTrigramCount(), (double) index.getPostingBytes() / products);
+    }
+    
+    @Benchmark
+    public List<TrigramIndex.Hit> trigramIndex() {
+        return index.search(query, 20, 0.5, 20_000);
+    }
+    
+    /**
+     * What a {@code LIKE '%...%'} query does without an index: exact substring only, so the typo
+     * finds nothing, and every name is read.
+     */
+    @Benchmark
+    public List<Integer> linearScan() {
+        String needle = Trigrams.normalize(query);
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < normalizedNames.length && matches.size() < 20; i++) {
+            if (normalizedNames[i].contains(needle)) {
+                matches.add(i + 1);
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,39 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the in-memory stock arithmetic on {@link Product} that runs for every reserved line item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductStockBenchmark {
+    
+    private Product product;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        product = new Product("Smartphone Galaxy", "Benchmark product", new BigDecimal("899.99"), 1_000_000);
+        product.setId(1L);
+    }
+    
+    @Benchmark
+    public boolean reserveThenRelease() {
+        boolean reserved = product.reserveStock(2);
+        product.releaseReservation(2);
+        return reserved;
+    }
+    
+    @Benchmark
+    public boolean hasAvailableStock() {
+        return product.hasAvailableStock(2);
+    }
+}
@@ -0,0 +1,406 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.dto.ReservationItemRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationResponse;
+import com.distributed.ecommerce.inventory.model.Product;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.service.GroupCommitReservationExecutor;
+import com.distributed.ecommerce.inventory.service.InventoryService;
+import com.distributed.ecommerce.inventory.service.strategy.ReservationStrategyStats;
+import com.distributed.ecommerce.inventory.service.strategy.StockReservationStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Drives {@link InventoryService#reserveInventory} from many threads against 1, 10 and 1000 SKUs
+ * once per {@code inventory.reservation.strategy} and reports throughput, p99 latency and the
+ * strategy's retry/conflict/deadlock counters. After every run the products table is checked for
+ * overselling: stock untouched, reserved never above stock, and reserved equal both to what the
+ * harness saw succeed and to the sum of ACTIVE reservation items.
+ * <p>
+ * Options (all {@code --name=value}): {@code strategies}, {@code skus}, {@code threads},
+ * {@code duration} and {@code warmup} (seconds), {@code stock-per-sku}, {@code basket-max},
+ * {@code group-commit} to reserve through {@link GroupCommitReservationExecutor} on top of each
+ * strategy, {@code jdbc-url}/{@code jdbc-user}/{@code jdbc-password} to run against PostgreSQL
+ * instead of H2, and {@code output} for the JSON report. Exits with status 1 on any oversell
+ * violation.
+ */
+public final class ReservationContentionSuite {
+    
+    private static final String INTERNAL_ERROR_MESSAGE = "Internal error during reservation process";
+    
+    private final Map<String, String> options;
+    private final int threads;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int stockPerSku;
+    private final int basketMax;
+    private final boolean groupCommit;
+    private final AtomicLong orderIds = new AtomicLong();
+    
+    private ReservationContentionSuite(Map<String, String> options) {
+        this.options = options;
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "10"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        this.stockPerSku = Integer.parseInt(options.getOrDefault("stock-per-sku", "500"));
+        this.basketMax = Integer.parseInt(options.getOrDefault("basket-max", "3"));
+        this.groupCommit = Boolean.parseBoolean(options.getOrDefault("group-commit", "false"));
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unrecognized argument: " + arg + " (expected --name=value)");
+                System.exit(2);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        
+        List<RunResult> results = new ReservationContentionSuite(options).runAll();
+        
+        String output = options.getOrDefault("output", "benchmarks/target/contention-result.json");
+        writeJson(results, new File(output));
+        System.out.println("Results written to " + output);
+        
+        long violations = results.stream().mapToLong(result -> result.violations.size()).sum();
+        if (violations > 0) {
+            System.out.printf("%d oversell violation(s) detected%n", violations);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+    
+    private List<RunResult> runAll() throws InterruptedException {
+        List<RunResult> results = new ArrayList<>();
+        String[] strategies = options.getOrDefault("strategies", "pessimistic,optimistic,conditional,ledger").split(",");
+        String[] skuCounts = options.getOrDefault("skus", "1,10,1000").split(",");
+        
+        for (String strategy : strategies) {
+            try (ConfigurableApplicationContext context = startInventory(strategy.trim())) {
+                for (String skuCount : skuCounts) {
+                    String name = groupCommit ? strategy.trim() + "+group" : strategy.trim();
+                    RunResult result = run(context, name, Integer.parseInt(skuCount.trim()));
+                    results.add(result);
+                    print(result);
+                }
+            }
+        }
+        return results;
+    }
+    
+    private ConfigurableApplicationContext startInventory(String strategy) {
+        // One connection per worker plus headroom so pool waits do not mask lock waits
+        int poolSize = threads + 2;
+        String strategyArg = "--inventory.reservation.strategy=" + strategy;
+        String groupCommitArg = "--inventory.reservation.group-commit.enabled=" + groupCommit;
+        String jdbcUrl = options.get("jdbc-url");
+        if (jdbcUrl != null) {
+            return EmbeddedInventory.startExternal(jdbcUrl, options.getOrDefault("jdbc-user", "inventory_user"),
+                    options.getOrDefault("jdbc-password", "inventory_password"), poolSize, strategyArg, groupCommitArg);
+        }
+        return EmbeddedInventory.start("contention_" + strategy, poolSize, strategyArg, groupCommitArg);
+    }
+    
+    private RunResult run(ConfigurableApplicationContext context, String strategyName, int skuCount)
+            throws InterruptedException {
+        InventoryService inventoryService = context.getBean(InventoryService.class);
+        GroupCommitReservationExecutor groupCommitExecutor = context.getBean(GroupCommitReservationExecutor.class);
+        Function<ReservationRequest, ReservationResponse> reserve = groupCommit
+                ? groupCommitExecutor::reserve : inventoryService::reserveInventory;
+        StockReservationStrategy strategy = context.getBean(StockReservationStrategy.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        
+        long[] productIds = seed(context, jdbcTemplate, skuCount);
+        AtomicLongArray reservedByHarness = new AtomicLongArray(skuCount);
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(reserve, strategy.getStats(), productIds, reservedByHarness);
+        }
+        
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> started = new ArrayList<>();
+        for (Worker worker : workers) {
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.runUntil(measureFrom, measureUntil);
+                } finally {
+                    done.countDown();
+                }
+            }, "contention-" + started.size());
+            thread.start();
+            started.add(thread);
+        }
+        // Strategy counters cover the measured window only, like the latency histograms
+        TimeUnit.NANOSECONDS.sleep(measureFrom - System.nanoTime());
+        Counters before = Counters.of(strategy.getStats());
+        long groupsBefore = groupCommitExecutor.getGroups();
+        long groupedBefore = groupCommitExecutor.getGroupedReservations();
+        TimeUnit.NANOSECONDS.sleep(measureUntil - System.nanoTime());
+        Counters after = Counters.of(strategy.getStats());
+        long groups = groupCommitExecutor.getGroups() - groupsBefore;
+        long grouped = groupCommitExecutor.getGroupedReservations() - groupedBefore;
+        done.await();
+        
+        RunResult result = new RunResult(strategyName, skuCount, threads, durationSeconds);
+        Histogram latency = new Histogram(3);
+        for (Worker worker : workers) {
+            latency.add(worker.latency);
+            result.succeeded += worker.succeeded;
+            result.rejected += worker.rejected;
+            result.errors += worker.errors;
+        }
+        Counters delta = after.minus(before);
+        result.retries = delta.retries;
+        result.conflicts = delta.conflicts;
+        result.fastRejections = delta.fastRejections;
+        result.deadlocks = delta.deadlocks;
+        result.lockTimeouts = delta.lockTimeouts;
+        result.averageGroupSize = groups > 0 ? grouped / (double) groups : 0;
+        result.throughput = (result.succeeded + result.rejected + result.errors) / (double) durationSeconds;
+        result.p50Micros = latency.getValueAtPercentile(50.0);
+        result.p99Micros = latency.getValueAtPercentile(99.0);
+        result.maxMicros = latency.getMaxValue();
+        result.violations = checkForOversell(jdbcTemplate, productIds, reservedByHarness);
+        return result;
+    }
+    
+    /**
+     * Clears previous runs and inserts {@code skuCount} fresh products. New ids on every run keep
+     * strategies that cache stock per product (the ledger) from seeing stale entries.
+     */
+    private long[] seed(ConfigurableApplicationContext context, JdbcTemplate jdbcTemplate, int skuCount) {
+        jdbcTemplate.update("DELETE FROM reservation_items");
+        jdbcTemplate.update("DELETE FROM reservations");
+        jdbcTemplate.update("DELETE FROM products");
+        
+        List<Product> products = new ArrayList<>(skuCount);
+        for (int i = 0; i < skuCount; i++) {
+            products.add(new Product("Produto " + i, "Contention product", new BigDecimal("99.90"), stockPerSku));
+        }
+        return context.getBean(ProductRepository.class).saveAll(products).stream()
+                .mapToLong(Product::getId)
+                .toArray();
+    }
+    
+    private List<String> checkForOversell(JdbcTemplate jdbcTemplate, long[] productIds, AtomicLongArray reservedByHarness) {
+        Map<Long, long[]> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT id, quantity, reserved_quantity FROM products", resultSet -> {
+            rows.put(resultSet.getLong(1), new long[] {resultSet.getLong(2), resultSet.getLong(3)});
+        });
+        Map<Long, Long> activeItems = new HashMap<>();
+        jdbcTemplate.query("SELECT ri.product_id, SUM(ri.quantity) FROM reservation_items ri "
+                + "JOIN reservations r ON r.id = ri.reservation_id WHERE r.status = 'ACTIVE' "
+                + "GROUP BY ri.product_id", resultSet -> {
+            activeItems.put(resultSet.getLong(1), resultSet.getLong(2));
+        });
+        
+        List<String> violations = new ArrayList<>();
+        for (int i = 0; i < productIds.length; i++) {
+            long productId = productIds[i];
+            long[] row = rows.get(productId);
+            if (row == null) {
+                violations.add("product " + productId + " disappeared");
+                continue;
+            }
+            long quantity = row[0];
+            long reserved = row[1];
+            long expected = reservedByHarness.get(i);
+            long items = activeItems.getOrDefault(productId, 0L);
+            if (quantity != stockPerSku) {
+                violations.add(String.format("product %d: quantity changed from %d to %d", productId, stockPerSku, quantity));
+            }
+            if (reserved > quantity) {
+                violations.add(String.format("product %d: oversold, reserved %d of %d", productId, reserved, quantity));
+            }
+            if (reserved != expected) {
+                violations.add(String.format("product %d: reserved %d but %d confirmed to clients", productId, reserved, expected));
+            }
+            if (reserved != items) {
+                violations.add(String.format("product %d: reserved %d but active reservation items sum to %d", productId, reserved, items));
+            }
+        }
+        return violations;
+    }
+    
+    private static void print(RunResult result) {
+        System.out.printf("%-12s skus=%-5d threads=%-3d %10.1f req/s  ok=%-7d rejected=%-7d errors=%-5d "
+                        + "retries=%-6d conflicts=%-5d deadlocks=%-4d lockTimeouts=%-4d fastRejections=%-7d "
+                        + "p50=%.2fms p99=%.2fms max=%.2fms%s%s%n",
+                result.strategy, result.skus, result.threads, result.throughput,
+                result.succeeded, result.rejected, result.errors,
+                result.retries, result.conflicts, result.deadlocks, result.lockTimeouts, result.fastRejections,
+                result.p50Micros / 1000.0, result.p99Micros / 1000.0, result.maxMicros / 1000.0,
+                result.averageGroupSize > 0 ? String.format("  group=%.1f", result.averageGroupSize) : "",
+                result.violations.isEmpty() ? "" : "  OVERSELL " + result.violations);
+    }
+    
+    private static void writeJson(List<RunResult> results, File file) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (RunResult result : results) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("strategy", result.strategy);
+            row.put("skus", result.skus);
+            row.put("threads", result.threads);
+            row.put("durationSeconds", result.durationSeconds);
+            row.put("throughput", result.throughput);
+            row.put("succeeded", result.succeeded);
+            row.put("rejected", result.rejected);
+            row.put("errors", result.errors);
+            row.put("retries", result.retries);
+            row.put("conflicts", result.conflicts);
+            row.put("fastRejections", result.fastRejections);
+            row.put("deadlocks", result.deadlocks);
+            row.put("lockTimeouts", result.lockTimeouts);
+            row.put("p50Micros", result.p50Micros);
+            row.put("p99Micros", result.p99Micros);
+            row.put("maxMicros", result.maxMicros);
+            row.put("averageGroupSize", result.averageGroupSize);
+            row.put("violations", result.violations);
+            rows.add(row);
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, rows);
+    }
+    
+    /**
+     * One load thread. Baskets hold distinct products in random order so lock-based strategies
+     * can deadlock on multi-SKU catalogs, which is part of what the suite measures.
+     */
+    private final class Worker {
+        private final Function<ReservationRequest, ReservationResponse> reserve;
+        private final ReservationStrategyStats stats;
+        private final long[] productIds;
+        private final AtomicLongArray reservedByHarness;
+        private final Histogram latency = new Histogram(TimeUnit.SECONDS.toMicros(60), 3);
+        private long succeeded;
+        private long rejected;
+        private long errors;
+        
+        private Worker(Function<ReservationRequest, ReservationResponse> reserve, ReservationStrategyStats stats,
+                       long[] productIds, AtomicLongArray reservedByHarness) {
+            this.reserve = reserve;
+            this.stats = stats;
+            this.productIds = productIds;
+            this.reservedByHarness = reservedByHarness;
+        }
+        
+        private void runUntil(long measureFrom, long measureUntil) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < measureUntil) {
+                int basketSize = 1 + random.nextInt(Math.min(basketMax, productIds.length));
+                int[] indexes = random.ints(0, productIds.length).distinct().limit(basketSize).toArray();
+                List<ReservationItemRequest> items = new ArrayList<>(basketSize);
+                int[] quantities = new int[basketSize];
+                for (int i = 0; i < basketSize; i++) {
+                    quantities[i] = 1 + random.nextInt(2);
+                    items.add(new ReservationItemRequest(productIds[indexes[i]], quantities[i]));
+                }
+                
+                boolean measuring = now >= measureFrom;
+                Outcome outcome = reserve(new ReservationRequest(orderIds.incrementAndGet(), items));
+                if (outcome == Outcome.SUCCEEDED) {
+                    for (int i = 0; i < basketSize; i++) {
+                        reservedByHarness.addAndGet(indexes[i], quantities[i]);
+                    }
+                }
+                if (!measuring) {
+                    continue;
+                }
+                latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - now), latency.getHighestTrackableValue()));
+                switch (outcome) {
+                    case SUCCEEDED -> succeeded++;
+                    case REJECTED -> rejected++;
+                    case ERROR -> errors++;
+                }
+            }
+        }
+        
+        private Outcome reserve(ReservationRequest request) {
+            try {
+                ReservationResponse response = reserve.apply(request);
+                if (response.isSuccess()) {
+                    return Outcome.SUCCEEDED;
+                }
+                return INTERNAL_ERROR_MESSAGE.equals(response.getMessage()) ? Outcome.ERROR : Outcome.REJECTED;
+            } catch (RuntimeException e) {
+                // Failures raised at commit (deadlock victims, stale versions) escape the service
+                stats.recordFailure(e);
+                return Outcome.ERROR;
+            }
+        }
+    }
+    
+    private enum Outcome { SUCCEEDED, REJECTED, ERROR }
+    
+    private record Counters(long retries, long conflicts, long fastRejections, long deadlocks, long lockTimeouts) {
+        
+        static Counters of(ReservationStrategyStats stats) {
+            return new Counters(stats.getRetries(), stats.getConflicts(), stats.getFastRejections(),
+                    stats.getDeadlocks(), stats.getLockTimeouts());
+        }
+        
+        Counters minus(Counters other) {
+            return new Counters(retries - other.retries, conflicts - other.conflicts,
+                    fastRejections - other.fastRejections, deadlocks - other.deadlocks,
+                    lockTimeouts - other.lockTimeouts);
+        }
+    }
+    
+    private static final class RunResult {
+        private final String strategy;
+        private final int skus;
+        private final int threads;
+        private final int durationSeconds;
+        private double throughput;
+        private long succeeded;
+        private long rejected;
+        private long errors;
+        private long retries;
+        private long conflicts;
+        private long fastRejections;
+        private long deadlocks;
+        private long lockTimeouts;
+        private long p50Micros;
+        private long p99Micros;
+        private long maxMicros;
+        private double averageGroupSize;
+        private List<String> violations = List.of();
+        
+        private RunResult(String strategy, int skus, int threads, int durationSeconds) {
+            this.strategy = strategy;
+            this.skus = skus;
+            this.threads = threads;
+            this.durationSeconds = durationSeconds;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.dto.ReleaseReservationRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationItemRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationResponse;
+import com.distributed.ecommerce.inventory.model.Product;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.service.InventoryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link InventoryService} reservations against an embedded H2 database.
+ * {@code productCount} controls contention: with one product every thread queues on the
+ * same pessimistic row lock, with 1000 products the locks rarely collide.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ReservationServiceBenchmark {
+    
+    private static final int INITIAL_STOCK = Integer.MAX_VALUE / 2;
+    
+    @Param({"1", "10", "1000"})
+    private int productCount;
+    
+    private ConfigurableApplicationContext context;
+    private InventoryService inventoryService;
+    private long[] productIds;
+    private final AtomicLong orderIds = new AtomicLong();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedInventory.start("reservation_bench_" + productCount, 16);
+        inventoryService = context.getBean(InventoryService.class);
+        
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            products.add(new Product("Produto " + i, "Benchmark product", new BigDecimal("99.90"), INITIAL_STOCK));
+        }
+        productIds = context.getBean(ProductRepository.class).saveAll(products).stream()
+                .mapToLong(Product::getId)
+                .toArray();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public ReservationResponse reserve() {
+        return inventoryService.reserveInventory(nextRequest());
+    }
+    
+    @Benchmark
+    public ReservationResponse reserveThenRelease() {
+        ReservationRequest request = nextRequest();
+        inventoryService.reserveInventory(request);
+        return inventoryService.releaseReservation(new ReleaseReservationRequest(request.getOrderId()));
+    }
+    
+    private ReservationRequest nextRequest() {
+        long productId = productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+        return new ReservationRequest(orderIds.incrementAndGet(), List.of(new ReservationItemRequest(productId, 1)));
+    }
+}
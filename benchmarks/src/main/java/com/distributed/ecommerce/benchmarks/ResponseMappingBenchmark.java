@@ -0,0 +1,79 @@
+package com.distributed.ecommerce.benchmarks;
+
+import com.distributed.ecommerce.inventory.dto.ProductResponse;
+import com.distributed.ecommerce.inventory.model.Product;
+import com.distributed.ecommerce.orders.dto.OrderResponse;
+import com.distributed.ecommerce.orders.model.Order;
+import com.distributed.ecommerce.orders.model.OrderItem;
+import com.distributed.ecommerce.orders.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the entity-to-DTO mappings that run on every order and product read.
+ * The conversion methods are private to the services, so they are invoked through method handles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+    
+    private static final MethodHandle CONVERT_TO_ORDER_RESPONSE = privateMethod(
+            OrderService.class, "convertToOrderResponse", OrderResponse.class, Order.class);
+    
+    private static final MethodHandle CONVERT_TO_PRODUCT_RESPONSE = privateMethod(
+            com.distributed.ecommerce.inventory.service.InventoryService.class, "convertToProductResponse",
+            ProductResponse.class, Product.class);
+    
+    @Param({"1", "5", "30"})
+    private int itemCount;
+    
+    private OrderService orderService;
+    private com.distributed.ecommerce.inventory.service.InventoryService inventoryService;
+    private Order order;
+    private Product product;
+    
+    @Setup
+    public void setUp() {
+        orderService = new OrderService();
+        inventoryService = new com.distributed.ecommerce.inventory.service.InventoryService();
+        
+        order = new Order("João Silva", "joao@email.com", "Rua das Flores, 123", "(65) 99999-9999",
+                BigDecimal.ZERO);
+        order.setId(42L);
+        for (int i = 0; i < itemCount; i++) {
+            order.addItem(new OrderItem((long) i + 1, "Produto " + i, 1 + (i % 3), new BigDecimal("199.99")));
+        }
+        
+        product = new Product("Notebook Gamer", "Notebook para jogos", new BigDecimal("3299.99"), 8);
+        product.setId(2L);
+    }
+    
+    @Benchmark
+    public OrderResponse convertToOrderResponse() throws Throwable {
+        return (OrderResponse) CONVERT_TO_ORDER_RESPONSE.invokeExact(orderService, order);
+    }
+    
+    @Benchmark
+    public ProductResponse convertToProductResponse() throws Throwable {
+        return (ProductResponse) CONVERT_TO_PRODUCT_RESPONSE.invokeExact(inventoryService, product);
+    }
+    
+    private static MethodHandle privateMethod(Class<?> owner, String name, Class<?> returnType, Class<?> argumentType) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            return lookup.findVirtual(owner, name, MethodType.methodType(returnType, argumentType))
+                    .asType(MethodType.methodType(returnType, owner, argumentType));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot access " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+}
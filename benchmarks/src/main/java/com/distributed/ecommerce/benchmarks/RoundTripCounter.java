@@ -0,0 +1,92 @@
+package com.distributed.ecommerce.benchmarks;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts JDBC statement executions, i.e. database round trips, made by a booted service.
+ * A batch sent with {@code executeBatch} counts once however many rows it carries.
+ * <p>
+ * Enabled with {@code --context.initializer.classes=com.distributed.ecommerce.benchmarks.RoundTripCounter};
+ * the counter is then available as a bean of this type.
+ */
+public class RoundTripCounter implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+    
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    
+    private final LongAdder roundTrips = new LongAdder();
+    
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        context.getBeanFactory().registerSingleton("roundTripCounter", this);
+        context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? new CountingDataSource(dataSource) : bean;
+            }
+        });
+    }
+    
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+    
+    private final class CountingDataSource extends DelegatingDataSource {
+        
+        private CountingDataSource(DataSource target) {
+            super(target);
+        }
+        
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(super.getConnection());
+        }
+        
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(super.getConnection(username, password));
+        }
+    }
+    
+    /**
+     * Proxies a connection so every statement it creates is proxied as well, and counts
+     * the execute calls made on those statements.
+     */
+    private Connection wrap(Connection connection) {
+        return (Connection) proxy(connection, Connection.class);
+    }
+    
+    private Object proxy(Object target, Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName())) {
+                roundTrips.increment();
+            }
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy(result, method.getReturnType());
+            }
+            return result;
+        });
+    }
+    
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.distributed.ecommerce.eventlog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Structured event logging for the request hot paths. Request threads build an event in a
+ * per-thread draft and copy it into a preallocated ring; a single background thread renders
+ * the events as {@code key=value} lines and writes them through slf4j. Publishing is a CAS on
+ * the ring head and never blocks: when the writer falls behind, INFO events are dropped and
+ * counted, and WARN events are written on the calling thread instead.
+ * <p>
+ * Per-order detail goes through {@link #detail(long, String)}, which only records for one in
+ * {@code eventlog.sample-rate} keys, chosen by hash so every event of a sampled order is kept.
+ * <p>
+ * Usage: {@code eventLog.info("order.created").with("orderId", id).with("status", status).log();}.
+ * An event must be logged before another one is started on the same thread.
+ * <p>
+ * While the writer is not running ({@code eventlog.enabled=false}, or after shutdown) INFO
+ * events are discarded, but WARN events are still written, synchronously on the calling thread.
+ * <p>
+ * Each service declares the bean with its own properties and supplies the current trace id.
+ */
+public class EventLog {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EventLog.class);
+    
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long DROP_REPORT_INTERVAL_MILLIS = 10_000;
+    
+    private final Supplier<String> traceIds;
+    private final boolean enabled;
+    private final int sampleRate;
+    private final LogEvent[] ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final ThreadLocal<LogEvent> drafts;
+    
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private Thread writer;
+    
+    // Touched only by the writer thread
+    private long reportedDrops;
+    private long lastDropReport;
+    
+    /**
+     * @param traceIds supplies the trace id of the calling thread, or null outside a trace
+     * @param enabled whether to start the writer thread
+     * @param bufferSize ring capacity, a power of two
+     * @param sampleRate one in this many keys is sampled by {@link #detail(long, String)}
+     */
+    public EventLog(Supplier<String> traceIds, boolean enabled, int bufferSize, int sampleRate) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("eventlog.buffer-size must be a positive power of two");
+        }
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("eventlog.sample-rate must not be negative");
+        }
+        this.traceIds = traceIds;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.ring = new LogEvent[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            ring[i] = new LogEvent(this);
+        }
+        this.mask = bufferSize - 1;
+        this.drafts = ThreadLocal.withInitial(() -> new LogEvent(this));
+    }
+    
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "event-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    public LogEvent info(String name) {
+        return logger.isInfoEnabled() ? begin(Level.INFO, name) : LogEvent.NOOP;
+    }
+    
+    public LogEvent warn(String name) {
+        return logger.isWarnEnabled() ? begin(Level.WARN, name) : LogEvent.NOOP;
+    }
+    
+    /**
+     * Starts a detail event that is only recorded when {@code sampleKey} is sampled.
+     * 
+     * @param sampleKey the key deciding the sample, usually the order id
+     * @param name the event name
+     * @return the event to fill, or a no-op event when the key is not sampled
+     */
+    public LogEvent detail(long sampleKey, String name) {
+        return isSampled(sampleKey) && logger.isInfoEnabled() ? begin(Level.INFO, name) : LogEvent.NOOP;
+    }
+    
+    /**
+     * Whether per-request detail should be recorded for this key. The decision is a pure
+     * function of the key, so both services sample the same orders.
+     */
+    public boolean isSampled(long sampleKey) {
+        if (!enabled || sampleRate == 0) {
+            return false;
+        }
+        if (sampleRate == 1) {
+            return true;
+        }
+        long hash = sampleKey * 0x9E3779B97F4A7C15L;
+        return Long.remainderUnsigned(hash >>> 16, sampleRate) == 0;
+    }
+    
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    public long getWrittenCount() {
+        return written.get();
+    }
+    
+    public int getCapacity() {
+        return ring.length;
+    }
+    
+    private LogEvent begin(Level level, String name) {
+        if (!running && level != Level.WARN) {
+            return LogEvent.NOOP;
+        }
+        LogEvent draft = drafts.get();
+        draft.begin(level, name, Thread.currentThread().getName(), traceIds.get());
+        return draft;
+    }
+    
+    void publish(LogEvent draft) {
+        if (!running) {
+            // Only WARN events get here without a writer; they are too important to discard
+            write(draft, new StringBuilder(256));
+            draft.clear();
+            return;
+        }
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - consumed.get() >= ring.length) {
+                if (draft.level == Level.WARN) {
+                    write(draft, new StringBuilder(256));
+                } else {
+                    dropped.increment();
+                }
+                draft.clear();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+        
+        LogEvent slot = ring[(int) sequence & mask];
+        slot.copyFrom(draft);
+        slot.published = sequence;
+        draft.clear();
+        
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+    
+    private void drain() {
+        StringBuilder line = new StringBuilder(256);
+        
+        while (running || consumed.get() < head.get()) {
+            long next = consumed.get();
+            LogEvent slot = ring[(int) next & mask];
+            if (slot.published == next) {
+                write(slot, line);
+                slot.clear();
+                consumed.lazySet(next + 1);
+                written.lazySet(written.get() + 1);
+                if ((next & 1023) == 0) {
+                    reportDrops();
+                }
+                continue;
+            }
+            if (next < head.get()) {
+                // Claimed but still being copied by the producer
+                Thread.onSpinWait();
+                continue;
+            }
+            
+            reportDrops();
+            writerParked = true;
+            if (consumed.get() == head.get() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+    }
+    
+    private void reportDrops() {
+        long now = System.currentTimeMillis();
+        if (now - lastDropReport < DROP_REPORT_INTERVAL_MILLIS) {
+            return;
+        }
+        lastDropReport = now;
+        long drops = dropped.sum();
+        if (drops > reportedDrops) {
+            logger.warn("Event log dropped {} events under backpressure ({} in total)", drops - reportedDrops, drops);
+            reportedDrops = drops;
+        }
+    }
+    
+    private void write(LogEvent event, StringBuilder line) {
+        line.setLength(0);
+        line.append("event=").append(event.name);
+        for (int i = 0; i < event.fieldCount; i++) {
+            line.append(' ').append(event.keys[i]).append('=');
+            if (event.numeric[i]) {
+                line.append(event.numbers[i]);
+            } else {
+                appendValue(line, event.values[i]);
+            }
+        }
+        line.append(" thread=").append(event.threadName);
+        if (event.traceId != null) {
+            line.append(" traceId=").append(event.traceId);
+        }
+        line.append(" at=").append(Instant.ofEpochMilli(event.timestampMillis));
+        
+        String rendered = line.toString();
+        if (event.level == Level.WARN) {
+            logger.warn(rendered);
+        } else {
+            logger.info(rendered);
+        }
+    }
+    
+    private static void appendValue(StringBuilder line, Object value) {
+        String text = String.valueOf(value);
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ' ' || c == '=' || c == '"';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
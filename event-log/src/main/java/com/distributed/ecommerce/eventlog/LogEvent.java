@@ -0,0 +1,115 @@
+package com.distributed.ecommerce.eventlog;
+
+import org.slf4j.event.Level;
+
+/**
+ * A structured log record: a fixed event name plus up to {@value #MAX_FIELDS} key/value fields.
+ * Callers fill a per-thread draft through {@link #with} and hand it to the {@link EventLog} with
+ * {@link #log()}, which copies it into a preallocated ring slot. Numeric fields are stored as
+ * primitives, other values by reference and rendered later on the writer thread, so only
+ * immutable values (strings, enums, numbers) should be passed.
+ */
+public class LogEvent {
+    
+    static final int MAX_FIELDS = 8;
+    
+    /** Returned when an event is disabled, not sampled or cannot be buffered; ignores everything. */
+    static final LogEvent NOOP = new LogEvent(null) {
+        @Override
+        public LogEvent with(String key, long value) {
+            return this;
+        }
+        
+        @Override
+        public LogEvent with(String key, Object value) {
+            return this;
+        }
+        
+        @Override
+        public void log() {
+        }
+    };
+    
+    private final EventLog owner;
+    
+    Level level;
+    String name;
+    long timestampMillis;
+    String threadName;
+    String traceId;
+    int fieldCount;
+    final String[] keys = new String[MAX_FIELDS];
+    final long[] numbers = new long[MAX_FIELDS];
+    final Object[] values = new Object[MAX_FIELDS];
+    final boolean[] numeric = new boolean[MAX_FIELDS];
+    
+    /** Sequence this slot was last published under; read by the writer to detect completion. */
+    volatile long published = -1;
+    
+    LogEvent(EventLog owner) {
+        this.owner = owner;
+    }
+    
+    public LogEvent with(String key, long value) {
+        if (fieldCount < MAX_FIELDS) {
+            keys[fieldCount] = key;
+            numbers[fieldCount] = value;
+            numeric[fieldCount] = true;
+            fieldCount++;
+        }
+        return this;
+    }
+    
+    public LogEvent with(String key, Object value) {
+        if (fieldCount < MAX_FIELDS) {
+            keys[fieldCount] = key;
+            values[fieldCount] = value;
+            numeric[fieldCount] = false;
+            fieldCount++;
+        }
+        return this;
+    }
+    
+    /**
+     * Publishes the event. Never blocks: the event is dropped and counted when the ring is full.
+     * A WARN event logged while the writer is not running is written on the calling thread.
+     */
+    public void log() {
+        owner.publish(this);
+    }
+    
+    void begin(Level level, String name, String threadName, String traceId) {
+        this.level = level;
+        this.name = name;
+        this.timestampMillis = System.currentTimeMillis();
+        this.threadName = threadName;
+        this.traceId = traceId;
+        this.fieldCount = 0;
+    }
+    
+    void copyFrom(LogEvent draft) {
+        level = draft.level;
+        name = draft.name;
+        timestampMillis = draft.timestampMillis;
+        threadName = draft.threadName;
+        traceId = draft.traceId;
+        fieldCount = draft.fieldCount;
+        System.arraycopy(draft.keys, 0, keys, 0, fieldCount);
+        System.arraycopy(draft.numbers, 0, numbers, 0, fieldCount);
+        System.arraycopy(draft.values, 0, values, 0, fieldCount);
+        System.arraycopy(draft.numeric, 0, numeric, 0, fieldCount);
+    }
+    
+    /**
+     * Drops object references so a recycled slot or draft does not keep request data alive.
+     */
+    void clear() {
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = null;
+        }
+        name = null;
+        threadName = null;
+        traceId = null;
+        fieldCount = 0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.distributed.ecommerce.eventlog;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLogTest {
+    
+    private final Logger logger = (Logger) LoggerFactory.getLogger(EventLog.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    
+    @BeforeEach
+    void attachAppender() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+    
+    @AfterEach
+    void detachAppender() {
+        logger.detachAppender(appender);
+    }
+    
+    @Test
+    void disabledLogStillWritesWarnEventsOnTheCallingThread() {
+        EventLog eventLog = new EventLog(() -> "trace-1", false, 8, 1);
+        eventLog.start();
+        
+        assertSame(LogEvent.NOOP, eventLog.info("order.created"));
+        assertSame(LogEvent.NOOP, eventLog.detail(7, "order.item"));
+        eventLog.warn("inventory.unavailable").with("orderId", 7).with("reason", "sold out").log();
+        
+        List<String> lines = messages();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("event=inventory.unavailable orderId=7 reason=\"sold out\" thread="
+                + Thread.currentThread().getName() + " traceId=trace-1 at="), lines.get(0));
+        assertEquals("WARN", appender.list.get(0).getLevel().toString());
+        assertEquals(0, eventLog.getWrittenCount());
+    }
+    
+    @Test
+    void warnEventsAfterStopAreWrittenOnTheCallingThread() throws InterruptedException {
+        EventLog eventLog = new EventLog(() -> null, true, 8, 1);
+        eventLog.start();
+        eventLog.info("order.created").with("orderId", 1).log();
+        eventLog.stop();
+        
+        assertSame(LogEvent.NOOP, eventLog.info("order.created"));
+        eventLog.warn("order.failed").with("orderId", 2).log();
+        
+        List<String> lines = messages();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("event=order.created orderId=1 thread="), lines.get(0));
+        assertTrue(lines.get(1).startsWith("event=order.failed orderId=2 thread="), lines.get(1));
+        assertEquals(1, eventLog.getWrittenCount());
+    }
+    
+    @Test
+    void runningLogWritesEventsOnTheWriterThread() throws InterruptedException {
+        EventLog eventLog = new EventLog(() -> null, true, 8, 1);
+        eventLog.start();
+        try {
+            eventLog.warn("order.failed").with("orderId", 3).log();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (eventLog.getWrittenCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        } finally {
+            eventLog.stop();
+        }
+        
+        assertEquals(1, appender.list.size());
+        assertEquals("event-log-writer", appender.list.get(0).getThreadName());
+    }
+    
+    @Test
+    void fullRingDropsInfoEventsButStillWritesWarnEvents() throws InterruptedException {
+        PausingAppender pausing = new PausingAppender();
+        pausing.start();
+        logger.addAppender(pausing);
+        EventLog eventLog = new EventLog(() -> null, true, 8, 1);
+        eventLog.start();
+        try {
+            // The writer takes the first event and stays inside the appender, so its slot is not freed
+            eventLog.info("order.created").with("orderId", 0).log();
+            assertTrue(pausing.paused.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < eventLog.getCapacity(); i++) {
+                eventLog.info("order.created").with("orderId", i).log();
+            }
+            for (int i = 0; i < 3; i++) {
+                eventLog.info("order.created").with("orderId", 100 + i).log();
+            }
+            eventLog.warn("order.failed").with("orderId", 200).log();
+            
+            assertEquals(3, eventLog.getDroppedCount());
+            ILoggingEvent warn = appender.list.get(appender.list.size() - 1);
+            assertTrue(warn.getFormattedMessage().startsWith("event=order.failed orderId=200 thread="), warn.getFormattedMessage());
+            assertEquals(Thread.currentThread().getName(), warn.getThreadName());
+        } finally {
+            pausing.resume.countDown();
+            eventLog.stop();
+            logger.detachAppender(pausing);
+        }
+        
+        assertEquals(eventLog.getCapacity(), eventLog.getWrittenCount());
+        assertEquals(3, eventLog.getDroppedCount());
+        assertTrue(messages().stream().noneMatch(line -> line.startsWith("event=order.created orderId=10")), messages().toString());
+    }
+    
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+    
+    /** Holds the writer thread in its first append until released. */
+    private static class PausingAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+        
+        final CountDownLatch paused = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+        
+        @Override
+        protected void append(ILoggingEvent event) {
+            if (!"event-log-writer".equals(Thread.currentThread().getName()) || paused.getCount() == 0) {
+                return;
+            }
+            paused.countDown();
+            try {
+                resume.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
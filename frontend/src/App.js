@@ -113,6 +113,26 @@ function App() {
     });
   };
 
+  // Itens do carrinho que o estoque não consegue atender, sem criar pedido nem reservar
+  const findUnavailableItems = async () => {
+    try {
+      const response = await axios.post(`${API_BASE_URL}/api/orders/availability`, {
+        items: cart.map(item => ({ productId: item.id, quantity: item.quantity }))
+      }, { timeout: 5000 });
+
+      if (response.data.allAvailable) {
+        return [];
+      }
+      const unavailableIds = response.data.items
+        .filter(item => !item.available)
+        .map(item => item.productId);
+      return cart.filter(item => unavailableIds.includes(item.id));
+    } catch (error) {
+      console.warn('Não foi possível verificar o estoque:', error);
+      return [];
+    }
+  };
+
   // Finalizar pedido
   const handleCheckout = async () => {
     if (cart.length === 0) {
@@ -129,6 +149,16 @@ function App() {
     setOrderStatus({ type: 'loading', message: 'Processando seu pedido...' });
 
     try {
+      // Verificar o estoque antes de criar o pedido; se a consulta falhar, o pedido segue normalmente
+      const unavailable = await findUnavailableItems();
+      if (unavailable.length > 0) {
+        setOrderStatus({
+          type: 'error',
+          message: `Estoque insuficiente para: ${unavailable.map(item => item.name).join(', ')}. Ajuste o carrinho e tente novamente.`
+        });
+        return;
+      }
+
       // Preparar dados do pedido
       const orderData = {
         customerName: customerInfo.name,
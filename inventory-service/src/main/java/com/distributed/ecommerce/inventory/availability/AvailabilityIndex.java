@@ -0,0 +1,387 @@
+package com.distributed.ecommerce.inventory.availability;
+
+import com.distributed.ecommerce.inventory.invalidation.InvalidationBus;
+import com.distributed.ecommerce.inventory.invalidation.InvalidationListener;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.repository.StockSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock counters of every product in a {@link StockTable}, so availability reads are answered
+ * from memory. The table is bulk loaded once the application is ready, then kept current by
+ * applying each committed reservation, release and confirmation in place, and by reloading
+ * the products other replicas report through the {@link InvalidationBus}.
+ * <p>
+ * Until the first load completes, and for products created after it, lookups report
+ * {@link StockTable#ABSENT} and callers fall back to the database.
+ * <p>
+ * With {@code inventory.availability-snapshot.enabled}, every state of the table is also
+ * written through to an {@link AvailabilitySnapshot} file, which other processes on the host can
+ * map. A restarting instance answers lookups from the last snapshot until its own load
+ * completes, if it is at most {@code inventory.availability-snapshot.max-age-seconds} old. The
+ * index is then provisional: {@link #isReady} stays false, so consumers that must reflect the
+ * database, like the change feed, wait for the load.
+ * <p>
+ * Every change applied to the table is reported to the registered {@link AvailabilityListener}s.
+ */
+@Component
+public class AvailabilityIndex implements InvalidationListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final Path snapshotPath;
+    private final List<AvailabilityListener> listeners = new CopyOnWriteArrayList<>();
+    
+    private final long snapshotMaxAgeMillis;
+    
+    private volatile StockTable table;
+    
+    /** The table was restored from a snapshot and the database load has not replaced it yet. */
+    private volatile boolean provisional;
+    
+    /** Written through on every change once the first load has published it. Guarded by this. */
+    private AvailabilitySnapshot snapshot;
+    
+    /** Products changed while a full load is running; reloaded once it is swapped in. Guarded by this. */
+    private Set<Long> changedDuringLoad;
+    
+    public AvailabilityIndex(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ProductRepository productRepository,
+                             InvalidationBus invalidationBus,
+                             @Value("${inventory.availability-index.enabled:true}") boolean enabled,
+                             @Value("${inventory.availability-index.fetch-size:5000}") int fetchSize,
+                             @Value("${inventory.availability-snapshot.enabled:false}") boolean snapshotEnabled,
+                             @Value("${inventory.availability-snapshot.path:${java.io.tmpdir}/inventory-availability.snapshot}") String snapshotPath,
+                             @Value("${inventory.availability-snapshot.max-age-seconds:300}") long snapshotMaxAgeSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        this.snapshotPath = enabled && snapshotEnabled ? Path.of(snapshotPath) : null;
+        this.snapshotMaxAgeMillis = TimeUnit.SECONDS.toMillis(snapshotMaxAgeSeconds);
+        if (enabled) {
+            invalidationBus.subscribe(this);
+        }
+    }
+    
+    /**
+     * Serves the last published snapshot, if any and recent enough, while the database load is
+     * pending. Products deleted since it was written are still in it until then.
+     */
+    @PostConstruct
+    void restoreSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            AvailabilitySnapshot previous = AvailabilitySnapshot.openReadOnly(snapshotPath);
+            if (previous == null) {
+                return;
+            }
+            long ageMillis = System.currentTimeMillis() - previous.getUpdatedAtMillis();
+            if (ageMillis > snapshotMaxAgeMillis) {
+                logger.info("Ignoring availability snapshot {} written {} s ago, older than {} s",
+                        snapshotPath, TimeUnit.MILLISECONDS.toSeconds(ageMillis), TimeUnit.MILLISECONDS.toSeconds(snapshotMaxAgeMillis));
+                return;
+            }
+            StockTable restored = new StockTable(previous.size());
+            previous.forEach((productId, packed) ->
+                    restored.put(productId, StockTable.quantityOf(packed), StockTable.reservedOf(packed)));
+            provisional = true;
+            table = restored;
+            logger.info("Availability index provisionally restored {} products from snapshot {} written at {}",
+                    restored.size(), snapshotPath, Instant.ofEpochMilli(previous.getUpdatedAtMillis()));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not restore availability snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    synchronized void closeSnapshot() {
+        if (snapshot != null) {
+            snapshot.close();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            load();
+        }
+    }
+    
+    /**
+     * Returns the packed stock of the product (see {@link StockTable}), or {@link StockTable#ABSENT}
+     * when it is not indexed. Answers from the restored snapshot while the index is provisional.
+     * Does not allocate.
+     */
+    public long lookup(long productId) {
+        StockTable current = table;
+        return current == null ? StockTable.ABSENT : current.get(productId);
+    }
+    
+    /**
+     * Visits every indexed product, from the restored snapshot while the index is provisional.
+     * Does nothing until the index is loaded or restored.
+     */
+    public void forEach(StockTable.EntryVisitor visitor) {
+        StockTable current = table;
+        if (current != null) {
+            current.forEach(visitor);
+        }
+    }
+    
+    public void addListener(AvailabilityListener listener) {
+        listeners.add(listener);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Whether the index was loaded from the database, as opposed to not at all or only from a
+     * snapshot.
+     */
+    public boolean isReady() {
+        return table != null && !provisional;
+    }
+    
+    /**
+     * Whether lookups are answered from a restored snapshot, pending the database load.
+     */
+    public boolean isProvisional() {
+        return provisional;
+    }
+    
+    public int getSize() {
+        StockTable current = table;
+        return current == null ? 0 : current.size();
+    }
+    
+    public long getFootprintBytes() {
+        StockTable current = table;
+        return current == null ? 0 : current.footprintBytes();
+    }
+    
+    /**
+     * Records stock reserved in the current transaction; applied after commit.
+     */
+    public void reserved(Long productId, int quantity) {
+        afterCommit(new Change(Change.RESERVE, productId, quantity));
+    }
+    
+    /**
+     * Records reserved stock given back in the current transaction; applied after commit.
+     */
+    public void released(Long productId, int quantity) {
+        afterCommit(new Change(Change.RELEASE, productId, quantity));
+    }
+    
+    /**
+     * Records reserved stock permanently deducted in the current transaction; applied after commit.
+     */
+    public void confirmed(Long productId, int quantity) {
+        afterCommit(new Change(Change.CONFIRM, productId, quantity));
+    }
+    
+    @Override
+    public void invalidate(Collection<Long> productIds) {
+        if (table != null) {
+            reload(productIds);
+        }
+    }
+    
+    @Override
+    public void invalidateAll() {
+        if (table != null) {
+            load();
+        }
+    }
+    
+    /**
+     * Builds a new table from the products table and swaps it in. Changes committed while the
+     * load runs may or may not be in the rows read, so those products are reloaded afterwards.
+     */
+    private void load() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            changedDuringLoad = new HashSet<>();
+        }
+        
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+        StockTable loaded = new StockTable(count == null ? 0 : count.intValue());
+        readOnlyTransaction.executeWithoutResult(status -> {
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(fetchSize);
+            streaming.query("SELECT id, quantity, reserved_quantity FROM products",
+                    row -> { loaded.put(row.getLong(1), row.getInt(2), row.getInt(3)); });
+        });
+        
+        Set<Long> changed;
+        synchronized (this) {
+            table = loaded;
+            provisional = false;
+            changed = changedDuringLoad;
+            changedDuringLoad = null;
+            publishSnapshot();
+            for (AvailabilityListener listener : listeners) {
+                listener.availabilityReset();
+            }
+        }
+        if (!changed.isEmpty()) {
+            reload(changed);
+        }
+        
+        logger.info("Availability index loaded {} products in {} ms ({} bytes, {} bytes per product)",
+                loaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), loaded.footprintBytes(),
+                loaded.size() == 0 ? 0 : loaded.footprintBytes() / loaded.size());
+    }
+    
+    /**
+     * Replaces the entries of the given products with their committed rows. A local change
+     * committed between the read and the write below is applied twice; the next invalidation
+     * of that product corrects it.
+     */
+    private void reload(Collection<Long> productIds) {
+        List<StockSnapshot> stocks = productRepository.findStockSnapshots(productIds);
+        synchronized (this) {
+            for (StockSnapshot stock : stocks) {
+                table.put(stock.getProductId(), stock.getQuantity(), stock.getReservedQuantity());
+                writeThrough(stock.getProductId());
+                notifyChanged(stock.getProductId());
+            }
+        }
+    }
+    
+    private void afterCommit(Change change) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(List.of(change));
+            return;
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<Change> changes = (List<Change>) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            List<Change> transactionChanges = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AvailabilityIndex.this);
+                    if (status == STATUS_COMMITTED) {
+                        apply(transactionChanges);
+                    }
+                }
+            });
+            changes = transactionChanges;
+        }
+        changes.add(change);
+    }
+    
+    private synchronized void apply(List<Change> changes) {
+        for (Change change : changes) {
+            if (table != null) {
+                change.applyTo(table);
+                writeThrough(change.productId);
+                notifyChanged(change.productId);
+            }
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(change.productId);
+            }
+        }
+    }
+    
+    private void notifyChanged(long productId) {
+        for (AvailabilityListener listener : listeners) {
+            listener.availabilityChanged(productId);
+        }
+    }
+    
+    /**
+     * Copies the product's current entry to the snapshot file, republishing the file when it is full.
+     */
+    private void writeThrough(long productId) {
+        if (snapshot == null) {
+            return;
+        }
+        long stock = table.get(productId);
+        if (stock != StockTable.ABSENT && !snapshot.put(productId, stock)) {
+            publishSnapshot();
+        }
+    }
+    
+    private void publishSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            if (snapshot != null) {
+                snapshot.close();
+            }
+            snapshot = AvailabilitySnapshot.publish(snapshotPath, table);
+        } catch (IOException | RuntimeException e) {
+            snapshot = null;
+            logger.warn("Could not publish availability snapshot {}, disabled until the next full load: {}",
+                    snapshotPath, e.getMessage());
+        }
+    }
+    
+    private static final class Change {
+        static final int RESERVE = 0;
+        static final int RELEASE = 1;
+        static final int CONFIRM = 2;
+        
+        private final int kind;
+        private final long productId;
+        private final int quantity;
+        
+        private Change(int kind, long productId, int quantity) {
+            this.kind = kind;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+        
+        private void applyTo(StockTable table) {
+            switch (kind) {
+                case RESERVE -> table.reserve(productId, quantity);
+                case RELEASE -> table.release(productId, quantity);
+                default -> table.confirm(productId, quantity);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.distributed.ecommerce.inventory.availability;
+
+/**
+ * Notified by the {@link AvailabilityIndex} whenever the indexed stock of a product changes,
+ * whether by a local commit or by a reload after another replica's change. Called while the
+ * index holds its lock, so implementations should only record the change and return.
+ */
+public interface AvailabilityListener {
+    
+    /**
+     * The stock counters of this product changed.
+     */
+    void availabilityChanged(long productId);
+    
+    /**
+     * The whole index was reloaded; any product may have changed.
+     */
+    void availabilityReset();
+}
@@ -0,0 +1,305 @@
+package com.distributed.ecommerce.inventory.availability;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product stock counters in a memory-mapped file with a fixed layout, so other processes on
+ * the host can read availability without copying it and a restarting instance can start from
+ * the last published state. One process writes a file; any number may map it read-only.
+ * <p>
+ * Layout (native byte order, all fields 8-byte aligned):
+ * <pre>
+ * header, 64 bytes: int magic, int layout version, int capacity (slots, a power of two),
+ *                   int state (0 = current, 1 = superseded), long entry count, long updated-at millis
+ * slot i at 64 + 24 * i: long sequence, long product id (0 = empty), long packed stock (see {@link StockTable})
+ * </pre>
+ * Slots form an open-addressing table with linear probing and the same hash as {@link StockTable}.
+ * Each slot is guarded by a seqlock: the writer makes the sequence odd, writes the slot and makes
+ * it even again, and readers retry until they see the same even sequence before and after reading.
+ * A sequence that stays odd for {@link #STUCK_SLOT_NANOS} was left by a writer that died mid-write:
+ * lookups then treat the slot as empty and {@link #forEach} rejects the file.
+ * <p>
+ * When a file fills up the writer publishes a larger one under the same path with an atomic
+ * rename and marks the old one superseded; readers then map the new file on their next lookup.
+ */
+public final class AvailabilitySnapshot implements AutoCloseable {
+    
+    private static final int MAGIC = 0x41564149;
+    private static final int LAYOUT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 24;
+    private static final int STATE_CURRENT = 0;
+    private static final int STATE_SUPERSEDED = 1;
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+    private static final int MIN_CAPACITY = 1024;
+    
+    /** How long a slot may stay mid-write before its writer is taken for dead. */
+    private static final long STUCK_SLOT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int STATE_OFFSET = 12;
+    private static final int COUNT_OFFSET = 16;
+    private static final int UPDATED_AT_OFFSET = 24;
+    
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    
+    private final Path path;
+    private final boolean writable;
+    private volatile Mapping mapping;
+    
+    /** Entries written so far; only maintained by the writer. */
+    private long count;
+    
+    private AvailabilitySnapshot(Path path, boolean writable, MappedByteBuffer buffer) {
+        this.path = path;
+        this.writable = writable;
+        this.mapping = new Mapping(buffer);
+        this.count = (long) LONGS.get(buffer, COUNT_OFFSET);
+    }
+    
+    /**
+     * Maps an existing snapshot for reading, or returns null if there is no valid one at the path.
+     */
+    public static AvailabilitySnapshot openReadOnly(Path path) throws IOException {
+        MappedByteBuffer buffer = map(path, false);
+        return buffer == null ? null : new AvailabilitySnapshot(path, false, buffer);
+    }
+    
+    /**
+     * Writes the table to a new snapshot file, atomically replacing any file at the path,
+     * and returns it open for further writes.
+     */
+    public static AvailabilitySnapshot publish(Path path, StockTable table) throws IOException {
+        int capacity = capacityFor(table.size());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+            INTS.set(buffer, MAGIC_OFFSET, MAGIC);
+            INTS.set(buffer, VERSION_OFFSET, LAYOUT_VERSION);
+            INTS.set(buffer, CAPACITY_OFFSET, capacity);
+            INTS.set(buffer, STATE_OFFSET, STATE_CURRENT);
+            
+            AvailabilitySnapshot snapshot = new AvailabilitySnapshot(path, true, buffer);
+            table.forEach(snapshot::put);
+            buffer.force();
+            
+            MappedByteBuffer previous = map(path, true);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (previous != null) {
+                INTS.setRelease(previous, STATE_OFFSET, STATE_SUPERSEDED);
+            }
+            return snapshot;
+        }
+    }
+    
+    /**
+     * Returns the packed stock of the product, or {@link StockTable#ABSENT}. Does not allocate
+     * unless the file was replaced since the last call.
+     */
+    public long get(long productId) {
+        Mapping current = mapping;
+        if (!writable && (int) INTS.getAcquire(current.buffer, STATE_OFFSET) == STATE_SUPERSEDED) {
+            current = remap();
+        }
+        MappedByteBuffer buffer = current.buffer;
+        int mask = current.capacity - 1;
+        int slot = StockTable.hash(productId) & mask;
+        for (int probes = 0; probes < current.capacity; probes++) {
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            while (true) {
+                long sequence = awaitEven(buffer, offset);
+                if (sequence < 0) {
+                    return StockTable.ABSENT;
+                }
+                long key = (long) LONGS.get(buffer, offset + 8);
+                long packed = (long) LONGS.get(buffer, offset + 16);
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.get(buffer, offset) != sequence) {
+                    continue;
+                }
+                if (key == productId) {
+                    return packed;
+                }
+                if (key == 0) {
+                    return StockTable.ABSENT;
+                }
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return StockTable.ABSENT;
+    }
+    
+    /**
+     * Stores the product's packed stock. Returns false, without writing, when the file has no
+     * room for another product and must be republished larger. Single writer only.
+     */
+    public boolean put(long productId, long packed) {
+        if (!writable) {
+            throw new IllegalStateException("Snapshot " + path + " is open read-only");
+        }
+        MappedByteBuffer buffer = mapping.buffer;
+        int capacity = mapping.capacity;
+        int mask = capacity - 1;
+        int slot = StockTable.hash(productId) & mask;
+        while (true) {
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            long key = (long) LONGS.get(buffer, offset + 8);
+            if (key == productId || key == 0) {
+                if (key == 0 && count + 1 > capacity * MAX_LOAD_FACTOR) {
+                    return false;
+                }
+                long sequence = (long) LONGS.get(buffer, offset);
+                LONGS.setOpaque(buffer, offset, sequence + 1);
+                VarHandle.storeStoreFence();
+                LONGS.set(buffer, offset + 8, productId);
+                LONGS.set(buffer, offset + 16, packed);
+                LONGS.setRelease(buffer, offset, sequence + 2);
+                if (key == 0) {
+                    LONGS.setRelease(buffer, COUNT_OFFSET, ++count);
+                }
+                LONGS.setRelease(buffer, UPDATED_AT_OFFSET, System.currentTimeMillis());
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Visits every product in the file.
+     * 
+     * @throws IllegalStateException if a slot was left mid-write, so the file cannot be trusted
+     */
+    public void forEach(StockTable.EntryVisitor visitor) {
+        Mapping current = mapping;
+        MappedByteBuffer buffer = current.buffer;
+        for (int slot = 0; slot < current.capacity; slot++) {
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            long key;
+            long packed;
+            long sequence;
+            do {
+                sequence = awaitEven(buffer, offset);
+                if (sequence < 0) {
+                    throw new IllegalStateException("Slot " + slot + " of availability snapshot " + path
+                            + " was left mid-write");
+                }
+                key = (long) LONGS.get(buffer, offset + 8);
+                packed = (long) LONGS.get(buffer, offset + 16);
+                VarHandle.loadLoadFence();
+            } while ((long) LONGS.get(buffer, offset) != sequence);
+            if (key != 0) {
+                visitor.visit(key, packed);
+            }
+        }
+    }
+    
+    public int size() {
+        return (int) (long) LONGS.getAcquire(mapping.buffer, COUNT_OFFSET);
+    }
+    
+    public long getUpdatedAtMillis() {
+        return (long) LONGS.getAcquire(mapping.buffer, UPDATED_AT_OFFSET);
+    }
+    
+    public Path getPath() {
+        return path;
+    }
+    
+    /**
+     * Flushes written pages to the file. The mapping itself is released by the garbage collector.
+     */
+    @Override
+    public void close() {
+        if (writable) {
+            mapping.buffer.force();
+        }
+    }
+    
+    /**
+     * Returns the slot's sequence once it is even, or -1 if it stays odd for
+     * {@link #STUCK_SLOT_NANOS}. A live writer holds it odd for three stores.
+     */
+    private static long awaitEven(MappedByteBuffer buffer, int offset) {
+        long sequence = (long) LONGS.getAcquire(buffer, offset);
+        if ((sequence & 1) == 0) {
+            return sequence;
+        }
+        long deadline = System.nanoTime() + STUCK_SLOT_NANOS;
+        do {
+            Thread.onSpinWait();
+            sequence = (long) LONGS.getAcquire(buffer, offset);
+            if ((sequence & 1) == 0) {
+                return sequence;
+            }
+        } while (System.nanoTime() - deadline < 0);
+        return -1;
+    }
+    
+    private Mapping remap() {
+        try {
+            MappedByteBuffer mapped = map(path, false);
+            if (mapped != null) {
+                mapping = new Mapping(mapped);
+            }
+            return mapping;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map availability snapshot " + path, e);
+        }
+    }
+    
+    private static MappedByteBuffer map(Path path, boolean writable) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_BYTES) {
+            return null;
+        }
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[] {StandardOpenOption.READ};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            if ((int) INTS.get(buffer, MAGIC_OFFSET) != MAGIC
+                    || (int) INTS.get(buffer, VERSION_OFFSET) != LAYOUT_VERSION) {
+                return null;
+            }
+            int capacity = (int) INTS.get(buffer, CAPACITY_OFFSET);
+            if (Integer.bitCount(capacity) != 1 || channel.size() < HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+                return null;
+            }
+            return buffer;
+        }
+    }
+    
+    /**
+     * A mapped file and its slot count, replaced together when the file is superseded.
+     */
+    private static final class Mapping {
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        
+        private Mapping(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.capacity = (int) INTS.get(buffer, CAPACITY_OFFSET);
+        }
+    }
+    
+    private static int capacityFor(int entries) {
+        int needed = (int) Math.ceil(Math.max(entries, MIN_CAPACITY) * 2 / MAX_LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
@@ -0,0 +1,209 @@
+package com.distributed.ecommerce.inventory.availability;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Open-addressing hash table from product id to (quantity, reserved) on primitive arrays.
+ * Keys and values are interleaved in one {@code long[]} so a lookup touches a single cache
+ * line, and both stock counters are packed into one {@code long} so readers always see a
+ * consistent pair. About 16 bytes per slot at a load factor of at most 0.75, against a few
+ * hundred for a {@code HashMap<Long, Product>} entry.
+ * <p>
+ * {@link #get} never allocates or locks and may run concurrently with writes. Writers must be
+ * serialized by the caller. Id 0 is reserved as the empty-slot marker.
+ */
+public final class StockTable {
+    
+    /** Returned by {@link #get} for ids that are not in the table. */
+    public static final long ABSENT = Long.MIN_VALUE;
+    
+    private static final long EMPTY = 0L;
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    
+    /** [key0, value0, key1, value1, ...]; replaced as a whole on resize. */
+    private volatile long[] slots;
+    private int size;
+    private int resizeThreshold;
+    
+    public StockTable(int expectedSize) {
+        allocate(capacityFor(Math.max(expectedSize, 16)));
+    }
+    
+    /**
+     * Returns the packed stock of the product, or {@link #ABSENT}.
+     */
+    public long get(long productId) {
+        long[] table = slots;
+        int mask = (table.length >> 1) - 1;
+        int slot = hash(productId) & mask;
+        while (true) {
+            long key = (long) SLOTS.getAcquire(table, slot << 1);
+            if (key == productId) {
+                return (long) SLOTS.getAcquire(table, (slot << 1) + 1);
+            }
+            if (key == EMPTY) {
+                return ABSENT;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    public static int quantityOf(long packed) {
+        return (int) (packed >> 32);
+    }
+    
+    public static int reservedOf(long packed) {
+        return (int) packed;
+    }
+    
+    public static int availableOf(long packed) {
+        return quantityOf(packed) - reservedOf(packed);
+    }
+    
+    public void put(long productId, int quantity, int reserved) {
+        if (productId == EMPTY) {
+            throw new IllegalArgumentException("Product id 0 cannot be indexed");
+        }
+        int index = indexOf(slots, productId);
+        if (index >= 0) {
+            SLOTS.setRelease(slots, index + 1, pack(quantity, reserved));
+            return;
+        }
+        if (size >= resizeThreshold) {
+            resize();
+        }
+        insert(slots, productId, pack(quantity, reserved));
+        size++;
+    }
+    
+    /**
+     * Adds to the reserved quantity, as {@code Product} does when stock is reserved.
+     * Returns false if the product is not in the table.
+     */
+    public boolean reserve(long productId, int amount) {
+        int index = indexOf(slots, productId);
+        if (index < 0) {
+            return false;
+        }
+        long packed = (long) SLOTS.getAcquire(slots, index + 1);
+        SLOTS.setRelease(slots, index + 1, pack(quantityOf(packed), reservedOf(packed) + amount));
+        return true;
+    }
+    
+    /**
+     * Mirrors {@code Product.releaseReservation}: reserved never drops below zero.
+     */
+    public boolean release(long productId, int amount) {
+        int index = indexOf(slots, productId);
+        if (index < 0) {
+            return false;
+        }
+        long packed = (long) SLOTS.getAcquire(slots, index + 1);
+        SLOTS.setRelease(slots, index + 1, pack(quantityOf(packed), Math.max(0, reservedOf(packed) - amount)));
+        return true;
+    }
+    
+    /**
+     * Mirrors {@code Product.confirmReservation}: at most the reserved amount leaves stock.
+     */
+    public boolean confirm(long productId, int amount) {
+        int index = indexOf(slots, productId);
+        if (index < 0) {
+            return false;
+        }
+        long packed = (long) SLOTS.getAcquire(slots, index + 1);
+        int deducted = Math.min(amount, reservedOf(packed));
+        SLOTS.setRelease(slots, index + 1, pack(quantityOf(packed) - deducted, reservedOf(packed) - deducted));
+        return true;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Visits every product in the table. Must not run concurrently with writes.
+     */
+    public void forEach(EntryVisitor visitor) {
+        long[] table = slots;
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != EMPTY) {
+                visitor.visit(table[i], table[i + 1]);
+            }
+        }
+    }
+    
+    /**
+     * Bytes held by the slot array, including its header.
+     */
+    public long footprintBytes() {
+        return 16L + (long) slots.length * Long.BYTES;
+    }
+    
+    private static long pack(int quantity, int reserved) {
+        return ((long) quantity << 32) | (reserved & 0xFFFFFFFFL);
+    }
+    
+    static int hash(long productId) {
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    /**
+     * Returns the array index of the key, or -1.
+     */
+    private static int indexOf(long[] table, long productId) {
+        int mask = (table.length >> 1) - 1;
+        int slot = hash(productId) & mask;
+        while (true) {
+            long key = table[slot << 1];
+            if (key == productId) {
+                return slot << 1;
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    private static void insert(long[] table, long productId, long packed) {
+        int mask = (table.length >> 1) - 1;
+        int slot = hash(productId) & mask;
+        while (table[slot << 1] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        // Value first, so a reader that finds the key also finds its value
+        SLOTS.setRelease(table, (slot << 1) + 1, packed);
+        SLOTS.setRelease(table, slot << 1, productId);
+    }
+    
+    private void resize() {
+        long[] old = slots;
+        long[] table = new long[old.length * 2];
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != EMPTY) {
+                insert(table, old[i], old[i + 1]);
+            }
+        }
+        resizeThreshold = (int) ((table.length >> 1) * MAX_LOAD_FACTOR);
+        slots = table;
+    }
+    
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(long productId, long packed);
+    }
+    
+    private void allocate(int capacity) {
+        resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+        slots = new long[capacity * 2];
+    }
+    
+    private static int capacityFor(int expectedSize) {
+        int needed = (int) Math.ceil(expectedSize / MAX_LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
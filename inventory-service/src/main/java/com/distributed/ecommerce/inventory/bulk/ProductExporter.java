@@ -0,0 +1,163 @@
+package com.distributed.ecommerce.inventory.bulk;
+
+import com.distributed.ecommerce.inventory.dto.ProductResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every product, in id order, straight from the database to the response. On
+ * PostgreSQL, CSV is produced by the server itself with {@code COPY TO STDOUT}; other formats
+ * and databases read a cursor with a fetch size in a read-only transaction. Either way memory
+ * use does not depend on the size of the catalog.
+ * <p>
+ * The CSV columns are {@code id,name,description,price,quantity,reserved_quantity,available_quantity},
+ * so an export can be edited and imported back: the importer ignores the stock columns it
+ * does not write.
+ */
+@Component
+public class ProductExporter {
+    
+    private static final String COLUMNS = "id, name, description, price, quantity, reserved_quantity, "
+            + "quantity - reserved_quantity AS available_quantity";
+    
+    private static final String CSV_HEADER = "id,name,description,price,quantity,reserved_quantity,available_quantity\n";
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final boolean postgres;
+    
+    public ProductExporter(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           DataSourceProperties dataSourceProperties,
+                           ObjectMapper objectMapper,
+                           @Value("${inventory.bulk.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.postgres = dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+    }
+    
+    /**
+     * Writes every product.
+     * 
+     * @return number of products written
+     */
+    public long export(ProductFileFormat format, boolean gzip, OutputStream out) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        OutputStream target = new BufferedOutputStream(compressed != null ? compressed : out, BUFFER_SIZE);
+        long products;
+        try {
+            products = postgres && format == ProductFileFormat.CSV ? copyCsv(target) : readCursor(format, target);
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-download
+            throw e.getCause();
+        }
+        target.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        return products;
+    }
+    
+    private long copyCsv(OutputStream target) {
+        Long products = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(
+                        "COPY (SELECT " + COLUMNS + " FROM products ORDER BY id) TO STDOUT (FORMAT csv, HEADER)", target);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return products == null ? 0 : products;
+    }
+    
+    private long readCursor(ProductFileFormat format, OutputStream target) throws IOException {
+        Writer csv = format == ProductFileFormat.CSV ? new OutputStreamWriter(target, StandardCharsets.UTF_8) : null;
+        if (csv != null) {
+            csv.write(CSV_HEADER);
+        }
+        long[] products = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> cursorJdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM products ORDER BY id", row -> {
+                    ProductResponse product = new ProductResponse(row.getLong(1), row.getString(2), row.getString(3),
+                            row.getBigDecimal(4), row.getInt(5), row.getInt(6), row.getInt(7));
+                    try {
+                        if (csv != null) {
+                            writeCsv(csv, product);
+                        } else {
+                            target.write(objectMapper.writeValueAsBytes(product));
+                            target.write('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    products[0]++;
+                }));
+        if (csv != null) {
+            csv.flush();
+        }
+        return products[0];
+    }
+    
+    /**
+     * Writes a line the way COPY does: fields quoted only when needed, an empty description
+     * quoted so it stays apart from a missing one.
+     */
+    private static void writeCsv(Writer csv, ProductResponse product) throws IOException {
+        csv.write(String.valueOf(product.getId()));
+        csv.write(',');
+        writeCsvField(csv, product.getName());
+        csv.write(',');
+        writeCsvField(csv, product.getDescription());
+        csv.write(',');
+        csv.write(product.getPrice().toPlainString());
+        csv.write(',');
+        csv.write(String.valueOf(product.getQuantity()));
+        csv.write(',');
+        csv.write(String.valueOf(product.getReservedQuantity()));
+        csv.write(',');
+        csv.write(String.valueOf(product.getAvailableQuantity()));
+        csv.write('\n');
+    }
+    
+    private static void writeCsvField(Writer csv, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            csv.write(value);
+            return;
+        }
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+    }
+}
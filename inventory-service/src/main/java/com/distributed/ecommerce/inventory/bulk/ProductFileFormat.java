@@ -0,0 +1,37 @@
+package com.distributed.ecommerce.inventory.bulk;
+
+import java.util.Locale;
+import java.util.Optional;
+
+public enum ProductFileFormat {
+    
+    /** Header line first; columns matched by name, unknown ones ignored. */
+    CSV("text/csv", "csv"),
+    
+    /** One product object per line, in the format of the products API. */
+    NDJSON("application/x-ndjson", "ndjson");
+    
+    private final String contentType;
+    private final String extension;
+    
+    ProductFileFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+    
+    public static Optional<ProductFileFormat> parse(String value) {
+        try {
+            return Optional.of(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+}
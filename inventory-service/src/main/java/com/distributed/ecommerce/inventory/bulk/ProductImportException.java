@@ -0,0 +1,18 @@
+package com.distributed.ecommerce.inventory.bulk;
+
+/**
+ * An import file that cannot be applied; nothing of it was written.
+ */
+public class ProductImportException extends RuntimeException {
+    
+    private final long line;
+    
+    public ProductImportException(long line, String message) {
+        super("line " + line + ": " + message);
+        this.line = line;
+    }
+    
+    public long getLine() {
+        return line;
+    }
+}
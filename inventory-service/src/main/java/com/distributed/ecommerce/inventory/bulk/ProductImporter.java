@@ -0,0 +1,387 @@
+package com.distributed.ecommerce.inventory.bulk;
+
+import com.distributed.ecommerce.inventory.catalog.CatalogQueryEngine;
+import com.distributed.ecommerce.inventory.dto.ProductImportResponse;
+import com.distributed.ecommerce.inventory.invalidation.InvalidationListener;
+import com.distributed.ecommerce.inventory.invalidation.InvalidationPublisher;
+import com.distributed.ecommerce.inventory.search.ProductSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Creates and updates products from a CSV or NDJSON file in one transaction, without loading
+ * entities. The file is parsed as it arrives and every product is appended to a temporary
+ * staging table, through {@code COPY FROM STDIN} on PostgreSQL and JDBC batches elsewhere (H2);
+ * a single {@code MERGE} then applies the whole table to {@code products}. Products without an
+ * id get one from {@code products_seq}, handed out in the same blocks as Hibernate's.
+ * <p>
+ * The merge bypasses the JPA listeners and the reservation hooks, so once it commits the local
+ * in-memory indexes are reloaded and the other replicas are told through the invalidation bus.
+ */
+@Component
+public class ProductImporter {
+    
+    /** allocationSize of the products_seq generator on Product. */
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final int ID_BLOCKS_PER_FETCH = 20;
+    
+    /** Above this many products, caches are reloaded entirely instead of product by product. */
+    private static final int MAX_LISTED_CHANGES = 1000;
+    
+    private static final String STAGING_COLUMNS = "line bigint NOT NULL, id bigint NOT NULL, created boolean NOT NULL, "
+            + "name varchar(255) NOT NULL, description varchar(255), price numeric(10, 2) NOT NULL, quantity integer NOT NULL";
+    
+    private static final String CREATE_STAGING_POSTGRES =
+            "CREATE TEMP TABLE product_import (" + STAGING_COLUMNS + ") ON COMMIT DROP";
+    
+    /** TRANSACTIONAL keeps H2 from committing the import transaction on CREATE. */
+    private static final String CREATE_STAGING_H2 =
+            "CREATE LOCAL TEMPORARY TABLE product_import (" + STAGING_COLUMNS + ") ON COMMIT DROP TRANSACTIONAL";
+    
+    private static final String COPY_STAGING =
+            "COPY product_import (line, id, created, name, description, price, quantity) FROM STDIN (FORMAT csv)";
+    
+    private static final String INSERT_STAGING =
+            "INSERT INTO product_import (line, id, created, name, description, price, quantity) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    /** Quantity is kept at or above the stock already reserved, so available stock never goes negative. */
+    private static final String MERGE = "MERGE INTO products p USING product_import s ON p.id = s.id "
+            + "WHEN MATCHED THEN UPDATE SET name = s.name, description = s.description, price = s.price, "
+            + "quantity = GREATEST(s.quantity, p.reserved_quantity), version = p.version + 1, updated_at = ? "
+            + "WHEN NOT MATCHED THEN INSERT (id, name, description, price, quantity, reserved_quantity, version, created_at, updated_at) "
+            + "VALUES (s.id, s.name, s.description, s.price, s.quantity, 0, 0, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate idTransaction;
+    private final ObjectMapper objectMapper;
+    private final InvalidationPublisher invalidationPublisher;
+    private final List<InvalidationListener> localCaches;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogQueryEngine catalogQueryEngine;
+    private final boolean postgres;
+    private final int batchSize;
+    
+    public ProductImporter(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           DataSourceProperties dataSourceProperties,
+                           ObjectMapper objectMapper,
+                           InvalidationPublisher invalidationPublisher,
+                           List<InvalidationListener> localCaches,
+                           ProductSearchIndex productSearchIndex,
+                           CatalogQueryEngine catalogQueryEngine,
+                           @Value("${inventory.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        // Ids are drawn on a connection of their own: the import's connection is busy with COPY
+        this.idTransaction = new TransactionTemplate(transactionManager);
+        this.idTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localCaches = localCaches;
+        this.productSearchIndex = productSearchIndex;
+        this.catalogQueryEngine = catalogQueryEngine;
+        this.postgres = dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Applies every product of the file, or none of them when one is invalid.
+     * 
+     * @throws ProductImportException when the file is malformed, a product is invalid, or an
+     *                                id is repeated or does not exist
+     */
+    public ProductImportResponse importProducts(ProductFileFormat format, boolean gzip, InputStream in) throws IOException {
+        try (ProductRecordReader reader = ProductRecordReader.open(format,
+                gzip ? new GZIPInputStream(in, 1 << 16) : in, objectMapper)) {
+            return transaction.execute(status -> {
+                jdbcTemplate.execute(postgres ? CREATE_STAGING_POSTGRES : CREATE_STAGING_H2);
+                Staged staged = jdbcTemplate.execute((ConnectionCallback<Staged>) connection -> stage(reader, connection));
+                if (staged.total() == 0) {
+                    return new ProductImportResponse(0, 0);
+                }
+                if (staged.total() > staged.created()) {
+                    checkIds();
+                }
+                if (postgres) {
+                    // Temporary tables are never analyzed automatically
+                    jdbcTemplate.execute("ANALYZE product_import");
+                }
+                
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.update(MERGE, now, now, now);
+                
+                if (staged.changed() != null) {
+                    staged.changed().forEach(invalidationPublisher::productChanged);
+                } else {
+                    invalidationPublisher.allProductsChanged();
+                }
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        reloadLocalCaches(staged.changed());
+                    }
+                });
+                return new ProductImportResponse(staged.created(), staged.total() - staged.created());
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-upload
+            throw e.getCause();
+        }
+    }
+    
+    private Staged stage(ProductRecordReader reader, Connection connection) throws SQLException {
+        IdBlocks ids = new IdBlocks();
+        List<Long> changed = new ArrayList<>();
+        long total = 0;
+        long created = 0;
+        try (Staging staging = postgres ? new CopyStaging(connection) : new BatchStaging(connection, batchSize)) {
+            ProductRecord record;
+            while ((record = reader.next()) != null) {
+                boolean create = record.id() == null;
+                long id = create ? ids.next() : record.id();
+                staging.add(record, id, create);
+                total++;
+                if (create) {
+                    created++;
+                }
+                if (changed != null) {
+                    changed.add(id);
+                    if (changed.size() > MAX_LISTED_CHANGES) {
+                        changed = null;
+                    }
+                }
+            }
+            staging.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Staged(total, created, changed);
+    }
+    
+    /**
+     * Rejects files naming an id twice, which MERGE cannot apply, or naming an id that does
+     * not exist, since creating it would take an id products_seq may still hand out.
+     */
+    private void checkIds() {
+        jdbcTemplate.query("SELECT id, MAX(line) FROM product_import WHERE NOT created "
+                        + "GROUP BY id HAVING COUNT(*) > 1 FETCH FIRST 1 ROWS ONLY",
+                (RowCallbackHandler) row -> {
+                    throw new ProductImportException(row.getLong(2), "product " + row.getLong(1) + " appears more than once");
+                });
+        jdbcTemplate.query("SELECT s.line, s.id FROM product_import s WHERE NOT s.created "
+                        + "AND NOT EXISTS (SELECT 1 FROM products p WHERE p.id = s.id) ORDER BY s.line FETCH FIRST 1 ROWS ONLY",
+                (RowCallbackHandler) row -> {
+                    throw new ProductImportException(row.getLong(1), "product " + row.getLong(2)
+                            + " does not exist; leave the id empty to create a product");
+                });
+    }
+    
+    /**
+     * Brings this instance's caches up to date with the merged rows, as if another replica had
+     * written them: the availability index and the reservation ledger reload the products, search
+     * and catalog re-read the rows updated since their last refresh. Large imports rebuild all
+     * of them from the table instead.
+     */
+    private void reloadLocalCaches(List<Long> changed) {
+        for (InvalidationListener cache : localCaches) {
+            if (changed != null) {
+                cache.invalidate(changed);
+            } else {
+                cache.invalidateAll();
+            }
+        }
+        if (changed != null) {
+            productSearchIndex.refreshSoon();
+            catalogQueryEngine.refreshSoon();
+        } else {
+            productSearchIndex.reloadSoon();
+            catalogQueryEngine.reloadSoon();
+        }
+    }
+    
+    /**
+     * @param changed ids of the imported products, or null when there were too many to list
+     */
+    private record Staged(long total, long created, List<Long> changed) {
+    }
+    
+    /**
+     * Hands out ids for new products from products_seq in blocks of {@link #ID_BLOCK_SIZE},
+     * like Hibernate's pooled optimizer: a sequence value v covers the ids v - 49 to v, so ids
+     * stay dense and never collide with the ones the entities get.
+     */
+    private final class IdBlocks {
+        
+        private final long[] blocks = new long[ID_BLOCKS_PER_FETCH];
+        private int nextBlock = ID_BLOCKS_PER_FETCH;
+        private long nextId = 1;
+        private long lastId;
+        
+        long next() {
+            if (nextId > lastId) {
+                if (nextBlock == blocks.length) {
+                    fetch();
+                }
+                lastId = blocks[nextBlock++];
+                nextId = Math.max(1, lastId - ID_BLOCK_SIZE + 1);
+            }
+            return nextId++;
+        }
+        
+        private void fetch() {
+            String sql = postgres
+                    ? "SELECT nextval('products_seq') FROM generate_series(1, ?)"
+                    : "SELECT NEXT VALUE FOR products_seq FROM SYSTEM_RANGE(1, ?)";
+            List<Long> values = idTransaction.execute(status -> jdbcTemplate.queryForList(sql, Long.class, ID_BLOCKS_PER_FETCH));
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = values.get(i);
+            }
+            nextBlock = 0;
+        }
+    }
+    
+    private interface Staging extends AutoCloseable {
+        
+        void add(ProductRecord record, long id, boolean created) throws IOException, SQLException;
+        
+        /**
+         * Completes the staging table; without it, {@link #close()} discards what was added.
+         */
+        void finish() throws IOException, SQLException;
+        
+        @Override
+        void close() throws SQLException;
+    }
+    
+    /**
+     * Streams the products to PostgreSQL as CSV over {@code COPY FROM STDIN}, in one round trip.
+     */
+    private static final class CopyStaging implements Staging {
+        
+        private final CopyIn copyIn;
+        private final Writer out;
+        
+        CopyStaging(Connection connection) throws SQLException {
+            this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING);
+            this.out = new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(copyIn), StandardCharsets.UTF_8), 1 << 16);
+        }
+        
+        @Override
+        public void add(ProductRecord record, long id, boolean created) throws IOException {
+            out.write(Long.toString(record.line()));
+            out.write(',');
+            out.write(Long.toString(id));
+            out.write(created ? ",t," : ",f,");
+            writeQuoted(record.name());
+            out.write(',');
+            if (record.description() != null) {
+                writeQuoted(record.description());
+            }
+            out.write(',');
+            out.write(record.price().toPlainString());
+            out.write(',');
+            out.write(Integer.toString(record.quantity()));
+            out.write('\n');
+        }
+        
+        @Override
+        public void finish() throws IOException {
+            // Flushes the rest and ends the COPY
+            out.close();
+        }
+        
+        @Override
+        public void close() throws SQLException {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        
+        /**
+         * Always quoted, so an empty string is not read as NULL.
+         */
+        private void writeQuoted(String value) throws IOException {
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+    
+    /**
+     * Inserts the products with JDBC batches, for databases without COPY.
+     */
+    private static final class BatchStaging implements Staging {
+        
+        private final PreparedStatement insert;
+        private final int batchSize;
+        private int batched;
+        
+        BatchStaging(Connection connection, int batchSize) throws SQLException {
+            this.insert = connection.prepareStatement(INSERT_STAGING);
+            this.batchSize = batchSize;
+        }
+        
+        @Override
+        public void add(ProductRecord record, long id, boolean created) throws SQLException {
+            insert.setLong(1, record.line());
+            insert.setLong(2, id);
+            insert.setBoolean(3, created);
+            insert.setString(4, record.name());
+            if (record.description() != null) {
+                insert.setString(5, record.description());
+            } else {
+                insert.setNull(5, Types.VARCHAR);
+            }
+            insert.setBigDecimal(6, record.price());
+            insert.setInt(7, record.quantity());
+            insert.addBatch();
+            if (++batched == batchSize) {
+                insert.executeBatch();
+                batched = 0;
+            }
+        }
+        
+        @Override
+        public void finish() throws SQLException {
+            if (batched > 0) {
+                insert.executeBatch();
+            }
+        }
+        
+        @Override
+        public void close() throws SQLException {
+            insert.close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.distributed.ecommerce.inventory.bulk;
+
+import java.math.BigDecimal;
+
+/**
+ * One product of an import file, checked against the constraints of the products table.
+ * Without an id it creates a product; with one it replaces that product's name, description,
+ * price and quantity.
+ * 
+ * @param line line of the file the product starts on, for error messages
+ */
+record ProductRecord(long line, Long id, String name, String description, BigDecimal price, int quantity) {
+    
+    private static final int MAX_TEXT_LENGTH = 255;
+    
+    /** numeric(10, 2) */
+    private static final int MAX_PRICE_INTEGER_DIGITS = 8;
+    
+    static ProductRecord of(long line, Long id, String name, String description, BigDecimal price, Integer quantity) {
+        if (id != null && id <= 0) {
+            throw new ProductImportException(line, "id must be positive");
+        }
+        if (name == null || name.isBlank()) {
+            throw new ProductImportException(line, "name is required");
+        }
+        if (name.length() > MAX_TEXT_LENGTH || (description != null && description.length() > MAX_TEXT_LENGTH)) {
+            throw new ProductImportException(line, "name and description are limited to " + MAX_TEXT_LENGTH + " characters");
+        }
+        if (price == null) {
+            throw new ProductImportException(line, "price is required");
+        }
+        if (price.signum() < 0 || price.stripTrailingZeros().scale() > 2
+                || price.precision() - price.scale() > MAX_PRICE_INTEGER_DIGITS) {
+            throw new ProductImportException(line, "price must be between 0 and 99999999.99 with at most 2 decimals");
+        }
+        if (quantity == null) {
+            throw new ProductImportException(line, "quantity is required");
+        }
+        if (quantity < 0) {
+            throw new ProductImportException(line, "quantity must be zero or positive");
+        }
+        return new ProductRecord(line, id, name, description == null || description.isEmpty() ? null : description,
+                price, quantity);
+    }
+}
@@ -0,0 +1,240 @@
+package com.distributed.ecommerce.inventory.bulk;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the products of an import file one at a time, so a file of any size is parsed in
+ * constant memory. Malformed or invalid products fail with a {@link ProductImportException}
+ * naming their line.
+ */
+abstract class ProductRecordReader implements Closeable {
+    
+    static ProductRecordReader open(ProductFileFormat format, InputStream in, ObjectMapper objectMapper) throws IOException {
+        return format == ProductFileFormat.CSV
+                ? new Csv(new InputStreamReader(in, StandardCharsets.UTF_8))
+                : new Ndjson(objectMapper.getFactory().createParser(in));
+    }
+    
+    /**
+     * Returns the next product, or null at the end of the file.
+     */
+    abstract ProductRecord next() throws IOException;
+    
+    /**
+     * RFC 4180: comma separated, fields with commas, quotes or line breaks in double quotes,
+     * quotes doubled. The header names the columns: {@code name}, {@code price} and
+     * {@code quantity} are required, {@code id} and {@code description} optional, anything
+     * else (the extra columns of an export) is ignored. Empty fields are nulls.
+     */
+    private static final class Csv extends ProductRecordReader {
+        
+        private final Reader reader;
+        private final char[] buffer = new char[1 << 16];
+        private int position;
+        private int limit;
+        
+        /** Line the next character is on. */
+        private long line = 1;
+        private long recordLine;
+        
+        private final int idColumn;
+        private final int nameColumn;
+        private final int descriptionColumn;
+        private final int priceColumn;
+        private final int quantityColumn;
+        
+        private Csv(Reader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new ProductImportException(1, "the file is empty, expected a header line");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            idColumn = columns.getOrDefault("id", -1);
+            nameColumn = columns.getOrDefault("name", -1);
+            descriptionColumn = columns.getOrDefault("description", -1);
+            priceColumn = columns.getOrDefault("price", -1);
+            quantityColumn = columns.getOrDefault("quantity", -1);
+            if (nameColumn < 0 || priceColumn < 0 || quantityColumn < 0) {
+                throw new ProductImportException(1, "the header must name the columns name, price and quantity");
+            }
+        }
+        
+        @Override
+        ProductRecord next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isEmpty());
+            
+            long at = recordLine;
+            try {
+                String id = field(fields, idColumn);
+                String price = field(fields, priceColumn);
+                String quantity = field(fields, quantityColumn);
+                return ProductRecord.of(at, id == null ? null : Long.valueOf(id.trim()),
+                        field(fields, nameColumn), field(fields, descriptionColumn),
+                        price == null ? null : new BigDecimal(price.trim()),
+                        quantity == null ? null : Integer.valueOf(quantity.trim()));
+            } catch (NumberFormatException e) {
+                throw new ProductImportException(at, "id, price and quantity must be numbers");
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+        
+        private static String field(List<String> fields, int column) {
+            if (column < 0 || column >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(column);
+            return value.isEmpty() ? null : value;
+        }
+        
+        /**
+         * Reads the fields of the next record, or returns null at the end of the input.
+         */
+        private List<String> readRecord() throws IOException {
+            int c = read();
+            if (c < 0) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        throw new ProductImportException(recordLine, "unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c == '"') {
+                            field.append('"');
+                            c = read();
+                        } else {
+                            quoted = false;
+                        }
+                        continue;
+                    }
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                    c = read();
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    c = read();
+                } else if (c == '\n' || c < 0) {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                    c = read();
+                } else {
+                    // A CR outside quotes can only belong to a CRLF line break
+                    if (c != '\r') {
+                        field.append((char) c);
+                    }
+                    c = read();
+                }
+            }
+        }
+        
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+    
+    /**
+     * One JSON object per product, keys as in the products API ({@code id}, {@code name},
+     * {@code description}, {@code price}, {@code quantity}); other keys are ignored. Objects
+     * only need to be separated by whitespace, so pretty-printed files are read too.
+     */
+    private static final class Ndjson extends ProductRecordReader {
+        
+        private final JsonParser parser;
+        
+        private Ndjson(JsonParser parser) {
+            this.parser = parser;
+        }
+        
+        @Override
+        ProductRecord next() throws IOException {
+            long at = parser.getCurrentLocation().getLineNr();
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    return null;
+                }
+                at = parser.getTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new ProductImportException(at, "expected a JSON object");
+                }
+                JsonNode product = parser.readValueAsTree();
+                JsonNode id = product.path("id");
+                JsonNode price = product.path("price");
+                JsonNode quantity = product.path("quantity");
+                if (!(id.isMissingNode() || id.isNull() || id.canConvertToExactIntegral() && id.canConvertToLong())
+                        || !(price.isMissingNode() || price.isNull() || price.isNumber())
+                        || !(quantity.isMissingNode() || quantity.isNull() || quantity.canConvertToExactIntegral() && quantity.canConvertToInt())) {
+                    throw new ProductImportException(at, "id and quantity must be integers, price a number");
+                }
+                return ProductRecord.of(at, id.isNumber() ? id.longValue() : null, text(product, "name"),
+                        text(product, "description"), price.isNumber() ? price.decimalValue() : null,
+                        quantity.isNumber() ? quantity.intValue() : null);
+            } catch (JsonProcessingException e) {
+                throw new ProductImportException(at, "malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+        
+        private static String text(JsonNode product, String field) {
+            JsonNode value = product.path(field);
+            return value.isMissingNode() || value.isNull() ? null : value.asText();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.distributed.ecommerce.inventory.catalog;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity bitmap over product ordinals. Queries combine bitmaps a 64-bit word at a
+ * time, so a filter over a million products is about 16 thousand word operations.
+ * <p>
+ * {@link #word} may run concurrently with writes and sees each word either before or after a
+ * change. Writers must be serialized by the caller.
+ */
+final class Bitmap {
+    
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    
+    private final long[] words;
+    
+    Bitmap(int capacity) {
+        this.words = new long[wordsFor(capacity)];
+    }
+    
+    private Bitmap(long[] words) {
+        this.words = words;
+    }
+    
+    static int wordsFor(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+    
+    long word(int index) {
+        return (long) WORDS.getAcquire(words, index);
+    }
+    
+    boolean get(int ordinal) {
+        return (word(ordinal >>> 6) & (1L << ordinal)) != 0;
+    }
+    
+    void set(int ordinal, boolean value) {
+        int index = ordinal >>> 6;
+        long current = words[index];
+        long updated = value ? current | (1L << ordinal) : current & ~(1L << ordinal);
+        if (updated != current) {
+            WORDS.setRelease(words, index, updated);
+        }
+    }
+    
+    Bitmap grown(int capacity) {
+        return new Bitmap(Arrays.copyOf(words, wordsFor(capacity)));
+    }
+}
@@ -0,0 +1,534 @@
+package com.distributed.ecommerce.inventory.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Price and available stock of every product, indexed for filtered, sorted and paged catalog
+ * browsing. Products get dense ordinals in id order; per ordinal the index keeps the price in
+ * cents, the available quantity and a set of {@link Bitmap}s:
+ * <ul>
+ *   <li>{@code live}, {@code inStock} (available &gt; 0) and {@code lowStock}
+ *       (0 &lt; available &lt;= the low-stock threshold);</li>
+ *   <li>one "priced at most" bitmap per price band. Band edges are price quantiles taken at build
+ *       time, so every band holds about as many products. A price range is the difference of two
+ *       of these bitmaps; only products in the two boundary bands need their exact price checked.</li>
+ * </ul>
+ * A filter is evaluated a word at a time over those bitmaps, which also yields the total count,
+ * and pages in id order come out of the same pass. Pages in price order walk an array of
+ * ordinals sorted by price from the first price in range and stop once the page is full.
+ * <p>
+ * Reads never lock and may run concurrently with writes; writes are synchronized. Products
+ * appended in id order are added in place, while an id lower than the highest indexed one
+ * rebuilds the index.
+ */
+public final class CatalogIndex {
+    
+    private final int lowStockThreshold;
+    private final int priceBands;
+    private volatile State state;
+    
+    private CatalogIndex(int lowStockThreshold, int priceBands, State state) {
+        this.lowStockThreshold = lowStockThreshold;
+        this.priceBands = priceBands;
+        this.state = state;
+    }
+    
+    public static Builder builder(int expectedProducts, int lowStockThreshold, int priceBands) {
+        return new Builder(expectedProducts, lowStockThreshold, priceBands);
+    }
+    
+    public int getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+    
+    /**
+     * Returns whether the product is indexed and live with exactly this name and price.
+     */
+    public boolean isCurrent(long productId, String name, long priceCents) {
+        State current = state;
+        int ordinal = current.ordinalOf(productId);
+        return ordinal >= 0 && current.live.get(ordinal) && current.prices[ordinal] == priceCents
+                && Objects.equals(name, current.names[ordinal]);
+    }
+    
+    public Page query(CatalogQuery query) {
+        State current = state;
+        Filter filter = new Filter(current, query);
+        if (filter.empty) {
+            return new Page(List.of(), 0);
+        }
+        int words = Bitmap.wordsFor(current.size);
+        int offset = query.getOffset();
+        int limit = query.getLimit();
+        List<Item> items = new ArrayList<>(Math.min(limit, 100));
+        boolean collect = query.getSort() == CatalogQuery.Sort.ID;
+        long total = 0;
+        for (int w = 0; w < words; w++) {
+            long matches = filter.word(w);
+            int count = Long.bitCount(matches);
+            if (collect && items.size() < limit && total + count > offset) {
+                long position = total;
+                for (long bits = matches; bits != 0 && items.size() < limit; bits &= bits - 1, position++) {
+                    if (position >= offset) {
+                        items.add(current.item((w << 6) + Long.numberOfTrailingZeros(bits)));
+                    }
+                }
+            }
+            total += count;
+        }
+        if (!collect && total > offset) {
+            collectByPrice(current, filter, query, items);
+        }
+        return new Page(items, total);
+    }
+    
+    private static void collectByPrice(State current, Filter filter, CatalogQuery query, List<Item> items) {
+        int[] byPrice = current.byPrice;
+        int offset = query.getOffset();
+        int limit = query.getLimit();
+        int skipped = 0;
+        if (query.getSort() == CatalogQuery.Sort.PRICE_ASC) {
+            for (int i = current.firstPricedFrom(byPrice, filter.minPrice); i < byPrice.length && items.size() < limit; i++) {
+                int ordinal = byPrice[i];
+                if (current.prices[ordinal] > filter.maxPrice) {
+                    break;
+                }
+                if (filter.accepts(ordinal) && skipped++ >= offset) {
+                    items.add(current.item(ordinal));
+                }
+            }
+        } else {
+            int end = filter.maxPrice == Long.MAX_VALUE ? byPrice.length : current.firstPricedFrom(byPrice, filter.maxPrice + 1);
+            for (int i = end - 1; i >= 0 && items.size() < limit; i--) {
+                int ordinal = byPrice[i];
+                if (current.prices[ordinal] < filter.minPrice) {
+                    break;
+                }
+                if (filter.accepts(ordinal) && skipped++ >= offset) {
+                    items.add(current.item(ordinal));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Indexes the product or updates its name, price and available stock.
+     */
+    public synchronized void put(long productId, String name, long priceCents, int available) {
+        State current = state;
+        int ordinal = current.ordinalOf(productId);
+        if (ordinal >= 0) {
+            current.names[ordinal] = name;
+            if (current.prices[ordinal] != priceCents) {
+                current.byPrice = current.withoutOrdinal(ordinal);
+                current.setPrice(ordinal, priceCents);
+                current.byPrice = current.withOrdinal(ordinal);
+            }
+            current.setAvailable(ordinal, available);
+            current.live.set(ordinal, true);
+            return;
+        }
+        if (current.size > 0 && productId < current.productIds[current.size - 1]) {
+            rebuildWith(current, productId, name, priceCents, available);
+            return;
+        }
+        if (current.size == current.productIds.length) {
+            current = current.grown(current.size * 2);
+            state = current;
+        }
+        ordinal = current.size;
+        current.productIds[ordinal] = productId;
+        current.names[ordinal] = name;
+        current.setPrice(ordinal, priceCents);
+        current.setAvailable(ordinal, available);
+        current.live.set(ordinal, true);
+        current.byPrice = current.withOrdinal(ordinal);
+        current.size = ordinal + 1;
+    }
+    
+    /**
+     * Updates the available stock of an indexed product; unknown products are ignored.
+     */
+    public synchronized void setAvailable(long productId, int available) {
+        State current = state;
+        int ordinal = current.ordinalOf(productId);
+        if (ordinal >= 0) {
+            current.setAvailable(ordinal, available);
+        }
+    }
+    
+    public synchronized void remove(long productId) {
+        State current = state;
+        int ordinal = current.ordinalOf(productId);
+        if (ordinal >= 0) {
+            current.live.set(ordinal, false);
+        }
+    }
+    
+    private void rebuildWith(State current, long productId, String name, long priceCents, int available) {
+        Builder builder = new Builder(current.size + 1, lowStockThreshold, priceBands);
+        boolean added = false;
+        for (int ordinal = 0; ordinal < current.size; ordinal++) {
+            if (!added && current.productIds[ordinal] > productId) {
+                builder.add(productId, name, priceCents, available);
+                added = true;
+            }
+            if (current.live.get(ordinal)) {
+                builder.add(current.productIds[ordinal], current.names[ordinal], current.prices[ordinal],
+                        current.available[ordinal]);
+            }
+        }
+        state = builder.buildState();
+    }
+    
+    /**
+     * Heap held by the index, excluding the product names.
+     */
+    public long getFootprintBytes() {
+        State current = state;
+        int capacity = current.productIds.length;
+        long bitmapBytes = 8L * Bitmap.wordsFor(capacity) * (3 + current.atMostBand.length);
+        return 8L * capacity + 8L * capacity + 4L * capacity + 4L * current.byPrice.length + bitmapBytes;
+    }
+    
+    /**
+     * One page of a query and the number of products matching it.
+     */
+    public static final class Page {
+        private final List<Item> items;
+        private final long total;
+        
+        Page(List<Item> items, long total) {
+            this.items = items;
+            this.total = total;
+        }
+        
+        public List<Item> getItems() { return items; }
+        public long getTotal() { return total; }
+    }
+    
+    public static final class Item {
+        private final long productId;
+        private final String name;
+        private final long priceCents;
+        private final int available;
+        
+        Item(long productId, String name, long priceCents, int available) {
+            this.productId = productId;
+            this.name = name;
+            this.priceCents = priceCents;
+            this.available = available;
+        }
+        
+        public long getProductId() { return productId; }
+        public String getName() { return name; }
+        public long getPriceCents() { return priceCents; }
+        public int getAvailable() { return available; }
+    }
+    
+    /**
+     * Bulk loader: products must be added in ascending id order.
+     */
+    public static final class Builder {
+        private final int lowStockThreshold;
+        private final int priceBands;
+        private long[] productIds;
+        private String[] names;
+        private long[] prices;
+        private int[] available;
+        private int size;
+        
+        private Builder(int expectedProducts, int lowStockThreshold, int priceBands) {
+            int capacity = Math.max(16, expectedProducts);
+            this.lowStockThreshold = lowStockThreshold;
+            this.priceBands = Math.max(1, priceBands);
+            this.productIds = new long[capacity];
+            this.names = new String[capacity];
+            this.prices = new long[capacity];
+            this.available = new int[capacity];
+        }
+        
+        public Builder add(long productId, String name, long priceCents, int available) {
+            if (size > 0 && productId <= productIds[size - 1]) {
+                throw new IllegalArgumentException("Products must be added in ascending id order");
+            }
+            if (size == productIds.length) {
+                int capacity = size * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                this.available = Arrays.copyOf(this.available, capacity);
+            }
+            productIds[size] = productId;
+            names[size] = name;
+            prices[size] = priceCents;
+            this.available[size++] = available;
+            return this;
+        }
+        
+        public CatalogIndex build() {
+            return new CatalogIndex(lowStockThreshold, priceBands, buildState());
+        }
+        
+        private State buildState() {
+            long[] sortedPrices = Arrays.copyOf(prices, size);
+            Arrays.sort(sortedPrices);
+            long[] bandEdges = new long[priceBands];
+            for (int band = 0; band < priceBands - 1; band++) {
+                int rank = (int) Math.max(0, (band + 1L) * size / priceBands - 1);
+                bandEdges[band] = size == 0 ? Long.MAX_VALUE : sortedPrices[rank];
+            }
+            bandEdges[priceBands - 1] = Long.MAX_VALUE;
+            
+            State state = new State(Math.max(16, size + size / 4), bandEdges, lowStockThreshold);
+            System.arraycopy(productIds, 0, state.productIds, 0, size);
+            System.arraycopy(names, 0, state.names, 0, size);
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                state.setPrice(ordinal, prices[ordinal]);
+                state.setAvailable(ordinal, available[ordinal]);
+                state.live.set(ordinal, true);
+            }
+            
+            // Sort ordinals by (price, ordinal) as primitive keys: the price rank in the high half
+            long[] keys = new long[size];
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                long rank = Arrays.binarySearch(sortedPrices, prices[ordinal]);
+                keys[ordinal] = (rank << 32) | ordinal;
+            }
+            Arrays.sort(keys);
+            int[] byPrice = new int[size];
+            for (int i = 0; i < size; i++) {
+                byPrice[i] = (int) keys[i];
+            }
+            state.byPrice = byPrice;
+            state.size = size;
+            return state;
+        }
+    }
+    
+    /**
+     * A query's filters, evaluated a bitmap word or an ordinal at a time.
+     */
+    private static final class Filter {
+        private final State state;
+        private final int minAvailable;
+        private final int maxAvailable;
+        private final long minPrice;
+        private final long maxPrice;
+        private final boolean priced;
+        private final boolean checkLowStock;
+        private final boolean checkStock;
+        private final int lowBand;
+        private final int highBand;
+        private final boolean empty;
+        
+        private Filter(State state, CatalogQuery query) {
+            this.state = state;
+            int threshold = state.lowStockThreshold;
+            this.minAvailable = Math.max(query.getMinAvailable(), query.isLowStockOnly() ? 1 : 0);
+            this.maxAvailable = query.isLowStockOnly() ? threshold : Integer.MAX_VALUE;
+            this.minPrice = query.getMinPriceCents() == null ? Long.MIN_VALUE : query.getMinPriceCents();
+            this.maxPrice = query.getMaxPriceCents() == null ? Long.MAX_VALUE : query.getMaxPriceCents();
+            this.priced = query.getMinPriceCents() != null || query.getMaxPriceCents() != null;
+            // Products above the threshold have more than it available, those in the low-stock
+            // bitmap at least one; only the rest need their exact quantity checked
+            this.checkLowStock = minAvailable > 1 && minAvailable <= threshold + 1;
+            this.checkStock = minAvailable > threshold + 1;
+            this.lowBand = query.getMinPriceCents() == null ? -1 : state.bandOf(minPrice);
+            this.highBand = query.getMaxPriceCents() == null ? state.bandEdges.length : state.bandOf(maxPrice);
+            this.empty = minPrice > maxPrice || minAvailable > maxAvailable;
+        }
+        
+        long word(int w) {
+            long candidates = state.live.word(w);
+            if (minAvailable > 0) {
+                candidates &= state.inStock.word(w);
+            }
+            long low = state.lowStock.word(w);
+            if (maxAvailable <= state.lowStockThreshold) {
+                candidates &= low;
+            } else if (minAvailable > state.lowStockThreshold) {
+                candidates &= ~low;
+            }
+            long check = checkStock ? candidates : checkLowStock ? candidates & low : 0;
+            if (priced) {
+                candidates &= atMost(highBand, w) & ~atMost(lowBand - 1, w);
+                long inside = atMost(highBand - 1, w) & ~atMost(lowBand, w);
+                check |= candidates & ~inside;
+            }
+            check &= candidates;
+            if (check == 0) {
+                return candidates;
+            }
+            long accepted = candidates & ~check;
+            for (long bits = check; bits != 0; bits &= bits - 1) {
+                if (accepts((w << 6) + Long.numberOfTrailingZeros(bits))) {
+                    accepted |= bits & -bits;
+                }
+            }
+            return accepted;
+        }
+        
+        boolean accepts(int ordinal) {
+            int available = state.available[ordinal];
+            long price = state.prices[ordinal];
+            return state.live.get(ordinal) && available >= minAvailable && available <= maxAvailable
+                    && price >= minPrice && price <= maxPrice;
+        }
+        
+        /**
+         * Word of the bitmap of products priced within bands 0..band.
+         */
+        private long atMost(int band, int w) {
+            if (band < 0) {
+                return 0;
+            }
+            return band >= state.atMostBand.length ? -1L : state.atMostBand[band].word(w);
+        }
+    }
+    
+    private static final class State {
+        private final int lowStockThreshold;
+        private final long[] productIds;
+        private final String[] names;
+        private final long[] prices;
+        private final int[] available;
+        /** Inclusive upper price of each band; the last is {@code Long.MAX_VALUE}. */
+        private final long[] bandEdges;
+        private final Bitmap live;
+        private final Bitmap inStock;
+        private final Bitmap lowStock;
+        /** {@code atMostBand[k]} holds the products priced at most {@code bandEdges[k]}; the last band would hold all. */
+        private final Bitmap[] atMostBand;
+        /** Ordinals sorted by price, then ordinal; replaced as a whole on change. */
+        private volatile int[] byPrice;
+        private volatile int size;
+        
+        private State(int capacity, long[] bandEdges, int lowStockThreshold) {
+            this.lowStockThreshold = lowStockThreshold;
+            this.productIds = new long[capacity];
+            this.names = new String[capacity];
+            this.prices = new long[capacity];
+            this.available = new int[capacity];
+            this.bandEdges = bandEdges;
+            this.live = new Bitmap(capacity);
+            this.inStock = new Bitmap(capacity);
+            this.lowStock = new Bitmap(capacity);
+            this.atMostBand = new Bitmap[bandEdges.length - 1];
+            for (int band = 0; band < atMostBand.length; band++) {
+                atMostBand[band] = new Bitmap(capacity);
+            }
+            this.byPrice = new int[0];
+        }
+        
+        private State(State previous, int capacity) {
+            this.lowStockThreshold = previous.lowStockThreshold;
+            this.productIds = Arrays.copyOf(previous.productIds, capacity);
+            this.names = Arrays.copyOf(previous.names, capacity);
+            this.prices = Arrays.copyOf(previous.prices, capacity);
+            this.available = Arrays.copyOf(previous.available, capacity);
+            this.bandEdges = previous.bandEdges;
+            this.live = previous.live.grown(capacity);
+            this.inStock = previous.inStock.grown(capacity);
+            this.lowStock = previous.lowStock.grown(capacity);
+            this.atMostBand = new Bitmap[previous.atMostBand.length];
+            for (int band = 0; band < atMostBand.length; band++) {
+                atMostBand[band] = previous.atMostBand[band].grown(capacity);
+            }
+            this.byPrice = previous.byPrice;
+            this.size = previous.size;
+        }
+        
+        private State grown(int capacity) {
+            return new State(this, capacity);
+        }
+        
+        private int ordinalOf(long productId) {
+            int ordinal = Arrays.binarySearch(productIds, 0, size, productId);
+            return ordinal >= 0 ? ordinal : -1;
+        }
+        
+        private int bandOf(long priceCents) {
+            int band = Arrays.binarySearch(bandEdges, priceCents);
+            if (band < 0) {
+                return -band - 1;
+            }
+            // Equal edges of several bands: the first one holds the price
+            while (band > 0 && bandEdges[band - 1] == priceCents) {
+                band--;
+            }
+            return band;
+        }
+        
+        private Item item(int ordinal) {
+            return new Item(productIds[ordinal], names[ordinal], prices[ordinal], available[ordinal]);
+        }
+        
+        private void setPrice(int ordinal, long priceCents) {
+            prices[ordinal] = priceCents;
+            int band = bandOf(priceCents);
+            for (int k = 0; k < atMostBand.length; k++) {
+                atMostBand[k].set(ordinal, k >= band);
+            }
+        }
+        
+        private void setAvailable(int ordinal, int quantity) {
+            available[ordinal] = quantity;
+            inStock.set(ordinal, quantity > 0);
+            lowStock.set(ordinal, quantity > 0 && quantity <= lowStockThreshold);
+        }
+        
+        /**
+         * Position of the first ordinal in {@code byPrice} priced at least {@code priceCents}.
+         */
+        private int firstPricedFrom(int[] byPrice, long priceCents) {
+            int low = 0;
+            int high = byPrice.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (prices[byPrice[middle]] < priceCents) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+        
+        private int[] withOrdinal(int ordinal) {
+            int[] current = byPrice;
+            long price = prices[ordinal];
+            int low = 0;
+            int high = current.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int other = current[middle];
+                if (prices[other] < price || (prices[other] == price && other < ordinal)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            int[] updated = new int[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, low);
+            updated[low] = ordinal;
+            System.arraycopy(current, low, updated, low + 1, current.length - low);
+            return updated;
+        }
+        
+        private int[] withoutOrdinal(int ordinal) {
+            int[] current = byPrice;
+            int[] updated = new int[current.length - 1];
+            int size = 0;
+            for (int other : current) {
+                if (other != ordinal) {
+                    updated[size++] = other;
+                }
+            }
+            return updated;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.distributed.ecommerce.inventory.catalog;
+
+/**
+ * Filters, order and page of a catalog query. Prices are in cents; null bounds are open.
+ */
+public final class CatalogQuery {
+    
+    public enum Sort {
+        ID, PRICE_ASC, PRICE_DESC
+    }
+    
+    private final int minAvailable;
+    private final boolean lowStockOnly;
+    private final Long minPriceCents;
+    private final Long maxPriceCents;
+    private final Sort sort;
+    private final int offset;
+    private final int limit;
+    
+    /**
+     * @param minAvailable products must have at least this much available stock; 0 includes sold out products
+     * @param lowStockOnly only products with some stock, but no more than the low-stock threshold
+     */
+    public CatalogQuery(int minAvailable, boolean lowStockOnly, Long minPriceCents, Long maxPriceCents,
+                        Sort sort, int offset, int limit) {
+        this.minAvailable = minAvailable;
+        this.lowStockOnly = lowStockOnly;
+        this.minPriceCents = minPriceCents;
+        this.maxPriceCents = maxPriceCents;
+        this.sort = sort;
+        this.offset = offset;
+        this.limit = limit;
+    }
+    
+    public int getMinAvailable() { return minAvailable; }
+    public boolean isLowStockOnly() { return lowStockOnly; }
+    public Long getMinPriceCents() { return minPriceCents; }
+    public Long getMaxPriceCents() { return maxPriceCents; }
+    public Sort getSort() { return sort; }
+    public int getOffset() { return offset; }
+    public int getLimit() { return limit; }
+}
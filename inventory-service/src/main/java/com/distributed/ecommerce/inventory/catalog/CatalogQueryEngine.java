@@ -0,0 +1,300 @@
+package com.distributed.ecommerce.inventory.catalog;
+
+import com.distributed.ecommerce.inventory.availability.AvailabilityIndex;
+import com.distributed.ecommerce.inventory.availability.AvailabilityListener;
+import com.distributed.ecommerce.inventory.availability.StockTable;
+import com.distributed.ecommerce.inventory.dto.CatalogItemResponse;
+import com.distributed.ecommerce.inventory.dto.CatalogPageResponse;
+import com.distributed.ecommerce.inventory.model.Product;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.repository.StockSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog browsing over an in-memory {@link CatalogIndex}, so filtering by stock and price,
+ * sorting and paging never reach the database. The index is bulk loaded once the application
+ * is ready. Stock follows the {@link AvailabilityIndex}: every change it applies, local or
+ * reported by another replica, updates the product's bitmaps in place. Products saved by this
+ * instance are re-indexed after commit through {@link ProductCatalogListener}; prices and new
+ * products written elsewhere are picked up every {@code inventory.catalog.refresh-interval-ms}.
+ * <p>
+ * Like the availability feed, the engine is unavailable while the availability index is
+ * disabled, since it would not hear about reservations.
+ */
+@Component
+public class CatalogQueryEngine implements AvailabilityListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CatalogQueryEngine.class);
+    
+    /** Rows updated this long before the last refresh are read again, to absorb clock skew between replicas. */
+    private static final long REFRESH_OVERLAP_MILLIS = 5_000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AvailabilityIndex availabilityIndex;
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final int lowStockThreshold;
+    private final int priceBands;
+    private final long refreshIntervalMillis;
+    
+    private volatile CatalogIndex index;
+    
+    /** Products whose stock changed while a load is running; reloaded once it is swapped in. */
+    private volatile Set<Long> changedDuringLoad;
+    
+    /** Latest updated_at read from the products table; only used on the refresher thread. */
+    private Timestamp watermark;
+    
+    private ScheduledExecutorService refresher;
+    
+    public CatalogQueryEngine(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              AvailabilityIndex availabilityIndex,
+                              ProductRepository productRepository,
+                              @Value("${inventory.catalog.enabled:true}") boolean enabled,
+                              @Value("${inventory.catalog.fetch-size:5000}") int fetchSize,
+                              @Value("${inventory.catalog.low-stock-threshold:10}") int lowStockThreshold,
+                              @Value("${inventory.catalog.price-bands:32}") int priceBands,
+                              @Value("${inventory.catalog.refresh-interval-ms:60000}") long refreshIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.availabilityIndex = availabilityIndex;
+        this.productRepository = productRepository;
+        this.enabled = enabled && availabilityIndex.isEnabled();
+        this.fetchSize = fetchSize;
+        this.lowStockThreshold = lowStockThreshold;
+        this.priceBands = priceBands;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        if (this.enabled) {
+            availabilityIndex.addListener(this);
+        }
+    }
+    
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        load();
+        refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+    
+    public boolean isAvailable() {
+        return index != null;
+    }
+    
+    /**
+     * Picks up products written without JPA (bulk imports) now instead of at the next scheduled
+     * refresh. Runs on the refresher thread; does nothing until the index is loaded.
+     */
+    public void refreshSoon() {
+        if (index != null) {
+            refresher.execute(this::refresh);
+        }
+    }
+    
+    /**
+     * Rebuilds the index from the products table on the refresher thread, for writes too large
+     * to re-index product by product. Does nothing until the index is loaded.
+     */
+    public void reloadSoon() {
+        if (index != null) {
+            refresher.execute(this::load);
+        }
+    }
+    
+    public CatalogPageResponse query(CatalogQuery query) {
+        CatalogIndex.Page page = index.query(query);
+        List<CatalogItemResponse> items = new ArrayList<>(page.getItems().size());
+        for (CatalogIndex.Item item : page.getItems()) {
+            items.add(new CatalogItemResponse(item.getProductId(), item.getName(),
+                    BigDecimal.valueOf(item.getPriceCents(), 2), item.getAvailable()));
+        }
+        return new CatalogPageResponse(items, query.getOffset() / query.getLimit(), query.getLimit(), page.getTotal());
+    }
+    
+    /**
+     * Converts a price to cents with the given rounding.
+     */
+    public static long toCents(BigDecimal price, RoundingMode rounding) {
+        return price.setScale(2, rounding).movePointRight(2).longValueExact();
+    }
+    
+    @Override
+    public void availabilityChanged(long productId) {
+        // Recorded before reading the index, so a change racing with the end of a load is either
+        // in the set the load reloads or applied to the index it swapped in
+        Set<Long> pending = changedDuringLoad;
+        if (pending != null) {
+            pending.add(productId);
+        }
+        CatalogIndex current = index;
+        if (current != null) {
+            long stock = availabilityIndex.lookup(productId);
+            if (stock != StockTable.ABSENT) {
+                current.setAvailable(productId, StockTable.availableOf(stock));
+            }
+        }
+    }
+    
+    @Override
+    public void availabilityReset() {
+        if (index != null) {
+            refresher.execute(this::copyAvailability);
+        }
+    }
+    
+    /**
+     * Re-indexes the product once the current transaction commits, if its name or price
+     * changed. Cheap when they did not, since stock updates also pass through here.
+     */
+    void productSaved(Product product) {
+        CatalogIndex current = index;
+        if (current == null || product.getId() == null || product.getPrice() == null) {
+            return;
+        }
+        long productId = product.getId();
+        String name = product.getName();
+        long priceCents = toCents(product.getPrice(), RoundingMode.HALF_UP);
+        if (current.isCurrent(productId, name, priceCents)) {
+            return;
+        }
+        int available = product.getAvailableQuantity();
+        afterCommit(() -> current.put(productId, name, priceCents, available));
+    }
+    
+    void productRemoved(Product product) {
+        CatalogIndex current = index;
+        if (current != null && product.getId() != null) {
+            long productId = product.getId();
+            afterCommit(() -> current.remove(productId));
+        }
+    }
+    
+    private void load() {
+        long start = System.nanoTime();
+        changedDuringLoad = ConcurrentHashMap.newKeySet();
+        
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+        CatalogIndex.Builder builder = CatalogIndex.builder(count == null ? 0 : count.intValue(), lowStockThreshold, priceBands);
+        Timestamp[] latest = new Timestamp[1];
+        readOnlyTransaction.executeWithoutResult(status -> {
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(fetchSize);
+            streaming.query("SELECT id, name, price, quantity, reserved_quantity, updated_at FROM products ORDER BY id",
+                    row -> {
+                        builder.add(row.getLong(1), row.getString(2), toCents(row.getBigDecimal(3), RoundingMode.HALF_UP),
+                                row.getInt(4) - row.getInt(5));
+                        latest[0] = later(latest[0], row.getTimestamp(6));
+                    });
+        });
+        CatalogIndex loaded = builder.build();
+        watermark = latest[0];
+        index = loaded;
+        Set<Long> changed = changedDuringLoad;
+        changedDuringLoad = null;
+        if (!changed.isEmpty()) {
+            for (StockSnapshot stock : productRepository.findStockSnapshots(changed)) {
+                loaded.setAvailable(stock.getProductId(), stock.getQuantity() - stock.getReservedQuantity());
+            }
+        }
+        
+        logger.info("Catalog index loaded in {} ms ({} bytes excluding names)",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), loaded.getFootprintBytes());
+    }
+    
+    /**
+     * Re-indexes the products updated since the previous refresh, taking their stock from the
+     * availability index when it has them, since it may be ahead of the rows read.
+     */
+    void refresh() {
+        try {
+            CatalogIndex current = index;
+            Timestamp since = watermark == null
+                    ? new Timestamp(0)
+                    : new Timestamp(watermark.getTime() - REFRESH_OVERLAP_MILLIS);
+            Timestamp[] latest = {watermark};
+            jdbcTemplate.query("SELECT id, name, price, quantity, reserved_quantity, updated_at FROM products WHERE updated_at >= ?",
+                    row -> {
+                        long productId = row.getLong(1);
+                        long stock = availabilityIndex.lookup(productId);
+                        int available = stock == StockTable.ABSENT ? row.getInt(4) - row.getInt(5) : StockTable.availableOf(stock);
+                        current.put(productId, row.getString(2), toCents(row.getBigDecimal(3), RoundingMode.HALF_UP), available);
+                        latest[0] = later(latest[0], row.getTimestamp(6));
+                    }, since);
+            watermark = latest[0];
+        } catch (RuntimeException e) {
+            logger.warn("Catalog index refresh failed: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Copies the stock of every product after a full reload of the availability index.
+     */
+    private void copyAvailability() {
+        CatalogIndex current = index;
+        availabilityIndex.forEach((productId, packed) -> current.setAvailable(productId, StockTable.availableOf(packed)));
+    }
+    
+    private static Timestamp later(Timestamp current, Timestamp candidate) {
+        return current == null || (candidate != null && candidate.after(current)) ? candidate : current;
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
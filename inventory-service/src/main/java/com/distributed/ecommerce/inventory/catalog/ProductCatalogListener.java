@@ -0,0 +1,48 @@
+package com.distributed.ecommerce.inventory.catalog;
+
+import com.distributed.ecommerce.inventory.model.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that forwards product writes to the {@link CatalogQueryEngine}.
+ * Instantiated by Hibernate through Spring while the entity manager factory is built, so the
+ * engine is looked up lazily to avoid a dependency cycle with the repositories.
+ */
+public class ProductCatalogListener {
+    
+    private final ObjectProvider<CatalogQueryEngine> catalogQueryEngine;
+    private volatile CatalogQueryEngine resolved;
+    
+    public ProductCatalogListener(ObjectProvider<CatalogQueryEngine> catalogQueryEngine) {
+        this.catalogQueryEngine = catalogQueryEngine;
+    }
+    
+    @PostPersist
+    @PostUpdate
+    void productSaved(Product product) {
+        CatalogQueryEngine engine = engine();
+        if (engine != null) {
+            engine.productSaved(product);
+        }
+    }
+    
+    @PostRemove
+    void productRemoved(Product product) {
+        CatalogQueryEngine engine = engine();
+        if (engine != null) {
+            engine.productRemoved(product);
+        }
+    }
+    
+    private CatalogQueryEngine engine() {
+        CatalogQueryEngine engine = resolved;
+        if (engine == null) {
+            engine = catalogQueryEngine.getIfAvailable();
+            resolved = engine;
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,26 @@
+package com.distributed.ecommerce.inventory.config;
+
+import com.distributed.ecommerce.eventlog.EventLog;
+import com.distributed.ecommerce.tracing.TraceContext;
+import com.distributed.ecommerce.tracing.Tracer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Declares the shared {@link EventLog}, tagging its events with the id of the current trace.
+ */
+@Configuration
+public class EventLogConfig {
+    
+    @Bean
+    public EventLog eventLog(Tracer tracer,
+                             @Value("${eventlog.enabled:true}") boolean enabled,
+                             @Value("${eventlog.buffer-size:8192}") int bufferSize,
+                             @Value("${eventlog.sample-rate:100}") int sampleRate) {
+        return new EventLog(() -> {
+            TraceContext trace = tracer.current();
+            return trace == null ? null : trace.getTraceId();
+        }, enabled, bufferSize, sampleRate);
+    }
+}
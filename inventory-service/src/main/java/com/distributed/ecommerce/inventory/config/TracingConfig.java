@@ -0,0 +1,53 @@
+package com.distributed.ecommerce.inventory.config;
+
+import com.distributed.ecommerce.tracing.TraceBuffer;
+import com.distributed.ecommerce.tracing.Tracer;
+import com.distributed.ecommerce.tracing.TracingAspect;
+import com.distributed.ecommerce.tracing.TracingFilter;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Declares the shared in-process tracing, with spans around this service's {@code service} package.
+ */
+@Configuration
+public class TracingConfig {
+    
+    @Bean
+    public TraceBuffer traceBuffer(@Value("${tracing.buffer-size:1024}") int capacity) {
+        return new TraceBuffer(capacity);
+    }
+    
+    @Bean
+    public Tracer tracer(TraceBuffer traceBuffer,
+                         @Value("${tracing.enabled:true}") boolean enabled,
+                         @Value("${tracing.max-spans-per-trace:256}") int maxSpansPerTrace) {
+        return new Tracer(traceBuffer, enabled, maxSpansPerTrace);
+    }
+    
+    @Bean
+    public TracingFilter tracingFilter(Tracer tracer) {
+        return new TracingFilter(tracer);
+    }
+    
+    @Bean
+    public ServiceTracingAspect tracingAspect(Tracer tracer) {
+        return new ServiceTracingAspect(tracer);
+    }
+    
+    @Aspect
+    static class ServiceTracingAspect extends TracingAspect {
+        
+        ServiceTracingAspect(Tracer tracer) {
+            super(tracer);
+        }
+        
+        @Override
+        @Pointcut("execution(public * com.distributed.ecommerce.inventory.service..*(..))")
+        protected void applicationServices() {
+        }
+    }
+}
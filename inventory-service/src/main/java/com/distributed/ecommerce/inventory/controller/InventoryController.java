@@ -1,18 +1,42 @@
 package com.distributed.ecommerce.inventory.controller;
 
+import com.distributed.ecommerce.inventory.bulk.ProductExporter;
+import com.distributed.ecommerce.inventory.bulk.ProductFileFormat;
+import com.distributed.ecommerce.inventory.bulk.ProductImportException;
+import com.distributed.ecommerce.inventory.bulk.ProductImporter;
+import com.distributed.ecommerce.inventory.catalog.CatalogQuery;
+import com.distributed.ecommerce.inventory.catalog.CatalogQueryEngine;
 import com.distributed.ecommerce.inventory.dto.*;
+import com.distributed.ecommerce.inventory.feed.AvailabilityFeed;
+import com.distributed.ecommerce.inventory.flashsale.FlashSaleService;
+import com.distributed.ecommerce.inventory.search.ProductSearchIndex;
+import com.distributed.ecommerce.inventory.search.Trigrams;
+import com.distributed.ecommerce.inventory.service.GroupCommitReservationExecutor;
 import com.distributed.ecommerce.inventory.service.InventoryService;
+import com.distributed.ecommerce.inventory.service.StockAdjustmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.EOFException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipException;
 
 @RestController
 @RequestMapping("/api/inventory")
@@ -23,6 +47,33 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
     
+    @Autowired
+    private GroupCommitReservationExecutor groupCommitExecutor;
+    
+    @Autowired
+    private AvailabilityFeed availabilityFeed;
+    
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    
+    @Autowired
+    private CatalogQueryEngine catalogQueryEngine;
+    
+    @Autowired
+    private ProductImporter productImporter;
+    
+    @Autowired
+    private ProductExporter productExporter;
+    
+    @Autowired
+    private StockAdjustmentService stockAdjustmentService;
+    
+    @Autowired
+    private FlashSaleService flashSaleService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Reserves inventory for a given order.
      * 
@@ -31,18 +82,17 @@ public class InventoryController {
      */
     @PostMapping("/reserve")
     public ResponseEntity<?> reserveInventory(@Valid @RequestBody ReservationRequest reservationRequest) {
-        logger.info("Received inventory reservation request for order: {}", reservationRequest.getOrderId());
-        logger.debug("Reservation request details: {}", reservationRequest);
-        
         try {
-            ReservationResponse response = inventoryService.reserveInventory(reservationRequest);
+            ReservationResponse response = flashSaleService.reserve(reservationRequest);
+            if (response == null) {
+                response = groupCommitExecutor.isEnabled()
+                        ? groupCommitExecutor.reserve(reservationRequest)
+                        : inventoryService.reserveInventory(reservationRequest);
+            }
             
             if (response.isSuccess()) {
-                logger.info("Inventory reservation successful for order: {}", reservationRequest.getOrderId());
                 return ResponseEntity.ok(response);
             } else {
-                logger.warn("Inventory reservation failed for order: {} - {}", 
-                           reservationRequest.getOrderId(), response.getMessage());
                 return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
             }
             
@@ -62,17 +112,12 @@ public class InventoryController {
      */
     @PostMapping("/release")
     public ResponseEntity<?> releaseReservation(@Valid @RequestBody ReleaseReservationRequest releaseRequest) {
-        logger.info("Received reservation release request for order: {}", releaseRequest.getOrderId());
-        
         try {
             ReservationResponse response = inventoryService.releaseReservation(releaseRequest);
             
             if (response.isSuccess()) {
-                logger.info("Reservation release successful for order: {}", releaseRequest.getOrderId());
                 return ResponseEntity.ok(response);
             } else {
-                logger.warn("Reservation release failed for order: {} - {}", 
-                           releaseRequest.getOrderId(), response.getMessage());
                 return ResponseEntity.badRequest().body(response);
             }
             
@@ -92,16 +137,12 @@ public class InventoryController {
      */
     @PostMapping("/confirm/{orderId}")
     public ResponseEntity<?> confirmReservation(@PathVariable Long orderId) {
-        logger.info("Received reservation confirmation request for order: {}", orderId);
-        
         try {
             ReservationResponse response = inventoryService.confirmReservation(orderId);
             
             if (response.isSuccess()) {
-                logger.info("Reservation confirmation successful for order: {}", orderId);
                 return ResponseEntity.ok(response);
             } else {
-                logger.warn("Reservation confirmation failed for order: {} - {}", orderId, response.getMessage());
                 return ResponseEntity.badRequest().body(response);
             }
             
@@ -133,6 +174,309 @@ public class InventoryController {
         }
     }
     
+    /**
+     * Browses the catalog with stock and price filters, served from the in-memory catalog index.
+     * 
+     * @param inStock only products with available stock
+     * @param minAvailable only products with at least this much available stock
+     * @param lowStock only products with some stock, up to the low-stock threshold
+     * @param minPrice lowest price, inclusive
+     * @param maxPrice highest price, inclusive
+     * @param sort id, price_asc or price_desc
+     * @param page zero-based page number
+     * @param size page size, at most 100
+     * @return ResponseEntity with the page and the total number of matching products
+     */
+    @GetMapping("/catalog")
+    public ResponseEntity<?> browseCatalog(@RequestParam(defaultValue = "false") boolean inStock,
+                                           @RequestParam(required = false) Integer minAvailable,
+                                           @RequestParam(defaultValue = "false") boolean lowStock,
+                                           @RequestParam(required = false) BigDecimal minPrice,
+                                           @RequestParam(required = false) BigDecimal maxPrice,
+                                           @RequestParam(defaultValue = "id") String sort,
+                                           @RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "20") int size) {
+        CatalogQuery.Sort order;
+        try {
+            order = CatalogQuery.Sort.valueOf(sort.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Sort must be one of id, price_asc or price_desc"));
+        }
+        if (page < 0 || size < 1 || size > 100 || (long) page * size > Integer.MAX_VALUE
+                || (minAvailable != null && minAvailable < 0)
+                || (minPrice != null && minPrice.signum() < 0) || (maxPrice != null && maxPrice.signum() < 0)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Page, size, minAvailable and prices must be non-negative, and size at most 100"));
+        }
+        if (!catalogQueryEngine.isAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Catalog index is not available yet"));
+        }
+        
+        try {
+            int available = Math.max(minAvailable == null ? 0 : minAvailable, inStock ? 1 : 0);
+            CatalogQuery query = new CatalogQuery(available, lowStock,
+                    minPrice == null ? null : CatalogQueryEngine.toCents(minPrice, RoundingMode.CEILING),
+                    maxPrice == null ? null : CatalogQueryEngine.toCents(maxPrice, RoundingMode.FLOOR),
+                    order, page * size, size);
+            return ResponseEntity.ok(catalogQueryEngine.query(query));
+            
+        } catch (Exception e) {
+            logger.error("Error browsing catalog: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while browsing catalog"));
+        }
+    }
+    
+    /**
+     * Searches products by name and description in the in-memory trigram index. Matches
+     * tolerate typos and treat the last word as a prefix.
+     * 
+     * @param q the search text
+     * @param limit the maximum number of results, capped at 100
+     * @return ResponseEntity with the matching products, best first
+     */
+    @GetMapping("/products/search")
+    public ResponseEntity<?> searchProducts(@RequestParam String q,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        if (Trigrams.normalize(q).isEmpty() || limit < 1) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Search text must contain letters or digits and limit must be positive"));
+        }
+        if (!productSearchIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Product search index is not available yet"));
+        }
+        
+        try {
+            return ResponseEntity.ok(productSearchIndex.search(q, Math.min(limit, 100)));
+            
+        } catch (Exception e) {
+            logger.error("Error searching products for '{}': {}", q, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while searching products"));
+        }
+    }
+    
+    /**
+     * Creates and updates products in bulk from the request body, streamed into a staging table
+     * and merged in one statement. Products without an id are created; products with one
+     * replace that product's name, description, price and quantity. All or nothing. Form
+     * content types are not accepted: the servlet container would consume the body as parameters.
+     * 
+     * @param format csv (header line with the column names) or ndjson
+     * @param gzip whether the body is gzip-compressed
+     * @param request the request whose body is the file
+     * @return ResponseEntity with the number of products created and updated
+     */
+    @PostMapping(path = "/products/import", consumes = {"text/csv", "application/x-ndjson", "application/gzip",
+            MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> importProducts(@RequestParam(defaultValue = "csv") String format,
+                                            @RequestParam(defaultValue = "false") boolean gzip,
+                                            HttpServletRequest request) {
+        Optional<ProductFileFormat> fileFormat = ProductFileFormat.parse(format);
+        if (fileFormat.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Format must be csv or ndjson"));
+        }
+        
+        try {
+            long started = System.nanoTime();
+            ProductImportResponse response = productImporter.importProducts(fileFormat.get(), gzip, request.getInputStream());
+            logger.info("Imported {} new and {} updated products as {} in {} ms", response.getCreated(),
+                    response.getUpdated(), fileFormat.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return ResponseEntity.ok(response);
+            
+        } catch (ProductImportException e) {
+            logger.warn("Rejected product import: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", e.getMessage()));
+        } catch (ZipException | EOFException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Body is truncated or not gzip-compressed"));
+        } catch (Exception e) {
+            logger.error("Error importing products: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while importing products"));
+        }
+    }
+    
+    /**
+     * Streams every product as a file, in id order. The CSV can be imported back.
+     * 
+     * @param format csv or ndjson
+     * @param gzip whether to gzip the file
+     * @return ResponseEntity streaming the file as an attachment
+     */
+    @GetMapping("/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "csv") String format,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        Optional<ProductFileFormat> fileFormat = ProductFileFormat.parse(format);
+        if (fileFormat.isEmpty()) {
+            // The declared body type is the stream, so the usual message is written through it
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, Map.of("message", "Format must be csv or ndjson")));
+        }
+        
+        StreamingResponseBody body = out -> {
+            long started = System.nanoTime();
+            long products = productExporter.export(fileFormat.get(), gzip, out);
+            logger.info("Exported {} products as {} in {} ms", products, fileFormat.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : fileFormat.get().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + fileFormat.get().getExtension() + (gzip ? ".gz" : "")).build().toString())
+                .body(body);
+    }
+    
+    /**
+     * Sets counted quantities or applies deltas to many products, in batches of short
+     * transactions that interleave with live reservations. Every change is journaled.
+     * 
+     * @param adjustmentRequest the adjustments, with an optional reference that makes a resent run skip what it applied
+     * @return ResponseEntity with the number of products adjusted and the ids not found
+     */
+    @PostMapping("/stock/adjustments")
+    public ResponseEntity<?> adjustStock(@Valid @RequestBody StockAdjustmentRequest adjustmentRequest) {
+        try {
+            long started = System.nanoTime();
+            StockAdjustmentResponse response = stockAdjustmentService.adjust(adjustmentRequest);
+            logger.info("Adjusted stock of {} products ({} unchanged, {} already applied) for {} in {} ms",
+                    response.getApplied(), response.getUnchanged(), response.getAlreadyApplied(),
+                    adjustmentRequest.getReference(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error adjusting stock for {}: {}", adjustmentRequest.getReference(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error during stock adjustment"));
+        }
+    }
+    
+    /**
+     * Reads the stock adjustment journal in the order it was written.
+     * 
+     * @param productId only this product's adjustments
+     * @param afterId the id of the last entry already read, to continue from it
+     * @param limit the maximum number of entries, at most 1000
+     * @return ResponseEntity with the entries, oldest first
+     */
+    @GetMapping("/stock/adjustments")
+    public ResponseEntity<?> getStockAdjustments(@RequestParam(required = false) Long productId,
+                                                 @RequestParam(defaultValue = "0") long afterId,
+                                                 @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > 1000 || afterId < 0) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Limit must be between 1 and 1000 and afterId non-negative"));
+        }
+        
+        try {
+            List<StockAdjustmentEntryResponse> entries = stockAdjustmentService.getJournal(productId, afterId, limit);
+            return ResponseEntity.ok(entries);
+            
+        } catch (Exception e) {
+            logger.error("Error reading stock adjustments: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while reading stock adjustments"));
+        }
+    }
+    
+    /**
+     * Starts a flash sale: moves the product's available stock, or part of it, into an
+     * in-memory pool that serves its reservations on this instance until the sale ends.
+     * 
+     * @param productId the product ID
+     * @param quantity the units to put on sale; all the available ones when omitted
+     * @return ResponseEntity with the sale
+     */
+    @PostMapping("/flash-sales/{productId}")
+    public ResponseEntity<?> startFlashSale(@PathVariable Long productId,
+                                            @RequestParam(required = false) Integer quantity) {
+        if (quantity != null && quantity < 0) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Quantity must not be negative"));
+        }
+        
+        try {
+            Optional<FlashSaleResponse> sale = flashSaleService.startSale(productId, quantity);
+            
+            if (sale.isPresent()) {
+                return ResponseEntity.ok(sale.get());
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "Product not found with ID: " + productId));
+            }
+            
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error starting flash sale for product {}: {}", productId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while starting flash sale"));
+        }
+    }
+    
+    /**
+     * Lists the flash sales running on this instance.
+     * 
+     * @return ResponseEntity with the sales and their counters
+     */
+    @GetMapping("/flash-sales")
+    public ResponseEntity<List<FlashSaleResponse>> getFlashSales() {
+        return ResponseEntity.ok(flashSaleService.getSales());
+    }
+    
+    /**
+     * Gets the flash sale of a product running on this instance.
+     * 
+     * @param productId the product ID
+     * @return ResponseEntity with the sale and its counters
+     */
+    @GetMapping("/flash-sales/{productId}")
+    public ResponseEntity<?> getFlashSale(@PathVariable Long productId) {
+        Optional<FlashSaleResponse> sale = flashSaleService.getSale(productId);
+        
+        if (sale.isPresent()) {
+            return ResponseEntity.ok(sale.get());
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("message", "No flash sale running for product " + productId));
+        }
+    }
+    
+    /**
+     * Ends a flash sale and returns its unsold units to general stock. Also returns the units
+     * of a sale whose instance stopped without ending it.
+     * 
+     * @param productId the product ID
+     * @return ResponseEntity with the sale and the units returned
+     */
+    @DeleteMapping("/flash-sales/{productId}")
+    public ResponseEntity<?> endFlashSale(@PathVariable Long productId) {
+        try {
+            Optional<FlashSaleResponse> sale = flashSaleService.endSale(productId);
+            
+            if (sale.isPresent()) {
+                return ResponseEntity.ok(sale.get());
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "Product not found with ID: " + productId));
+            }
+            
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error ending flash sale for product {}: {}", productId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while ending flash sale"));
+        }
+    }
+    
     /**
      * Gets a specific product by ID.
      * 
@@ -161,6 +505,49 @@ public class InventoryController {
         }
     }
     
+    /**
+     * Gets the stock counters of a product, served from the in-memory availability index.
+     * 
+     * @param productId the product ID
+     * @return ResponseEntity with the product's availability
+     */
+    @GetMapping("/products/{productId}/availability")
+    public ResponseEntity<?> getProductAvailability(@PathVariable Long productId) {
+        try {
+            Optional<AvailabilityResponse> availability = inventoryService.getProductAvailability(productId);
+            
+            if (availability.isPresent()) {
+                return ResponseEntity.ok(availability.get());
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("message", "Product not found with ID: " + productId));
+            }
+            
+        } catch (Exception e) {
+            logger.error("Error retrieving availability of product {}: {}", productId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while retrieving availability"));
+        }
+    }
+    
+    /**
+     * Checks the availability of several products at once, without reserving or locking stock.
+     * 
+     * @param request the products and quantities to check
+     * @return ResponseEntity with per-product availability
+     */
+    @PostMapping("/availability")
+    public ResponseEntity<?> checkAvailability(@Valid @RequestBody AvailabilityCheckRequest request) {
+        try {
+            return ResponseEntity.ok(inventoryService.checkAvailability(request));
+            
+        } catch (Exception e) {
+            logger.error("Error checking availability of {} items: {}", request.getItems().size(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while checking availability"));
+        }
+    }
+    
     /**
      * Gets inventory statistics.
      * 
@@ -181,6 +568,55 @@ public class InventoryController {
         }
     }
     
+    /**
+     * Gets the current stock of the products whose availability changed after a version of the
+     * change feed. When the feed no longer reaches back to that version, every product is
+     * returned with {@code reset} set.
+     * 
+     * @param since the version returned by the previous call, or 0 for the full catalog
+     * @return ResponseEntity with the changed products and the version they are current as of
+     */
+    @GetMapping("/availability/changes")
+    public ResponseEntity<?> getAvailabilityChanges(@RequestParam(defaultValue = "0") long since) {
+        if (!availabilityFeed.isAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Availability change feed is not available yet"));
+        }
+        
+        try {
+            return ResponseEntity.ok(availabilityFeed.getChanges(since));
+            
+        } catch (Exception e) {
+            logger.error("Error retrieving availability changes since {}: {}", since, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while retrieving availability changes"));
+        }
+    }
+    
+    /**
+     * Streams availability changes as Server-Sent Events. A reconnecting client resumes from
+     * the {@code Last-Event-ID} header, or from {@code since} on the first connection.
+     * 
+     * @param since the version to catch up from; omitted to receive only new changes
+     * @param lastEventId the id of the last event received, sent by the browser on reconnect
+     * @return the event stream
+     */
+    @GetMapping(path = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailability(@RequestParam(required = false) Long since,
+                                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (!availabilityFeed.isAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        
+        Optional<SseEmitter> emitter = availabilityFeed.subscribe(lastEventId != null ? lastEventId : since);
+        if (emitter.isEmpty()) {
+            logger.warn("Availability stream subscription refused: {} subscribers connected", 
+                        availabilityFeed.getSubscriberCount());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter.get());
+    }
+    
     /**
      * Health check endpoint.
      * 
@@ -0,0 +1,50 @@
+package com.distributed.ecommerce.inventory.controller;
+
+import com.distributed.ecommerce.tracing.TraceBuffer;
+import com.distributed.ecommerce.tracing.TraceRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/traces")
+public class TraceController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TraceController.class);
+    
+    private static final int MAX_LIMIT = 100;
+    
+    @Autowired
+    private TraceBuffer traceBuffer;
+    
+    /**
+     * Returns the slowest recent traces with their per-span breakdown.
+     * 
+     * @param limit the maximum number of traces to return
+     * @return ResponseEntity with the traces ordered by descending duration
+     */
+    @GetMapping("/slowest")
+    public ResponseEntity<?> getSlowestTraces(@RequestParam(defaultValue = "10") int limit) {
+        logger.debug("Retrieving {} slowest traces", limit);
+        
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "limit must be between 1 and " + MAX_LIMIT));
+        }
+        
+        List<TraceRecord> traces = traceBuffer.slowest(limit);
+        return ResponseEntity.ok(Map.of(
+                "recordedTraces", traceBuffer.getRecordedCount(),
+                "bufferCapacity", traceBuffer.getCapacity(),
+                "traces", traces
+        ));
+    }
+}
@@ -0,0 +1,53 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import java.util.List;
+
+public class AvailabilityChangesResponse {
+    
+    private long version;
+    private boolean reset;
+    private List<AvailabilityResponse> products;
+    
+    // Constructors
+    public AvailabilityChangesResponse() {}
+    
+    public AvailabilityChangesResponse(long version, boolean reset, List<AvailabilityResponse> products) {
+        this.version = version;
+        this.reset = reset;
+        this.products = products;
+    }
+    
+    // Getters and Setters
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
+    public boolean isReset() {
+        return reset;
+    }
+    
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+    
+    public List<AvailabilityResponse> getProducts() {
+        return products;
+    }
+    
+    public void setProducts(List<AvailabilityResponse> products) {
+        this.products = products;
+    }
+    
+    @Override
+    public String toString() {
+        return "AvailabilityChangesResponse{" +
+                "version=" + version +
+                ", reset=" + reset +
+                ", products=" + products +
+                '}';
+    }
+}
@@ -0,0 +1,37 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class AvailabilityCheckRequest {
+    
+    @NotEmpty(message = "Items list cannot be empty")
+    @Size(max = 1000, message = "At most 1000 items can be checked per request")
+    @Valid
+    private List<ReservationItemRequest> items;
+    
+    // Constructors
+    public AvailabilityCheckRequest() {}
+    
+    public AvailabilityCheckRequest(List<ReservationItemRequest> items) {
+        this.items = items;
+    }
+    
+    // Getters and Setters
+    public List<ReservationItemRequest> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<ReservationItemRequest> items) {
+        this.items = items;
+    }
+    
+    @Override
+    public String toString() {
+        return "AvailabilityCheckRequest{" +
+                "items=" + items +
+                '}';
+    }
+}
@@ -0,0 +1,42 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import java.util.List;
+
+public class AvailabilityCheckResponse {
+    
+    private boolean allAvailable;
+    private List<ItemAvailabilityResponse> items;
+    
+    // Constructors
+    public AvailabilityCheckResponse() {}
+    
+    public AvailabilityCheckResponse(List<ItemAvailabilityResponse> items) {
+        this.items = items;
+        this.allAvailable = items.stream().allMatch(ItemAvailabilityResponse::isAvailable);
+    }
+    
+    // Getters and Setters
+    public boolean isAllAvailable() {
+        return allAvailable;
+    }
+    
+    public void setAllAvailable(boolean allAvailable) {
+        this.allAvailable = allAvailable;
+    }
+    
+    public List<ItemAvailabilityResponse> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<ItemAvailabilityResponse> items) {
+        this.items = items;
+    }
+    
+    @Override
+    public String toString() {
+        return "AvailabilityCheckResponse{" +
+                "allAvailable=" + allAvailable +
+                ", items=" + items +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+package com.distributed.ecommerce.inventory.dto;
+
+public class AvailabilityResponse {
+    
+    private Long productId;
+    private Integer quantity;
+    private Integer reservedQuantity;
+    private Integer availableQuantity;
+    
+    // Constructors
+    public AvailabilityResponse() {}
+    
+    public AvailabilityResponse(Long productId, Integer quantity, Integer reservedQuantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.reservedQuantity = reservedQuantity;
+        this.availableQuantity = quantity - reservedQuantity;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public Integer getReservedQuantity() {
+        return reservedQuantity;
+    }
+    
+    public void setReservedQuantity(Integer reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+    
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+    
+    public void setAvailableQuantity(Integer availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+    
+    @Override
+    public String toString() {
+        return "AvailabilityResponse{" +
+                "productId=" + productId +
+                ", quantity=" + quantity +
+                ", reservedQuantity=" + reservedQuantity +
+                ", availableQuantity=" + availableQuantity +
+                '}';
+    }
+}
@@ -0,0 +1,64 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import java.math.BigDecimal;
+
+public class CatalogItemResponse {
+    
+    private Long productId;
+    private String name;
+    private BigDecimal price;
+    private Integer availableQuantity;
+    
+    // Constructors
+    public CatalogItemResponse() {}
+    
+    public CatalogItemResponse(Long productId, String name, BigDecimal price, Integer availableQuantity) {
+        this.productId = productId;
+        this.name = name;
+        this.price = price;
+        this.availableQuantity = availableQuantity;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+    
+    public void setAvailableQuantity(Integer availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+    
+    @Override
+    public String toString() {
+        return "CatalogItemResponse{" +
+                "productId=" + productId +
+                ", name='" + name + '\'' +
+                ", price=" + price +
+                ", availableQuantity=" + availableQuantity +
+                '}';
+    }
+}
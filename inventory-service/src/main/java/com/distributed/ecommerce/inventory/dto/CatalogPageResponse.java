@@ -0,0 +1,64 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import java.util.List;
+
+public class CatalogPageResponse {
+    
+    private List<CatalogItemResponse> items;
+    private int page;
+    private int size;
+    private long totalElements;
+    
+    // Constructors
+    public CatalogPageResponse() {}
+    
+    public CatalogPageResponse(List<CatalogItemResponse> items, int page, int size, long totalElements) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+    }
+    
+    // Getters and Setters
+    public List<CatalogItemResponse> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<CatalogItemResponse> items) {
+        this.items = items;
+    }
+    
+    public int getPage() {
+        return page;
+    }
+    
+    public void setPage(int page) {
+        this.page = page;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public void setSize(int size) {
+        this.size = size;
+    }
+    
+    public long getTotalElements() {
+        return totalElements;
+    }
+    
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+    
+    @Override
+    public String toString() {
+        return "CatalogPageResponse{" +
+                "items=" + items +
+                ", page=" + page +
+                ", size=" + size +
+                ", totalElements=" + totalElements +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import java.time.LocalDateTime;
+
+public class FlashSaleResponse {
+    
+    private Long productId;
+    private String productName;
+    private Integer allocatedQuantity;
+    private Integer remainingQuantity;
+    private Long admitted;
+    private Long rejected;
+    private LocalDateTime startedAt;
+    private Integer releasedQuantity;
+    
+    // Constructors
+    public FlashSaleResponse() {}
+    
+    public FlashSaleResponse(Long productId, String productName, Integer allocatedQuantity, Integer remainingQuantity,
+                             Long admitted, Long rejected, LocalDateTime startedAt, Integer releasedQuantity) {
+        this.productId = productId;
+        this.productName = productName;
+        this.allocatedQuantity = allocatedQuantity;
+        this.remainingQuantity = remainingQuantity;
+        this.admitted = admitted;
+        this.rejected = rejected;
+        this.startedAt = startedAt;
+        this.releasedQuantity = releasedQuantity;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public String getProductName() {
+        return productName;
+    }
+    
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+    
+    public Integer getAllocatedQuantity() {
+        return allocatedQuantity;
+    }
+    
+    public void setAllocatedQuantity(Integer allocatedQuantity) {
+        this.allocatedQuantity = allocatedQuantity;
+    }
+    
+    public Integer getRemainingQuantity() {
+        return remainingQuantity;
+    }
+    
+    public void setRemainingQuantity(Integer remainingQuantity) {
+        this.remainingQuantity = remainingQuantity;
+    }
+    
+    public Long getAdmitted() {
+        return admitted;
+    }
+    
+    public void setAdmitted(Long admitted) {
+        this.admitted = admitted;
+    }
+    
+    public Long getRejected() {
+        return rejected;
+    }
+    
+    public void setRejected(Long rejected) {
+        this.rejected = rejected;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public Integer getReleasedQuantity() {
+        return releasedQuantity;
+    }
+    
+    public void setReleasedQuantity(Integer releasedQuantity) {
+        this.releasedQuantity = releasedQuantity;
+    }
+}
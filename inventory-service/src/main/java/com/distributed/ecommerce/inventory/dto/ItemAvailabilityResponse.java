@@ -0,0 +1,73 @@
+package com.distributed.ecommerce.inventory.dto;
+
+public class ItemAvailabilityResponse {
+    
+    private Long productId;
+    private Integer requestedQuantity;
+    private Integer availableQuantity;
+    private boolean found;
+    private boolean available;
+    
+    // Constructors
+    public ItemAvailabilityResponse() {}
+    
+    public ItemAvailabilityResponse(Long productId, Integer requestedQuantity, Integer availableQuantity) {
+        this.productId = productId;
+        this.requestedQuantity = requestedQuantity;
+        this.availableQuantity = availableQuantity;
+        this.found = availableQuantity != null;
+        this.available = found && availableQuantity >= requestedQuantity;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Integer getRequestedQuantity() {
+        return requestedQuantity;
+    }
+    
+    public void setRequestedQuantity(Integer requestedQuantity) {
+        this.requestedQuantity = requestedQuantity;
+    }
+    
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+    
+    public void setAvailableQuantity(Integer availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+    
+    public boolean isFound() {
+        return found;
+    }
+    
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+    
+    public boolean isAvailable() {
+        return available;
+    }
+    
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+    
+    @Override
+    public String toString() {
+        return "ItemAvailabilityResponse{" +
+                "productId=" + productId +
+                ", requestedQuantity=" + requestedQuantity +
+                ", availableQuantity=" + availableQuantity +
+                ", found=" + found +
+                ", available=" + available +
+                '}';
+    }
+}
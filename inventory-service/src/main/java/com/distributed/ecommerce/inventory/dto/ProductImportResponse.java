@@ -0,0 +1,40 @@
+package com.distributed.ecommerce.inventory.dto;
+
+public class ProductImportResponse {
+    
+    private long created;
+    private long updated;
+    
+    // Constructors
+    public ProductImportResponse() {}
+    
+    public ProductImportResponse(long created, long updated) {
+        this.created = created;
+        this.updated = updated;
+    }
+    
+    // Getters and Setters
+    public long getCreated() {
+        return created;
+    }
+    
+    public void setCreated(long created) {
+        this.created = created;
+    }
+    
+    public long getUpdated() {
+        return updated;
+    }
+    
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+    
+    @Override
+    public String toString() {
+        return "ProductImportResponse{" +
+                "created=" + created +
+                ", updated=" + updated +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+package com.distributed.ecommerce.inventory.dto;
+
+public class ProductSearchResult {
+    
+    private Long productId;
+    private String name;
+    private double score;
+    private Integer availableQuantity;
+    
+    // Constructors
+    public ProductSearchResult() {}
+    
+    public ProductSearchResult(Long productId, String name, double score, Integer availableQuantity) {
+        this.productId = productId;
+        this.name = name;
+        this.score = score;
+        this.availableQuantity = availableQuantity;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public void setScore(double score) {
+        this.score = score;
+    }
+    
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+    
+    public void setAvailableQuantity(Integer availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+    
+    @Override
+    public String toString() {
+        return "ProductSearchResult{" +
+                "productId=" + productId +
+                ", name='" + name + '\'' +
+                ", score=" + score +
+                ", availableQuantity=" + availableQuantity +
+                '}';
+    }
+}
@@ -0,0 +1,116 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import java.time.LocalDateTime;
+
+public class StockAdjustmentEntryResponse {
+    
+    private Long id;
+    private Long productId;
+    private String type;
+    private Integer requested;
+    private Integer previousQuantity;
+    private Integer newQuantity;
+    private Integer reservedQuantity;
+    private String reference;
+    private String source;
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public StockAdjustmentEntryResponse() {}
+    
+    public StockAdjustmentEntryResponse(Long id, Long productId, String type, Integer requested,
+                                        Integer previousQuantity, Integer newQuantity, Integer reservedQuantity,
+                                        String reference, String source, LocalDateTime createdAt) {
+        this.id = id;
+        this.productId = productId;
+        this.type = type;
+        this.requested = requested;
+        this.previousQuantity = previousQuantity;
+        this.newQuantity = newQuantity;
+        this.reservedQuantity = reservedQuantity;
+        this.reference = reference;
+        this.source = source;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Integer getRequested() {
+        return requested;
+    }
+    
+    public void setRequested(Integer requested) {
+        this.requested = requested;
+    }
+    
+    public Integer getPreviousQuantity() {
+        return previousQuantity;
+    }
+    
+    public void setPreviousQuantity(Integer previousQuantity) {
+        this.previousQuantity = previousQuantity;
+    }
+    
+    public Integer getNewQuantity() {
+        return newQuantity;
+    }
+    
+    public void setNewQuantity(Integer newQuantity) {
+        this.newQuantity = newQuantity;
+    }
+    
+    public Integer getReservedQuantity() {
+        return reservedQuantity;
+    }
+    
+    public void setReservedQuantity(Integer reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+    
+    public String getReference() {
+        return reference;
+    }
+    
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public void setSource(String source) {
+        this.source = source;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
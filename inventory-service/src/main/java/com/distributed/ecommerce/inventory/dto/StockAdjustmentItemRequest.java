@@ -0,0 +1,66 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+public class StockAdjustmentItemRequest {
+    
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+    
+    /** Counted quantity, replacing the current one. */
+    @PositiveOrZero(message = "Quantity must be zero or positive")
+    private Integer quantity;
+    
+    /** Added to the current quantity; negative to deduct. */
+    private Integer delta;
+    
+    // Constructors
+    public StockAdjustmentItemRequest() {}
+    
+    public StockAdjustmentItemRequest(Long productId, Integer quantity, Integer delta) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.delta = delta;
+    }
+    
+    @AssertTrue(message = "Each adjustment needs either quantity or delta, not both")
+    public boolean isQuantityOrDelta() {
+        return (quantity == null) != (delta == null);
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public Integer getDelta() {
+        return delta;
+    }
+    
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+    
+    @Override
+    public String toString() {
+        return "StockAdjustmentItemRequest{" +
+                "productId=" + productId +
+                ", quantity=" + quantity +
+                ", delta=" + delta +
+                '}';
+    }
+}
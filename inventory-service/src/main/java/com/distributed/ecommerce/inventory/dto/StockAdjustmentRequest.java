@@ -0,0 +1,64 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class StockAdjustmentRequest {
+    
+    /** Identifies the run; products already adjusted under it are skipped when it is sent again. */
+    @Size(max = 255, message = "Reference is limited to 255 characters")
+    private String reference;
+    
+    /** Who sent the adjustments, e.g. warehouse-sync; recorded in the journal. */
+    @Size(max = 64, message = "Source is limited to 64 characters")
+    private String source;
+    
+    @NotEmpty(message = "Adjustments list cannot be empty")
+    @Valid
+    private List<StockAdjustmentItemRequest> adjustments;
+    
+    // Constructors
+    public StockAdjustmentRequest() {}
+    
+    public StockAdjustmentRequest(String reference, String source, List<StockAdjustmentItemRequest> adjustments) {
+        this.reference = reference;
+        this.source = source;
+        this.adjustments = adjustments;
+    }
+    
+    // Getters and Setters
+    public String getReference() {
+        return reference;
+    }
+    
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public void setSource(String source) {
+        this.source = source;
+    }
+    
+    public List<StockAdjustmentItemRequest> getAdjustments() {
+        return adjustments;
+    }
+    
+    public void setAdjustments(List<StockAdjustmentItemRequest> adjustments) {
+        this.adjustments = adjustments;
+    }
+    
+    @Override
+    public String toString() {
+        return "StockAdjustmentRequest{" +
+                "reference='" + reference + '\'' +
+                ", source='" + source + '\'' +
+                ", adjustmentsCount=" + (adjustments != null ? adjustments.size() : 0) +
+                '}';
+    }
+}
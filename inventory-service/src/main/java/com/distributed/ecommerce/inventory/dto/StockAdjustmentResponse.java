@@ -0,0 +1,79 @@
+package com.distributed.ecommerce.inventory.dto;
+
+import java.util.List;
+
+public class StockAdjustmentResponse {
+    
+    private int applied;
+    private int unchanged;
+    private int clamped;
+    private int alreadyApplied;
+    private List<Long> notFoundProductIds = List.of();
+    
+    // Constructors
+    public StockAdjustmentResponse() {}
+    
+    public StockAdjustmentResponse(int applied, int unchanged, int clamped, int alreadyApplied,
+                                   List<Long> notFoundProductIds) {
+        this.applied = applied;
+        this.unchanged = unchanged;
+        this.clamped = clamped;
+        this.alreadyApplied = alreadyApplied;
+        this.notFoundProductIds = notFoundProductIds;
+    }
+    
+    // Getters and Setters
+    public int getApplied() {
+        return applied;
+    }
+    
+    public void setApplied(int applied) {
+        this.applied = applied;
+    }
+    
+    /** Adjustments that left the quantity as it was; journaled, but the product is not touched. */
+    public int getUnchanged() {
+        return unchanged;
+    }
+    
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+    
+    /** Adjustments that would have left less stock than reserved; the reserved quantity was kept. */
+    public int getClamped() {
+        return clamped;
+    }
+    
+    public void setClamped(int clamped) {
+        this.clamped = clamped;
+    }
+    
+    /** Products skipped because the same reference already adjusted them. */
+    public int getAlreadyApplied() {
+        return alreadyApplied;
+    }
+    
+    public void setAlreadyApplied(int alreadyApplied) {
+        this.alreadyApplied = alreadyApplied;
+    }
+    
+    public List<Long> getNotFoundProductIds() {
+        return notFoundProductIds;
+    }
+    
+    public void setNotFoundProductIds(List<Long> notFoundProductIds) {
+        this.notFoundProductIds = notFoundProductIds;
+    }
+    
+    @Override
+    public String toString() {
+        return "StockAdjustmentResponse{" +
+                "applied=" + applied +
+                ", unchanged=" + unchanged +
+                ", clamped=" + clamped +
+                ", alreadyApplied=" + alreadyApplied +
+                ", notFound=" + notFoundProductIds.size() +
+                '}';
+    }
+}
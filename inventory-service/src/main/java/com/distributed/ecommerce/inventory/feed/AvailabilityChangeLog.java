@@ -0,0 +1,89 @@
+package com.distributed.ecommerce.inventory.feed;
+
+import com.distributed.ecommerce.inventory.availability.AvailabilityListener;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Bounded log of availability changes, each numbered with the next version. Only the product
+ * id is recorded; readers look up the current stock, so several changes of one product since
+ * a given version collapse into one entry.
+ * <p>
+ * Versions start at the process start time in microseconds, so they keep increasing across
+ * restarts of an instance and a version from before a restart is recognised as too old.
+ * They are not comparable between replicas.
+ */
+public class AvailabilityChangeLog implements AvailabilityListener {
+    
+    private final long[] productIds;
+    private final int mask;
+    
+    /** Version of the latest change; guarded by this. */
+    private long version;
+    
+    /** Version of the latest full reload; deltas cannot reach back past it. Guarded by this. */
+    private long resetVersion;
+    
+    public AvailabilityChangeLog(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Change log capacity must be a power of two: " + capacity);
+        }
+        this.productIds = new long[capacity];
+        this.mask = capacity - 1;
+        this.version = System.currentTimeMillis() * 1000;
+        this.resetVersion = version;
+    }
+    
+    @Override
+    public synchronized void availabilityChanged(long productId) {
+        version++;
+        productIds[(int) (version & mask)] = productId;
+    }
+    
+    @Override
+    public synchronized void availabilityReset() {
+        version++;
+        resetVersion = version;
+    }
+    
+    public synchronized long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Returns the distinct products changed after {@code since}, oldest change first, or a
+     * reset when the log no longer covers that version (or never did).
+     */
+    public synchronized Changes changesSince(long since) {
+        if (since < resetVersion || since > version || version - since > productIds.length) {
+            return new Changes(version, true, Set.of());
+        }
+        Set<Long> changed = new LinkedHashSet<>();
+        for (long v = since + 1; v <= version; v++) {
+            changed.add(productIds[(int) (v & mask)]);
+        }
+        return new Changes(version, false, changed);
+    }
+    
+    /**
+     * Products changed up to a version. When {@code reset} is set the products are unknown
+     * and the reader must start over from the full catalog.
+     */
+    public static class Changes {
+        private final long version;
+        private final boolean reset;
+        private final Collection<Long> productIds;
+        
+        Changes(long version, boolean reset, Collection<Long> productIds) {
+            this.version = version;
+            this.reset = reset;
+            this.productIds = productIds;
+        }
+        
+        public long getVersion() { return version; }
+        public boolean isReset() { return reset; }
+        public Collection<Long> getProductIds() { return productIds; }
+    }
+}
@@ -0,0 +1,330 @@
+package com.distributed.ecommerce.inventory.feed;
+
+import com.distributed.ecommerce.inventory.availability.AvailabilityIndex;
+import com.distributed.ecommerce.inventory.availability.StockTable;
+import com.distributed.ecommerce.inventory.dto.AvailabilityChangesResponse;
+import com.distributed.ecommerce.inventory.dto.AvailabilityResponse;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.repository.StockSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Availability changes of this instance, served as deltas since a version of the
+ * {@link AvailabilityChangeLog} and pushed to Server-Sent Events subscribers.
+ * <p>
+ * Subscribers are not sent one event per change. Every {@code inventory.change-feed.broadcast-interval-ms}
+ * a single thread takes the products changed since the previous broadcast, reads their current
+ * stock once, serializes the event once and writes the same bytes to every subscriber, so the
+ * cost per subscriber is one write per interval however hot the products are. After a full
+ * reload of the index subscribers get a {@code reset} event instead and resynchronize through
+ * {@link #getChanges}.
+ * <p>
+ * The broadcaster never writes to a connection itself. It queues the event for each subscriber,
+ * and a small pool of sender threads drains the queues, so a slow client holds at most one sender
+ * thread while the others keep writing. A subscriber whose queue of
+ * {@code inventory.change-feed.subscriber-queue-size} events is full has fallen behind and is
+ * disconnected; it can reconnect with the last version it saw.
+ * <p>
+ * The feed follows the {@link AvailabilityIndex} and is unavailable while the index is
+ * disabled or still loading.
+ */
+@Component
+public class AvailabilityFeed {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityFeed.class);
+    
+    private static final String EVENT_NAME = "availability";
+    
+    private final AvailabilityIndex availabilityIndex;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final AvailabilityChangeLog changeLog;
+    private final long broadcastIntervalMillis;
+    private final long heartbeatIntervalMillis;
+    private final long subscriberTimeoutMillis;
+    private final int maxSubscribers;
+    private final int subscriberQueueSize;
+    private final int senderThreads;
+    
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    
+    private ScheduledExecutorService broadcaster;
+    private ExecutorService senders;
+    
+    /** Version covered by the last broadcast; only used on the broadcaster thread. */
+    private long broadcastVersion;
+    private long lastBroadcastMillis;
+    
+    public AvailabilityFeed(AvailabilityIndex availabilityIndex,
+                            ProductRepository productRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${inventory.change-feed.capacity:65536}") int capacity,
+                            @Value("${inventory.change-feed.broadcast-interval-ms:250}") long broadcastIntervalMillis,
+                            @Value("${inventory.change-feed.heartbeat-interval-ms:15000}") long heartbeatIntervalMillis,
+                            @Value("${inventory.change-feed.subscriber-timeout-ms:1800000}") long subscriberTimeoutMillis,
+                            @Value("${inventory.change-feed.max-subscribers:10000}") int maxSubscribers,
+                            @Value("${inventory.change-feed.subscriber-queue-size:16}") int subscriberQueueSize,
+                            @Value("${inventory.change-feed.sender-threads:4}") int senderThreads) {
+        this.availabilityIndex = availabilityIndex;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.changeLog = new AvailabilityChangeLog(capacity);
+        this.broadcastIntervalMillis = broadcastIntervalMillis;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.subscriberTimeoutMillis = subscriberTimeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.senderThreads = senderThreads;
+        this.broadcastVersion = changeLog.getVersion();
+        if (availabilityIndex.isEnabled()) {
+            availabilityIndex.addListener(changeLog);
+        }
+    }
+    
+    @PostConstruct
+    void start() {
+        lastBroadcastMillis = System.currentTimeMillis();
+        broadcaster = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger senderCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "availability-feed-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        broadcaster.scheduleWithFixedDelay(this::broadcast, broadcastIntervalMillis, broadcastIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stop() {
+        broadcaster.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+    
+    public boolean isAvailable() {
+        return availabilityIndex.isEnabled() && availabilityIndex.isReady();
+    }
+    
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+    
+    /**
+     * Returns the current stock of every product changed after {@code since}, or of all
+     * products with {@code reset} set when the log does not reach back that far.
+     */
+    public AvailabilityChangesResponse getChanges(long since) {
+        AvailabilityChangeLog.Changes changes = changeLog.changesSince(since);
+        if (changes.isReset()) {
+            List<AvailabilityResponse> products = new ArrayList<>(availabilityIndex.getSize());
+            availabilityIndex.forEach((productId, stock) -> products.add(toResponse(productId, stock)));
+            return new AvailabilityChangesResponse(changes.getVersion(), true, products);
+        }
+        return new AvailabilityChangesResponse(changes.getVersion(), false, currentStock(changes));
+    }
+    
+    /**
+     * Registers a stream subscriber, or returns empty when the subscriber limit is reached.
+     * With {@code since}, the subscriber is first sent the changes after that version.
+     */
+    public Optional<SseEmitter> subscribe(Long since) {
+        if (subscribers.size() >= maxSubscribers) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(subscriberTimeoutMillis);
+        register(emitter, since);
+        return Optional.of(emitter);
+    }
+    
+    void register(SseEmitter emitter, Long since) {
+        Subscriber subscriber = new Subscriber(emitter, subscriberQueueSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        
+        if (since != null) {
+            // Queue the catch-up on the broadcaster thread so it cannot overtake a newer broadcast
+            broadcaster.execute(() -> {
+                try {
+                    AvailabilityChangesResponse changes = getChanges(since);
+                    enqueue(subscriber, event(changes.getVersion(), objectMapper.writeValueAsString(changes)));
+                } catch (RuntimeException | JsonProcessingException e) {
+                    logger.warn("Could not send availability changes since {}: {}", since, e.getMessage());
+                    disconnect(subscriber);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Sends the products changed since the last broadcast to every subscriber, or a heartbeat
+     * comment when nothing changed for a while so idle connections stay open.
+     */
+    void broadcast() {
+        try {
+            long now = System.currentTimeMillis();
+            if (subscribers.isEmpty()) {
+                broadcastVersion = changeLog.getVersion();
+                return;
+            }
+            
+            AvailabilityChangeLog.Changes changes = changeLog.changesSince(broadcastVersion);
+            if (changes.getVersion() == broadcastVersion) {
+                if (now - lastBroadcastMillis >= heartbeatIntervalMillis) {
+                    sendToAll(SseEmitter.event().comment("heartbeat").build());
+                    lastBroadcastMillis = now;
+                }
+                return;
+            }
+            
+            AvailabilityChangesResponse response = changes.isReset()
+                    ? new AvailabilityChangesResponse(changes.getVersion(), true, List.of())
+                    : new AvailabilityChangesResponse(changes.getVersion(), false, currentStock(changes));
+            sendToAll(event(changes.getVersion(), objectMapper.writeValueAsString(response)));
+            broadcastVersion = changes.getVersion();
+            lastBroadcastMillis = now;
+            
+        } catch (RuntimeException | JsonProcessingException e) {
+            logger.warn("Availability broadcast failed: {}", e.getMessage());
+        }
+    }
+    
+    private List<AvailabilityResponse> currentStock(AvailabilityChangeLog.Changes changes) {
+        List<AvailabilityResponse> products = new ArrayList<>(changes.getProductIds().size());
+        List<Long> notIndexed = new ArrayList<>();
+        for (Long productId : changes.getProductIds()) {
+            long stock = availabilityIndex.lookup(productId);
+            if (stock != StockTable.ABSENT) {
+                products.add(toResponse(productId, stock));
+            } else {
+                notIndexed.add(productId);
+            }
+        }
+        if (!notIndexed.isEmpty()) {
+            for (StockSnapshot snapshot : productRepository.findStockSnapshots(notIndexed)) {
+                products.add(new AvailabilityResponse(snapshot.getProductId(),
+                        snapshot.getQuantity(), snapshot.getReservedQuantity()));
+            }
+        }
+        return products;
+    }
+    
+    private static AvailabilityResponse toResponse(long productId, long stock) {
+        return new AvailabilityResponse(productId, StockTable.quantityOf(stock), StockTable.reservedOf(stock));
+    }
+    
+    private static Set<ResponseBodyEmitter.DataWithMediaType> event(long version, String json) {
+        return SseEmitter.event()
+                .id(Long.toString(version))
+                .name(EVENT_NAME)
+                .data(json, MediaType.APPLICATION_JSON)
+                .build();
+    }
+    
+    private void sendToAll(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, event);
+        }
+    }
+    
+    private void enqueue(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        if (!subscriber.pending.offer(event)) {
+            logger.debug("Disconnecting availability subscriber {} events behind", subscriber.pending.size());
+            disconnect(subscriber);
+            return;
+        }
+        schedule(subscriber);
+    }
+    
+    /**
+     * Removes a subscriber without touching its emitter, which stays locked while a sender is
+     * blocked writing to it; the sender completes it after its current write.
+     */
+    private void disconnect(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.disconnected = true;
+        schedule(subscriber);
+    }
+    
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> deliver(subscriber));
+            } catch (RejectedExecutionException e) {
+                // Shutting down; stop() completes the emitters
+            }
+        }
+    }
+    
+    /**
+     * Writes a subscriber's queued events in order. At most one sender runs this per subscriber,
+     * so a blocked write holds back only that subscriber.
+     */
+    private void deliver(Subscriber subscriber) {
+        do {
+            Set<ResponseBodyEmitter.DataWithMediaType> event;
+            while (!subscriber.disconnected && (event = subscriber.pending.poll()) != null) {
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away
+                    subscriber.disconnected = true;
+                }
+            }
+            if (subscriber.disconnected) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.complete();
+                return;
+            }
+            subscriber.scheduled.set(false);
+            // An event queued after the last poll found the flag still set and left it to us
+        } while (!subscriber.pending.isEmpty() && subscriber.scheduled.compareAndSet(false, true));
+    }
+    
+    private static final class Subscriber {
+        
+        final SseEmitter emitter;
+        final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> pending;
+        /** Set while a sender owns the delivery of this subscriber's queue. */
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean disconnected;
+        
+        Subscriber(SseEmitter emitter, int queueSize) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
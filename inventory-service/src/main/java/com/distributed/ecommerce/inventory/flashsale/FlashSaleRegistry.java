@@ -0,0 +1,77 @@
+package com.distributed.ecommerce.inventory.flashsale;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The flash sales running on this instance, by product id. Kept apart from
+ * {@link FlashSaleService} so the reservation service can hand released units back to a sale
+ * without depending on it.
+ */
+@Component
+public class FlashSaleRegistry {
+    
+    private final Map<Long, TokenPool> pools = new ConcurrentHashMap<>();
+    
+    public boolean isEmpty() {
+        return pools.isEmpty();
+    }
+    
+    public boolean isActive(Long productId) {
+        return pools.containsKey(productId);
+    }
+    
+    /**
+     * Returns the units left in the product's flash sale, or null when it has none running here.
+     */
+    public Integer remaining(Long productId) {
+        TokenPool pool = pools.get(productId);
+        return pool == null ? null : pool.getRemaining();
+    }
+    
+    /**
+     * Returns the units of a released reservation to the product's flash sale instead of to
+     * general stock: they stay in {@code reserved_quantity}, held by the sale, and go back to
+     * its pool once the current transaction commits.
+     * 
+     * @return false when the product has no flash sale running here; the caller releases the
+     *         units as usual
+     */
+    public boolean reclaim(Long productId, int quantity) {
+        TokenPool pool = pools.get(productId);
+        if (pool == null || !TransactionSynchronizationManager.isSynchronizationActive() || !pool.tryEnter()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    pool.giveBack(quantity);
+                }
+                pool.exit();
+            }
+        });
+        return true;
+    }
+    
+    TokenPool get(Long productId) {
+        return pools.get(productId);
+    }
+    
+    Collection<TokenPool> all() {
+        return pools.values();
+    }
+    
+    boolean register(TokenPool pool) {
+        return pools.putIfAbsent(pool.getProductId(), pool) == null;
+    }
+    
+    void remove(TokenPool pool) {
+        pools.remove(pool.getProductId(), pool);
+    }
+}
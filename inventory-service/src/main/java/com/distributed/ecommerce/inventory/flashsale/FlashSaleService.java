@@ -0,0 +1,493 @@
+package com.distributed.ecommerce.inventory.flashsale;
+
+import com.distributed.ecommerce.eventlog.EventLog;
+import com.distributed.ecommerce.inventory.dto.FlashSaleResponse;
+import com.distributed.ecommerce.inventory.dto.ReservationItemRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationResponse;
+import com.distributed.ecommerce.inventory.model.Reservation;
+import com.distributed.ecommerce.inventory.model.ReservationItem;
+import com.distributed.ecommerce.inventory.repository.BulkStockWriter;
+import com.distributed.ecommerce.inventory.repository.ReservationRepository;
+import com.distributed.ecommerce.inventory.service.InventoryService;
+import com.distributed.ecommerce.inventory.service.StockChangeNotifier;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Flash sales: for a launch, a product's whole available stock is moved into a
+ * {@link TokenPool} in memory, and its reservations are decided there instead of on the
+ * product row. Requests beyond the pool are refused in microseconds, without a lock or a
+ * query; the winners wait in a bounded FIFO queue, in the order they won, for a persister
+ * thread that inserts their reservations in batches.
+ * <p>
+ * Starting a sale adds the pooled units to the product's {@code reserved_quantity}, so every
+ * other path, on this instance or another replica, sees them as taken and can never sell them
+ * twice. A winner's reservation then takes over its units from the sale without touching the
+ * product row, and a released one gives them back to the pool. Ending the sale returns to
+ * general stock what is still held: {@code reserved_quantity} minus the items of active
+ * reservations.
+ * <p>
+ * The pool lives in the memory of the instance that started the sale, so the product's
+ * reservations must reach that instance; elsewhere they are refused for lack of stock. An
+ * instance that stops without ending its sales leaves their units held until the sale is
+ * ended, from any instance.
+ */
+@Service
+public class FlashSaleService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleService.class);
+    
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    
+    /** How long ending a sale waits for its winners to be written. */
+    private static final long SETTLE_TIMEOUT_MILLIS = 30_000;
+    
+    private static final String INTERNAL_ERROR_MESSAGE = "Internal error during reservation process";
+    
+    private static final String ACTIVE_RESERVED = "SELECT COALESCE(SUM(i.quantity), 0) FROM reservation_items i "
+            + "JOIN reservations r ON r.id = i.reservation_id WHERE i.product_id = ? AND r.status = 'ACTIVE'";
+    
+    private final FlashSaleRegistry registry;
+    private final InventoryService inventoryService;
+    private final ReservationRepository reservationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final BulkStockWriter bulkStockWriter;
+    private final StockChangeNotifier stockChangeNotifier;
+    private final EventLog eventLog;
+    private final int batchSize;
+    private final BlockingQueue<Winner> winners;
+    
+    private volatile boolean running;
+    private Thread persister;
+    
+    public FlashSaleService(FlashSaleRegistry registry,
+                            InventoryService inventoryService,
+                            ReservationRepository reservationRepository,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            BulkStockWriter bulkStockWriter,
+                            StockChangeNotifier stockChangeNotifier,
+                            EventLog eventLog,
+                            @Value("${inventory.flash-sale.batch-size:500}") int batchSize,
+                            @Value("${inventory.flash-sale.queue-capacity:10000}") int queueCapacity) {
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("inventory.flash-sale.batch-size and queue-capacity must be positive");
+        }
+        this.registry = registry;
+        this.inventoryService = inventoryService;
+        this.reservationRepository = reservationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.bulkStockWriter = bulkStockWriter;
+        this.stockChangeNotifier = stockChangeNotifier;
+        this.eventLog = eventLog;
+        this.batchSize = batchSize;
+        // Fair: winners blocked on a full queue enter it in the order they arrived
+        this.winners = new ArrayBlockingQueue<>(queueCapacity, true);
+    }
+    
+    @PostConstruct
+    void start() {
+        running = true;
+        persister = new Thread(this::persistLoop, "flash-sale-persister");
+        persister.setDaemon(true);
+        persister.start();
+    }
+    
+    /**
+     * Ends the sales still running, so their unsold units go back to general stock, then stops
+     * the persister.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (TokenPool pool : List.copyOf(registry.all())) {
+            try {
+                endSale(pool.getProductId());
+            } catch (RuntimeException e) {
+                logger.error("Could not end the flash sale of product {}: {}", pool.getProductId(), e.getMessage(), e);
+            }
+        }
+        running = false;
+        persister.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    
+    /**
+     * Starts a flash sale, moving up to {@code quantity} available units (all of them when null)
+     * into the pool.
+     * 
+     * @return the new sale, or empty when the product does not exist
+     * @throws IllegalStateException when the product already has a sale running here
+     */
+    public synchronized Optional<FlashSaleResponse> startSale(Long productId, Integer quantity) {
+        if (registry.isActive(productId)) {
+            throw new IllegalStateException("A flash sale is already running for product " + productId);
+        }
+        TokenPool pool = transaction.execute(status -> {
+            List<TokenPool> pools = jdbcTemplate.query("SELECT name, quantity, reserved_quantity FROM products "
+                    + "WHERE id = ? FOR UPDATE", (row, rowNum) -> {
+                int available = Math.max(0, row.getInt(2) - row.getInt(3));
+                int allocated = quantity == null ? available : Math.min(quantity, available);
+                return new TokenPool(productId, row.getString(1), allocated, LocalDateTime.now());
+            }, productId);
+            if (pools.isEmpty()) {
+                return null;
+            }
+            if (pools.get(0).getAllocated() > 0) {
+                bulkStockWriter.addReserved(productId, pools.get(0).getAllocated());
+                stockChangeNotifier.stockChanged(List.of(productId));
+            }
+            return pools.get(0);
+        });
+        if (pool == null) {
+            return Optional.empty();
+        }
+        registry.register(pool);
+        logger.info("Flash sale started for product {} with {} units", productId, pool.getAllocated());
+        return Optional.of(convertToResponse(pool, null));
+    }
+    
+    /**
+     * Ends the product's flash sale: closes the pool, waits for the winners already admitted to
+     * be written and returns the units still held to general stock. With no sale running here,
+     * only returns what is held, e.g. by a sale whose instance stopped without ending it.
+     * 
+     * @return the sale with the units returned, or empty when the product does not exist
+     * @throws IllegalStateException when the winners are not written in time; ending again
+     *         returns the held units once they are
+     */
+    public synchronized Optional<FlashSaleResponse> endSale(Long productId) {
+        return end(productId);
+    }
+    
+    public Optional<FlashSaleResponse> getSale(Long productId) {
+        return Optional.ofNullable(registry.get(productId)).map(pool -> convertToResponse(pool, null));
+    }
+    
+    public List<FlashSaleResponse> getSales() {
+        return registry.all().stream().map(pool -> convertToResponse(pool, null)).toList();
+    }
+    
+    /**
+     * Reserves an order that includes flash sale products. Their units are taken from the pools
+     * first, and an order a pool cannot serve is refused right away. Winners with only flash sale
+     * products are written by the persister; the others go through {@link InventoryService} for
+     * their remaining items.
+     * 
+     * @return the outcome, or null when no product of the order has a flash sale running here
+     */
+    public ReservationResponse reserve(ReservationRequest reservationRequest) {
+        if (registry.isEmpty()) {
+            return null;
+        }
+        Map<TokenPool, Integer> requested = new LinkedHashMap<>();
+        boolean otherProducts = false;
+        for (ReservationItemRequest item : reservationRequest.getItems()) {
+            TokenPool pool = registry.get(item.getProductId());
+            if (pool == null) {
+                otherProducts = true;
+            } else {
+                requested.merge(pool, item.getQuantity(), Integer::sum);
+            }
+        }
+        if (requested.isEmpty()) {
+            return null;
+        }
+        
+        Map<TokenPool, Integer> claimed = new LinkedHashMap<>();
+        for (Map.Entry<TokenPool, Integer> entry : requested.entrySet()) {
+            TokenPool pool = entry.getKey();
+            if (!pool.tryAcquire(entry.getValue())) {
+                giveBack(claimed);
+                // A sale being ended: the usual path finds its units still held and refuses them
+                return pool.isClosed() ? null : rejection(reservationRequest, pool, entry.getValue());
+            }
+            claimed.put(pool, entry.getValue());
+        }
+        
+        if (otherProducts) {
+            return reserveWithOtherProducts(reservationRequest, claimed);
+        }
+        Winner winner = new Winner(reservationRequest, claimed);
+        try {
+            winners.put(winner);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            giveBack(claimed);
+            return new ReservationResponse(false, INTERNAL_ERROR_MESSAGE);
+        }
+        return winner.response.join();
+    }
+    
+    private Optional<FlashSaleResponse> end(Long productId) {
+        TokenPool pool = registry.get(productId);
+        if (pool != null) {
+            pool.close();
+            registry.remove(pool);
+            awaitSettled(pool);
+        }
+        Integer released = transaction.execute(status -> returnHeldUnits(productId));
+        if (released == null) {
+            return Optional.empty();
+        }
+        if (pool == null) {
+            logger.info("Returned {} units held for product {} to general stock", released, productId);
+            return Optional.of(new FlashSaleResponse(productId, null, null, null, null, null, null, released));
+        }
+        logger.info("Flash sale ended for product {}: {} orders admitted, {} refused, {} units returned to general stock",
+                productId, pool.getAdmitted(), pool.getRejected(), released);
+        return Optional.of(convertToResponse(pool, released));
+    }
+    
+    private void awaitSettled(TokenPool pool) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SETTLE_TIMEOUT_MILLIS);
+        while (pool.getInFlight() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Flash sale of product " + pool.getProductId() + " still has "
+                        + pool.getInFlight() + " reservations in flight");
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted ending the flash sale of product " + pool.getProductId(), e);
+            }
+        }
+    }
+    
+    /**
+     * Sets the product's reserved quantity back to the items of its active reservations. The row
+     * lock makes every transaction that changed either one commit first.
+     * 
+     * @return the units returned, or null when the product does not exist
+     */
+    private Integer returnHeldUnits(Long productId) {
+        List<Integer> reserved = jdbcTemplate.queryForList("SELECT reserved_quantity FROM products WHERE id = ? FOR UPDATE",
+                Integer.class, productId);
+        if (reserved.isEmpty()) {
+            return null;
+        }
+        int active = jdbcTemplate.queryForObject(ACTIVE_RESERVED, Integer.class, productId);
+        int held = reserved.get(0) - active;
+        if (held < 0) {
+            logger.warn("Product {} has {} units reserved but {} in active reservations; left unchanged",
+                    productId, reserved.get(0), active);
+            return 0;
+        }
+        if (held > 0) {
+            bulkStockWriter.addReserved(productId, -held);
+            stockChangeNotifier.stockChanged(List.of(productId));
+        }
+        return held;
+    }
+    
+    private ReservationResponse reserveWithOtherProducts(ReservationRequest reservationRequest, Map<TokenPool, Integer> claimed) {
+        Set<Long> held = claimed.keySet().stream().map(TokenPool::getProductId).collect(Collectors.toSet());
+        ReservationResponse response;
+        try {
+            response = inventoryService.reserveInventory(reservationRequest, held);
+        } catch (RuntimeException e) {
+            giveBack(claimed);
+            throw e;
+        }
+        if (response.isSuccess()) {
+            settle(claimed);
+        } else {
+            giveBack(claimed);
+        }
+        return response;
+    }
+    
+    private ReservationResponse rejection(ReservationRequest reservationRequest, TokenPool pool, int quantity) {
+        int available = pool.getRemaining();
+        String errorMessage = String.format("Some items are not available: Product '%s' (ID: %d): requested %d, available %d",
+                pool.getProductName(), pool.getProductId(), quantity, available);
+        eventLog.detail(reservationRequest.getOrderId(), "reservation.flash-sale.rejected")
+                .with("orderId", reservationRequest.getOrderId()).with("productId", pool.getProductId())
+                .with("requested", quantity).with("available", available).log();
+        ReservationResponse rejection = new ReservationResponse(false, errorMessage);
+        if (available <= 0) {
+            rejection.setSoldOutProductIds(List.of(pool.getProductId()));
+        }
+        return rejection;
+    }
+    
+    private void persistLoop() {
+        List<Winner> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Winner first = winners.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                winners.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Flash sale persister failed: {}", e.getMessage(), e);
+                for (Winner winner : batch) {
+                    if (!winner.response.isDone()) {
+                        giveBack(winner.claimed);
+                        winner.response.complete(new ReservationResponse(false, INTERNAL_ERROR_MESSAGE));
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    /**
+     * Writes a batch in one transaction. When it fails, writes its reservations one by one, so
+     * a single bad one (an order inserted concurrently elsewhere) cannot fail the others.
+     */
+    private void persist(List<Winner> batch) {
+        List<Inserted> inserted;
+        try {
+            inserted = transaction.execute(status -> insert(batch));
+        } catch (RuntimeException e) {
+            logger.warn("Flash sale batch of {} reservations failed, writing them one by one: {}", batch.size(), e.getMessage());
+            for (Winner winner : batch) {
+                try {
+                    complete(winner, transaction.execute(status -> insert(List.of(winner))).get(0));
+                } catch (RuntimeException failure) {
+                    logger.error("Unexpected error writing the flash sale reservation for order {}: {}",
+                            winner.request.getOrderId(), failure.getMessage(), failure);
+                    giveBack(winner.claimed);
+                    winner.response.complete(new ReservationResponse(false, INTERNAL_ERROR_MESSAGE));
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), inserted.get(i));
+        }
+    }
+    
+    /**
+     * Inserts a reservation for each winner whose order has none yet. The product rows are not
+     * touched: the units are already reserved, held by the sale until now.
+     */
+    private List<Inserted> insert(List<Winner> batch) {
+        List<Long> orderIds = batch.stream().map(winner -> winner.request.getOrderId()).toList();
+        Map<Long, Long> existing = new HashMap<>();
+        jdbcTemplate.query("SELECT order_id, id FROM reservations WHERE order_id IN ("
+                        + String.join(", ", Collections.nCopies(orderIds.size(), "?")) + ")",
+                row -> { existing.put(row.getLong(1), row.getLong(2)); }, orderIds.toArray());
+        
+        Map<Long, Reservation> created = new LinkedHashMap<>();
+        List<Reservation> duplicates = new ArrayList<>(batch.size());
+        for (Winner winner : batch) {
+            Long orderId = winner.request.getOrderId();
+            if (existing.containsKey(orderId) || created.containsKey(orderId)) {
+                duplicates.add(created.get(orderId));
+                continue;
+            }
+            Reservation reservation = new Reservation(orderId);
+            for (ReservationItemRequest item : winner.request.getItems()) {
+                reservation.addItem(new ReservationItem(item.getProductId(), item.getQuantity()));
+            }
+            created.put(orderId, reservation);
+            duplicates.add(null);
+        }
+        reservationRepository.saveAll(created.values());
+        
+        List<Inserted> inserted = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Long orderId = batch.get(i).request.getOrderId();
+            Reservation duplicateOf = duplicates.get(i);
+            if (existing.containsKey(orderId)) {
+                inserted.add(new Inserted(existing.get(orderId), false));
+            } else if (duplicateOf != null) {
+                inserted.add(new Inserted(duplicateOf.getId(), false));
+            } else {
+                inserted.add(new Inserted(created.get(orderId).getId(), true));
+            }
+        }
+        return inserted;
+    }
+    
+    private void complete(Winner winner, Inserted inserted) {
+        Long orderId = winner.request.getOrderId();
+        if (!inserted.created()) {
+            giveBack(winner.claimed);
+            eventLog.warn("reservation.duplicate").with("orderId", orderId).log();
+            winner.response.complete(new ReservationResponse(false, "Reservation already exists for this order",
+                    inserted.reservationId()));
+            return;
+        }
+        settle(winner.claimed);
+        eventLog.info("reservation.created").with("orderId", orderId)
+                .with("reservationId", inserted.reservationId()).with("flashSale", true).log();
+        winner.response.complete(new ReservationResponse(true, "Inventory reserved successfully", inserted.reservationId()));
+    }
+    
+    /** The claimed units now belong to a reservation. */
+    private static void settle(Map<TokenPool, Integer> claimed) {
+        claimed.keySet().forEach(TokenPool::exit);
+    }
+    
+    /** The claimed units were not reserved after all. */
+    private static void giveBack(Map<TokenPool, Integer> claimed) {
+        claimed.forEach((pool, units) -> {
+            pool.giveBack(units);
+            pool.exit();
+        });
+    }
+    
+    private FlashSaleResponse convertToResponse(TokenPool pool, Integer releasedQuantity) {
+        return new FlashSaleResponse(
+                pool.getProductId(),
+                pool.getProductName(),
+                pool.getAllocated(),
+                pool.getRemaining(),
+                pool.getAdmitted(),
+                pool.getRejected(),
+                pool.getStartedAt(),
+                releasedQuantity
+        );
+    }
+    
+    private static final class Winner {
+        private final ReservationRequest request;
+        private final Map<TokenPool, Integer> claimed;
+        private final CompletableFuture<ReservationResponse> response = new CompletableFuture<>();
+        
+        private Winner(ReservationRequest request, Map<TokenPool, Integer> claimed) {
+            this.request = request;
+            this.claimed = claimed;
+        }
+    }
+    
+    /**
+     * @param created false when the order already had a reservation, whose id this is
+     */
+    private record Inserted(Long reservationId, boolean created) {
+    }
+}
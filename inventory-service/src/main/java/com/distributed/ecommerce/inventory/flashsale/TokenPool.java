@@ -0,0 +1,120 @@
+package com.distributed.ecommerce.inventory.flashsale;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The units of one product set aside for a flash sale, handed out with a compare-and-set on a
+ * single counter: requests are served in the order they reach it, and the ones beyond the pool
+ * are refused without a lock or a query.
+ * <p>
+ * Every successful {@link #tryAcquire} and every {@link #tryEnter} counts as in flight until
+ * {@link #exit}, so the sale can wait for them to settle before handing the stock back.
+ */
+final class TokenPool {
+    
+    private final Long productId;
+    private final String productName;
+    private final int allocated;
+    private final LocalDateTime startedAt;
+    private final AtomicInteger remaining;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    
+    private volatile boolean closed;
+    
+    TokenPool(Long productId, String productName, int allocated, LocalDateTime startedAt) {
+        this.productId = productId;
+        this.productName = productName;
+        this.allocated = allocated;
+        this.startedAt = startedAt;
+        this.remaining = new AtomicInteger(allocated);
+    }
+    
+    /**
+     * Takes {@code units} tokens if the pool still has them. Fails without taking any when the
+     * pool is short or closed; {@link #isClosed} tells the two apart.
+     */
+    boolean tryAcquire(int units) {
+        if (!tryEnter()) {
+            return false;
+        }
+        int available;
+        do {
+            available = remaining.get();
+            if (available < units) {
+                rejected.increment();
+                exit();
+                return false;
+            }
+        } while (!remaining.compareAndSet(available, available - units));
+        admitted.increment();
+        return true;
+    }
+    
+    /**
+     * Counts the caller in flight unless the pool is closed. Incremented before the check, so a
+     * sale that closed and then saw nothing in flight cannot be entered afterwards.
+     */
+    boolean tryEnter() {
+        inFlight.incrementAndGet();
+        if (closed) {
+            exit();
+            return false;
+        }
+        return true;
+    }
+    
+    void exit() {
+        inFlight.decrementAndGet();
+    }
+    
+    /**
+     * Puts tokens back, from a winner whose reservation was not written or a reservation released.
+     */
+    void giveBack(int units) {
+        remaining.addAndGet(units);
+    }
+    
+    void close() {
+        closed = true;
+    }
+    
+    boolean isClosed() {
+        return closed;
+    }
+    
+    int getInFlight() {
+        return inFlight.get();
+    }
+    
+    Long getProductId() {
+        return productId;
+    }
+    
+    String getProductName() {
+        return productName;
+    }
+    
+    int getAllocated() {
+        return allocated;
+    }
+    
+    int getRemaining() {
+        return remaining.get();
+    }
+    
+    long getAdmitted() {
+        return admitted.sum();
+    }
+    
+    long getRejected() {
+        return rejected.sum();
+    }
+    
+    LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+}
@@ -0,0 +1,61 @@
+package com.distributed.ecommerce.inventory.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener registration, delivery and counters shared by the bus implementations.
+ */
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AbstractInvalidationBus.class);
+    
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    
+    @Override
+    public void subscribe(InvalidationListener listener) {
+        listeners.add(listener);
+    }
+    
+    @Override
+    public long getPublishedCount() {
+        return published.sum();
+    }
+    
+    @Override
+    public long getReceivedCount() {
+        return received.sum();
+    }
+    
+    protected void recordPublished(int productCount) {
+        published.add(productCount);
+    }
+    
+    protected void deliver(Collection<Long> productIds) {
+        received.add(productIds.size());
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.invalidate(productIds);
+            } catch (RuntimeException e) {
+                logger.error("Invalidation listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+    
+    protected void deliverAll() {
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.invalidateAll();
+            } catch (RuntimeException e) {
+                logger.error("Invalidation listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.distributed.ecommerce.inventory.invalidation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers invalidations to the other application contexts on the same channel in this JVM,
+ * synchronously on the publishing thread. A stand-in for {@link PostgresInvalidationBus} when
+ * several replicas are booted in one process (benchmarks, tests) or when there is one replica.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.invalidation.bus", havingValue = "memory", matchIfMissing = true)
+public class InMemoryInvalidationBus extends AbstractInvalidationBus {
+    
+    private static final Map<String, List<InMemoryInvalidationBus>> CHANNELS = new ConcurrentHashMap<>();
+    
+    private final String channel;
+    
+    public InMemoryInvalidationBus(@Value("${inventory.invalidation.channel:inventory_invalidation}") String channel) {
+        this.channel = channel;
+    }
+    
+    @Override
+    public String getName() {
+        return "memory";
+    }
+    
+    @PostConstruct
+    void join() {
+        CHANNELS.computeIfAbsent(channel, name -> new CopyOnWriteArrayList<>()).add(this);
+    }
+    
+    @PreDestroy
+    void leave() {
+        CHANNELS.getOrDefault(channel, List.of()).remove(this);
+    }
+    
+    @Override
+    public void publish(Collection<Long> productIds) {
+        recordPublished(productIds.size());
+        for (InMemoryInvalidationBus peer : CHANNELS.getOrDefault(channel, List.of())) {
+            if (peer != this) {
+                peer.deliver(productIds);
+            }
+        }
+    }
+    
+    @Override
+    public void publishAll() {
+        for (InMemoryInvalidationBus peer : CHANNELS.getOrDefault(channel, List.of())) {
+            if (peer != this) {
+                peer.deliverAll();
+            }
+        }
+    }
+}
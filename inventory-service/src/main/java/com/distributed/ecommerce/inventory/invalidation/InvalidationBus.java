@@ -0,0 +1,30 @@
+package com.distributed.ecommerce.inventory.invalidation;
+
+import java.util.Collection;
+
+/**
+ * Carries product-id invalidations between inventory-service replicas. A replica never
+ * receives its own invalidations, since its caches already reflect its own writes.
+ * The implementation is chosen with {@code inventory.invalidation.bus}
+ * ({@code memory} or {@code postgres}).
+ */
+public interface InvalidationBus {
+    
+    String getName();
+    
+    /**
+     * Sends one batch of changed product ids to the other replicas.
+     */
+    void publish(Collection<Long> productIds);
+    
+    /**
+     * Tells the other replicas to drop everything cached, for writes too large to list.
+     */
+    void publishAll();
+    
+    void subscribe(InvalidationListener listener);
+    
+    long getPublishedCount();
+    
+    long getReceivedCount();
+}
@@ -0,0 +1,20 @@
+package com.distributed.ecommerce.inventory.invalidation;
+
+import java.util.Collection;
+
+/**
+ * Receives invalidations published by other inventory-service replicas. Called on the bus's
+ * delivery thread, so implementations should only evict or mark entries and return.
+ */
+public interface InvalidationListener {
+    
+    /**
+     * Stock of these products changed on another replica.
+     */
+    void invalidate(Collection<Long> productIds);
+    
+    /**
+     * Invalidations may have been missed (e.g. the bus reconnected); drop everything cached.
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,154 @@
+package com.distributed.ecommerce.inventory.invalidation;
+
+import com.distributed.ecommerce.eventlog.EventLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the products whose stock a transaction changed and, once it commits, hands them to
+ * the {@link InvalidationBus} in batches. Ids are coalesced per transaction and across the
+ * flush interval, so a hot product reserved a thousand times in one interval is sent once.
+ * Rolled-back transactions publish nothing.
+ */
+@Component
+public class InvalidationPublisher {
+    
+    private final InvalidationBus bus;
+    private final EventLog eventLog;
+    private final long flushIntervalMillis;
+    private final int maxBatchSize;
+    
+    /** Committed changes waiting for the next flush. */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    
+    /** A committed change of every product waiting for the next flush. */
+    private final AtomicBoolean pendingAll = new AtomicBoolean();
+    
+    private ScheduledExecutorService flusher;
+    
+    public InvalidationPublisher(InvalidationBus bus, EventLog eventLog,
+                                 @Value("${inventory.invalidation.flush-interval-ms:20}") long flushIntervalMillis,
+                                 @Value("${inventory.invalidation.max-batch-size:500}") int maxBatchSize) {
+        if (flushIntervalMillis <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("inventory.invalidation.flush-interval-ms and max-batch-size must be positive");
+        }
+        this.bus = bus;
+        this.eventLog = eventLog;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+    
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+    
+    /**
+     * Records that the product's stock changed in the current transaction. Published after
+     * commit, or on the next flush when called outside a transaction.
+     */
+    public void productChanged(Long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.add(productId);
+            return;
+        }
+        
+        @SuppressWarnings("unchecked")
+        Set<Long> changed = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (changed == null) {
+            Set<Long> transactionChanges = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, transactionChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationPublisher.this);
+                    if (status == STATUS_COMMITTED) {
+                        pending.addAll(transactionChanges);
+                    }
+                }
+            });
+            changed = transactionChanges;
+        }
+        changed.add(productId);
+    }
+    
+    /**
+     * Records that the current transaction changed too many products to list them one by one;
+     * once it commits, the other replicas are told to drop everything cached.
+     */
+    public void allProductsChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingAll.set(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    pendingAll.set(true);
+                }
+            }
+        });
+    }
+    
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    void flush() {
+        if (pendingAll.getAndSet(false)) {
+            try {
+                bus.publishAll();
+            } catch (RuntimeException e) {
+                pendingAll.set(true);
+                eventLog.warn("invalidation.publish.failed").with("bus", bus.getName())
+                        .with("products", "all").with("error", e.getMessage()).log();
+                return;
+            }
+        }
+        while (!pending.isEmpty()) {
+            List<Long> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+            Iterator<Long> iterator = pending.iterator();
+            while (iterator.hasNext() && batch.size() < maxBatchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            try {
+                bus.publish(batch);
+            } catch (RuntimeException e) {
+                // Put the ids back so the next flush retries them
+                pending.addAll(batch);
+                eventLog.warn("invalidation.publish.failed").with("bus", bus.getName())
+                        .with("products", batch.size()).with("error", e.getMessage()).log();
+                return;
+            }
+        }
+    }
+}
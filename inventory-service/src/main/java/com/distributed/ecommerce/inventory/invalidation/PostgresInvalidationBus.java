@@ -0,0 +1,184 @@
+package com.distributed.ecommerce.inventory.invalidation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends invalidations with PostgreSQL {@code NOTIFY} and receives them on a dedicated
+ * {@code LISTEN} connection, outside the Hikari pool. The payload is the sender's replica id
+ * followed by comma-separated product ids, split to stay under the 8000-byte NOTIFY limit,
+ * or by {@code *} when every product changed.
+ * <p>
+ * Notifications sent while the listening connection is down are lost, so every time it
+ * (re)connects the listeners are told to drop everything. Against a database other than
+ * PostgreSQL (H2 in local runs) the bus logs a warning and neither sends nor receives.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.invalidation.bus", havingValue = "postgres")
+public class PostgresInvalidationBus extends AbstractInvalidationBus {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+    
+    private static final int MAX_PAYLOAD_LENGTH = 7900;
+    private static final String ALL_PRODUCTS = "*";
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final String channel;
+    private final String replicaId = Long.toHexString(new SecureRandom().nextLong());
+    private final boolean supported;
+    
+    private volatile boolean running;
+    private Thread listener;
+    
+    public PostgresInvalidationBus(JdbcTemplate jdbcTemplate,
+                                   DataSourceProperties dataSourceProperties,
+                                   @Value("${inventory.invalidation.channel:inventory_invalidation}") String channel) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("inventory.invalidation.channel must be a lower-case SQL identifier");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.channel = channel;
+        this.supported = dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+    }
+    
+    @Override
+    public String getName() {
+        return "postgres";
+    }
+    
+    @PostConstruct
+    void start() {
+        if (!supported) {
+            logger.warn("inventory.invalidation.bus=postgres needs a PostgreSQL datasource; " +
+                        "invalidations will not be exchanged with other replicas");
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (listener == null) {
+            return;
+        }
+        running = false;
+        listener.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    @Override
+    public void publish(Collection<Long> productIds) {
+        if (!supported || productIds.isEmpty()) {
+            return;
+        }
+        StringBuilder payload = new StringBuilder(Math.min(MAX_PAYLOAD_LENGTH, productIds.size() * 8));
+        for (Long productId : productIds) {
+            String id = Long.toString(productId);
+            if (payload.length() > 0 && payload.length() + id.length() + 1 > MAX_PAYLOAD_LENGTH) {
+                sendNotification(payload.toString());
+                payload.setLength(0);
+            }
+            payload.append(payload.length() == 0 ? replicaId + ":" : ",").append(id);
+        }
+        sendNotification(payload.toString());
+        recordPublished(productIds.size());
+    }
+    
+    @Override
+    public void publishAll() {
+        if (supported) {
+            sendNotification(replicaId + ":" + ALL_PRODUCTS);
+        }
+    }
+    
+    private void sendNotification(String payload) {
+        jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) statement -> {
+            statement.setString(1, channel);
+            statement.setString(2, payload);
+            return statement.execute();
+        });
+    }
+    
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                logger.info("Listening for cache invalidations on channel {}", channel);
+                
+                // Anything cached before this point may have missed a notification
+                deliverAll();
+                
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Invalidation listener connection lost, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void handle(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.substring(0, separator).equals(replicaId)) {
+            return;
+        }
+        if (payload.substring(separator + 1).equals(ALL_PRODUCTS)) {
+            deliverAll();
+            return;
+        }
+        List<Long> productIds = new ArrayList<>();
+        for (String id : payload.substring(separator + 1).split(",")) {
+            try {
+                productIds.add(Long.parseLong(id));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring malformed invalidation payload on channel {}: {}", channel, payload);
+                return;
+            }
+        }
+        deliver(productIds);
+    }
+}
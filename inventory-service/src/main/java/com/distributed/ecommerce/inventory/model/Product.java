@@ -1,5 +1,7 @@
 package com.distributed.ecommerce.inventory.model;
 
+import com.distributed.ecommerce.inventory.catalog.ProductCatalogListener;
+import com.distributed.ecommerce.inventory.search.ProductSearchListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -9,10 +11,12 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "products")
+@EntityListeners({ProductSearchListener.class, ProductCatalogListener.class})
 public class Product {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Product name is required")
@@ -35,6 +39,10 @@ public class Product {
     @Column(name = "reserved_quantity", nullable = false)
     private Integer reservedQuantity = 0;
     
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+    
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
@@ -140,6 +148,14 @@ public class Product {
         this.reservedQuantity = reservedQuantity;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
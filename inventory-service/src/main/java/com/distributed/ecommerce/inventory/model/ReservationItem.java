@@ -9,7 +9,8 @@ import jakarta.validation.constraints.Positive;
 public class ReservationItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_items_seq")
+    @SequenceGenerator(name = "reservation_items_seq", sequenceName = "reservation_items_seq", allocationSize = 50)
     private Long id;
     
     @NotNull(message = "Product ID is required")
@@ -0,0 +1,148 @@
+package com.distributed.ecommerce.inventory.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One applied change to a product's quantity, in the append-only adjustment journal. Rows are
+ * written with JDBC batches by the stock adjustments and never updated; the entity only reads
+ * them and gives the schema to databases created by Hibernate.
+ */
+@Entity
+@Table(name = "stock_adjustments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_adjustments_reference_product",
+                columnNames = {"reference", "product_id"}),
+        indexes = @Index(name = "idx_stock_adjustments_product", columnList = "product_id, id"))
+public class StockAdjustment {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 16)
+    private StockAdjustmentType type;
+    
+    /** The counted quantity or the delta, as requested. */
+    @Column(name = "requested", nullable = false)
+    private Integer requested;
+    
+    @Column(name = "previous_quantity", nullable = false)
+    private Integer previousQuantity;
+    
+    /** Never below the reserved quantity at the time, whatever was requested. */
+    @Column(name = "new_quantity", nullable = false)
+    private Integer newQuantity;
+    
+    @Column(name = "reserved_quantity", nullable = false)
+    private Integer reservedQuantity;
+    
+    @Column(name = "reference")
+    private String reference;
+    
+    @Column(name = "source", length = 64)
+    private String source;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public StockAdjustment() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public StockAdjustmentType getType() {
+        return type;
+    }
+    
+    public void setType(StockAdjustmentType type) {
+        this.type = type;
+    }
+    
+    public Integer getRequested() {
+        return requested;
+    }
+    
+    public void setRequested(Integer requested) {
+        this.requested = requested;
+    }
+    
+    public Integer getPreviousQuantity() {
+        return previousQuantity;
+    }
+    
+    public void setPreviousQuantity(Integer previousQuantity) {
+        this.previousQuantity = previousQuantity;
+    }
+    
+    public Integer getNewQuantity() {
+        return newQuantity;
+    }
+    
+    public void setNewQuantity(Integer newQuantity) {
+        this.newQuantity = newQuantity;
+    }
+    
+    public Integer getReservedQuantity() {
+        return reservedQuantity;
+    }
+    
+    public void setReservedQuantity(Integer reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+    
+    public String getReference() {
+        return reference;
+    }
+    
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public void setSource(String source) {
+        this.source = source;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "StockAdjustment{" +
+                "id=" + id +
+                ", productId=" + productId +
+                ", type=" + type +
+                ", requested=" + requested +
+                ", previousQuantity=" + previousQuantity +
+                ", newQuantity=" + newQuantity +
+                ", reference='" + reference + '\'' +
+                '}';
+    }
+}
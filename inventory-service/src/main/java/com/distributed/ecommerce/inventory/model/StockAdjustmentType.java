@@ -0,0 +1,16 @@
+package com.distributed.ecommerce.inventory.model;
+
+public enum StockAdjustmentType {
+    ABSOLUTE("Quantidade contada, substitui a atual"),
+    DELTA("Variação somada à quantidade atual");
+    
+    private final String description;
+    
+    StockAdjustmentType(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
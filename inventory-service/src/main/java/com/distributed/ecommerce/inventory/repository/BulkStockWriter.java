@@ -0,0 +1,113 @@
+package com.distributed.ecommerce.inventory.repository;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC writes of stock counters, for the paths that change them outside Hibernate, mostly
+ * many products at once. On PostgreSQL a batch is one statement over {@code unnest} of a column
+ * array per parameter; elsewhere (H2) it is a JDBC batch.
+ * <p>
+ * Hibernate does not see these writes: callers report the products changed through
+ * {@link com.distributed.ecommerce.inventory.service.StockChangeNotifier}.
+ */
+@Component
+public class BulkStockWriter {
+    
+    private static final String SET_QUANTITY =
+            "UPDATE products SET quantity = ?, version = version + 1, updated_at = ? WHERE id = ?";
+    
+    private static final String SET_QUANTITY_POSTGRES = "UPDATE products p SET quantity = a.quantity, "
+            + "version = p.version + 1, updated_at = ? FROM unnest(?::bigint[], ?::integer[]) AS a (id, quantity) "
+            + "WHERE p.id = a.id";
+    
+    private static final String ADD_RESERVED = "UPDATE products SET reserved_quantity = reserved_quantity + ?, "
+            + "version = version + 1, updated_at = ? WHERE id = ?";
+    
+    private static final String ADD_RESERVED_POSTGRES = "UPDATE products p SET reserved_quantity = p.reserved_quantity + a.quantity, "
+            + "version = p.version + 1, updated_at = ? FROM unnest(?::bigint[], ?::integer[]) AS a (id, quantity) "
+            + "WHERE p.id = a.id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+    
+    public BulkStockWriter(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgres = dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+    }
+    
+    /**
+     * Whether the database is PostgreSQL, so batches can be written as one {@code unnest} statement.
+     */
+    public boolean isPostgres() {
+        return postgres;
+    }
+    
+    /**
+     * Sets the quantity of every product in the map, in one statement on PostgreSQL.
+     */
+    public void setQuantity(Map<Long, Integer> quantities, Timestamp now) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        if (postgres) {
+            jdbcTemplate.update(SET_QUANTITY_POSTGRES, statement -> {
+                statement.setTimestamp(1, now);
+                statement.setArray(2, statement.getConnection().createArrayOf("bigint", quantities.keySet().toArray()));
+                statement.setArray(3, statement.getConnection().createArrayOf("integer", quantities.values().toArray()));
+            });
+            return;
+        }
+        jdbcTemplate.batchUpdate(SET_QUANTITY, quantities.entrySet().stream()
+                .map(entry -> new Object[] {entry.getValue(), now, entry.getKey()}).toList());
+    }
+    
+    /**
+     * Adds units to the product's reserved quantity; negative units give them back.
+     */
+    public void addReserved(Long productId, int quantity) {
+        jdbcTemplate.update(ADD_RESERVED, quantity, Timestamp.valueOf(LocalDateTime.now()), productId);
+    }
+    
+    /**
+     * Adds units to the reserved quantity of every product in the map, in one statement on
+     * PostgreSQL. Callers hold the rows locked, in id order, so the order here does not matter.
+     */
+    public void addReserved(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (postgres) {
+            jdbcTemplate.update(ADD_RESERVED_POSTGRES, statement -> {
+                statement.setTimestamp(1, now);
+                statement.setArray(2, statement.getConnection().createArrayOf("bigint", quantities.keySet().toArray()));
+                statement.setArray(3, statement.getConnection().createArrayOf("integer", quantities.values().toArray()));
+            });
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_RESERVED, quantities.entrySet().stream()
+                .map(entry -> new Object[] {entry.getValue(), now, entry.getKey()}).toList());
+    }
+    
+    /**
+     * Binds one column of the rows as a PostgreSQL array of the given element type, for an
+     * {@code unnest(?::type[])} parameter.
+     */
+    public static void setColumn(PreparedStatement statement, int parameterIndex, String elementType,
+                                 List<Object[]> rows, int column) throws SQLException {
+        Object[] values = new Object[rows.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rows.get(i)[column];
+        }
+        statement.setArray(parameterIndex, statement.getConnection().createArrayOf(elementType, values));
+    }
+}
@@ -3,11 +3,14 @@ package com.distributed.ecommerce.inventory.repository;
 import com.distributed.ecommerce.inventory.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +29,38 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.id = :id")
     Optional<Product> findByIdForUpdate(@Param("id") Long id);
     
+    @Query("SELECT new com.distributed.ecommerce.inventory.repository.StockSnapshot(" +
+           "p.id, p.name, p.quantity, p.reservedQuantity, p.version) FROM Product p WHERE p.id = :id")
+    Optional<StockSnapshot> findStockSnapshot(@Param("id") Long id);
+    
+    @Query("SELECT new com.distributed.ecommerce.inventory.repository.StockSnapshot(" +
+           "p.id, p.name, p.quantity, p.reservedQuantity, p.version) FROM Product p WHERE p.id IN :ids")
+    List<StockSnapshot> findStockSnapshots(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.reservedQuantity = p.reservedQuantity + :quantity, " +
+           "p.version = p.version + 1, p.updatedAt = :now " +
+           "WHERE p.id = :id AND p.quantity - p.reservedQuantity >= :quantity")
+    int reserveIfAvailable(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.reservedQuantity = :reservedQuantity, " +
+           "p.version = p.version + 1, p.updatedAt = :now " +
+           "WHERE p.id = :id AND p.version = :expectedVersion")
+    int compareAndSetReserved(@Param("id") Long id, @Param("expectedVersion") long expectedVersion,
+                              @Param("reservedQuantity") int reservedQuantity, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.reservedQuantity = p.reservedQuantity + :quantity, " +
+           "p.version = p.version + 1, p.updatedAt = :now WHERE p.id = :id")
+    int addReserved(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.reservedQuantity = " +
+           "CASE WHEN p.reservedQuantity > :quantity THEN p.reservedQuantity - :quantity ELSE 0 END, " +
+           "p.version = p.version + 1, p.updatedAt = :now WHERE p.id = :id")
+    int releaseReserved(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+    
     @Query("SELECT SUM(p.quantity) FROM Product p")
     Long getTotalInventoryQuantity();
     
@@ -0,0 +1,16 @@
+package com.distributed.ecommerce.inventory.repository;
+
+import com.distributed.ecommerce.inventory.model.StockAdjustment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockAdjustmentRepository extends JpaRepository<StockAdjustment, Long> {
+    
+    List<StockAdjustment> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    List<StockAdjustment> findByProductIdAndIdGreaterThanOrderByIdAsc(Long productId, Long afterId, Pageable pageable);
+}
@@ -0,0 +1,29 @@
+package com.distributed.ecommerce.inventory.repository;
+
+/**
+ * Read-only view of a product's stock columns, loaded without attaching the entity
+ * to the persistence context so repeated reads always see the latest committed row.
+ */
+public class StockSnapshot {
+    
+    private final Long productId;
+    private final String name;
+    private final int quantity;
+    private final int reservedQuantity;
+    private final long version;
+    
+    public StockSnapshot(Long productId, String name, Integer quantity, Integer reservedQuantity, Long version) {
+        this.productId = productId;
+        this.name = name;
+        this.quantity = quantity;
+        this.reservedQuantity = reservedQuantity;
+        this.version = version;
+    }
+    
+    public Long getProductId() { return productId; }
+    public String getName() { return name; }
+    public int getQuantity() { return quantity; }
+    public int getReservedQuantity() { return reservedQuantity; }
+    public int getAvailableQuantity() { return quantity - reservedQuantity; }
+    public long getVersion() { return version; }
+}
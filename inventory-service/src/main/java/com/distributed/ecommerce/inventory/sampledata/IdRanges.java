@@ -0,0 +1,63 @@
+package com.distributed.ecommerce.inventory.sampledata;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ids drawn from one of the entity sequences in a single round trip, in the blocks Hibernate's
+ * pooled optimizer uses: a sequence value v covers the ids v - 49 to v. Generated rows never
+ * collide with the ones the entities insert, before or after, and the ids stay dense.
+ */
+final class IdRanges {
+    
+    /** allocationSize of the sequence generators on the entities. */
+    private static final int BLOCK_SIZE = 50;
+    
+    /** Last id of each block. */
+    private final long[] lastIds;
+    
+    /** Index of the first id of each block among all the ids. */
+    private final long[] firstIndexes;
+    
+    private IdRanges(long[] lastIds, long[] firstIndexes) {
+        this.lastIds = lastIds;
+        this.firstIndexes = firstIndexes;
+    }
+    
+    /**
+     * Draws at least {@code count} ids from the sequence. One block more than needed is drawn,
+     * since the first value of a fresh sequence covers a single id.
+     */
+    static IdRanges allocate(JdbcTemplate jdbcTemplate, boolean postgres, String sequence, long count) {
+        int blocks = (int) ((count + BLOCK_SIZE - 1) / BLOCK_SIZE) + 1;
+        String sql = postgres
+                ? "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)"
+                : "SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, ?)";
+        List<Long> values = jdbcTemplate.queryForList(sql, Long.class, blocks);
+        long[] lastIds = values.stream().mapToLong(Long::longValue).sorted().toArray();
+        long[] firstIndexes = new long[lastIds.length];
+        long next = 0;
+        for (int i = 0; i < lastIds.length; i++) {
+            firstIndexes[i] = next;
+            next += lastIds[i] - firstId(lastIds[i]) + 1;
+        }
+        return new IdRanges(lastIds, firstIndexes);
+    }
+    
+    /**
+     * Returns the id at the given position among the allocated ones, in ascending order.
+     */
+    long id(long index) {
+        int block = Arrays.binarySearch(firstIndexes, index);
+        if (block < 0) {
+            block = -block - 2;
+        }
+        return firstId(lastIds[block]) + (index - firstIndexes[block]);
+    }
+    
+    private static long firstId(long lastId) {
+        return Math.max(1, lastId - BLOCK_SIZE + 1);
+    }
+}
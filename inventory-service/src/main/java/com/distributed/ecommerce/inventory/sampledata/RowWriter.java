@@ -0,0 +1,124 @@
+package com.distributed.ecommerce.inventory.sampledata;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+
+/**
+ * Appends rows to one table on the caller's connection: through {@code COPY FROM STDIN} on
+ * PostgreSQL, in a single round trip, and through JDBC batches elsewhere (H2).
+ */
+abstract class RowWriter implements AutoCloseable {
+    
+    static RowWriter open(Connection connection, boolean postgres, int batchSize, String table, String... columns)
+            throws SQLException {
+        return postgres ? new Copy(connection, table, columns) : new Batch(connection, batchSize, table, columns);
+    }
+    
+    /**
+     * @param values one per column, in order: numbers, strings, enums, timestamps or null
+     */
+    abstract void row(Object... values) throws IOException, SQLException;
+    
+    /**
+     * Writes what is still buffered; without it, {@link #close()} discards the rows.
+     */
+    abstract void finish() throws IOException, SQLException;
+    
+    @Override
+    public abstract void close() throws SQLException;
+    
+    private static final class Copy extends RowWriter {
+        
+        private final CopyIn copyIn;
+        private final Writer out;
+        
+        Copy(Connection connection, String table, String[] columns) throws SQLException {
+            this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN (FORMAT csv)");
+            this.out = new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(copyIn), StandardCharsets.UTF_8), 1 << 16);
+        }
+        
+        @Override
+        void row(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                Object value = values[i];
+                if (value instanceof String || value instanceof Enum<?>) {
+                    // Always quoted, so an empty string is not read as NULL
+                    out.write('"');
+                    out.write(value.toString().replace("\"", "\"\""));
+                    out.write('"');
+                } else if (value instanceof BigDecimal decimal) {
+                    out.write(decimal.toPlainString());
+                } else if (value != null) {
+                    out.write(value.toString());
+                }
+            }
+            out.write('\n');
+        }
+        
+        @Override
+        void finish() throws IOException {
+            // Flushes the rest and ends the COPY
+            out.close();
+        }
+        
+        @Override
+        public void close() throws SQLException {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+    
+    private static final class Batch extends RowWriter {
+        
+        private final PreparedStatement insert;
+        private final int batchSize;
+        private int batched;
+        
+        Batch(Connection connection, int batchSize, String table, String[] columns) throws SQLException {
+            this.insert = connection.prepareStatement("INSERT INTO " + table + " (" + String.join(", ", columns)
+                    + ") VALUES (" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")");
+            this.batchSize = batchSize;
+        }
+        
+        @Override
+        void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                insert.setObject(i + 1, values[i] instanceof Enum<?> constant ? constant.name() : values[i]);
+            }
+            insert.addBatch();
+            if (++batched == batchSize) {
+                insert.executeBatch();
+                batched = 0;
+            }
+        }
+        
+        @Override
+        void finish() throws SQLException {
+            if (batched > 0) {
+                insert.executeBatch();
+            }
+        }
+        
+        @Override
+        public void close() throws SQLException {
+            insert.close();
+        }
+    }
+}
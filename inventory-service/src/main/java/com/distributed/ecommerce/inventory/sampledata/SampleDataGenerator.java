@@ -0,0 +1,181 @@
+package com.distributed.ecommerce.inventory.sampledata;
+
+import com.distributed.ecommerce.inventory.model.ReservationStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic products and reservation history with the skew of a real catalog. Every row is
+ * derived from the seed and its own position only, so the same settings produce the same data
+ * however the work is split between threads.
+ * <p>
+ * Stock is mostly moderate, with a share of products sold out or nearly so and a few held in
+ * bulk. Prices are spread over three orders of magnitude. Reservations pick products by
+ * popularity: about a fifth of them go to the top 1% of the catalog, and half to the top 10%.
+ */
+final class SampleDataGenerator {
+    
+    private static final String[] TYPES = {"Camiseta", "Calça", "Tênis", "Notebook", "Smartphone", "Fone",
+            "Mochila", "Relógio", "Cadeira", "Monitor", "Teclado", "Mouse", "Jaqueta", "Bermuda", "Garrafa",
+            "Luminária", "Panela", "Cafeteira", "Bicicleta", "Capacete", "Tablet", "Caixa de Som", "Mesa", "Livro"};
+    private static final String[] BRANDS = {"Aurora", "Boreal", "Cobalto", "Delta", "Estrela", "Farol",
+            "Granito", "Horizonte", "Ipê", "Jatobá", "Kappa", "Lótus", "Magma", "Netuno", "Orion",
+            "Pampa", "Quartzo", "Recife", "Sertão", "Tucano", "Urano", "Vértice", "Xingu", "Zênite"};
+    private static final String[] ADJECTIVES = {"Básica", "Esportiva", "Premium", "Slim", "Gamer", "Sem Fio",
+            "Impermeável", "Ergonômica", "Compacta", "Térmica", "Infantil", "Profissional", "Dobrável", "Clássica"};
+    private static final String[] COLORS = {"Preto", "Branco", "Azul", "Vermelho", "Verde", "Cinza", "Rosa", "Bege",
+            "Amarelo", "Marrom"};
+    private static final String[] MATERIALS = {"algodão", "couro", "alumínio", "aço inox", "plástico reciclado",
+            "madeira", "poliéster", "silicone", "vidro temperado", "bambu"};
+    
+    /** Shares of reservations by status, in tenths of a percent; the rest are confirmed. */
+    private static final int ACTIVE_PER_MILLE = 10;
+    private static final int RELEASED_PER_MILLE = 150;
+    private static final int CANCELLED_PER_MILLE = 60;
+    
+    /** Active reservations are the ones still within checkout, opened in the last half hour. */
+    private static final int ACTIVE_WINDOW_SECONDS = 30 * 60;
+    
+    /** Cumulative shares of reservations with 1 to 5 items, in percent. */
+    private static final int[] ITEM_COUNT_SHARES = {55, 80, 90, 96, 100};
+    
+    /** Prime above any int, so rank * stride mod n visits every product exactly once. */
+    private static final long POPULARITY_STRIDE = 2_654_435_761L;
+    
+    private final long seed;
+    private final int productCount;
+    private final LocalDateTime now;
+    private final long historySeconds;
+    
+    SampleDataGenerator(long seed, int productCount, int historyDays, LocalDateTime now) {
+        this.seed = seed;
+        this.productCount = productCount;
+        this.now = now.truncatedTo(ChronoUnit.SECONDS);
+        this.historySeconds = historyDays * 86_400L;
+    }
+    
+    SampleProduct product(long index) {
+        SplittableRandom random = random(1, index);
+        String type = pick(random, TYPES);
+        String brand = pick(random, BRANDS);
+        String name = type + " " + brand + " " + pick(random, ADJECTIVES) + " " + pick(random, COLORS)
+                + " " + (random.nextInt(900) + 100);
+        String description = random.nextInt(10) == 0 ? null
+                : type + " " + brand + " de " + pick(random, MATERIALS) + ", garantia de "
+                        + (random.nextInt(4) + 1) * 6 + " meses";
+        
+        // Log-uniform between 2 and 5000, ending in .90 or .99
+        long reais = Math.round(Math.exp(Math.log(2) + random.nextDouble() * Math.log(2500)));
+        BigDecimal price = BigDecimal.valueOf(Math.max(1, reais - 1) * 100 + (random.nextBoolean() ? 90 : 99), 2);
+        
+        return new SampleProduct(name, description, price, stock(random),
+                now.minusSeconds(random.nextLong(historySeconds + 1)));
+    }
+    
+    /**
+     * Sold out for 8% of the products, 1 to 10 units for 20%, up to 500 for most of the rest
+     * and up to 20000 for the last 12%.
+     */
+    private static int stock(SplittableRandom random) {
+        int bucket = random.nextInt(100);
+        if (bucket < 8) {
+            return 0;
+        }
+        if (bucket < 28) {
+            return random.nextInt(1, 11);
+        }
+        if (bucket < 88) {
+            return logUniform(random, 11, 500);
+        }
+        return logUniform(random, 500, 20_000);
+    }
+    
+    SampleReservation reservation(long index) {
+        SplittableRandom random = random(2, index);
+        int roll = random.nextInt(1000);
+        ReservationStatus status;
+        LocalDateTime createdAt;
+        LocalDateTime updatedAt;
+        if (roll < ACTIVE_PER_MILLE) {
+            status = ReservationStatus.ACTIVE;
+            createdAt = now.minusSeconds(random.nextInt(ACTIVE_WINDOW_SECONDS));
+            updatedAt = createdAt;
+        } else {
+            roll -= ACTIVE_PER_MILLE;
+            status = roll < RELEASED_PER_MILLE ? ReservationStatus.RELEASED
+                    : roll < RELEASED_PER_MILLE + CANCELLED_PER_MILLE ? ReservationStatus.CANCELLED
+                    : ReservationStatus.CONFIRMED;
+            createdAt = now.minusSeconds(ACTIVE_WINDOW_SECONDS + random.nextLong(historySeconds + 1));
+            updatedAt = createdAt.plusSeconds(random.nextInt(5, ACTIVE_WINDOW_SECONDS));
+        }
+        
+        int itemCount = 1;
+        int share = random.nextInt(100);
+        while (share >= ITEM_COUNT_SHARES[itemCount - 1]) {
+            itemCount++;
+        }
+        itemCount = Math.min(itemCount, productCount);
+        long[] productIndexes = new long[itemCount];
+        int[] quantities = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            productIndexes[i] = popularProduct(random, productIndexes, i);
+            quantities[i] = random.nextInt(4) == 0 ? random.nextInt(2, 6) : 1;
+        }
+        return new SampleReservation(-(index + 1), status, createdAt, updatedAt, productIndexes, quantities);
+    }
+    
+    /**
+     * Draws a product by popularity rank, skipping the ones already in the reservation. Ranks
+     * are scattered over the catalog, so the best sellers are not simply the oldest products.
+     */
+    private long popularProduct(SplittableRandom random, long[] taken, int takenCount) {
+        while (true) {
+            double u = random.nextDouble();
+            long rank = (long) (productCount * u * u * u);
+            long product = Math.floorMod((rank + Math.floorMod(seed, productCount)) * POPULARITY_STRIDE, (long) productCount);
+            boolean repeated = false;
+            for (int i = 0; i < takenCount; i++) {
+                repeated |= taken[i] == product;
+            }
+            if (!repeated) {
+                return product;
+            }
+        }
+    }
+    
+    /**
+     * A generator of its own for each row, seeded by mixing the row's position into the seed
+     * (the finalizer of SplitMix64), so neighbouring rows are unrelated.
+     */
+    private SplittableRandom random(int stream, long index) {
+        long z = seed + stream * 0x632BE59BD9B4E019L + index * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+    
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+    
+    private static int logUniform(SplittableRandom random, int min, int max) {
+        return (int) Math.round(Math.exp(Math.log(min) + random.nextDouble() * Math.log((double) max / min)));
+    }
+    
+    /**
+     * @param createdAt spread over the history window; every product was last stocked now
+     */
+    record SampleProduct(String name, String description, BigDecimal price, int quantity, LocalDateTime createdAt) {
+    }
+    
+    /**
+     * @param orderId negative, so synthetic history never takes the id of a real order
+     * @param productIndexes positions of the products among the generated ones
+     */
+    record SampleReservation(long orderId, ReservationStatus status, LocalDateTime createdAt, LocalDateTime updatedAt,
+                             long[] productIndexes, int[] quantities) {
+    }
+}
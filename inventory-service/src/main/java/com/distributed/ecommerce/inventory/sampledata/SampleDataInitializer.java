@@ -0,0 +1,277 @@
+package com.distributed.ecommerce.inventory.sampledata;
+
+import com.distributed.ecommerce.inventory.invalidation.InvalidationPublisher;
+import com.distributed.ecommerce.inventory.sampledata.SampleDataGenerator.SampleProduct;
+import com.distributed.ecommerce.inventory.sampledata.SampleDataGenerator.SampleReservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills an empty database with a synthetic catalog and reservation history when
+ * {@code inventory.initialize-sample-data} is set, so performance environments can be rebuilt
+ * at realistic volumes in minutes. Runs before the application is ready, so the in-memory
+ * indexes load the generated rows like any others.
+ * <p>
+ * The rows bypass JPA: they are split into chunks written in parallel, each in a transaction
+ * of its own, through {@code COPY} on PostgreSQL and JDBC batches elsewhere. Ids come from the
+ * entity sequences, so the service keeps creating rows after them. The reserved quantity of
+ * every product is then set to the items of its active reservations, as if the service had
+ * taken them.
+ * <p>
+ * A database that already has products is left alone. On PostgreSQL an advisory lock keeps
+ * replicas starting together from both generating; the second one finds the products there.
+ * A run that fails midway leaves the chunks already committed behind: empty the tables before
+ * starting again.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.initialize-sample-data", havingValue = "true")
+public class SampleDataInitializer implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SampleDataInitializer.class);
+    
+    /** Key of the PostgreSQL advisory lock taken while generating. */
+    private static final long LOCK_KEY = 0x696E765F73656564L;
+    
+    /** Rows per chunk, each written and committed by one thread. */
+    private static final int PRODUCTS_PER_CHUNK = 50_000;
+    private static final int RESERVATIONS_PER_CHUNK = 20_000;
+    
+    private static final String[] PRODUCT_COLUMNS = {"id", "name", "description", "price", "quantity",
+            "reserved_quantity", "version", "created_at", "updated_at"};
+    private static final String[] RESERVATION_COLUMNS = {"id", "order_id", "status", "created_at", "updated_at"};
+    private static final String[] ITEM_COLUMNS = {"id", "reservation_id", "product_id", "quantity"};
+    
+    /** Stock reserved by the active reservations, never above the product's quantity. */
+    private static final String APPLY_ACTIVE_RESERVATIONS = "MERGE INTO products p USING ("
+            + "SELECT i.product_id, SUM(i.quantity) AS reserved FROM reservation_items i "
+            + "JOIN reservations r ON r.id = i.reservation_id WHERE r.status = 'ACTIVE' GROUP BY i.product_id) a "
+            + "ON p.id = a.product_id "
+            + "WHEN MATCHED THEN UPDATE SET quantity = GREATEST(p.quantity, a.reserved), reserved_quantity = a.reserved";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final InvalidationPublisher invalidationPublisher;
+    private final boolean postgres;
+    private final int productCount;
+    private final int reservationCount;
+    private final int historyDays;
+    private final int threads;
+    private final long seed;
+    private final int batchSize;
+    
+    public SampleDataInitializer(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 DataSourceProperties dataSourceProperties,
+                                 InvalidationPublisher invalidationPublisher,
+                                 @Value("${inventory.sample-data.products:10000}") int productCount,
+                                 @Value("${inventory.sample-data.reservations:20000}") int reservationCount,
+                                 @Value("${inventory.sample-data.history-days:90}") int historyDays,
+                                 @Value("${inventory.sample-data.threads:4}") int threads,
+                                 @Value("${inventory.sample-data.seed:42}") long seed,
+                                 @Value("${inventory.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.invalidationPublisher = invalidationPublisher;
+        this.postgres = dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+        this.productCount = productCount;
+        this.reservationCount = productCount > 0 ? reservationCount : 0;
+        this.historyDays = historyDays;
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+        this.batchSize = batchSize;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (productCount <= 0) {
+            return;
+        }
+        if (!postgres) {
+            initialize();
+            return;
+        }
+        // Held on a connection of its own for the whole run; the chunks use other ones
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+                try {
+                    initialize();
+                } finally {
+                    statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+            return null;
+        });
+    }
+    
+    private void initialize() {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM products)", Boolean.class))) {
+            logger.info("Sample data skipped: the products table is not empty");
+            return;
+        }
+        long start = System.nanoTime();
+        SampleDataGenerator generator = new SampleDataGenerator(seed, productCount, historyDays, LocalDateTime.now());
+        IdRanges productIds = IdRanges.allocate(jdbcTemplate, postgres, "products_seq", productCount);
+        IdRanges reservationIds = IdRanges.allocate(jdbcTemplate, postgres, "reservations_seq", reservationCount);
+        AtomicInteger itemCount = new AtomicInteger();
+        
+        List<Runnable> chunks = new ArrayList<>();
+        for (int from = 0; from < productCount; from += PRODUCTS_PER_CHUNK) {
+            int first = from;
+            int last = Math.min(productCount, from + PRODUCTS_PER_CHUNK);
+            chunks.add(() -> writeProducts(generator, productIds, first, last));
+        }
+        runInParallel("products", chunks);
+        long productsDone = System.nanoTime();
+        
+        chunks.clear();
+        for (int from = 0; from < reservationCount; from += RESERVATIONS_PER_CHUNK) {
+            int first = from;
+            int last = Math.min(reservationCount, from + RESERVATIONS_PER_CHUNK);
+            chunks.add(() -> itemCount.addAndGet(writeReservations(generator, productIds, reservationIds, first, last)));
+        }
+        runInParallel("reservations", chunks);
+        
+        jdbcTemplate.update(APPLY_ACTIVE_RESERVATIONS);
+        if (postgres) {
+            jdbcTemplate.execute("ANALYZE products, reservations, reservation_items");
+        }
+        // Replicas already running against this database rebuild their caches
+        invalidationPublisher.allProductsChanged();
+        
+        logger.info("Sample data generated with {} threads: {} products in {} ms, {} reservations with {} items in {} ms",
+                threads, productCount, TimeUnit.NANOSECONDS.toMillis(productsDone - start),
+                reservationCount, itemCount.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - productsDone));
+    }
+    
+    private void writeProducts(SampleDataGenerator generator, IdRanges ids, int first, int last) {
+        LocalDateTime stockedAt = LocalDateTime.now();
+        inTransaction(connection -> {
+            try (RowWriter products = RowWriter.open(connection, postgres, batchSize, "products", PRODUCT_COLUMNS)) {
+                for (int index = first; index < last; index++) {
+                    SampleProduct product = generator.product(index);
+                    products.row(ids.id(index), product.name(), product.description(), product.price(),
+                            product.quantity(), 0, 0, product.createdAt(), stockedAt);
+                }
+                products.finish();
+            }
+        });
+    }
+    
+    /**
+     * Generates the chunk before taking a connection: its item ids can only be drawn once the
+     * number of items is known, and drawing them while holding a connection could exhaust the
+     * pool with every thread waiting for one more.
+     * 
+     * @return the number of items written
+     */
+    private int writeReservations(SampleDataGenerator generator, IdRanges productIds, IdRanges reservationIds,
+                                  int first, int last) {
+        SampleReservation[] reservations = new SampleReservation[last - first];
+        int items = 0;
+        for (int index = first; index < last; index++) {
+            reservations[index - first] = generator.reservation(index);
+            items += reservations[index - first].productIndexes().length;
+        }
+        IdRanges itemIds = IdRanges.allocate(jdbcTemplate, postgres, "reservation_items_seq", items);
+        
+        inTransaction(connection -> {
+            // One COPY at a time per connection: reservations first, then their items
+            try (RowWriter writer = RowWriter.open(connection, postgres, batchSize, "reservations", RESERVATION_COLUMNS)) {
+                for (int i = 0; i < reservations.length; i++) {
+                    SampleReservation reservation = reservations[i];
+                    writer.row(reservationIds.id(first + i), reservation.orderId(), reservation.status(),
+                            reservation.createdAt(), reservation.updatedAt());
+                }
+                writer.finish();
+            }
+            try (RowWriter writer = RowWriter.open(connection, postgres, batchSize, "reservation_items", ITEM_COLUMNS)) {
+                long item = 0;
+                for (int i = 0; i < reservations.length; i++) {
+                    SampleReservation reservation = reservations[i];
+                    for (int j = 0; j < reservation.productIndexes().length; j++) {
+                        writer.row(itemIds.id(item++), reservationIds.id(first + i),
+                                productIds.id(reservation.productIndexes()[j]), reservation.quantities()[j]);
+                    }
+                }
+                writer.finish();
+            }
+        });
+        return items;
+    }
+    
+    private void inTransaction(ChunkWork work) {
+        transaction.executeWithoutResult(status -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try {
+                work.write(connection);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }));
+    }
+    
+    /**
+     * Runs the chunks on {@code threads} threads and waits for all of them. The first failure
+     * stops the ones not yet started and fails the startup.
+     */
+    private void runInParallel(String what, List<Runnable> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, chunks.size()), runnable -> {
+            Thread thread = new Thread(runnable, "sample-data-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable chunk : chunks) {
+                futures.add(executor.submit(chunk));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Sample data generation failed writing " + what
+                    + "; empty the products, reservations and reservation_items tables before restarting", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sample data generation interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @FunctionalInterface
+    private interface ChunkWork {
+        
+        void write(Connection connection) throws IOException, SQLException;
+    }
+}
@@ -0,0 +1,150 @@
+package com.distributed.ecommerce.inventory.search;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sorted list of document ordinals, compressed as variable-length deltas in blocks
+ * of {@value #BLOCK_SIZE}. The first ordinal of each block is kept uncompressed so a
+ * {@link Cursor} can skip to the block holding a target with a binary search and decode only
+ * that block. Dense lists of common trigrams take about one byte per entry.
+ */
+final class PostingList {
+    
+    static final int BLOCK_SIZE = 128;
+    
+    /** Returned by {@link Cursor#next()} once the list is exhausted. */
+    static final int END = Integer.MAX_VALUE;
+    
+    static final PostingList EMPTY = of(new int[0], 0);
+    
+    private final byte[] data;
+    private final int[] blockFirst;
+    private final int[] blockOffset;
+    private final int size;
+    
+    private PostingList(byte[] data, int[] blockFirst, int[] blockOffset, int size) {
+        this.data = data;
+        this.blockFirst = blockFirst;
+        this.blockOffset = blockOffset;
+        this.size = size;
+    }
+    
+    /**
+     * Compresses the first {@code length} ordinals, which must be sorted and distinct.
+     */
+    static PostingList of(int[] ordinals, int length) {
+        int blocks = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] blockFirst = new int[blocks];
+        int[] blockOffset = new int[blocks];
+        byte[] data = new byte[Math.max(16, length * 2)];
+        int position = 0;
+        for (int block = 0; block < blocks; block++) {
+            int start = block * BLOCK_SIZE;
+            int end = Math.min(start + BLOCK_SIZE, length);
+            blockFirst[block] = ordinals[start];
+            blockOffset[block] = position;
+            for (int i = start + 1; i < end; i++) {
+                if (position + 5 > data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                int delta = ordinals[i] - ordinals[i - 1];
+                while ((delta & ~0x7F) != 0) {
+                    data[position++] = (byte) ((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                data[position++] = (byte) delta;
+            }
+        }
+        return new PostingList(Arrays.copyOf(data, position), blockFirst, blockOffset, length);
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    long footprintBytes() {
+        return data.length + 8L * blockFirst.length;
+    }
+    
+    int[] toArray() {
+        int[] ordinals = new int[size];
+        int[] buffer = new int[BLOCK_SIZE];
+        int written = 0;
+        for (int block = 0; block < blockFirst.length; block++) {
+            int count = decode(block, buffer);
+            System.arraycopy(buffer, 0, ordinals, written, count);
+            written += count;
+        }
+        return ordinals;
+    }
+    
+    Cursor cursor() {
+        return new Cursor();
+    }
+    
+    private int decode(int block, int[] buffer) {
+        int count = block == blockFirst.length - 1 ? size - block * BLOCK_SIZE : BLOCK_SIZE;
+        int position = blockOffset[block];
+        int value = blockFirst[block];
+        buffer[0] = value;
+        for (int i = 1; i < count; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            buffer[i] = value;
+        }
+        return count;
+    }
+    
+    /**
+     * Sequential reads or membership tests for ascending targets, decoding each block at most
+     * once. A cursor is used for one or the other, not both.
+     */
+    final class Cursor {
+        private final int[] buffer = new int[BLOCK_SIZE];
+        private int block = -1;
+        private int count;
+        private int position;
+        
+        /**
+         * Returns the next ordinal, or {@link #END}.
+         */
+        int next() {
+            if (block < 0 || position == count) {
+                if (block + 1 >= blockFirst.length) {
+                    return END;
+                }
+                block++;
+                count = decode(block, buffer);
+                position = 0;
+            }
+            return buffer[position++];
+        }
+        
+        /**
+         * Returns whether the list contains the target. Targets must not decrease between calls.
+         */
+        boolean advanceTo(int target) {
+            if (size == 0 || target < blockFirst[0]) {
+                return false;
+            }
+            if (block < 0 || (block + 1 < blockFirst.length && blockFirst[block + 1] <= target)) {
+                int found = Arrays.binarySearch(blockFirst, Math.max(block, 0), blockFirst.length, target);
+                int next = found >= 0 ? found : -found - 2;
+                count = decode(next, buffer);
+                block = next;
+                position = 0;
+            }
+            while (position < count && buffer[position] < target) {
+                position++;
+            }
+            return position < count && buffer[position] == target;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.distributed.ecommerce.inventory.search;
+
+import com.distributed.ecommerce.inventory.availability.AvailabilityIndex;
+import com.distributed.ecommerce.inventory.availability.StockTable;
+import com.distributed.ecommerce.inventory.dto.ProductSearchResult;
+import com.distributed.ecommerce.inventory.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product search over an in-memory {@link TrigramIndex} of names and descriptions, so searches
+ * never reach the database. The index is bulk loaded once the application is ready. Products
+ * saved by this instance are re-indexed after commit through {@link ProductSearchListener};
+ * products written elsewhere are picked up every {@code inventory.search.refresh-interval-ms}
+ * by reading the rows updated since the previous refresh.
+ */
+@Component
+public class ProductSearchIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+    
+    /** Rows updated this long before the last refresh are read again, to absorb clock skew between replicas. */
+    private static final long REFRESH_OVERLAP_MILLIS = 5_000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AvailabilityIndex availabilityIndex;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final long refreshIntervalMillis;
+    private final double minSimilarity;
+    private final int maxCandidates;
+    
+    private volatile TrigramIndex index;
+    
+    /** Latest updated_at read from the products table; only used on the refresher thread. */
+    private Timestamp watermark;
+    
+    private volatile ScheduledExecutorService refresher;
+    
+    public ProductSearchIndex(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              AvailabilityIndex availabilityIndex,
+                              @Value("${inventory.search.enabled:true}") boolean enabled,
+                              @Value("${inventory.search.fetch-size:5000}") int fetchSize,
+                              @Value("${inventory.search.refresh-interval-ms:60000}") long refreshIntervalMillis,
+                              @Value("${inventory.search.min-similarity:0.5}") double minSimilarity,
+                              @Value("${inventory.search.max-candidates:20000}") int maxCandidates) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.availabilityIndex = availabilityIndex;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.minSimilarity = minSimilarity;
+        this.maxCandidates = maxCandidates;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        load();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+    
+    public boolean isReady() {
+        return index != null;
+    }
+    
+    /**
+     * Picks up products written without JPA (bulk imports) now instead of at the next scheduled
+     * refresh. Runs on the refresher thread; does nothing until the index is loaded.
+     */
+    public void refreshSoon() {
+        ScheduledExecutorService current = refresher;
+        if (current != null) {
+            current.execute(this::refresh);
+        }
+    }
+    
+    /**
+     * Rebuilds the index from the products table on the refresher thread, for writes too large
+     * to re-index product by product. Does nothing until the index is loaded.
+     */
+    public void reloadSoon() {
+        ScheduledExecutorService current = refresher;
+        if (current != null) {
+            current.execute(this::load);
+        }
+    }
+    
+    /**
+     * Returns up to {@code limit} products matching the query, best first, with their
+     * available stock from the availability index (null when it is not indexed).
+     */
+    public List<ProductSearchResult> search(String query, int limit) {
+        TrigramIndex current = index;
+        if (current == null) {
+            return List.of();
+        }
+        List<TrigramIndex.Hit> hits = current.search(query, limit, minSimilarity, maxCandidates);
+        List<ProductSearchResult> results = new ArrayList<>(hits.size());
+        for (TrigramIndex.Hit hit : hits) {
+            long stock = availabilityIndex.lookup(hit.getProductId());
+            results.add(new ProductSearchResult(hit.getProductId(), hit.getName(), hit.getScore(),
+                    stock == StockTable.ABSENT ? null : StockTable.availableOf(stock)));
+        }
+        return results;
+    }
+    
+    /**
+     * Re-indexes the product once the current transaction commits, if its text changed.
+     * Cheap when it did not, since stock updates also pass through here.
+     */
+    void productSaved(Product product) {
+        TrigramIndex current = index;
+        if (current == null || product.getId() == null
+                || current.isCurrent(product.getId(), product.getName(), product.getDescription())) {
+            return;
+        }
+        long productId = product.getId();
+        String name = product.getName();
+        String description = product.getDescription();
+        afterCommit(() -> current.put(productId, name, description));
+    }
+    
+    void productRemoved(Product product) {
+        TrigramIndex current = index;
+        if (current != null && product.getId() != null) {
+            long productId = product.getId();
+            afterCommit(() -> current.remove(productId));
+        }
+    }
+    
+    private void load() {
+        long start = System.nanoTime();
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+        TrigramIndex.Builder builder = TrigramIndex.builder(count == null ? 0 : count.intValue());
+        Timestamp[] latest = new Timestamp[1];
+        readOnlyTransaction.executeWithoutResult(status -> {
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(fetchSize);
+            streaming.query("SELECT id, name, description, updated_at FROM products ORDER BY id", row -> {
+                builder.add(row.getLong(1), row.getString(2), row.getString(3));
+                latest[0] = later(latest[0], row.getTimestamp(4));
+            });
+        });
+        TrigramIndex loaded = builder.build();
+        watermark = latest[0];
+        index = loaded;
+        
+        logger.info("Search index loaded {} products in {} ms ({} trigrams, {} bytes of posting lists)",
+                loaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                loaded.getTrigramCount(), loaded.getPostingBytes());
+    }
+    
+    /**
+     * Re-indexes the products updated since the previous refresh. Products whose text did not
+     * change are skipped by the index itself.
+     */
+    void refresh() {
+        try {
+            TrigramIndex current = index;
+            Timestamp since = watermark == null
+                    ? new Timestamp(0)
+                    : new Timestamp(watermark.getTime() - REFRESH_OVERLAP_MILLIS);
+            Timestamp[] latest = {watermark};
+            jdbcTemplate.query("SELECT id, name, description, updated_at FROM products WHERE updated_at >= ?",
+                    row -> {
+                        current.put(row.getLong(1), row.getString(2), row.getString(3));
+                        latest[0] = later(latest[0], row.getTimestamp(4));
+                    }, since);
+            watermark = latest[0];
+        } catch (RuntimeException e) {
+            logger.warn("Search index refresh failed: {}", e.getMessage());
+        }
+    }
+    
+    private static Timestamp later(Timestamp current, Timestamp candidate) {
+        return current == null || (candidate != null && candidate.after(current)) ? candidate : current;
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.distributed.ecommerce.inventory.search;
+
+import com.distributed.ecommerce.inventory.model.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that forwards product writes to the {@link ProductSearchIndex}.
+ * Instantiated by Hibernate through Spring while the entity manager factory is built, so the
+ * index is looked up lazily to avoid a dependency cycle with the repositories.
+ */
+public class ProductSearchListener {
+    
+    private final ObjectProvider<ProductSearchIndex> searchIndex;
+    private volatile ProductSearchIndex resolved;
+    
+    public ProductSearchListener(ObjectProvider<ProductSearchIndex> searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+    
+    @PostPersist
+    @PostUpdate
+    void productSaved(Product product) {
+        ProductSearchIndex index = index();
+        if (index != null) {
+            index.productSaved(product);
+        }
+    }
+    
+    @PostRemove
+    void productRemoved(Product product) {
+        ProductSearchIndex index = index();
+        if (index != null) {
+            index.productRemoved(product);
+        }
+    }
+    
+    private ProductSearchIndex index() {
+        ProductSearchIndex index = resolved;
+        if (index == null) {
+            index = searchIndex.getIfAvailable();
+            resolved = index;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,572 @@
+package com.distributed.ecommerce.inventory.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from name and description trigrams to products, for fuzzy product search.
+ * Products get dense ordinals in insertion order, so every posting list is sorted by
+ * construction and compresses well as a {@link PostingList}.
+ * <p>
+ * A query matches a product when at least {@code minSimilarity} of the query's trigrams occur
+ * in its name or description (all of them for queries of up to three trigrams). Only the
+ * rarest posting lists can contain such a product, so candidates are read from those in
+ * ordinal order and the remaining lists are merely probed with cursors. The walk stops once
+ * twice the limit contain every indexed query trigram, since nothing after them can rank
+ * higher, so common words cost about as much as rare ones. Matches are ranked by the share of
+ * query trigrams found in the text, with matches in the name counted a second time.
+ * <p>
+ * Updates go to small uncompressed add and remove lists per trigram, which are merged into
+ * the compressed list once they grow past a fraction of it. Searches share a read lock;
+ * updates take the write lock.
+ */
+public class TrigramIndex {
+    
+    private static final int[] NO_ORDINALS = new int[0];
+    
+    /** Queries with up to this many trigrams must match all of them. */
+    private static final int EXACT_QUERY_TRIGRAMS = 3;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Postings> postings;
+    private final Map<Long, Integer> ordinals;
+    private Document[] documents;
+    private int nextOrdinal;
+    
+    private TrigramIndex(Map<Integer, Postings> postings, Map<Long, Integer> ordinals, Document[] documents, int nextOrdinal) {
+        this.postings = postings;
+        this.ordinals = ordinals;
+        this.documents = documents;
+        this.nextOrdinal = nextOrdinal;
+    }
+    
+    public static Builder builder(int expectedProducts) {
+        return new Builder(expectedProducts);
+    }
+    
+    /**
+     * Indexes the product, replacing its previous text.
+     */
+    public void put(long productId, String name, String description) {
+        Document added = new Document(productId, name, description);
+        lock.writeLock().lock();
+        try {
+            Integer previous = ordinals.get(productId);
+            if (previous != null) {
+                Document document = documents[previous];
+                if (document.textHash == added.textHash) {
+                    return;
+                }
+                removeOrdinal(previous, document);
+            }
+            int ordinal = nextOrdinal++;
+            if (ordinal == documents.length) {
+                documents = Arrays.copyOf(documents, documents.length * 2);
+            }
+            documents[ordinal] = added;
+            ordinals.put(productId, ordinal);
+            for (int trigram : added.trigrams) {
+                postings.computeIfAbsent(trigram, key -> new Postings()).add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                removeOrdinal(ordinal, documents[ordinal]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns whether the product is indexed with exactly this text.
+     */
+    public boolean isCurrent(long productId, String name, String description) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(productId);
+            return ordinal != null && documents[ordinal].textHash == textHash(name, description);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int getTrigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Bytes held by the compressed posting lists, excluding the per-product text.
+     */
+    public long getPostingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings list : postings.values()) {
+                bytes += list.base.footprintBytes() + 4L * (list.added.length + list.removed.length);
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns up to {@code limit} products matching the query, best first.
+     * 
+     * @param minSimilarity share of the query's trigrams a product must contain
+     * @param maxCandidates bound on the products examined, so a query made only of very common
+     *                      trigrams cannot scan the whole catalog
+     */
+    public List<Hit> search(String query, int limit, double minSimilarity, int maxCandidates) {
+        int[] queryTrigrams = Trigrams.ofQuery(query);
+        int trigramCount = queryTrigrams.length;
+        if (trigramCount == 0 || limit <= 0) {
+            return List.of();
+        }
+        int required = trigramCount <= EXACT_QUERY_TRIGRAMS
+                ? trigramCount
+                : Math.max(1, (int) Math.ceil(trigramCount * minSimilarity));
+        
+        // Products re-ranked with the name bonus
+        int quota = limit * 2;
+        
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[trigramCount];
+            int present = 0;
+            for (int i = 0; i < trigramCount; i++) {
+                lists[i] = postings.get(queryTrigrams[i]);
+                if (lists[i] != null) {
+                    present++;
+                }
+            }
+            if (present < required) {
+                return List.of();
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list == null ? 0 : list.size()));
+            
+            Candidates candidates = matchAll(lists, trigramCount - present, quota, maxCandidates);
+            if (candidates.count < quota && required < present) {
+                candidates = matchSome(lists, required, present, quota, maxCandidates);
+            }
+            if (candidates.count == 0) {
+                return List.of();
+            }
+            return rank(queryTrigrams, candidates, required, quota, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Collects products containing every indexed query trigram: the rarest list is read and the
+     * others probed, rarest first, until one misses. This is the whole search for queries typed
+     * correctly, and it stops after {@code quota} products since those already rank highest.
+     */
+    private static Candidates matchAll(Postings[] lists, int missing, int quota, int maxCandidates) {
+        int present = lists.length - missing;
+        Candidates candidates = new Candidates(quota);
+        Postings.Reader driver = lists[missing].reader();
+        Postings.Matcher[] probes = new Postings.Matcher[present - 1];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = lists[missing + 1 + i].matcher();
+        }
+        int ordinal = driver.next();
+        for (int examined = 0; ordinal != PostingList.END && examined < maxCandidates
+                && candidates.count < quota; examined++) {
+            int i = 0;
+            while (i < probes.length && probes[i].advanceTo(ordinal)) {
+                i++;
+            }
+            if (i == probes.length) {
+                candidates.add(ordinal, present);
+            }
+            ordinal = driver.next();
+        }
+        return candidates;
+    }
+    
+    /**
+     * Collects products containing at least {@code required} query trigrams. A product missing
+     * from all of the rarest (count - required + 1) lists cannot match, so those lists are merged
+     * in ordinal order and the others only probed, until no remaining list can lift a product
+     * to the threshold.
+     */
+    private static Candidates matchSome(Postings[] lists, int required, int present, int quota, int maxCandidates) {
+        int candidateLists = lists.length - required + 1;
+        Postings.Reader[] drivers = new Postings.Reader[candidateLists];
+        int[] heads = new int[candidateLists];
+        for (int i = 0; i < candidateLists; i++) {
+            drivers[i] = lists[i] == null ? null : lists[i].reader();
+            heads[i] = drivers[i] == null ? PostingList.END : drivers[i].next();
+        }
+        Postings.Matcher[] probes = new Postings.Matcher[lists.length - candidateLists];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = lists[candidateLists + i].matcher();
+        }
+        
+        Candidates candidates = new Candidates(quota);
+        int complete = 0;
+        for (int examined = 0; examined < maxCandidates && complete < quota; examined++) {
+            int ordinal = PostingList.END;
+            for (int head : heads) {
+                ordinal = Math.min(ordinal, head);
+            }
+            if (ordinal == PostingList.END) {
+                break;
+            }
+            int matched = 0;
+            for (int i = 0; i < candidateLists; i++) {
+                if (heads[i] == ordinal) {
+                    matched++;
+                    heads[i] = drivers[i].next();
+                }
+            }
+            for (int i = 0; i < probes.length && matched + probes.length - i >= required; i++) {
+                if (probes[i].advanceTo(ordinal)) {
+                    matched++;
+                }
+            }
+            if (matched >= required) {
+                candidates.add(ordinal, matched);
+                if (matched == present) {
+                    complete++;
+                }
+            }
+        }
+        return candidates;
+    }
+    
+    /**
+     * Takes the candidates with the most matches, then re-ranks them with the name bonus.
+     */
+    private List<Hit> rank(int[] queryTrigrams, Candidates found, int required, int quota, int limit) {
+        int[] candidates = found.ordinals;
+        int[] matches = found.matches;
+        int candidateCount = found.count;
+        // The lowest match count that still fits in the quota is found with a histogram
+        int[] histogram = new int[queryTrigrams.length + 1];
+        for (int c = 0; c < candidateCount; c++) {
+            if (matches[c] >= required && documents[candidates[c]] != null) {
+                histogram[matches[c]]++;
+            }
+        }
+        int threshold = required;
+        int above = 0;
+        for (int count = queryTrigrams.length; count > required; count--) {
+            if (above + histogram[count] >= quota) {
+                threshold = count;
+                break;
+            }
+            above += histogram[count];
+        }
+        int atThreshold = quota - above;
+        
+        List<Hit> hits = new ArrayList<>(Math.min(quota, candidateCount));
+        for (int c = 0; c < candidateCount && hits.size() < quota; c++) {
+            Document document = documents[candidates[c]];
+            if (matches[c] < threshold || document == null) {
+                continue;
+            }
+            if (matches[c] == threshold && atThreshold-- <= 0) {
+                continue;
+            }
+            int nameMatches = 0;
+            for (int trigram : queryTrigrams) {
+                if (Arrays.binarySearch(document.trigrams, 0, document.nameTrigramCount, trigram) >= 0) {
+                    nameMatches++;
+                }
+            }
+            double score = (matches[c] + nameMatches) / (2.0 * queryTrigrams.length);
+            hits.add(new Hit(document.productId, document.name, score));
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getScore).reversed().thenComparingLong(Hit::getProductId));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+    
+    private void removeOrdinal(int ordinal, Document document) {
+        for (int trigram : document.trigrams) {
+            Postings list = postings.get(trigram);
+            if (list != null) {
+                list.remove(ordinal);
+                if (list.size() == 0) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+        documents[ordinal] = null;
+    }
+    
+    private static int textHash(String name, String description) {
+        return Objects.hash(name, description);
+    }
+    
+    /**
+     * A search result: the product, its name and a score between 0 and 1.
+     */
+    public static final class Hit {
+        private final long productId;
+        private final String name;
+        private final double score;
+        
+        Hit(long productId, String name, double score) {
+            this.productId = productId;
+            this.name = name;
+            this.score = score;
+        }
+        
+        public long getProductId() { return productId; }
+        public String getName() { return name; }
+        public double getScore() { return score; }
+    }
+    
+    /**
+     * Bulk loader: appends products with increasing ordinals and compresses every list once.
+     */
+    public static final class Builder {
+        private final Map<Integer, int[]> lists = new HashMap<>();
+        private final Map<Integer, Integer> lengths = new HashMap<>();
+        private final Map<Long, Integer> ordinals;
+        private Document[] documents;
+        private int nextOrdinal;
+        
+        private Builder(int expectedProducts) {
+            this.ordinals = new HashMap<>(Math.max(16, expectedProducts * 4 / 3 + 1));
+            this.documents = new Document[Math.max(16, expectedProducts)];
+        }
+        
+        public Builder add(long productId, String name, String description) {
+            if (ordinals.containsKey(productId)) {
+                return this;
+            }
+            Document document = new Document(productId, name, description);
+            int ordinal = nextOrdinal++;
+            if (ordinal == documents.length) {
+                documents = Arrays.copyOf(documents, documents.length * 2);
+            }
+            documents[ordinal] = document;
+            ordinals.put(productId, ordinal);
+            for (int trigram : document.trigrams) {
+                int length = lengths.getOrDefault(trigram, 0);
+                int[] list = lists.get(trigram);
+                if (list == null || length == list.length) {
+                    list = list == null ? new int[4] : Arrays.copyOf(list, list.length * 2);
+                    lists.put(trigram, list);
+                }
+                list[length] = ordinal;
+                lengths.put(trigram, length + 1);
+            }
+            return this;
+        }
+        
+        public TrigramIndex build() {
+            Map<Integer, Postings> postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+            for (Map.Entry<Integer, int[]> entry : lists.entrySet()) {
+                Postings list = new Postings();
+                list.base = PostingList.of(entry.getValue(), lengths.get(entry.getKey()));
+                postings.put(entry.getKey(), list);
+            }
+            lists.clear();
+            lengths.clear();
+            return new TrigramIndex(postings, ordinals, documents, nextOrdinal);
+        }
+    }
+    
+    private static final class Candidates {
+        private int[] ordinals;
+        private int[] matches;
+        private int count;
+        
+        private Candidates(int expected) {
+            this.ordinals = new int[expected];
+            this.matches = new int[expected];
+        }
+        
+        private void add(int ordinal, int matched) {
+            if (count == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, count * 2);
+                matches = Arrays.copyOf(matches, count * 2);
+            }
+            ordinals[count] = ordinal;
+            matches[count++] = matched;
+        }
+    }
+    
+    private static final class Document {
+        private final long productId;
+        private final String name;
+        private final int textHash;
+        /** The sorted name trigrams, followed by the sorted trigrams found only in the description. */
+        private final int[] trigrams;
+        private final int nameTrigramCount;
+        
+        private Document(long productId, String name, String description) {
+            int[] nameTrigrams = Trigrams.of(name);
+            int[] descriptionTrigrams = Trigrams.of(description);
+            int[] trigrams = Arrays.copyOf(nameTrigrams, nameTrigrams.length + descriptionTrigrams.length);
+            int length = nameTrigrams.length;
+            for (int trigram : descriptionTrigrams) {
+                if (Arrays.binarySearch(nameTrigrams, trigram) < 0) {
+                    trigrams[length++] = trigram;
+                }
+            }
+            this.productId = productId;
+            this.name = name;
+            this.textHash = textHash(name, description);
+            this.trigrams = Arrays.copyOf(trigrams, length);
+            this.nameTrigramCount = nameTrigrams.length;
+        }
+    }
+    
+    /**
+     * A compressed list plus the ordinals added to and removed from it since it was built.
+     */
+    private static final class Postings {
+        private static final int MIN_PENDING = 32;
+        
+        private PostingList base = PostingList.EMPTY;
+        private int[] added = NO_ORDINALS;
+        private int[] removed = NO_ORDINALS;
+        
+        int size() {
+            return base.size() + added.length - removed.length;
+        }
+        
+        void add(int ordinal) {
+            // New ordinals are always the largest so far
+            added = Arrays.copyOf(added, added.length + 1);
+            added[added.length - 1] = ordinal;
+            compactIfNeeded();
+        }
+        
+        void remove(int ordinal) {
+            int index = Arrays.binarySearch(added, ordinal);
+            if (index >= 0) {
+                int[] shrunk = new int[added.length - 1];
+                System.arraycopy(added, 0, shrunk, 0, index);
+                System.arraycopy(added, index + 1, shrunk, index, shrunk.length - index);
+                added = shrunk;
+                return;
+            }
+            int position = -Arrays.binarySearch(removed, ordinal) - 1;
+            int[] grown = new int[removed.length + 1];
+            System.arraycopy(removed, 0, grown, 0, position);
+            grown[position] = ordinal;
+            System.arraycopy(removed, position, grown, position + 1, removed.length - position);
+            removed = grown;
+            compactIfNeeded();
+        }
+        
+        int[] toArray() {
+            int[] current = base.toArray();
+            if (added.length == 0 && removed.length == 0) {
+                return current;
+            }
+            int[] merged = new int[size()];
+            int size = 0;
+            for (int ordinal : current) {
+                if (Arrays.binarySearch(removed, ordinal) < 0) {
+                    merged[size++] = ordinal;
+                }
+            }
+            System.arraycopy(added, 0, merged, size, added.length);
+            return merged;
+        }
+        
+        Matcher matcher() {
+            return new Matcher(base.cursor(), added, removed);
+        }
+        
+        Reader reader() {
+            return new Reader(base.cursor(), added, removed);
+        }
+        
+        private void compactIfNeeded() {
+            if (added.length + removed.length > Math.max(MIN_PENDING, base.size() / 8)) {
+                int[] current = toArray();
+                base = PostingList.of(current, current.length);
+                added = NO_ORDINALS;
+                removed = NO_ORDINALS;
+            }
+        }
+        
+        /**
+         * Reads the current ordinals in ascending order. Added ordinals are all newer, and so
+         * larger, than those of the compressed list.
+         */
+        private static final class Reader {
+            private final PostingList.Cursor cursor;
+            private final int[] added;
+            private final int[] removed;
+            private int addedIndex;
+            private int removedIndex;
+            
+            private Reader(PostingList.Cursor cursor, int[] added, int[] removed) {
+                this.cursor = cursor;
+                this.added = added;
+                this.removed = removed;
+            }
+            
+            int next() {
+                int ordinal = cursor.next();
+                while (ordinal != PostingList.END) {
+                    while (removedIndex < removed.length && removed[removedIndex] < ordinal) {
+                        removedIndex++;
+                    }
+                    if (removedIndex == removed.length || removed[removedIndex] != ordinal) {
+                        return ordinal;
+                    }
+                    ordinal = cursor.next();
+                }
+                return addedIndex < added.length ? added[addedIndex++] : PostingList.END;
+            }
+        }
+        
+        private static final class Matcher {
+            private final PostingList.Cursor cursor;
+            private final int[] added;
+            private final int[] removed;
+            
+            private Matcher(PostingList.Cursor cursor, int[] added, int[] removed) {
+                this.cursor = cursor;
+                this.added = added;
+                this.removed = removed;
+            }
+            
+            boolean advanceTo(int ordinal) {
+                if (cursor.advanceTo(ordinal)) {
+                    return removed.length == 0 || Arrays.binarySearch(removed, ordinal) < 0;
+                }
+                return added.length != 0 && Arrays.binarySearch(added, ordinal) >= 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.distributed.ecommerce.inventory.search;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into hashed character trigrams. Text is normalized first: accents are removed,
+ * letters lowercased and anything other than letters and digits becomes a word break, so
+ * "Tênis Esportivo" and "tenis-esportivo" produce the same trigrams.
+ * <p>
+ * Each word is padded with two spaces in front and one behind, as PostgreSQL's pg_trgm does,
+ * so word starts carry their own trigrams. In a query the last word gets no trailing pad:
+ * its trigrams are then a subset of those of every word it is a prefix of, which lets
+ * "camis" match "camiseta" while the user is still typing.
+ */
+public final class Trigrams {
+    
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int[] NONE = new int[0];
+    
+    private Trigrams() {
+    }
+    
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder normalized = new StringBuilder(stripped.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = stripped.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+    
+    /**
+     * Returns the distinct trigrams of the text, sorted.
+     */
+    public static int[] of(String text) {
+        return extract(normalize(text), false);
+    }
+    
+    /**
+     * Returns the distinct trigrams of a search query, sorted, with the last word treated as a prefix.
+     */
+    public static int[] ofQuery(String query) {
+        return extract(normalize(query), true);
+    }
+    
+    private static int[] extract(String normalized, boolean prefixLastWord) {
+        if (normalized.isEmpty()) {
+            return NONE;
+        }
+        int[] codes = new int[normalized.length() * 2 + 4];
+        int count = 0;
+        int wordStart = 0;
+        while (wordStart < normalized.length()) {
+            int wordEnd = normalized.indexOf(' ', wordStart);
+            if (wordEnd < 0) {
+                wordEnd = normalized.length();
+            }
+            boolean padEnd = !(prefixLastWord && wordEnd == normalized.length());
+            // Positions run over "  " + word + (padEnd ? " " : "")
+            int paddedLength = wordEnd - wordStart + 2 + (padEnd ? 1 : 0);
+            for (int i = 0; i + 3 <= paddedLength; i++) {
+                codes[count++] = code(charAt(normalized, wordStart, wordEnd, i),
+                        charAt(normalized, wordStart, wordEnd, i + 1),
+                        charAt(normalized, wordStart, wordEnd, i + 2));
+            }
+            wordStart = wordEnd + 1;
+        }
+        return distinct(codes, count);
+    }
+    
+    private static char charAt(String text, int wordStart, int wordEnd, int paddedIndex) {
+        int index = wordStart + paddedIndex - 2;
+        return index < wordStart || index >= wordEnd ? ' ' : text.charAt(index);
+    }
+    
+    private static int code(char a, char b, char c) {
+        long key = ((long) a << 32) | ((long) b << 16) | c;
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+    
+    private static int[] distinct(int[] codes, int count) {
+        Arrays.sort(codes, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || codes[unique - 1] != codes[i]) {
+                codes[unique++] = codes[i];
+            }
+        }
+        return Arrays.copyOf(codes, unique);
+    }
+}
@@ -0,0 +1,393 @@
+package com.distributed.ecommerce.inventory.service;
+
+import com.distributed.ecommerce.eventlog.EventLog;
+import com.distributed.ecommerce.inventory.dto.ReservationItemRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationResponse;
+import com.distributed.ecommerce.inventory.model.Reservation;
+import com.distributed.ecommerce.inventory.model.ReservationItem;
+import com.distributed.ecommerce.inventory.repository.BulkStockWriter;
+import com.distributed.ecommerce.inventory.repository.ReservationRepository;
+import com.distributed.ecommerce.inventory.service.strategy.StockReservationStrategy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reserves through group commit when {@code inventory.reservation.group-commit.enabled} is set:
+ * requests arriving together are queued, and a committer thread takes everything queued (up to
+ * {@code max-group-size}) into one transaction, so the whole group pays for a single commit and
+ * its fsync instead of one each. Callers wait until the group commits.
+ * <p>
+ * The group locks all of its products at once, in id order, and decides each order in arrival
+ * order against the locked counters in memory: an order either gets all of its items or none,
+ * with the same answers {@link InventoryService#reserveInventory} gives. The reserved quantities
+ * are then written with one statement and the reservations inserted in JDBC batches. The
+ * group's totals are also taken from the configured reservation strategy through
+ * {@link StockReservationStrategy#claimLocked}, so the ledger's in-memory balance stays in step
+ * with the rows: a ledger reservation that has taken units but not yet written them is seen.
+ * <p>
+ * When the group transaction fails (a deadlock with a release, an order inserted concurrently,
+ * a ledger holding fewer units than the rows),
+ * its orders are reserved again one by one through {@link InventoryService}, so a single bad
+ * order cannot fail the others.
+ */
+@Service
+public class GroupCommitReservationExecutor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitReservationExecutor.class);
+    
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    
+    private final InventoryService inventoryService;
+    private final ReservationRepository reservationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final StockReservationStrategy reservationStrategy;
+    private final BulkStockWriter bulkStockWriter;
+    private final StockChangeNotifier stockChangeNotifier;
+    private final EventLog eventLog;
+    private final boolean enabled;
+    private final int committers;
+    private final int maxGroupSize;
+    
+    private final BlockingQueue<PendingReservation> queue = new LinkedBlockingQueue<>();
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder groupedReservations = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    
+    private volatile boolean running;
+    private final List<Thread> threads = new ArrayList<>();
+    
+    public GroupCommitReservationExecutor(InventoryService inventoryService,
+                                          ReservationRepository reservationRepository,
+                                          JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          StockReservationStrategy reservationStrategy,
+                                          BulkStockWriter bulkStockWriter,
+                                          StockChangeNotifier stockChangeNotifier,
+                                          EventLog eventLog,
+                                          @Value("${inventory.reservation.group-commit.enabled:false}") boolean enabled,
+                                          @Value("${inventory.reservation.group-commit.committers:2}") int committers,
+                                          @Value("${inventory.reservation.group-commit.max-group-size:128}") int maxGroupSize) {
+        if (committers <= 0 || maxGroupSize <= 0) {
+            throw new IllegalArgumentException("inventory.reservation.group-commit.committers and max-group-size must be positive");
+        }
+        this.inventoryService = inventoryService;
+        this.reservationRepository = reservationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.reservationStrategy = reservationStrategy;
+        this.bulkStockWriter = bulkStockWriter;
+        this.stockChangeNotifier = stockChangeNotifier;
+        this.eventLog = eventLog;
+        this.enabled = enabled;
+        this.committers = committers;
+        this.maxGroupSize = maxGroupSize;
+    }
+    
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < committers; i++) {
+            Thread thread = new Thread(this::commitLoop, "reservation-committer-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        logger.info("Reservation group commit enabled with {} committers and groups of up to {} orders",
+                committers, maxGroupSize);
+    }
+    
+    /**
+     * Lets the committers finish their groups, then reserves what is still queued one by one.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        List<PendingReservation> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        reserveOneByOne(leftover);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Queues the request for the next group and waits for the group to commit.
+     * 
+     * @param reservationRequest the reservation request
+     * @return ReservationResponse indicating success or failure
+     */
+    public ReservationResponse reserve(ReservationRequest reservationRequest) {
+        if (!running) {
+            return inventoryService.reserveInventory(reservationRequest);
+        }
+        PendingReservation pending = new PendingReservation(reservationRequest);
+        queue.add(pending);
+        // Queued while stopping, after the last drain
+        if (!running && queue.remove(pending)) {
+            return inventoryService.reserveInventory(reservationRequest);
+        }
+        return pending.response.join();
+    }
+    
+    /** Transactions committed, each holding one or more orders. */
+    public long getGroups() { return groups.sum(); }
+    
+    /** Orders decided in a committed group, reserved or not. */
+    public long getGroupedReservations() { return groupedReservations.sum(); }
+    
+    /** Orders reserved one by one after their group failed. */
+    public long getFallbacks() { return fallbacks.sum(); }
+    
+    private void commitLoop() {
+        List<PendingReservation> group = new ArrayList<>(maxGroupSize);
+        while (running) {
+            try {
+                PendingReservation first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // No waiting for more: whatever queued up during the previous commit forms the group
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Reservation committer failed: {}", e.getMessage(), e);
+                for (PendingReservation pending : group) {
+                    pending.response.completeExceptionally(e);
+                }
+            } finally {
+                group.clear();
+            }
+        }
+    }
+    
+    private void commit(List<PendingReservation> group) {
+        List<Decision> decisions;
+        try {
+            decisions = transaction.execute(status -> applyGroup(group));
+        } catch (RuntimeException e) {
+            reservationStrategy.getStats().recordFailure(e);
+            logger.warn("Reservation group of {} orders failed, reserving them one by one: {}", group.size(), e.getMessage());
+            reserveOneByOne(group);
+            return;
+        }
+        
+        groups.increment();
+        groupedReservations.add(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            Long orderId = group.get(i).request.getOrderId();
+            Decision decision = decisions.get(i);
+            ReservationResponse response;
+            if (decision.existingReservationId != null || decision.sameGroupReservation != null) {
+                Long reservationId = decision.existingReservationId != null
+                        ? decision.existingReservationId : decision.sameGroupReservation.getId();
+                eventLog.warn("reservation.duplicate").with("orderId", orderId).log();
+                response = new ReservationResponse(false, "Reservation already exists for this order", reservationId);
+            } else if (decision.reservation != null) {
+                eventLog.info("reservation.created").with("orderId", orderId)
+                        .with("reservationId", decision.reservation.getId()).with("groupSize", group.size()).log();
+                response = new ReservationResponse(true, "Inventory reserved successfully", decision.reservation.getId());
+            } else {
+                String errorMessage = "Some items are not available: " + String.join("; ", decision.unavailableItems);
+                eventLog.warn("reservation.rejected").with("orderId", orderId).with("reason", errorMessage).log();
+                response = new ReservationResponse(false, errorMessage);
+                response.setSoldOutProductIds(decision.soldOutProductIds);
+            }
+            group.get(i).response.complete(response);
+        }
+    }
+    
+    private List<Decision> applyGroup(List<PendingReservation> group) {
+        Map<Long, Long> existing = findExistingReservations(group);
+        Set<Long> productIds = new TreeSet<>();
+        for (PendingReservation pending : group) {
+            if (!existing.containsKey(pending.request.getOrderId())) {
+                pending.request.getItems().forEach(item -> productIds.add(item.getProductId()));
+            }
+        }
+        Map<Long, ProductStock> stocks = lockProducts(productIds);
+        
+        List<Decision> decisions = new ArrayList<>(group.size());
+        Map<Long, Reservation> reservedInGroup = new HashMap<>();
+        List<Reservation> reservations = new ArrayList<>();
+        for (PendingReservation pending : group) {
+            Long orderId = pending.request.getOrderId();
+            Decision decision = new Decision();
+            decision.existingReservationId = existing.get(orderId);
+            decision.sameGroupReservation = reservedInGroup.get(orderId);
+            if (decision.existingReservationId == null && decision.sameGroupReservation == null) {
+                decide(pending.request, stocks, decision);
+                if (decision.reservation != null) {
+                    reservedInGroup.put(orderId, decision.reservation);
+                    reservations.add(decision.reservation);
+                }
+            }
+            decisions.add(decision);
+        }
+        
+        Map<Long, Integer> claimed = new TreeMap<>();
+        stocks.forEach((productId, stock) -> {
+            if (stock.claimed > 0) {
+                claimed.put(productId, stock.claimed);
+            }
+        });
+        if (!claimed.isEmpty()) {
+            if (!reservationStrategy.claimLocked(claimed)) {
+                throw new ConcurrencyFailureException("Reservations in flight hold units of the group's products");
+            }
+            bulkStockWriter.addReserved(claimed);
+            reservationRepository.saveAll(reservations);
+            stockChangeNotifier.stockReserved(claimed);
+        }
+        return decisions;
+    }
+    
+    private Map<Long, Long> findExistingReservations(List<PendingReservation> group) {
+        List<Long> orderIds = group.stream().map(pending -> pending.request.getOrderId()).toList();
+        Map<Long, Long> existing = new HashMap<>();
+        jdbcTemplate.query("SELECT order_id, id FROM reservations WHERE order_id IN (" + placeholders(orderIds.size()) + ")",
+                row -> { existing.put(row.getLong(1), row.getLong(2)); }, orderIds.toArray());
+        return existing;
+    }
+    
+    /**
+     * Locks in id order, so two groups never deadlock each other, however their orders overlap.
+     */
+    private Map<Long, ProductStock> lockProducts(Set<Long> productIds) {
+        Map<Long, ProductStock> stocks = new HashMap<>(productIds.size() * 2);
+        if (productIds.isEmpty()) {
+            return stocks;
+        }
+        jdbcTemplate.query("SELECT id, name, quantity, reserved_quantity FROM products WHERE id IN ("
+                        + placeholders(productIds.size()) + ") ORDER BY id FOR UPDATE",
+                row -> { stocks.put(row.getLong(1), new ProductStock(row.getString(2), row.getInt(3), row.getInt(4))); },
+                productIds.toArray());
+        return stocks;
+    }
+    
+    /**
+     * Claims every item of the order from the locked counters, or none of them. Messages match
+     * {@link InventoryService#reserveInventory}, item by item.
+     */
+    private void decide(ReservationRequest request, Map<Long, ProductStock> stocks, Decision decision) {
+        Map<Long, Integer> claims = new LinkedHashMap<>();
+        for (ReservationItemRequest item : request.getItems()) {
+            ProductStock stock = stocks.get(item.getProductId());
+            if (stock == null) {
+                decision.unavailableItems.add("Product ID " + item.getProductId() + " not found");
+                continue;
+            }
+            int available = stock.available() - claims.getOrDefault(item.getProductId(), 0);
+            if (available < item.getQuantity()) {
+                decision.unavailableItems.add(String.format("Product '%s' (ID: %d): requested %d, available %d",
+                        stock.name, item.getProductId(), item.getQuantity(), available));
+                if (available <= 0) {
+                    decision.soldOutProductIds.add(item.getProductId());
+                }
+                continue;
+            }
+            claims.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        if (!decision.unavailableItems.isEmpty()) {
+            return;
+        }
+        
+        claims.forEach((productId, quantity) -> stocks.get(productId).claimed += quantity);
+        Reservation reservation = new Reservation(request.getOrderId());
+        for (ReservationItemRequest item : request.getItems()) {
+            reservation.addItem(new ReservationItem(item.getProductId(), item.getQuantity()));
+        }
+        decision.reservation = reservation;
+    }
+    
+    private void reserveOneByOne(List<PendingReservation> pendingReservations) {
+        for (PendingReservation pending : pendingReservations) {
+            fallbacks.increment();
+            try {
+                pending.response.complete(inventoryService.reserveInventory(pending.request));
+            } catch (RuntimeException e) {
+                pending.response.completeExceptionally(e);
+            }
+        }
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private static final class PendingReservation {
+        private final ReservationRequest request;
+        private final CompletableFuture<ReservationResponse> response = new CompletableFuture<>();
+        
+        private PendingReservation(ReservationRequest request) {
+            this.request = request;
+        }
+    }
+    
+    /**
+     * A locked product row, with the units the orders of the group decided so far have claimed.
+     */
+    private static final class ProductStock {
+        private final String name;
+        private final int quantity;
+        private final int reserved;
+        private int claimed;
+        
+        private ProductStock(String name, int quantity, int reserved) {
+            this.name = name;
+            this.quantity = quantity;
+            this.reserved = reserved;
+        }
+        
+        private int available() {
+            return quantity - reserved - claimed;
+        }
+    }
+    
+    /**
+     * What the group decided for one order: a duplicate of an earlier reservation, a new
+     * reservation, or the items that could not be reserved.
+     */
+    private static final class Decision {
+        private Long existingReservationId;
+        private Reservation sameGroupReservation;
+        private Reservation reservation;
+        private final List<String> unavailableItems = new ArrayList<>();
+        private final List<Long> soldOutProductIds = new ArrayList<>();
+    }
+}
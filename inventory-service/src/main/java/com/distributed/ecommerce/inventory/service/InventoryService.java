@@ -1,12 +1,20 @@
 package com.distributed.ecommerce.inventory.service;
 
+import com.distributed.ecommerce.eventlog.EventLog;
+import com.distributed.ecommerce.inventory.availability.AvailabilityIndex;
+import com.distributed.ecommerce.inventory.availability.StockTable;
 import com.distributed.ecommerce.inventory.dto.*;
+import com.distributed.ecommerce.inventory.flashsale.FlashSaleRegistry;
+import com.distributed.ecommerce.inventory.invalidation.InvalidationPublisher;
 import com.distributed.ecommerce.inventory.model.Product;
 import com.distributed.ecommerce.inventory.model.Reservation;
 import com.distributed.ecommerce.inventory.model.ReservationItem;
 import com.distributed.ecommerce.inventory.model.ReservationStatus;
 import com.distributed.ecommerce.inventory.repository.ProductRepository;
 import com.distributed.ecommerce.inventory.repository.ReservationRepository;
+import com.distributed.ecommerce.inventory.repository.StockSnapshot;
+import com.distributed.ecommerce.inventory.service.strategy.StockReservationResult;
+import com.distributed.ecommerce.inventory.service.strategy.StockReservationStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +22,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class InventoryService {
@@ -28,6 +40,21 @@ public class InventoryService {
     @Autowired
     private ReservationRepository reservationRepository;
     
+    @Autowired
+    private StockReservationStrategy reservationStrategy;
+    
+    @Autowired
+    private EventLog eventLog;
+    
+    @Autowired
+    private InvalidationPublisher invalidationPublisher;
+    
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    
+    @Autowired
+    private FlashSaleRegistry flashSaleRegistry;
+    
     /**
      * Attempts to reserve inventory for the requested items.
      * This method is transactional to ensure consistency.
@@ -37,105 +64,114 @@ public class InventoryService {
      */
     @Transactional
     public ReservationResponse reserveInventory(ReservationRequest reservationRequest) {
-        logger.info("Processing inventory reservation for order: {}", reservationRequest.getOrderId());
-        logger.debug("Reservation request details: {}", reservationRequest);
+        return reserveInventory(reservationRequest, Set.of());
+    }
+    
+    /**
+     * Reserves inventory for an order whose units for some products were already claimed from
+     * their flash sales. Those are recorded in the reservation as they are: the units are
+     * already counted in the products' reserved quantity.
+     * 
+     * @param reservationRequest the reservation request
+     * @param heldProductIds the products whose units the caller holds
+     * @return ReservationResponse indicating success or failure
+     */
+    @Transactional
+    public ReservationResponse reserveInventory(ReservationRequest reservationRequest, Set<Long> heldProductIds) {
+        Long orderId = reservationRequest.getOrderId();
         
         // Check if there's already a reservation for this order
         Optional<Reservation> existingReservation = reservationRepository.findByOrderId(reservationRequest.getOrderId());
         if (existingReservation.isPresent()) {
-            logger.warn("Reservation already exists for order: {}", reservationRequest.getOrderId());
+            eventLog.warn("reservation.duplicate").with("orderId", orderId).log();
             return new ReservationResponse(false, "Reservation already exists for this order", existingReservation.get().getId());
         }
         
         // Create new reservation
         Reservation reservation = new Reservation(reservationRequest.getOrderId());
         List<String> unavailableItems = new ArrayList<>();
+        List<Long> soldOutProductIds = new ArrayList<>();
         
         try {
             // Process each item in the reservation request
             for (ReservationItemRequest itemRequest : reservationRequest.getItems()) {
-                logger.debug("Processing item: productId={}, quantity={}", 
-                           itemRequest.getProductId(), itemRequest.getQuantity());
+                if (heldProductIds.contains(itemRequest.getProductId())) {
+                    reservation.addItem(new ReservationItem(itemRequest.getProductId(), itemRequest.getQuantity()));
+                    continue;
+                }
                 
-                // Find product with pessimistic lock to prevent concurrent modifications
-                Optional<Product> productOpt = productRepository.findByIdForUpdate(itemRequest.getProductId());
+                // Claim the stock using the configured concurrency strategy
+                StockReservationResult result = reserveStock(itemRequest.getProductId(), itemRequest.getQuantity());
                 
-                if (productOpt.isEmpty()) {
-                    logger.warn("Product not found: {}", itemRequest.getProductId());
+                if (result.getStatus() == StockReservationResult.Status.NOT_FOUND) {
+                    eventLog.detail(orderId, "reservation.item.not-found").with("orderId", orderId)
+                            .with("productId", itemRequest.getProductId()).log();
                     unavailableItems.add("Product ID " + itemRequest.getProductId() + " not found");
                     continue;
                 }
                 
-                Product product = productOpt.get();
-                logger.debug("Found product: {}", product);
-                
-                // Check if product has enough available stock
-                if (!product.hasAvailableStock(itemRequest.getQuantity())) {
-                    logger.warn("Insufficient stock for product {}: requested={}, available={}", 
-                               product.getId(), itemRequest.getQuantity(), product.getAvailableQuantity());
+                if (result.getStatus() == StockReservationResult.Status.INSUFFICIENT_STOCK) {
+                    eventLog.detail(orderId, "reservation.item.insufficient").with("orderId", orderId)
+                            .with("productId", itemRequest.getProductId()).with("requested", itemRequest.getQuantity())
+                            .with("available", result.getAvailableQuantity()).log();
                     unavailableItems.add(String.format("Product '%s' (ID: %d): requested %d, available %d", 
-                                       product.getName(), product.getId(), 
-                                       itemRequest.getQuantity(), product.getAvailableQuantity()));
+                                       result.getProductName(), itemRequest.getProductId(), 
+                                       itemRequest.getQuantity(), result.getAvailableQuantity()));
+                    if (result.getAvailableQuantity() <= 0) {
+                        soldOutProductIds.add(itemRequest.getProductId());
+                    }
                     continue;
                 }
                 
-                // Reserve the stock
-                boolean reserved = product.reserveStock(itemRequest.getQuantity());
-                if (!reserved) {
-                    logger.error("Failed to reserve stock for product {}: unexpected error", product.getId());
-                    unavailableItems.add("Failed to reserve stock for product ID " + product.getId());
+                if (result.getStatus() == StockReservationResult.Status.CONFLICT) {
+                    eventLog.warn("reservation.item.conflict").with("orderId", orderId)
+                            .with("productId", itemRequest.getProductId()).log();
+                    unavailableItems.add("Product ID " + itemRequest.getProductId() + " is under heavy contention, please retry");
                     continue;
                 }
                 
-                // Save the updated product
-                productRepository.save(product);
-                
                 // Add reservation item
                 ReservationItem reservationItem = new ReservationItem(itemRequest.getProductId(), itemRequest.getQuantity());
                 reservation.addItem(reservationItem);
                 
-                logger.debug("Successfully reserved {} units of product {}", itemRequest.getQuantity(), product.getId());
+                eventLog.detail(orderId, "reservation.item.reserved").with("orderId", orderId)
+                        .with("productId", itemRequest.getProductId()).with("quantity", itemRequest.getQuantity()).log();
             }
             
             // If any items are unavailable, rollback the entire reservation
             if (!unavailableItems.isEmpty()) {
-                logger.warn("Reservation failed for order {} due to unavailable items: {}", 
-                           reservationRequest.getOrderId(), unavailableItems);
-                
                 // Rollback: release any reservations that were made
                 for (ReservationItem item : reservation.getItems()) {
-                    Optional<Product> productOpt = productRepository.findById(item.getProductId());
-                    if (productOpt.isPresent()) {
-                        Product product = productOpt.get();
-                        product.releaseReservation(item.getQuantity());
-                        productRepository.save(product);
+                    if (!heldProductIds.contains(item.getProductId())) {
+                        releaseStock(item.getProductId(), item.getQuantity());
                     }
                 }
                 
                 String errorMessage = "Some items are not available: " + String.join("; ", unavailableItems);
-                return new ReservationResponse(false, errorMessage);
+                eventLog.warn("reservation.rejected").with("orderId", orderId).with("reason", errorMessage).log();
+                ReservationResponse rejection = new ReservationResponse(false, errorMessage);
+                rejection.setSoldOutProductIds(soldOutProductIds);
+                return rejection;
             }
             
             // Save the reservation
             reservation = reservationRepository.save(reservation);
             
-            logger.info("Successfully created reservation {} for order {}", 
-                       reservation.getId(), reservationRequest.getOrderId());
+            eventLog.info("reservation.created").with("orderId", orderId)
+                    .with("reservationId", reservation.getId()).log();
             
             return new ReservationResponse(true, "Inventory reserved successfully", reservation.getId());
             
         } catch (Exception e) {
             logger.error("Unexpected error during inventory reservation for order {}: {}", 
                         reservationRequest.getOrderId(), e.getMessage(), e);
+            reservationStrategy.getStats().recordFailure(e);
             
             // Rollback: try to release any reservations that might have been made
             try {
                 for (ReservationItem item : reservation.getItems()) {
-                    Optional<Product> productOpt = productRepository.findById(item.getProductId());
-                    if (productOpt.isPresent()) {
-                        Product product = productOpt.get();
-                        product.releaseReservation(item.getQuantity());
-                        productRepository.save(product);
+                    if (!heldProductIds.contains(item.getProductId())) {
+                        releaseStock(item.getProductId(), item.getQuantity());
                     }
                 }
             } catch (Exception rollbackException) {
@@ -155,44 +191,39 @@ public class InventoryService {
      */
     @Transactional
     public ReservationResponse releaseReservation(ReleaseReservationRequest releaseRequest) {
-        logger.info("Processing reservation release for order: {}", releaseRequest.getOrderId());
-        
         Optional<Reservation> reservationOpt = reservationRepository.findByOrderIdWithItems(releaseRequest.getOrderId());
         
         if (reservationOpt.isEmpty()) {
-            logger.warn("No reservation found for order: {}", releaseRequest.getOrderId());
+            eventLog.warn("reservation.release.not-found").with("orderId", releaseRequest.getOrderId()).log();
             return new ReservationResponse(false, "No reservation found for this order");
         }
         
         Reservation reservation = reservationOpt.get();
         
         if (reservation.getStatus() != ReservationStatus.ACTIVE) {
-            logger.warn("Reservation {} for order {} is not active (status: {})", 
-                       reservation.getId(), releaseRequest.getOrderId(), reservation.getStatus());
+            eventLog.warn("reservation.release.inactive").with("orderId", releaseRequest.getOrderId())
+                    .with("reservationId", reservation.getId()).with("status", reservation.getStatus()).log();
             return new ReservationResponse(false, "Reservation is not active: " + reservation.getStatus());
         }
         
         try {
             // Release reserved stock for each item
             for (ReservationItem item : reservation.getItems()) {
-                Optional<Product> productOpt = productRepository.findByIdForUpdate(item.getProductId());
-                if (productOpt.isPresent()) {
-                    Product product = productOpt.get();
-                    product.releaseReservation(item.getQuantity());
-                    productRepository.save(product);
-                    
-                    logger.debug("Released {} units of product {}", item.getQuantity(), product.getId());
-                } else {
-                    logger.warn("Product {} not found during reservation release", item.getProductId());
+                // Units of a product on flash sale go back to its pool, still held by the sale
+                if (!flashSaleRegistry.reclaim(item.getProductId(), item.getQuantity())) {
+                    releaseStock(item.getProductId(), item.getQuantity());
                 }
+                eventLog.detail(releaseRequest.getOrderId(), "reservation.item.released")
+                        .with("orderId", releaseRequest.getOrderId()).with("productId", item.getProductId())
+                        .with("quantity", item.getQuantity()).log();
             }
             
             // Update reservation status
             reservation.release();
             reservationRepository.save(reservation);
             
-            logger.info("Successfully released reservation {} for order {}", 
-                       reservation.getId(), releaseRequest.getOrderId());
+            eventLog.info("reservation.released").with("orderId", releaseRequest.getOrderId())
+                    .with("reservationId", reservation.getId()).log();
             
             return new ReservationResponse(true, "Reservation released successfully", reservation.getId());
             
@@ -211,20 +242,18 @@ public class InventoryService {
      */
     @Transactional
     public ReservationResponse confirmReservation(Long orderId) {
-        logger.info("Processing reservation confirmation for order: {}", orderId);
-        
         Optional<Reservation> reservationOpt = reservationRepository.findByOrderIdWithItems(orderId);
         
         if (reservationOpt.isEmpty()) {
-            logger.warn("No reservation found for order: {}", orderId);
+            eventLog.warn("reservation.confirm.not-found").with("orderId", orderId).log();
             return new ReservationResponse(false, "No reservation found for this order");
         }
         
         Reservation reservation = reservationOpt.get();
         
         if (reservation.getStatus() != ReservationStatus.ACTIVE) {
-            logger.warn("Reservation {} for order {} is not active (status: {})", 
-                       reservation.getId(), orderId, reservation.getStatus());
+            eventLog.warn("reservation.confirm.inactive").with("orderId", orderId)
+                    .with("reservationId", reservation.getId()).with("status", reservation.getStatus()).log();
             return new ReservationResponse(false, "Reservation is not active: " + reservation.getStatus());
         }
         
@@ -236,8 +265,11 @@ public class InventoryService {
                     Product product = productOpt.get();
                     product.confirmReservation(item.getQuantity());
                     productRepository.save(product);
+                    invalidationPublisher.productChanged(product.getId());
+                    availabilityIndex.confirmed(product.getId(), item.getQuantity());
                     
-                    logger.debug("Confirmed {} units of product {}", item.getQuantity(), product.getId());
+                    eventLog.detail(orderId, "reservation.item.confirmed").with("orderId", orderId)
+                            .with("productId", product.getId()).with("quantity", item.getQuantity()).log();
                 } else {
                     logger.warn("Product {} not found during reservation confirmation", item.getProductId());
                 }
@@ -247,8 +279,8 @@ public class InventoryService {
             reservation.confirm();
             reservationRepository.save(reservation);
             
-            logger.info("Successfully confirmed reservation {} for order {}", 
-                       reservation.getId(), orderId);
+            eventLog.info("reservation.confirmed").with("orderId", orderId)
+                    .with("reservationId", reservation.getId()).log();
             
             return new ReservationResponse(true, "Reservation confirmed successfully", reservation.getId());
             
@@ -287,6 +319,68 @@ public class InventoryService {
         return productOpt.map(this::convertToProductResponse);
     }
     
+    /**
+     * Gets the stock counters of a product, from the availability index when it holds the
+     * product and from the database otherwise.
+     * 
+     * @param productId the product ID
+     * @return Optional containing AvailabilityResponse if found
+     */
+    public Optional<AvailabilityResponse> getProductAvailability(Long productId) {
+        long stock = availabilityIndex.lookup(productId);
+        if (stock != StockTable.ABSENT) {
+            return Optional.of(new AvailabilityResponse(productId,
+                    StockTable.quantityOf(stock), StockTable.reservedOf(stock)));
+        }
+        
+        return productRepository.findStockSnapshot(productId)
+                .map(snapshot -> new AvailabilityResponse(productId,
+                        snapshot.getQuantity(), snapshot.getReservedQuantity()));
+    }
+    
+    /**
+     * Checks whether every item of a basket could be reserved right now, without reserving
+     * or locking anything. Quantities of repeated products are added up. Products in the
+     * availability index are answered from memory; the rest are read in one query by id.
+     * Products on flash sale here report what is left in their pool, the only stock their
+     * orders are served from: the product row counts the whole pool as reserved.
+     * 
+     * @param request the products and quantities to check
+     * @return per-product availability, in the order the products first appear
+     */
+    public AvailabilityCheckResponse checkAvailability(AvailabilityCheckRequest request) {
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (ReservationItemRequest item : request.getItems()) {
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        
+        Map<Long, Integer> availableById = new HashMap<>(requested.size() * 2);
+        List<Long> notIndexed = new ArrayList<>();
+        for (Long productId : requested.keySet()) {
+            Integer flashSaleUnits = flashSaleRegistry.remaining(productId);
+            if (flashSaleUnits != null) {
+                availableById.put(productId, flashSaleUnits);
+                continue;
+            }
+            long stock = availabilityIndex.lookup(productId);
+            if (stock != StockTable.ABSENT) {
+                availableById.put(productId, StockTable.availableOf(stock));
+            } else {
+                notIndexed.add(productId);
+            }
+        }
+        if (!notIndexed.isEmpty()) {
+            for (StockSnapshot snapshot : productRepository.findStockSnapshots(notIndexed)) {
+                availableById.put(snapshot.getProductId(), snapshot.getAvailableQuantity());
+            }
+        }
+        
+        List<ItemAvailabilityResponse> items = new ArrayList<>(requested.size());
+        requested.forEach((productId, quantity) ->
+                items.add(new ItemAvailabilityResponse(productId, quantity, availableById.get(productId))));
+        return new AvailabilityCheckResponse(items);
+    }
+    
     /**
      * Gets inventory statistics.
      * 
@@ -308,6 +402,28 @@ public class InventoryService {
         );
     }
     
+    /**
+     * Claims stock through the reservation strategy and records the change for the
+     * availability index and the other replicas.
+     */
+    private StockReservationResult reserveStock(Long productId, int quantity) {
+        StockReservationResult result = reservationStrategy.reserve(productId, quantity);
+        if (result.getStatus() == StockReservationResult.Status.RESERVED) {
+            invalidationPublisher.productChanged(productId);
+            availabilityIndex.reserved(productId, quantity);
+        }
+        return result;
+    }
+    
+    /**
+     * Gives reserved stock back through the reservation strategy and records the change.
+     */
+    private void releaseStock(Long productId, int quantity) {
+        reservationStrategy.release(productId, quantity);
+        invalidationPublisher.productChanged(productId);
+        availabilityIndex.released(productId, quantity);
+    }
+    
     /**
      * Converts a Product entity to ProductResponse DTO.
      */
@@ -0,0 +1,303 @@
+package com.distributed.ecommerce.inventory.service;
+
+import com.distributed.ecommerce.inventory.dto.StockAdjustmentEntryResponse;
+import com.distributed.ecommerce.inventory.dto.StockAdjustmentItemRequest;
+import com.distributed.ecommerce.inventory.dto.StockAdjustmentRequest;
+import com.distributed.ecommerce.inventory.dto.StockAdjustmentResponse;
+import com.distributed.ecommerce.inventory.model.StockAdjustment;
+import com.distributed.ecommerce.inventory.model.StockAdjustmentType;
+import com.distributed.ecommerce.inventory.repository.BulkStockWriter;
+import com.distributed.ecommerce.inventory.repository.StockAdjustmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies counted quantities and deltas to many products at once, e.g. the nightly warehouse
+ * sync, without holding up checkouts. Adjustments are sorted by product id and applied in
+ * small batches, each in a short transaction of its own that locks its rows in id order,
+ * writes the new quantities and appends them to the {@code stock_adjustments} journal.
+ * <p>
+ * The first passes lock with {@code SKIP LOCKED}: a product a reservation holds right now is
+ * deferred to the next pass instead of making the batch, and every checkout queued behind it,
+ * wait. Only the last pass waits for the products still held. Quantities never drop below the
+ * stock already reserved.
+ * <p>
+ * The run as a whole is not atomic: a failure keeps the batches already committed. Sending it
+ * again with the same {@code reference} skips the products the journal shows as adjusted.
+ */
+@Service
+public class StockAdjustmentService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StockAdjustmentService.class);
+    
+    /** Passes that skip the products other transactions hold; the pass after them waits. */
+    private static final int SKIP_LOCKED_PASSES = 3;
+    
+    private static final String INSERT_JOURNAL = "INSERT INTO stock_adjustments (product_id, type, requested, "
+            + "previous_quantity, new_quantity, reserved_quantity, reference, source, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    /** The whole batch in one statement on PostgreSQL, with a column array per parameter. */
+    private static final String INSERT_JOURNAL_POSTGRES = "INSERT INTO stock_adjustments (product_id, type, requested, "
+            + "previous_quantity, new_quantity, reserved_quantity, reference, source, created_at) "
+            + "SELECT a.product_id, a.type, a.requested, a.previous_quantity, a.new_quantity, a.reserved_quantity, ?, ?, ? "
+            + "FROM unnest(?::bigint[], ?::varchar[], ?::integer[], ?::integer[], ?::integer[], ?::integer[]) "
+            + "AS a (product_id, type, requested, previous_quantity, new_quantity, reserved_quantity)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final StockAdjustmentRepository stockAdjustmentRepository;
+    private final BulkStockWriter bulkStockWriter;
+    private final StockChangeNotifier stockChangeNotifier;
+    private final int batchSize;
+    private final int maxRetries;
+    
+    public StockAdjustmentService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  StockAdjustmentRepository stockAdjustmentRepository,
+                                  BulkStockWriter bulkStockWriter,
+                                  StockChangeNotifier stockChangeNotifier,
+                                  @Value("${inventory.stock-adjustment.batch-size:500}") int batchSize,
+                                  @Value("${inventory.stock-adjustment.max-retries:3}") int maxRetries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.stockAdjustmentRepository = stockAdjustmentRepository;
+        this.bulkStockWriter = bulkStockWriter;
+        this.stockChangeNotifier = stockChangeNotifier;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRetries = maxRetries;
+    }
+    
+    /**
+     * Applies every adjustment of the request, batch by batch.
+     * 
+     * @throws IllegalArgumentException when a product appears more than once
+     */
+    public StockAdjustmentResponse adjust(StockAdjustmentRequest request) {
+        List<StockAdjustmentItemRequest> pending = new ArrayList<>(request.getAdjustments());
+        pending.sort(Comparator.comparing(StockAdjustmentItemRequest::getProductId));
+        for (int i = 1; i < pending.size(); i++) {
+            if (pending.get(i).getProductId().equals(pending.get(i - 1).getProductId())) {
+                throw new IllegalArgumentException("Product " + pending.get(i).getProductId() + " appears more than once");
+            }
+        }
+        
+        Outcome total = new Outcome();
+        for (int pass = 1; !pending.isEmpty(); pass++) {
+            boolean skipLocked = pass <= SKIP_LOCKED_PASSES;
+            List<StockAdjustmentItemRequest> deferred = new ArrayList<>();
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                List<StockAdjustmentItemRequest> batch = pending.subList(from, Math.min(pending.size(), from + batchSize));
+                Outcome outcome = applyWithRetries(batch, skipLocked, request);
+                total.add(outcome);
+                deferred.addAll(outcome.skipped);
+            }
+            if (!deferred.isEmpty()) {
+                logger.debug("Stock adjustment pass {} deferred {} products held by other transactions", pass, deferred.size());
+            }
+            pending = deferred;
+        }
+        
+        Collections.sort(total.notFound);
+        return new StockAdjustmentResponse(total.applied, total.unchanged, total.clamped, total.alreadyApplied, total.notFound);
+    }
+    
+    /**
+     * Returns journal entries in the order they were written, for audit and replay.
+     * 
+     * @param productId only this product's entries, or all when null
+     * @param afterId the id of the last entry already read, 0 to start
+     */
+    public List<StockAdjustmentEntryResponse> getJournal(Long productId, long afterId, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        List<StockAdjustment> entries = productId == null
+                ? stockAdjustmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, page)
+                : stockAdjustmentRepository.findByProductIdAndIdGreaterThanOrderByIdAsc(productId, afterId, page);
+        return entries.stream().map(this::convertToEntryResponse).toList();
+    }
+    
+    /**
+     * Retries batches that lost a deadlock to a reservation, and batches racing a run with the
+     * same reference; the retry finds the other run's journal entries and skips them.
+     */
+    private Outcome applyWithRetries(List<StockAdjustmentItemRequest> batch, boolean skipLocked,
+                                     StockAdjustmentRequest request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> applyBatch(batch, skipLocked, request));
+            } catch (PessimisticLockingFailureException | DuplicateKeyException e) {
+                if (attempt > maxRetries) {
+                    throw e;
+                }
+                logger.debug("Retrying stock adjustment batch from product {} ({})", batch.get(0).getProductId(), e.getMessage());
+            }
+        }
+    }
+    
+    private Outcome applyBatch(List<StockAdjustmentItemRequest> batch, boolean skipLocked, StockAdjustmentRequest request) {
+        List<Long> ids = batch.stream().map(StockAdjustmentItemRequest::getProductId).toList();
+        String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        
+        // Locks in id order, like every other batch, so two runs cannot deadlock each other
+        Map<Long, int[]> stocks = new HashMap<>();
+        jdbcTemplate.query("SELECT id, quantity, reserved_quantity FROM products WHERE id IN (" + in + ") ORDER BY id "
+                        + (skipLocked ? "FOR UPDATE SKIP LOCKED" : "FOR UPDATE"),
+                row -> { stocks.put(row.getLong(1), new int[] {row.getInt(2), row.getInt(3)}); }, ids.toArray());
+        
+        Set<Long> journaled = new HashSet<>();
+        if (request.getReference() != null && !stocks.isEmpty()) {
+            List<Object> args = new ArrayList<>(ids.size() + 1);
+            args.add(request.getReference());
+            args.addAll(ids);
+            journaled.addAll(jdbcTemplate.queryForList("SELECT product_id FROM stock_adjustments WHERE reference = ? "
+                    + "AND product_id IN (" + in + ")", Long.class, args.toArray()));
+        }
+        
+        Outcome outcome = new Outcome();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, Integer> updates = new LinkedHashMap<>();
+        List<Object[]> entries = new ArrayList<>();
+        List<StockAdjustmentItemRequest> missing = new ArrayList<>();
+        for (StockAdjustmentItemRequest adjustment : batch) {
+            int[] stock = stocks.get(adjustment.getProductId());
+            if (stock == null) {
+                missing.add(adjustment);
+                continue;
+            }
+            if (journaled.contains(adjustment.getProductId())) {
+                outcome.alreadyApplied++;
+                continue;
+            }
+            
+            int previous = stock[0];
+            int reserved = stock[1];
+            StockAdjustmentType type = adjustment.getQuantity() != null ? StockAdjustmentType.ABSOLUTE : StockAdjustmentType.DELTA;
+            int requested = type == StockAdjustmentType.ABSOLUTE ? adjustment.getQuantity() : adjustment.getDelta();
+            long target = type == StockAdjustmentType.ABSOLUTE ? requested : (long) previous + requested;
+            int quantity = (int) Math.min(Integer.MAX_VALUE, Math.max(target, reserved));
+            if (target < reserved) {
+                outcome.clamped++;
+            }
+            if (quantity != previous) {
+                updates.put(adjustment.getProductId(), quantity);
+                outcome.applied++;
+            } else {
+                outcome.unchanged++;
+            }
+            entries.add(new Object[] {adjustment.getProductId(), type.name(), requested, previous, quantity, reserved});
+        }
+        
+        bulkStockWriter.setQuantity(updates, now);
+        writeJournal(entries, request, now);
+        stockChangeNotifier.stockChanged(updates.keySet());
+        
+        if (!missing.isEmpty()) {
+            if (skipLocked) {
+                sortOutMissing(missing, outcome);
+            } else {
+                missing.forEach(adjustment -> outcome.notFound.add(adjustment.getProductId()));
+            }
+        }
+        return outcome;
+    }
+    
+    /**
+     * Appends the journal entries of a batch: one statement on PostgreSQL, a JDBC batch
+     * elsewhere (H2).
+     * 
+     * @param entries product id, type, requested, previous, new and reserved quantity of each entry
+     */
+    private void writeJournal(List<Object[]> entries, StockAdjustmentRequest request, Timestamp now) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (bulkStockWriter.isPostgres()) {
+            jdbcTemplate.update(INSERT_JOURNAL_POSTGRES, statement -> {
+                statement.setString(1, request.getReference());
+                statement.setString(2, request.getSource());
+                statement.setTimestamp(3, now);
+                String[] types = {"bigint", "varchar", "integer", "integer", "integer", "integer"};
+                for (int i = 0; i < types.length; i++) {
+                    BulkStockWriter.setColumn(statement, 4 + i, types[i], entries, i);
+                }
+            });
+            return;
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_JOURNAL, entries.stream()
+                .map(entry -> new Object[] {entry[0], entry[1], entry[2], entry[3], entry[4], entry[5],
+                        request.getReference(), request.getSource(), now}).toList());
+    }
+    
+    /**
+     * Tells the products another transaction holds, retried in the next pass, from the ones
+     * that do not exist. SKIP LOCKED leaves both out.
+     */
+    private void sortOutMissing(List<StockAdjustmentItemRequest> missing, Outcome outcome) {
+        List<Long> ids = missing.stream().map(StockAdjustmentItemRequest::getProductId).toList();
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM products WHERE id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")", Long.class, ids.toArray()));
+        for (StockAdjustmentItemRequest adjustment : missing) {
+            if (existing.contains(adjustment.getProductId())) {
+                outcome.skipped.add(adjustment);
+            } else {
+                outcome.notFound.add(adjustment.getProductId());
+            }
+        }
+    }
+    
+    private StockAdjustmentEntryResponse convertToEntryResponse(StockAdjustment adjustment) {
+        return new StockAdjustmentEntryResponse(
+                adjustment.getId(),
+                adjustment.getProductId(),
+                adjustment.getType().name(),
+                adjustment.getRequested(),
+                adjustment.getPreviousQuantity(),
+                adjustment.getNewQuantity(),
+                adjustment.getReservedQuantity(),
+                adjustment.getReference(),
+                adjustment.getSource(),
+                adjustment.getCreatedAt()
+        );
+    }
+    
+    /**
+     * Counts of one batch, or of the whole run once added up.
+     */
+    private static final class Outcome {
+        private int applied;
+        private int unchanged;
+        private int clamped;
+        private int alreadyApplied;
+        private final List<Long> notFound = new ArrayList<>();
+        private final List<StockAdjustmentItemRequest> skipped = new ArrayList<>();
+        
+        private void add(Outcome other) {
+            applied += other.applied;
+            unchanged += other.unchanged;
+            clamped += other.clamped;
+            alreadyApplied += other.alreadyApplied;
+            notFound.addAll(other.notFound);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.distributed.ecommerce.inventory.service;
+
+import com.distributed.ecommerce.inventory.availability.AvailabilityIndex;
+import com.distributed.ecommerce.inventory.invalidation.InvalidationListener;
+import com.distributed.ecommerce.inventory.invalidation.InvalidationPublisher;
+import com.distributed.ecommerce.inventory.service.strategy.StockReservationStrategy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports stock written with plain JDBC, which neither Hibernate nor the reservation strategy
+ * saw: to the other replicas through the {@link InvalidationPublisher}, and to the caches of this
+ * instance, every {@link InvalidationListener}, once the current transaction commits, the same
+ * way they learn of another replica's writes. Must be called inside the writing transaction.
+ */
+@Component
+public class StockChangeNotifier {
+    
+    private final InvalidationPublisher invalidationPublisher;
+    private final AvailabilityIndex availabilityIndex;
+    private final StockReservationStrategy reservationStrategy;
+    private final List<InvalidationListener> localCaches;
+    
+    public StockChangeNotifier(InvalidationPublisher invalidationPublisher,
+                               AvailabilityIndex availabilityIndex,
+                               StockReservationStrategy reservationStrategy,
+                               List<InvalidationListener> localCaches) {
+        this.invalidationPublisher = invalidationPublisher;
+        this.availabilityIndex = availabilityIndex;
+        this.reservationStrategy = reservationStrategy;
+        this.localCaches = localCaches;
+    }
+    
+    /**
+     * The products' stock changed in the current transaction; the local caches reload them
+     * after commit.
+     */
+    public void stockChanged(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        productIds.forEach(invalidationPublisher::productChanged);
+        invalidateAfterCommit(List.copyOf(productIds), localCaches);
+    }
+    
+    /**
+     * Units were added to the products' reserved quantity in the current transaction, and taken
+     * from the reservation strategy with {@link StockReservationStrategy#claimLocked}. The
+     * availability index applies them after commit, like the reservations it sees, and the
+     * strategy already holds them; the other local caches reload the products.
+     */
+    public void stockReserved(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        quantities.forEach((productId, quantity) -> {
+            invalidationPublisher.productChanged(productId);
+            availabilityIndex.reserved(productId, quantity);
+        });
+        List<InvalidationListener> others = new ArrayList<>(localCaches);
+        others.remove(availabilityIndex);
+        // Reloading the ledger would lose the units its reservations in flight have taken
+        others.remove(reservationStrategy);
+        invalidateAfterCommit(List.copyOf(quantities.keySet()), others);
+    }
+    
+    private static void invalidateAfterCommit(List<Long> productIds, List<InvalidationListener> caches) {
+        if (caches.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (InvalidationListener cache : caches) {
+                    cache.invalidate(productIds);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.distributed.ecommerce.inventory.service.strategy;
+
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.repository.StockSnapshot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Reserves with a single {@code UPDATE ... WHERE quantity - reserved_quantity >= ?}.
+ * The availability check and the write happen atomically in the database, so there is
+ * no read-then-write window and no retry loop; the row lock is held only from the
+ * update until commit.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "conditional")
+public class ConditionalUpdateReservationStrategy implements StockReservationStrategy {
+    
+    private final ProductRepository productRepository;
+    private final ReservationStrategyStats stats = new ReservationStrategyStats();
+    
+    public ConditionalUpdateReservationStrategy(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+    
+    @Override
+    public String getName() {
+        return "conditional";
+    }
+    
+    @Override
+    public StockReservationResult reserve(Long productId, int quantity) {
+        if (productRepository.reserveIfAvailable(productId, quantity, LocalDateTime.now()) == 1) {
+            return StockReservationResult.reserved();
+        }
+        
+        // Only the failure path reads the row, to tell a missing product from a short one
+        Optional<StockSnapshot> snapshot = productRepository.findStockSnapshot(productId);
+        if (snapshot.isEmpty()) {
+            return StockReservationResult.notFound();
+        }
+        return StockReservationResult.insufficientStock(snapshot.get().getName(), snapshot.get().getAvailableQuantity());
+    }
+    
+    @Override
+    public void release(Long productId, int quantity) {
+        productRepository.releaseReserved(productId, quantity, LocalDateTime.now());
+    }
+    
+    @Override
+    public ReservationStrategyStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,184 @@
+package com.distributed.ecommerce.inventory.service.strategy;
+
+import com.distributed.ecommerce.inventory.invalidation.InvalidationBus;
+import com.distributed.ecommerce.inventory.invalidation.InvalidationListener;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.repository.StockSnapshot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Keeps each product's available quantity in an in-memory ledger and claims stock with a
+ * compare-and-set before touching the database. Requests the ledger cannot satisfy are
+ * rejected without a query; granted ones apply an unconditional increment to the row.
+ * <p>
+ * The ledger is authoritative only while this is the single instance mutating stock,
+ * so it suits a single inventory-service replica. Entries changed by other replicas are
+ * dropped when their invalidation arrives on the {@link InvalidationBus}, which bounds how
+ * stale a rejection can be but does not make concurrent writers safe.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "ledger")
+public class InMemoryLedgerReservationStrategy implements StockReservationStrategy, InvalidationListener {
+    
+    private final ProductRepository productRepository;
+    private final Map<Long, LedgerEntry> ledger = new ConcurrentHashMap<>();
+    private final ReservationStrategyStats stats = new ReservationStrategyStats();
+    
+    public InMemoryLedgerReservationStrategy(ProductRepository productRepository, InvalidationBus invalidationBus) {
+        this.productRepository = productRepository;
+        invalidationBus.subscribe(this);
+    }
+    
+    @Override
+    public String getName() {
+        return "ledger";
+    }
+    
+    @Override
+    public StockReservationResult reserve(Long productId, int quantity) {
+        LedgerEntry entry = entryFor(productId);
+        if (entry == null) {
+            return StockReservationResult.notFound();
+        }
+        
+        int available;
+        do {
+            available = entry.available.get();
+            if (available < quantity) {
+                stats.recordFastRejection();
+                return StockReservationResult.insufficientStock(entry.name, available);
+            }
+        } while (!entry.available.compareAndSet(available, available - quantity));
+        
+        // Give the units back if the surrounding transaction does not commit
+        afterCompletion(status -> {
+            if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                entry.available.addAndGet(quantity);
+            }
+        });
+        productRepository.addReserved(productId, quantity, LocalDateTime.now());
+        return StockReservationResult.reserved();
+    }
+    
+    @Override
+    public void release(Long productId, int quantity) {
+        productRepository.releaseReserved(productId, quantity, LocalDateTime.now());
+        
+        LedgerEntry entry = ledger.get(productId);
+        if (entry != null) {
+            afterCompletion(status -> {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    entry.available.addAndGet(quantity);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Takes the units of a reservation group from the ledger. Its counters were checked against
+     * the locked rows, but a reservation of this strategy may have taken units from the ledger
+     * and still be waiting to write them, so the ledger must agree too.
+     */
+    @Override
+    public boolean claimLocked(Map<Long, Integer> quantities) {
+        List<Map.Entry<LedgerEntry, Integer>> taken = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> claim : quantities.entrySet()) {
+            LedgerEntry entry = entryFor(claim.getKey());
+            if (entry == null || !tryTake(entry, claim.getValue())) {
+                taken.forEach(units -> units.getKey().available.addAndGet(units.getValue()));
+                stats.recordFastRejection();
+                return false;
+            }
+            taken.add(Map.entry(entry, claim.getValue()));
+        }
+        afterCompletion(status -> {
+            if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                taken.forEach(units -> units.getKey().available.addAndGet(units.getValue()));
+            }
+        });
+        return true;
+    }
+    
+    @Override
+    public ReservationStrategyStats getStats() {
+        return stats;
+    }
+    
+    /**
+     * Drops the cached entry so the next reservation reloads it from the database,
+     * for changes made to stock outside this strategy.
+     */
+    public void invalidate(Long productId) {
+        ledger.remove(productId);
+    }
+    
+    @Override
+    public void invalidate(Collection<Long> productIds) {
+        productIds.forEach(ledger::remove);
+    }
+    
+    @Override
+    public void invalidateAll() {
+        ledger.clear();
+    }
+    
+    private LedgerEntry entryFor(Long productId) {
+        LedgerEntry entry = ledger.get(productId);
+        if (entry != null) {
+            return entry;
+        }
+        Optional<StockSnapshot> snapshot = productRepository.findStockSnapshot(productId);
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        return ledger.computeIfAbsent(productId,
+                id -> new LedgerEntry(snapshot.get().getName(), snapshot.get().getAvailableQuantity()));
+    }
+    
+    private static boolean tryTake(LedgerEntry entry, int quantity) {
+        int available;
+        do {
+            available = entry.available.get();
+            if (available < quantity) {
+                return false;
+            }
+        } while (!entry.available.compareAndSet(available, available - quantity));
+        return true;
+    }
+    
+    private static void afterCompletion(IntConsumer callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(TransactionSynchronization.STATUS_COMMITTED);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status);
+            }
+        });
+    }
+    
+    private static final class LedgerEntry {
+        private final String name;
+        private final AtomicInteger available;
+        
+        private LedgerEntry(String name, int available) {
+            this.name = name;
+            this.available = new AtomicInteger(available);
+        }
+    }
+}
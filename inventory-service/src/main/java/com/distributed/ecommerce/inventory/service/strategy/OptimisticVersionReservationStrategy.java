@@ -0,0 +1,71 @@
+package com.distributed.ecommerce.inventory.service.strategy;
+
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.repository.StockSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Reads the product's stock and version without locking, then writes the new reserved
+ * quantity only if the version is unchanged. A lost race re-reads and retries.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "optimistic")
+public class OptimisticVersionReservationStrategy implements StockReservationStrategy {
+    
+    private final ProductRepository productRepository;
+    private final int maxRetries;
+    private final ReservationStrategyStats stats = new ReservationStrategyStats();
+    
+    public OptimisticVersionReservationStrategy(ProductRepository productRepository,
+                                                @Value("${inventory.reservation.max-retries:10}") int maxRetries) {
+        this.productRepository = productRepository;
+        this.maxRetries = maxRetries;
+    }
+    
+    @Override
+    public String getName() {
+        return "optimistic";
+    }
+    
+    @Override
+    public StockReservationResult reserve(Long productId, int quantity) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            Optional<StockSnapshot> snapshotOpt = productRepository.findStockSnapshot(productId);
+            if (snapshotOpt.isEmpty()) {
+                return StockReservationResult.notFound();
+            }
+            
+            StockSnapshot snapshot = snapshotOpt.get();
+            if (snapshot.getAvailableQuantity() < quantity) {
+                return StockReservationResult.insufficientStock(snapshot.getName(), snapshot.getAvailableQuantity());
+            }
+            
+            int updated = productRepository.compareAndSetReserved(productId, snapshot.getVersion(),
+                    snapshot.getReservedQuantity() + quantity, LocalDateTime.now());
+            if (updated == 1) {
+                return StockReservationResult.reserved();
+            }
+            stats.recordRetry();
+        }
+        
+        stats.recordConflict();
+        return StockReservationResult.conflict(productRepository.findStockSnapshot(productId)
+                .map(StockSnapshot::getName)
+                .orElse(null));
+    }
+    
+    @Override
+    public void release(Long productId, int quantity) {
+        productRepository.releaseReserved(productId, quantity, LocalDateTime.now());
+    }
+    
+    @Override
+    public ReservationStrategyStats getStats() {
+        return stats;
+    }
+}
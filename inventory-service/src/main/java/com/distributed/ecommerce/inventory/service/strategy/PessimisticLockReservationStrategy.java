@@ -0,0 +1,57 @@
+package com.distributed.ecommerce.inventory.service.strategy;
+
+import com.distributed.ecommerce.inventory.model.Product;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Locks the product row with {@code SELECT ... FOR UPDATE} and updates the entity.
+ * Concurrent reservations of the same product queue on the row lock until commit.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "pessimistic", matchIfMissing = true)
+public class PessimisticLockReservationStrategy implements StockReservationStrategy {
+    
+    private final ProductRepository productRepository;
+    private final ReservationStrategyStats stats = new ReservationStrategyStats();
+    
+    public PessimisticLockReservationStrategy(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+    
+    @Override
+    public String getName() {
+        return "pessimistic";
+    }
+    
+    @Override
+    public StockReservationResult reserve(Long productId, int quantity) {
+        Optional<Product> productOpt = productRepository.findByIdForUpdate(productId);
+        if (productOpt.isEmpty()) {
+            return StockReservationResult.notFound();
+        }
+        
+        Product product = productOpt.get();
+        if (!product.reserveStock(quantity)) {
+            return StockReservationResult.insufficientStock(product.getName(), product.getAvailableQuantity());
+        }
+        productRepository.save(product);
+        return StockReservationResult.reserved();
+    }
+    
+    @Override
+    public void release(Long productId, int quantity) {
+        productRepository.findByIdForUpdate(productId).ifPresent(product -> {
+            product.releaseReservation(quantity);
+            productRepository.save(product);
+        });
+    }
+    
+    @Override
+    public ReservationStrategyStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,63 @@
+package com.distributed.ecommerce.inventory.service.strategy;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention counters kept by a reservation strategy.
+ */
+public class ReservationStrategyStats {
+    
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder fastRejections = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder lockTimeouts = new LongAdder();
+    private final LongAdder otherFailures = new LongAdder();
+    
+    void recordRetry() {
+        retries.increment();
+    }
+    
+    void recordConflict() {
+        conflicts.increment();
+    }
+    
+    void recordFastRejection() {
+        fastRejections.increment();
+    }
+    
+    /**
+     * Classifies an exception that aborted a reservation by the SQL state found in its cause chain.
+     */
+    public void recordFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                switch (sqlException.getSQLState()) {
+                    // PostgreSQL deadlock_detected, H2 deadlock / serialization failure
+                    case "40P01", "40001" -> deadlocks.increment();
+                    // PostgreSQL lock_not_available, H2 lock timeout
+                    case "55P03", "HYT00" -> lockTimeouts.increment();
+                    default -> otherFailures.increment();
+                }
+                return;
+            }
+        }
+        otherFailures.increment();
+    }
+    
+    /** Attempts repeated because another transaction changed the row first. */
+    public long getRetries() { return retries.sum(); }
+    
+    /** Reservations abandoned after exhausting retries. */
+    public long getConflicts() { return conflicts.sum(); }
+    
+    /** Reservations refused without touching the database. */
+    public long getFastRejections() { return fastRejections.sum(); }
+    
+    public long getDeadlocks() { return deadlocks.sum(); }
+    
+    public long getLockTimeouts() { return lockTimeouts.sum(); }
+    
+    public long getOtherFailures() { return otherFailures.sum(); }
+}
@@ -0,0 +1,48 @@
+package com.distributed.ecommerce.inventory.service.strategy;
+
+public class StockReservationResult {
+    
+    public enum Status {
+        RESERVED,
+        INSUFFICIENT_STOCK,
+        NOT_FOUND,
+        CONFLICT
+    }
+    
+    private static final StockReservationResult RESERVED = new StockReservationResult(Status.RESERVED, null, 0);
+    private static final StockReservationResult NOT_FOUND = new StockReservationResult(Status.NOT_FOUND, null, 0);
+    
+    private final Status status;
+    private final String productName;
+    private final int availableQuantity;
+    
+    private StockReservationResult(Status status, String productName, int availableQuantity) {
+        this.status = status;
+        this.productName = productName;
+        this.availableQuantity = availableQuantity;
+    }
+    
+    public static StockReservationResult reserved() {
+        return RESERVED;
+    }
+    
+    public static StockReservationResult notFound() {
+        return NOT_FOUND;
+    }
+    
+    public static StockReservationResult insufficientStock(String productName, int availableQuantity) {
+        return new StockReservationResult(Status.INSUFFICIENT_STOCK, productName, availableQuantity);
+    }
+    
+    public static StockReservationResult conflict(String productName) {
+        return new StockReservationResult(Status.CONFLICT, productName, 0);
+    }
+    
+    public Status getStatus() { return status; }
+    public String getProductName() { return productName; }
+    public int getAvailableQuantity() { return availableQuantity; }
+    
+    public boolean isReserved() {
+        return status == Status.RESERVED;
+    }
+}
@@ -0,0 +1,37 @@
+package com.distributed.ecommerce.inventory.service.strategy;
+
+import java.util.Map;
+
+/**
+ * How a single line item's stock is claimed and given back inside the caller's transaction.
+ * The active implementation is chosen with {@code inventory.reservation.strategy}
+ * ({@code pessimistic}, {@code optimistic}, {@code conditional} or {@code ledger}).
+ */
+public interface StockReservationStrategy {
+    
+    String getName();
+    
+    /**
+     * Reserves {@code quantity} units of the product if enough stock is available.
+     */
+    StockReservationResult reserve(Long productId, int quantity);
+    
+    /**
+     * Returns previously reserved units to available stock.
+     */
+    void release(Long productId, int quantity);
+    
+    /**
+     * Takes units that the caller has already checked against rows it holds locked, and writes
+     * itself, from any stock this strategy keeps outside the database, so its own reservations
+     * see them gone. Units taken are given back if the transaction does not commit.
+     * 
+     * @param quantities units per product
+     * @return false, having taken nothing, when the strategy's own view has fewer units
+     */
+    default boolean claimLocked(Map<Long, Integer> quantities) {
+        return true;
+    }
+    
+    ReservationStrategyStats getStats();
+}
@@ -0,0 +1,48 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update. Every statement is
+-- guarded with IF NOT EXISTS, so the migration creates a fresh database and also runs on one
+-- the service already ran against (Flyway baselines those at version 0, see application.properties).
+-- Such a database predates the version column and the sequences: its tables got IDENTITY ids.
+
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS reservations_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS reservation_items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS products (
+    id                bigint         NOT NULL,
+    name              varchar(255)   NOT NULL,
+    description       varchar(255),
+    price             numeric(10, 2) NOT NULL,
+    quantity          integer        NOT NULL,
+    reserved_quantity integer        NOT NULL,
+    version           bigint         DEFAULT 0 NOT NULL,
+    created_at        timestamp(6)   NOT NULL,
+    updated_at        timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS reservations (
+    id         bigint       NOT NULL,
+    order_id   bigint       NOT NULL,
+    status     varchar(255) NOT NULL CHECK (status IN ('ACTIVE', 'CONFIRMED', 'CANCELLED', 'RELEASED')),
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_reservations_order_id UNIQUE (order_id)
+);
+
+CREATE TABLE IF NOT EXISTS reservation_items (
+    id             bigint  NOT NULL,
+    reservation_id bigint  NOT NULL,
+    product_id     bigint  NOT NULL,
+    quantity       integer NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reservation_items_reservation FOREIGN KEY (reservation_id) REFERENCES reservations
+);
+
+-- Databases created by ddl-auto=update before optimistic locking have no version column
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+-- Start the sequences past the ids already in the tables (IDENTITY ids on an upgraded database)
+SELECT setval('products_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM products));
+SELECT setval('reservations_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM reservations));
+SELECT setval('reservation_items_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM reservation_items));
@@ -0,0 +1,21 @@
+-- Indexes for the repository queries that scanned whole tables. Built CONCURRENTLY so an
+-- existing database keeps taking reservations while they are created; Flyway runs this script
+-- outside a transaction for that reason. A failed concurrent build leaves an INVALID index
+-- behind, so each index is dropped first and the script can simply run again.
+--
+-- products gets no new index on purpose: every reservation updates reserved_quantity, version
+-- and updated_at, and an index on any of them would turn those HOT updates into index writes
+-- on the hottest rows. The updated_at refreshes of the in-memory indexes scan the table once
+-- a minute instead.
+
+-- ReservationRepository.findByOrderIdWithItems / findByIdWithItems join the items by
+-- reservation_id and read every column, so the index covers them and the join is index-only
+DROP INDEX CONCURRENTLY IF EXISTS idx_reservation_items_reservation;
+CREATE INDEX CONCURRENTLY idx_reservation_items_reservation
+    ON reservation_items (reservation_id) INCLUDE (id, product_id, quantity);
+
+-- countByStatus(ACTIVE) for the statistics, and the age of open reservations. Only ACTIVE rows
+-- are indexed: they are the few still open, while CONFIRMED and RELEASED grow without bound
+DROP INDEX CONCURRENTLY IF EXISTS idx_reservations_active_created_at;
+CREATE INDEX CONCURRENTLY idx_reservations_active_created_at
+    ON reservations (created_at) WHERE status = 'ACTIVE';
@@ -0,0 +1,22 @@
+-- Append-only journal of the stock adjustments (POST /api/inventory/stock/adjustments). One row
+-- per product adjusted, written in the same transaction as the products update; replaying the
+-- rows in id order reproduces every quantity they set.
+
+CREATE TABLE IF NOT EXISTS stock_adjustments (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY,
+    product_id        bigint       NOT NULL,
+    type              varchar(16)  NOT NULL CHECK (type IN ('ABSOLUTE', 'DELTA')),
+    requested         integer      NOT NULL,
+    previous_quantity integer      NOT NULL,
+    new_quantity      integer      NOT NULL,
+    reserved_quantity integer      NOT NULL,
+    reference         varchar(255),
+    source            varchar(64),
+    created_at        timestamp(6) NOT NULL,
+    PRIMARY KEY (id),
+    -- A retried run skips the products it already adjusted under the same reference
+    CONSTRAINT uk_stock_adjustments_reference_product UNIQUE (reference, product_id)
+);
+
+-- History of one product, newest last
+CREATE INDEX IF NOT EXISTS idx_stock_adjustments_product ON stock_adjustments (product_id, id);
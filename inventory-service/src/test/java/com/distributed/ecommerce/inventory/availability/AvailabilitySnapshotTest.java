@@ -0,0 +1,190 @@
+package com.distributed.ecommerce.inventory.availability;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailabilitySnapshotTest {
+    
+    /** Header field with the file's state and slot size, per the layout in {@link AvailabilitySnapshot}. */
+    private static final int STATE_OFFSET = 12;
+    private static final int STATE_SUPERSEDED = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 24;
+    
+    /** Fits the smallest file, so no round needs a republish. */
+    private static final int PRODUCTS = 3_000;
+    
+    @TempDir
+    Path directory;
+    
+    /**
+     * Every entry the writer stores has the product id as its quantity, so a reader that saw a
+     * slot's key from one write and its stock from another, or from before the slot was taken,
+     * gets a different quantity.
+     */
+    @Test
+    void readersNeverSeeTornSlotsWhileTheWriterInserts() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Path path = directory.resolve("torn-" + round + ".snapshot");
+            AvailabilitySnapshot writer = AvailabilitySnapshot.publish(path, new StockTable(0));
+            AvailabilitySnapshot reader = AvailabilitySnapshot.openReadOnly(path);
+            AtomicBoolean writing = new AtomicBoolean(true);
+            AtomicReference<String> torn = new AtomicReference<>();
+            
+            List<Thread> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (writing.get() && torn.get() == null) {
+                        long productId = 1 + random.nextInt(PRODUCTS);
+                        long packed = reader.get(productId);
+                        if (packed != StockTable.ABSENT && StockTable.quantityOf(packed) != productId) {
+                            torn.compareAndSet(null, "product " + productId + " read with quantity "
+                                    + StockTable.quantityOf(packed));
+                        }
+                    }
+                }));
+            }
+            readers.add(start(() -> {
+                while (writing.get() && torn.get() == null) {
+                    reader.forEach((productId, packed) -> {
+                        if (StockTable.quantityOf(packed) != productId) {
+                            torn.compareAndSet(null, "product " + productId + " visited with quantity "
+                                    + StockTable.quantityOf(packed));
+                        }
+                    });
+                }
+            }));
+            
+            for (int update = 0; update < 5; update++) {
+                for (int productId = 1; productId <= PRODUCTS; productId++) {
+                    writer.put(productId, packed(productId, update));
+                }
+            }
+            writing.set(false);
+            for (Thread thread : readers) {
+                thread.join();
+            }
+            writer.close();
+            
+            assertNull(torn.get());
+            assertEquals(PRODUCTS, reader.size());
+            assertEquals(packed(42, 4), reader.get(42));
+        }
+    }
+    
+    @Test
+    void republishingMarksTheOldFileSupersededAndReadersFollow() throws IOException {
+        Path path = directory.resolve("availability.snapshot");
+        StockTable table = new StockTable(16);
+        table.put(1, 10, 0);
+        AvailabilitySnapshot first = AvailabilitySnapshot.publish(path, table);
+        AvailabilitySnapshot reader = AvailabilitySnapshot.openReadOnly(path);
+        assertEquals(packed(10, 0), reader.get(1));
+        
+        // A second name for the first file, to read its header once the path points elsewhere
+        Path firstFile = directory.resolve("first.snapshot");
+        Files.createLink(firstFile, path);
+        assertEquals(0, stateOf(firstFile));
+        
+        // The writer fills the file up and publishes a larger one, as AvailabilityIndex does
+        long productId = 2;
+        while (first.put(productId, packed(20, 0))) {
+            table.put(productId, 20, 0);
+            productId++;
+        }
+        table.put(productId, 30, 1);
+        AvailabilitySnapshot second = AvailabilitySnapshot.publish(path, table);
+        
+        assertEquals(STATE_SUPERSEDED, stateOf(firstFile));
+        assertEquals(0, stateOf(path));
+        assertEquals(packed(30, 1), reader.get(productId));
+        assertEquals(packed(10, 0), reader.get(1));
+        assertEquals(table.size(), reader.size());
+        
+        second.put(1, packed(11, 0));
+        assertEquals(packed(11, 0), reader.get(1));
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+        second.close();
+    }
+    
+    /**
+     * A writer killed between making a slot's sequence odd and even again leaves it odd for good.
+     * Lookups of that slot give up instead of spinning, and the file cannot be restored from.
+     */
+    @Test
+    void slotLeftMidWriteIsNotWaitedForForever() throws IOException {
+        Path path = directory.resolve("stuck.snapshot");
+        StockTable table = new StockTable(16);
+        table.put(1, 10, 0);
+        table.put(2, 20, 0);
+        AvailabilitySnapshot.publish(path, table).close();
+        plantOddSequence(path, 1);
+        AvailabilitySnapshot reader = AvailabilitySnapshot.openReadOnly(path);
+        
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertEquals(StockTable.ABSENT, reader.get(1));
+            assertEquals(packed(20, 0), reader.get(2));
+            IllegalStateException stuck = assertThrows(IllegalStateException.class, () -> reader.forEach((id, packed) -> { }));
+            assertTrue(stuck.getMessage().contains("mid-write"), stuck.getMessage());
+        });
+    }
+    
+    private static void plantOddSequence(Path file, long productId) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer slot = ByteBuffer.allocate(SLOT_BYTES).order(ByteOrder.nativeOrder());
+            for (long offset = HEADER_BYTES; offset < channel.size(); offset += SLOT_BYTES) {
+                slot.clear();
+                channel.read(slot, offset);
+                if (slot.getLong(8) == productId) {
+                    slot.putLong(0, slot.getLong(0) + 1);
+                    slot.rewind();
+                    channel.write(slot, offset);
+                    return;
+                }
+            }
+            throw new AssertionError("Product " + productId + " is not in " + file);
+        }
+    }
+    
+    private static long packed(int quantity, int reserved) {
+        StockTable table = new StockTable(1);
+        table.put(1, quantity, reserved);
+        return table.get(1);
+    }
+    
+    private static int stateOf(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.nativeOrder());
+            channel.read(header, 0);
+            return header.getInt(STATE_OFFSET);
+        }
+    }
+    
+    private static Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.start();
+        return thread;
+    }
+}
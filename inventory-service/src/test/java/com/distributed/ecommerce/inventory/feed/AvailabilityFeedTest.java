@@ -0,0 +1,109 @@
+package com.distributed.ecommerce.inventory.feed;
+
+import com.distributed.ecommerce.inventory.availability.AvailabilityIndex;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class AvailabilityFeedTest {
+    
+    private static final int QUEUE_SIZE = 4;
+    private static final int BROADCASTS = 20;
+    
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AvailabilityFeed feed;
+    
+    @BeforeEach
+    void setUp() {
+        // Heartbeat on every broadcast() call; the scheduled broadcast never fires during a test
+        feed = new AvailabilityFeed(mock(AvailabilityIndex.class), mock(ProductRepository.class), new ObjectMapper(),
+                1024, TimeUnit.HOURS.toMillis(1), 0, TimeUnit.MINUTES.toMillis(1), 100, QUEUE_SIZE, 2);
+        feed.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        feed.stop();
+    }
+    
+    @Test
+    void subscriberStuckInAWriteIsDisconnectedWithoutHoldingUpTheOthers() throws Exception {
+        StuckEmitter stuck = new StuckEmitter();
+        CountingEmitter healthy = new CountingEmitter();
+        feed.register(stuck, null);
+        feed.register(healthy, null);
+        
+        // Each broadcast reaches the healthy subscriber before the next, as at the broadcast interval
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 1; i <= BROADCASTS; i++) {
+                feed.broadcast();
+                assertTrue(healthy.received(i), "healthy subscriber got " + healthy.sends.get() + " of " + i + " events");
+            }
+        });
+        assertEquals(1, feed.getSubscriberCount());
+        assertTrue(stuck.writing.await(5, TimeUnit.SECONDS));
+        assertEquals(1, stuck.sends.get());
+        
+        // The write returns, and the sender that was blocked in it closes the connection
+        release.countDown();
+        assertTrue(stuck.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, stuck.sends.get());
+    }
+    
+    /** A client that stopped reading: its first write blocks until the test releases it. */
+    private class StuckEmitter extends SseEmitter {
+        
+        final AtomicInteger sends = new AtomicInteger();
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) {
+            sends.incrementAndGet();
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+    
+    private static class CountingEmitter extends SseEmitter {
+        
+        final AtomicInteger sends = new AtomicInteger();
+        
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) {
+            sends.incrementAndGet();
+        }
+        
+        boolean received(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sends.get() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return sends.get() == count;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.distributed.ecommerce.inventory.flashsale;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenPoolTest {
+    
+    private static final int THREADS = 16;
+    
+    @Test
+    void concurrentAcquiresNeverIssueMoreThanAllocated() throws Exception {
+        TokenPool pool = new TokenPool(1L, "Product", 1_000, LocalDateTime.now());
+        
+        List<Integer> won = runConcurrently(() -> {
+            int units = 0;
+            for (int i = 0; i < 500; i++) {
+                if (pool.tryAcquire(1)) {
+                    units++;
+                }
+            }
+            return units;
+        });
+        
+        assertEquals(1_000, won.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(0, pool.getRemaining());
+        assertEquals(1_000, pool.getAdmitted());
+        assertEquals(THREADS * 500 - 1_000, pool.getRejected());
+        // Winners stay in flight until their reservation is written; losers have left
+        assertEquals(1_000, pool.getInFlight());
+    }
+    
+    @Test
+    void concurrentAcquiresOfSeveralUnitsAreAllOrNothing() throws Exception {
+        TokenPool pool = new TokenPool(1L, "Product", 1_000, LocalDateTime.now());
+        
+        List<Integer> won = runConcurrently(() -> {
+            int units = 0;
+            for (int i = 0; i < 300; i++) {
+                int requested = 1 + i % 3;
+                if (pool.tryAcquire(requested)) {
+                    units += requested;
+                }
+            }
+            return units;
+        });
+        
+        int issued = won.stream().mapToInt(Integer::intValue).sum();
+        assertTrue(pool.getRemaining() >= 0 && pool.getRemaining() < 3, () -> "remaining " + pool.getRemaining());
+        assertEquals(1_000, issued + pool.getRemaining());
+    }
+    
+    @Test
+    void unitsGivenBackWhileOthersAcquireAreReissuedOnce() throws Exception {
+        TokenPool pool = new TokenPool(1L, "Product", 100, LocalDateTime.now());
+        
+        List<Integer> kept = runConcurrently(() -> {
+            int units = 0;
+            for (int i = 0; i < 1_000; i++) {
+                if (pool.tryAcquire(1)) {
+                    // Every other winner fails to write its reservation and hands the unit back
+                    if (i % 2 == 0) {
+                        pool.giveBack(1);
+                        pool.exit();
+                    } else {
+                        units++;
+                    }
+                }
+            }
+            return units;
+        });
+        
+        assertEquals(100, kept.stream().mapToInt(Integer::intValue).sum() + pool.getRemaining());
+    }
+    
+    @Test
+    void closedPoolRefusesWithoutTakingUnits() {
+        TokenPool pool = new TokenPool(1L, "Product", 10, LocalDateTime.now());
+        pool.close();
+        
+        assertFalse(pool.tryAcquire(1));
+        assertFalse(pool.tryEnter());
+        assertTrue(pool.isClosed());
+        assertEquals(10, pool.getRemaining());
+        assertEquals(0, pool.getInFlight());
+        assertEquals(0, pool.getAdmitted());
+    }
+    
+    @Test
+    void shortPoolRefusesWithoutTakingUnits() {
+        TokenPool pool = new TokenPool(1L, "Product", 2, LocalDateTime.now());
+        
+        assertFalse(pool.tryAcquire(3));
+        assertFalse(pool.isClosed());
+        assertEquals(2, pool.getRemaining());
+        assertEquals(0, pool.getInFlight());
+        assertEquals(1, pool.getRejected());
+    }
+    
+    /**
+     * Runs the task on {@link #THREADS} threads released together, returning each one's result.
+     */
+    private static List<Integer> runConcurrently(Callable<Integer> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.distributed.ecommerce.inventory.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Migrates a throwaway schema with Flyway and checks that the repository queries are planned
+ * on the indexes of V2__query_indexes.sql. Sequential scans are disabled, so a query picks an
+ * index whenever one can answer it, whatever the table sizes.
+ * <p>
+ * Needs a PostgreSQL database: {@code mvn -pl inventory-service verify -Pquery-plans
+ * [-Dquery-plans.url=... -Dquery-plans.username=... -Dquery-plans.password=...]}.
+ */
+class QueryPlanIT {
+    
+    private static final String SCHEMA = "query_plans_" + System.currentTimeMillis();
+    
+    private static Connection connection;
+    
+    @BeforeAll
+    static void migrate() throws SQLException {
+        // currentSchema makes the schema the whole search path: with the default one, the
+        // unqualified DROP INDEX IF EXISTS of the migrations would reach the indexes in public
+        String url = System.getProperty("query-plans.url");
+        url += (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA;
+        String username = System.getProperty("query-plans.username");
+        String password = System.getProperty("query-plans.password");
+        connection = DriverManager.getConnection(url, username, password);
+        Flyway.configure()
+                .dataSource(url, username, password)
+                .schemas(SCHEMA)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+        }
+    }
+    
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        } finally {
+            connection.close();
+        }
+    }
+    
+    @Test
+    void findByOrderIdWithItemsJoinsItemsByReservation() throws SQLException {
+        assertUsesIndex("SELECT r.*, i.* FROM reservations r LEFT JOIN reservation_items i ON i.reservation_id = r.id "
+                + "WHERE r.order_id = 1", "idx_reservation_items_reservation");
+    }
+    
+    @Test
+    void findByIdWithItemsJoinsItemsByReservation() throws SQLException {
+        assertUsesIndex("SELECT r.*, i.* FROM reservations r LEFT JOIN reservation_items i ON i.reservation_id = r.id "
+                + "WHERE r.id = 1", "idx_reservation_items_reservation");
+    }
+    
+    @Test
+    void countByActiveStatusUsesPartialIndex() throws SQLException {
+        assertUsesIndex("SELECT count(r.id) FROM reservations r WHERE r.status = 'ACTIVE'",
+                "idx_reservations_active_created_at");
+    }
+    
+    @Test
+    void findByActiveStatusUsesPartialIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM reservations r WHERE r.status = 'ACTIVE'", "idx_reservations_active_created_at");
+    }
+    
+    private static void assertUsesIndex(String query, String index) throws SQLException {
+        String plan = explain(query);
+        assertTrue(Pattern.compile("\\b" + Pattern.quote(index) + "\\b").matcher(plan).find(),
+                () -> "Expected " + index + " in the plan of " + query + "\n" + plan);
+    }
+    
+    private static String explain(String query) throws SQLException {
+        StringJoiner plan = new StringJoiner("\n", "", "\n");
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("EXPLAIN " + query)) {
+            while (rows.next()) {
+                plan.add(rows.getString(1));
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,298 @@
+package com.distributed.ecommerce.inventory.service;
+
+import com.distributed.ecommerce.eventlog.EventLog;
+import com.distributed.ecommerce.inventory.dto.ReservationItemRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationRequest;
+import com.distributed.ecommerce.inventory.dto.ReservationResponse;
+import com.distributed.ecommerce.inventory.invalidation.InvalidationBus;
+import com.distributed.ecommerce.inventory.model.Reservation;
+import com.distributed.ecommerce.inventory.repository.BulkStockWriter;
+import com.distributed.ecommerce.inventory.repository.ProductRepository;
+import com.distributed.ecommerce.inventory.repository.ReservationRepository;
+import com.distributed.ecommerce.inventory.repository.StockSnapshot;
+import com.distributed.ecommerce.inventory.service.strategy.InMemoryLedgerReservationStrategy;
+import com.distributed.ecommerce.inventory.service.strategy.ReservationStrategyStats;
+import com.distributed.ecommerce.inventory.service.strategy.StockReservationResult;
+import com.distributed.ecommerce.inventory.service.strategy.StockReservationStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the executor against an H2 products table, with one committer so the groups can be
+ * arranged: the first group is held in its transaction while the next requests queue up,
+ * and they then commit together as the second group.
+ */
+class GroupCommitReservationExecutorTest {
+    
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private DataSourceProperties dataSourceProperties;
+    private InventoryService inventoryService;
+    private ReservationRepository reservationRepository;
+    private StockChangeNotifier stockChangeNotifier;
+    private GroupCommitReservationExecutor executor;
+    
+    /** The reservations of each group inserted, in commit order. */
+    private final List<List<Reservation>> saved = new CopyOnWriteArrayList<>();
+    private volatile boolean failNextGroups;
+    
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:mem:group-commit-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(255), quantity INT, "
+                + "reserved_quantity INT, version BIGINT DEFAULT 0, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE reservations (id BIGINT PRIMARY KEY, order_id BIGINT UNIQUE)");
+        jdbcTemplate.update("INSERT INTO products (id, name, quantity, reserved_quantity) VALUES "
+                + "(1, 'Panela', 5, 0), (2, 'Monitor', 5, 0), (3, 'Luminaria', 10, 0)");
+        jdbcTemplate.update("INSERT INTO reservations (id, order_id) VALUES (900, 9)");
+        
+        dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(url);
+        inventoryService = mock(InventoryService.class);
+        reservationRepository = mock(ReservationRepository.class);
+        stockChangeNotifier = mock(StockChangeNotifier.class);
+    }
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.stop();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+    
+    /**
+     * Starts the executor with a strategy that keeps no stock of its own.
+     */
+    private void startExecutor() {
+        StockReservationStrategy strategy = mock(StockReservationStrategy.class);
+        when(strategy.getStats()).thenReturn(new ReservationStrategyStats());
+        when(strategy.claimLocked(anyMap())).thenReturn(true);
+        startExecutor(strategy);
+    }
+    
+    private void startExecutor(StockReservationStrategy strategy) {
+        executor = new GroupCommitReservationExecutor(inventoryService, reservationRepository, jdbcTemplate,
+                transactionManager, strategy, new BulkStockWriter(jdbcTemplate, dataSourceProperties),
+                stockChangeNotifier, new EventLog(() -> null, false, 8, 0), true, 1, 16);
+        executor.start();
+    }
+    
+    @Test
+    void ordersOfOneGroupAreEachAllOrNothing() throws Exception {
+        startExecutor();
+        CountDownLatch release = holdFirstGroup();
+        
+        Future<ReservationResponse> first = reserveWhileHeld(order(1, 3, 1));
+        Future<ReservationResponse> fits = reserveWhileHeld(order(2, 1, 3, 2, 2));
+        Future<ReservationResponse> tooMany = reserveWhileHeld(order(3, 1, 3, 2, 1));
+        Future<ReservationResponse> rest = reserveWhileHeld(order(4, 2, 3));
+        Future<ReservationResponse> again = reserveWhileHeld(order(2, 2, 1));
+        Future<ReservationResponse> existing = reserveWhileHeld(order(9, 3, 1));
+        Future<ReservationResponse> unknown = reserveWhileHeld(order(5, 3, 1, 77, 1));
+        release.countDown();
+        
+        assertTrue(first.get(10, TimeUnit.SECONDS).isSuccess());
+        assertTrue(fits.get(10, TimeUnit.SECONDS).isSuccess());
+        ReservationResponse rejected = tooMany.get(10, TimeUnit.SECONDS);
+        assertFalse(rejected.isSuccess());
+        assertEquals("Some items are not available: Product 'Panela' (ID: 1): requested 3, available 2",
+                rejected.getMessage());
+        // Order 3 was refused as a whole, so its unit of product 2 is still there for order 4
+        assertTrue(rest.get(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals("Reservation already exists for this order", again.get(10, TimeUnit.SECONDS).getMessage());
+        assertEquals(900L, existing.get(10, TimeUnit.SECONDS).getReservationId());
+        assertEquals("Some items are not available: Product ID 77 not found", unknown.get(10, TimeUnit.SECONDS).getMessage());
+        
+        assertEquals(3, reservedQuantity(1));
+        assertEquals(5, reservedQuantity(2));
+        assertEquals(1, reservedQuantity(3));
+        assertEquals(2, executor.getGroups());
+        assertEquals(7, executor.getGroupedReservations());
+        assertEquals(0, executor.getFallbacks());
+        assertEquals(List.of(2L, 4L), saved.get(1).stream().map(Reservation::getOrderId).toList());
+        
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, Integer>> claimed = ArgumentCaptor.forClass(Map.class);
+        verify(stockChangeNotifier, times(2)).stockReserved(claimed.capture());
+        assertEquals(Map.of(1L, 3, 2L, 5), claimed.getAllValues().get(1));
+        verify(inventoryService, never()).reserveInventory(any());
+    }
+    
+    @Test
+    void failedGroupIsReservedOneByOne() throws Exception {
+        startExecutor();
+        CountDownLatch release = holdFirstGroup();
+        ReservationRequest secondOrder = order(2, 1, 2);
+        ReservationRequest thirdOrder = order(3, 2, 2);
+        ReservationResponse oneByOne = new ReservationResponse(true, "Inventory reserved successfully", 42L);
+        when(inventoryService.reserveInventory(any())).thenReturn(oneByOne);
+        
+        Future<ReservationResponse> first = reserveWhileHeld(order(1, 3, 1));
+        Future<ReservationResponse> second = reserveWhileHeld(secondOrder);
+        Future<ReservationResponse> third = reserveWhileHeld(thirdOrder);
+        // The second group's insert fails, as when one of its orders was reserved on another replica
+        failNextGroups = true;
+        release.countDown();
+        
+        assertTrue(first.get(10, TimeUnit.SECONDS).isSuccess());
+        assertSame(oneByOne, second.get(10, TimeUnit.SECONDS));
+        assertSame(oneByOne, third.get(10, TimeUnit.SECONDS));
+        verify(inventoryService).reserveInventory(secondOrder);
+        verify(inventoryService).reserveInventory(thirdOrder);
+        assertEquals(2, executor.getFallbacks());
+        assertEquals(1, executor.getGroups());
+        
+        // The group's claims were rolled back with its transaction
+        assertEquals(0, reservedQuantity(1));
+        assertEquals(0, reservedQuantity(2));
+        assertEquals(1, reservedQuantity(3));
+        verify(stockChangeNotifier, times(1)).stockReserved(anyMap());
+    }
+    
+    /**
+     * A ledger reservation that runs while a group holds the product locked takes its units from
+     * the ledger first and only then waits for the row. The group has taken its own units from
+     * the ledger before, so the ledger refuses what the group already holds.
+     */
+    @Test
+    void groupAndLedgerReservationsOfOneProductNeverOversell() throws Exception {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findStockSnapshot(any())).thenAnswer(invocation -> jdbcTemplate.query(
+                "SELECT id, name, quantity, reserved_quantity, version FROM products WHERE id = ?",
+                (row, rowNum) -> new StockSnapshot(row.getLong(1), row.getString(2), row.getInt(3), row.getInt(4), row.getLong(5)),
+                invocation.<Long>getArgument(0)).stream().findFirst());
+        AtomicInteger ledgerWrites = new AtomicInteger();
+        when(productRepository.addReserved(any(), anyInt(), any())).thenAnswer(invocation -> {
+            ledgerWrites.incrementAndGet();
+            return jdbcTemplate.update("UPDATE products SET reserved_quantity = reserved_quantity + ? WHERE id = ?",
+                    invocation.<Integer>getArgument(1), invocation.<Long>getArgument(0));
+        });
+        InMemoryLedgerReservationStrategy ledger =
+                new InMemoryLedgerReservationStrategy(productRepository, mock(InvalidationBus.class));
+        startExecutor(ledger);
+        CountDownLatch release = holdFirstGroup();
+        
+        // The group holds product 1, with 5 units, locked while it claims 3 of them
+        Future<ReservationResponse> grouped = reserveWhileHeld(order(1, 1, 3));
+        Future<StockReservationResult> tooMany = reserveThroughLedger(ledger, 3, ledgerWrites);
+        Future<StockReservationResult> rest = reserveThroughLedger(ledger, 2, ledgerWrites);
+        release.countDown();
+        
+        assertTrue(grouped.get(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(StockReservationResult.Status.INSUFFICIENT_STOCK, tooMany.get(10, TimeUnit.SECONDS).getStatus());
+        assertTrue(rest.get(10, TimeUnit.SECONDS).isReserved());
+        assertEquals(5, reservedQuantity(1));
+        assertEquals(0, executor.getFallbacks());
+        
+        // The ledger kept the units of both; it is not reloaded after the group commits
+        assertEquals(StockReservationResult.Status.INSUFFICIENT_STOCK,
+                new TransactionTemplate(transactionManager).execute(status -> ledger.reserve(1L, 1)).getStatus());
+    }
+    
+    /**
+     * Reserves units of product 1 through the ledger in a transaction of its own, from a thread
+     * of its own, and returns once it has been answered or is waiting to write its units.
+     */
+    private Future<StockReservationResult> reserveThroughLedger(InMemoryLedgerReservationStrategy ledger, int quantity,
+                                                                AtomicInteger ledgerWrites) throws InterruptedException {
+        int writesBefore = ledgerWrites.get();
+        FutureTask<StockReservationResult> task = new FutureTask<>(() ->
+                new TransactionTemplate(transactionManager).execute(status -> ledger.reserve(1L, quantity)));
+        new Thread(task).start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!task.isDone() && ledgerWrites.get() == writesBefore) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("The ledger reservation of " + quantity + " units did not progress");
+            }
+            Thread.sleep(1);
+        }
+        return task;
+    }
+    
+    /**
+     * Makes the first group's insert wait for the returned latch, keeping the committer busy.
+     * Later inserts are recorded in {@link #saved}, or fail once {@link #failNextGroups} is set.
+     */
+    private CountDownLatch holdFirstGroup() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(reservationRepository.saveAll(any())).thenAnswer(invocation -> {
+            if (!saved.isEmpty() && failNextGroups) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            List<Reservation> reservations = new ArrayList<>();
+            invocation.<Iterable<Reservation>>getArgument(0).forEach(reservations::add);
+            saved.add(reservations);
+            if (saved.size() == 1) {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return reservations;
+        });
+        return release;
+    }
+    
+    /**
+     * Sends the request from a thread of its own and returns once it is held: the first one
+     * inside the held group, the others waiting in the queue, in the order they were sent.
+     */
+    private Future<ReservationResponse> reserveWhileHeld(ReservationRequest request) throws InterruptedException {
+        FutureTask<ReservationResponse> task = new FutureTask<>(() -> executor.reserve(request));
+        Thread thread = new Thread(task);
+        thread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING || saved.isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Order " + request.getOrderId() + " was not queued");
+            }
+            Thread.sleep(1);
+        }
+        return task;
+    }
+    
+    private int reservedQuantity(long productId) {
+        return jdbcTemplate.queryForObject("SELECT reserved_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+    
+    /**
+     * An order for the given product id and quantity pairs.
+     */
+    private static ReservationRequest order(long orderId, long... items) {
+        List<ReservationItemRequest> itemRequests = new ArrayList<>();
+        for (int i = 0; i < items.length; i += 2) {
+            itemRequests.add(new ReservationItemRequest(items[i], (int) items[i + 1]));
+        }
+        return new ReservationRequest(orderId, itemRequests);
+    }
+}
@@ -0,0 +1,85 @@
+package com.distributed.ecommerce.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds or discovers the product catalog the load run orders from.
+ */
+public final class Catalog {
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    private Catalog() {}
+    
+    /**
+     * Inserts {@code count} products directly into the inventory database with explicit ids.
+     */
+    public static List<CatalogProduct> seed(String jdbcUrl, int count, int stock, long seed) throws SQLException {
+        Random random = new Random(seed);
+        List<CatalogProduct> products = new ArrayList<>(count);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        
+        String sql = "INSERT INTO products (id, name, description, price, quantity, reserved_quantity, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "");
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            for (int i = 1; i <= count; i++) {
+                BigDecimal price = BigDecimal.valueOf(500 + random.nextInt(500_000), 2);
+                CatalogProduct product = new CatalogProduct(i, "Produto " + i, price);
+                products.add(product);
+                
+                statement.setLong(1, product.getId());
+                statement.setString(2, product.getName());
+                statement.setString(3, "Produto gerado para teste de carga");
+                statement.setBigDecimal(4, price);
+                statement.setInt(5, stock);
+                statement.setTimestamp(6, now);
+                statement.setTimestamp(7, now);
+                statement.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        return products;
+    }
+    
+    /**
+     * Reads the catalog of an already running inventory service.
+     */
+    public static List<CatalogProduct> fetch(String inventoryUrl) throws IOException, InterruptedException {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(inventoryUrl + "/api/inventory/products")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Could not read catalog: HTTP " + response.statusCode());
+        }
+        
+        List<CatalogProduct> products = new ArrayList<>();
+        for (JsonNode node : new ObjectMapper().readTree(response.body())) {
+            products.add(new CatalogProduct(node.path("id").asLong(), node.path("name").asText(),
+                    new BigDecimal(node.path("price").asText())));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,23 @@
+package com.distributed.ecommerce.loadgen;
+
+import java.math.BigDecimal;
+
+/**
+ * The product fields the generator needs to build an order line.
+ */
+public class CatalogProduct {
+    
+    private final long id;
+    private final String name;
+    private final BigDecimal price;
+    
+    public CatalogProduct(long id, String name, BigDecimal price) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+    }
+    
+    public long getId() { return id; }
+    public String getName() { return name; }
+    public BigDecimal getPrice() { return price; }
+}
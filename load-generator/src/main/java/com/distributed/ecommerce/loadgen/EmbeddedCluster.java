@@ -0,0 +1,51 @@
+package com.distributed.ecommerce.loadgen;
+
+import com.distributed.ecommerce.inventory.InventoryServiceApplication;
+import com.distributed.ecommerce.orders.OrderServiceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs both services inside the generator JVM against in-memory H2 databases.
+ */
+public class EmbeddedCluster implements ServiceCluster {
+    
+    private static final String INVENTORY_JDBC_URL = "jdbc:h2:mem:loadgen_inventory;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final String ORDER_JDBC_URL = "jdbc:h2:mem:loadgen_orders;DB_CLOSE_DELAY=-1";
+    
+    private final ConfigurableApplicationContext inventoryContext;
+    private final ConfigurableApplicationContext orderContext;
+    private final String inventoryUrl;
+    private final String orderUrl;
+    
+    public EmbeddedCluster(LoadOptions options) {
+        this.inventoryUrl = "http://localhost:" + options.getInventoryPort();
+        this.orderUrl = "http://localhost:" + options.getOrderPort();
+        
+        this.inventoryContext = SpringApplication.run(InventoryServiceApplication.class,
+                ServiceArguments.inventory(options.getInventoryPort(), INVENTORY_JDBC_URL, options.getServiceLogLevel()));
+        this.orderContext = SpringApplication.run(OrderServiceApplication.class,
+                ServiceArguments.order(options.getOrderPort(), ORDER_JDBC_URL, inventoryUrl, options.getServiceLogLevel()));
+    }
+    
+    @Override
+    public String orderServiceUrl() {
+        return orderUrl;
+    }
+    
+    @Override
+    public String inventoryServiceUrl() {
+        return inventoryUrl;
+    }
+    
+    @Override
+    public String inventoryJdbcUrl() {
+        return INVENTORY_JDBC_URL;
+    }
+    
+    @Override
+    public void close() {
+        orderContext.close();
+        inventoryContext.close();
+    }
+}
@@ -0,0 +1,35 @@
+package com.distributed.ecommerce.loadgen;
+
+/**
+ * Points the generator at services that are already running. The catalog is read, not seeded.
+ */
+public class ExternalCluster implements ServiceCluster {
+    
+    private final String orderUrl;
+    private final String inventoryUrl;
+    
+    public ExternalCluster(LoadOptions options) {
+        this.orderUrl = options.getOrderServiceUrl();
+        this.inventoryUrl = options.getInventoryServiceUrl();
+    }
+    
+    @Override
+    public String orderServiceUrl() {
+        return orderUrl;
+    }
+    
+    @Override
+    public String inventoryServiceUrl() {
+        return inventoryUrl;
+    }
+    
+    @Override
+    public String inventoryJdbcUrl() {
+        return null;
+    }
+    
+    @Override
+    public void close() {
+        // Nothing to stop
+    }
+}
@@ -0,0 +1,51 @@
+package com.distributed.ecommerce.loadgen;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Entry point: starts (or locates) the services, prepares the catalog, drives
+ * {@code POST /api/orders} at a constant rate and reports latency and outcomes.
+ * 
+ * Example: {@code --mode=embedded --rate=200 --duration=60 --products=1000 --zipf=1.1 --stock=50}
+ */
+public final class LoadGenerator {
+    
+    private LoadGenerator() {}
+    
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        
+        try (ServiceCluster cluster = startCluster(options)) {
+            List<CatalogProduct> catalog = cluster.inventoryJdbcUrl() != null
+                    ? Catalog.seed(cluster.inventoryJdbcUrl(), options.getProducts(), options.getInitialStock(), options.getSeed())
+                    : Catalog.fetch(cluster.inventoryServiceUrl());
+            if (catalog.size() < options.getBasketMax()) {
+                throw new IllegalStateException("Catalog has " + catalog.size() + " products, fewer than --basket-max");
+            }
+            System.out.printf("Catalog ready with %d products, driving %s%n", catalog.size(), cluster.orderServiceUrl());
+            
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            OpenLoopDriver driver = new OpenLoopDriver(client, cluster.orderServiceUrl(),
+                    new OrderPayloadFactory(catalog, options), options);
+            
+            LoadReport report = new LoadReport(options, driver.run());
+            report.print(System.out);
+            report.write(options.getOutputDir());
+            System.out.println("Histograms and summary written to " + options.getOutputDir().toAbsolutePath());
+        }
+        System.exit(0);
+    }
+    
+    private static ServiceCluster startCluster(LoadOptions options) throws Exception {
+        return switch (options.getMode()) {
+            case EMBEDDED -> new EmbeddedCluster(options);
+            case PROCESSES -> new ProcessCluster(options);
+            case EXTERNAL -> new ExternalCluster(options);
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.distributed.ecommerce.loadgen;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Command-line options for a load run, given as {@code --name=value} pairs.
+ */
+public class LoadOptions {
+    
+    public enum Mode {
+        /** Both services run inside the generator JVM against in-memory H2. */
+        EMBEDDED,
+        /** Both services run as child JVMs against file-based H2. */
+        PROCESSES,
+        /** Services are already running; only the target URLs are used. */
+        EXTERNAL
+    }
+    
+    private Mode mode = Mode.EMBEDDED;
+    private int rate = 100;
+    private Duration duration = Duration.ofSeconds(60);
+    private Duration warmup = Duration.ofSeconds(10);
+    private int products = 1000;
+    private int initialStock = 1000;
+    private double zipfExponent = 1.0;
+    private int basketMin = 1;
+    private int basketMax = 5;
+    private int maxItemQuantity = 2;
+    private int maxInFlight = 10_000;
+    private int orderPort = 18080;
+    private int inventoryPort = 18081;
+    private String orderServiceUrl;
+    private String inventoryServiceUrl;
+    private String serviceLogLevel = "INFO";
+    private Path outputDir = Paths.get("target", "loadgen");
+    private long seed = 42L;
+    
+    public static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "mode" -> options.mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+                case "rate" -> options.rate = Integer.parseInt(value);
+                case "duration" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+                case "warmup" -> options.warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "products" -> options.products = Integer.parseInt(value);
+                case "stock" -> options.initialStock = Integer.parseInt(value);
+                case "zipf" -> options.zipfExponent = Double.parseDouble(value);
+                case "basket-min" -> options.basketMin = Integer.parseInt(value);
+                case "basket-max" -> options.basketMax = Integer.parseInt(value);
+                case "max-item-quantity" -> options.maxItemQuantity = Integer.parseInt(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "order-port" -> options.orderPort = Integer.parseInt(value);
+                case "inventory-port" -> options.inventoryPort = Integer.parseInt(value);
+                case "order-url" -> options.orderServiceUrl = value;
+                case "inventory-url" -> options.inventoryServiceUrl = value;
+                case "service-log-level" -> options.serviceLogLevel = value;
+                case "output" -> options.outputDir = Paths.get(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        options.validate();
+        return options;
+    }
+    
+    private void validate() {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("--rate must be positive");
+        }
+        if (basketMin <= 0 || basketMax < basketMin) {
+            throw new IllegalArgumentException("--basket-min must be positive and not above --basket-max");
+        }
+        if (basketMax > products) {
+            throw new IllegalArgumentException("--basket-max cannot exceed --products");
+        }
+        if (maxItemQuantity <= 0) {
+            throw new IllegalArgumentException("--max-item-quantity must be positive");
+        }
+        if (mode == Mode.EXTERNAL && (orderServiceUrl == null || inventoryServiceUrl == null)) {
+            throw new IllegalArgumentException("--mode=external requires --order-url and --inventory-url");
+        }
+    }
+    
+    public Mode getMode() { return mode; }
+    public int getRate() { return rate; }
+    public Duration getDuration() { return duration; }
+    public Duration getWarmup() { return warmup; }
+    public int getProducts() { return products; }
+    public int getInitialStock() { return initialStock; }
+    public double getZipfExponent() { return zipfExponent; }
+    public int getBasketMin() { return basketMin; }
+    public int getBasketMax() { return basketMax; }
+    public int getMaxItemQuantity() { return maxItemQuantity; }
+    public int getMaxInFlight() { return maxInFlight; }
+    public int getOrderPort() { return orderPort; }
+    public int getInventoryPort() { return inventoryPort; }
+    public String getOrderServiceUrl() { return orderServiceUrl; }
+    public String getInventoryServiceUrl() { return inventoryServiceUrl; }
+    public String getServiceLogLevel() { return serviceLogLevel; }
+    public Path getOutputDir() { return outputDir; }
+    public long getSeed() { return seed; }
+}
@@ -0,0 +1,126 @@
+package com.distributed.ecommerce.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints the run summary and writes the HdrHistogram percentile distributions
+ * ({@code .hgrm}, plottable with HdrHistogram's plotter) plus a JSON summary.
+ */
+public class LoadReport {
+    
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+    
+    private final LoadOptions options;
+    private final LoadResult result;
+    
+    public LoadReport(LoadOptions options, LoadResult result) {
+        this.options = options;
+        this.result = result;
+    }
+    
+    public void print(PrintStream out) {
+        double seconds = result.getMeasuredNanos() / 1e9;
+        out.println();
+        out.println("=== POST /api/orders load report ===");
+        out.printf("Mode: %s, target rate: %d req/s, measured: %.0f s (after %d s warmup)%n",
+                options.getMode(), options.getRate(), seconds, options.getWarmup().toSeconds());
+        out.printf("Catalog: %d products, Zipf s=%.2f, basket %d-%d items%n",
+                options.getProducts(), options.getZipfExponent(), options.getBasketMin(), options.getBasketMax());
+        out.printf("Completed: %d (%.1f req/s), skipped at max in-flight: %d%n",
+                result.getCompletedCount(), result.getCompletedCount() / seconds, result.getSkipped());
+        if (result.getSkipped() > 0) {
+            out.printf("WARNING: %d requests were not sent because --max-in-flight was reached; they count as%n"
+                    + "ERRO at the request timeout, so the server could not keep up with the target rate%n",
+                    result.getSkipped());
+        }
+        
+        out.println();
+        out.println("Outcomes:");
+        for (Outcome outcome : Outcome.values()) {
+            long count = result.getCount(outcome);
+            if (count == 0) {
+                continue;
+            }
+            Histogram histogram = result.getCorrected(outcome);
+            out.printf("  %-10s %8d (%5.1f%%)  p50=%8.2f ms  p99=%8.2f ms%n", outcome, count,
+                    100.0 * count / Math.max(1, result.getTotalCount()),
+                    millis(histogram, 50.0), millis(histogram, 99.0));
+        }
+        
+        out.println();
+        printLatency(out, "Latency from intended send time (coordinated-omission corrected)", result.getCorrected());
+        printLatency(out, "Service time from actual send (uncorrected)", result.getServiceTime());
+    }
+    
+    public void write(Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve("latency-corrected.hgrm")))) {
+            result.getCorrected().outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve("latency-service-time.hgrm")))) {
+            result.getServiceTime().outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("mode", options.getMode().name());
+        summary.put("targetRate", options.getRate());
+        summary.put("durationSeconds", options.getDuration().toSeconds());
+        summary.put("warmupSeconds", options.getWarmup().toSeconds());
+        summary.put("products", options.getProducts());
+        summary.put("zipfExponent", options.getZipfExponent());
+        summary.put("basketMin", options.getBasketMin());
+        summary.put("basketMax", options.getBasketMax());
+        summary.put("completed", result.getCompletedCount());
+        summary.put("throughput", result.getCompletedCount() / (result.getMeasuredNanos() / 1e9));
+        summary.put("skipped", result.getSkipped());
+        
+        Map<String, Long> outcomes = new LinkedHashMap<>();
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome.name(), result.getCount(outcome));
+        }
+        summary.put("outcomes", outcomes);
+        summary.put("latencyMillis", percentiles(result.getCorrected()));
+        summary.put("serviceTimeMillis", percentiles(result.getServiceTime()));
+        
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(outputDir.resolve("summary.json").toFile(), summary);
+    }
+    
+    private static void printLatency(PrintStream out, String title, Histogram histogram) {
+        out.println(title + ":");
+        for (double percentile : PERCENTILES) {
+            out.printf("  p%-6s %10.2f ms%n", format(percentile), millis(histogram, percentile));
+        }
+        out.printf("  max     %10.2f ms%n", histogram.getMaxValue() / MICROS_PER_MILLI);
+        out.printf("  mean    %10.2f ms%n", histogram.getMean() / MICROS_PER_MILLI);
+        out.println();
+    }
+    
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            values.put("p" + format(percentile), millis(histogram, percentile));
+        }
+        values.put("max", histogram.getMaxValue() / MICROS_PER_MILLI);
+        values.put("mean", histogram.getMean() / MICROS_PER_MILLI);
+        return values;
+    }
+    
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+    
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,83 @@
+package com.distributed.ecommerce.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcome counters for the measured part of a run. Latencies are in microseconds.
+ * <p>
+ * The corrected histogram measures from the time a request was <em>scheduled</em> to be sent,
+ * so a stalled server is charged for the requests that queued behind the stall
+ * (coordinated-omission correction). The service-time histogram measures from the actual send.
+ */
+public class LoadResult {
+    
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    
+    private final Histogram corrected = newHistogram();
+    private final Histogram serviceTime = newHistogram();
+    private final Map<Outcome, Histogram> correctedByOutcome = new EnumMap<>(Outcome.class);
+    private final Map<Outcome, LongAdder> counts = new EnumMap<>(Outcome.class);
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile long measuredNanos;
+    
+    public LoadResult() {
+        for (Outcome outcome : Outcome.values()) {
+            correctedByOutcome.put(outcome, newHistogram());
+            counts.put(outcome, new LongAdder());
+        }
+    }
+    
+    void record(Outcome outcome, long correctedMicros, long serviceTimeMicros) {
+        long clampedCorrected = Math.min(correctedMicros, HIGHEST_TRACKABLE_MICROS);
+        corrected.recordValue(clampedCorrected);
+        serviceTime.recordValue(Math.min(serviceTimeMicros, HIGHEST_TRACKABLE_MICROS));
+        correctedByOutcome.get(outcome).recordValue(clampedCorrected);
+        counts.get(outcome).increment();
+    }
+    
+    /**
+     * Records a request that was due but never sent because too many were in flight. It counts
+     * as an {@link Outcome#ERRO} in the corrected histograms, which would otherwise leave out the
+     * requests the stall kept back, and has no service time.
+     */
+    void recordSkipped(long correctedMicros) {
+        long clampedCorrected = Math.min(correctedMicros, HIGHEST_TRACKABLE_MICROS);
+        corrected.recordValue(clampedCorrected);
+        correctedByOutcome.get(Outcome.ERRO).recordValue(clampedCorrected);
+        counts.get(Outcome.ERRO).increment();
+        skipped.incrementAndGet();
+    }
+    
+    void setMeasuredNanos(long measuredNanos) {
+        this.measuredNanos = measuredNanos;
+    }
+    
+    public Histogram getCorrected() { return corrected; }
+    public Histogram getServiceTime() { return serviceTime; }
+    public Histogram getCorrected(Outcome outcome) { return correctedByOutcome.get(outcome); }
+    public long getCount(Outcome outcome) { return counts.get(outcome).sum(); }
+    public long getSkipped() { return skipped.get(); }
+    public long getMeasuredNanos() { return measuredNanos; }
+    
+    /** Requests due in the measured window, including the skipped ones. */
+    public long getTotalCount() {
+        return corrected.getTotalCount();
+    }
+    
+    /** Requests actually sent and answered (or failed) in the measured window. */
+    public long getCompletedCount() {
+        return corrected.getTotalCount() - skipped.get();
+    }
+    
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    }
+}
@@ -0,0 +1,100 @@
+package com.distributed.ecommerce.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends orders at a constant arrival rate regardless of how fast the server answers.
+ * Request {@code i} is scheduled at {@code start + i / rate}; the dispatcher never waits
+ * for responses, so a slow server builds a queue instead of slowing the generator down.
+ * Past {@code --max-in-flight} requests are not sent but still recorded, as errors at the
+ * request timeout, so the limit cannot hide the stall that caused it.
+ */
+public class OpenLoopDriver {
+    
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(90);
+    /** What a request skipped at max in-flight is charged, as if it had been sent and timed out. */
+    private static final long REQUEST_TIMEOUT_MICROS = REQUEST_TIMEOUT.toNanos() / 1000;
+    
+    private final HttpClient client;
+    private final URI ordersUri;
+    private final OrderPayloadFactory payloads;
+    private final LoadOptions options;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    public OpenLoopDriver(HttpClient client, String orderServiceUrl, OrderPayloadFactory payloads, LoadOptions options) {
+        this.client = client;
+        this.ordersUri = URI.create(orderServiceUrl + "/api/orders");
+        this.payloads = payloads;
+        this.options = options;
+    }
+    
+    public LoadResult run() throws Exception {
+        LoadResult result = new LoadResult();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + options.getWarmup().toNanos();
+        long endNanos = measureFromNanos + options.getDuration().toNanos();
+        
+        for (long i = 0; ; i++) {
+            long intendedNanos = startNanos + i * intervalNanos;
+            if (intendedNanos >= endNanos) {
+                break;
+            }
+            long waitNanos = intendedNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            
+            boolean measured = intendedNanos >= measureFromNanos;
+            if (inFlight.get() >= options.getMaxInFlight()) {
+                if (measured) {
+                    result.recordSkipped(REQUEST_TIMEOUT_MICROS);
+                }
+                continue;
+            }
+            send(payloads.next(), intendedNanos, measured, result);
+        }
+        
+        awaitDrain();
+        result.setMeasuredNanos(options.getDuration().toNanos());
+        return result;
+    }
+    
+    private void send(byte[] body, long intendedNanos, boolean measured, LoadResult result) {
+        HttpRequest request = HttpRequest.newBuilder(ordersUri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        
+        inFlight.incrementAndGet();
+        long sentNanos = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long doneNanos = System.nanoTime();
+                    inFlight.decrementAndGet();
+                    if (!measured) {
+                        return;
+                    }
+                    Outcome outcome = error != null ? Outcome.ERRO : Outcome.fromStatusCode(response.statusCode());
+                    result.record(outcome,
+                            TimeUnit.NANOSECONDS.toMicros(doneNanos - intendedNanos),
+                            TimeUnit.NANOSECONDS.toMicros(doneNanos - sentNanos));
+                });
+    }
+    
+    private void awaitDrain() throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+}
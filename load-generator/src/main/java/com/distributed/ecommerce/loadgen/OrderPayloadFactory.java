@@ -0,0 +1,68 @@
+package com.distributed.ecommerce.loadgen;
+
+import com.distributed.ecommerce.orders.dto.CreateOrderRequest;
+import com.distributed.ecommerce.orders.dto.OrderItemDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds {@code POST /api/orders} bodies with a random basket of distinct, Zipf-distributed products.
+ */
+public class OrderPayloadFactory {
+    
+    private final List<CatalogProduct> catalog;
+    private final ZipfianSampler sampler;
+    private final LoadOptions options;
+    private final Random random;
+    private final ObjectWriter writer = new ObjectMapper().writerFor(CreateOrderRequest.class);
+    private long sequence;
+    
+    public OrderPayloadFactory(List<CatalogProduct> catalog, LoadOptions options) {
+        this.catalog = catalog;
+        this.options = options;
+        this.sampler = new ZipfianSampler(catalog.size(), options.getZipfExponent(), options.getSeed());
+        this.random = new Random(options.getSeed());
+    }
+    
+    public byte[] next() throws JsonProcessingException {
+        int basketSize = options.getBasketMin() + random.nextInt(options.getBasketMax() - options.getBasketMin() + 1);
+        List<OrderItemDto> items = new ArrayList<>(basketSize);
+        BigDecimal total = BigDecimal.ZERO;
+        
+        while (items.size() < basketSize) {
+            CatalogProduct product = catalog.get(sampler.next(random));
+            if (containsProduct(items, product.getId())) {
+                continue;
+            }
+            int quantity = 1 + random.nextInt(options.getMaxItemQuantity());
+            OrderItemDto item = new OrderItemDto(product.getId(), product.getName(), quantity, product.getPrice());
+            items.add(item);
+            total = total.add(item.getSubtotal());
+        }
+        
+        long customer = ++sequence;
+        CreateOrderRequest request = new CreateOrderRequest(
+                "Cliente " + customer,
+                "cliente" + (customer % 10_000) + "@loadtest.local",
+                "Rua de Teste, " + customer,
+                null,
+                items,
+                total);
+        return writer.writeValueAsBytes(request);
+    }
+    
+    private static boolean containsProduct(List<OrderItemDto> items, long productId) {
+        for (OrderItemDto item : items) {
+            if (item.getProductId() == productId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
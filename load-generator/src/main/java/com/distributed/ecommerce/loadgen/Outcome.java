@@ -0,0 +1,23 @@
+package com.distributed.ecommerce.loadgen;
+
+/**
+ * Result of one {@code POST /api/orders}, derived from the status code the order controller
+ * returns for each final order status.
+ */
+public enum Outcome {
+    APROVADO,
+    CANCELADO,
+    FALHOU,
+    PENDENTE,
+    ERRO;
+    
+    public static Outcome fromStatusCode(int statusCode) {
+        return switch (statusCode) {
+            case 201 -> APROVADO;
+            case 409 -> CANCELADO;
+            case 503 -> FALHOU;
+            case 202 -> PENDENTE;
+            default -> ERRO;
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.distributed.ecommerce.loadgen;
+
+import com.distributed.ecommerce.inventory.InventoryServiceApplication;
+import com.distributed.ecommerce.orders.OrderServiceApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs each service as a child JVM on the generator's classpath, against file-based H2
+ * databases opened in auto-server mode so the generator can seed the catalog concurrently.
+ */
+public class ProcessCluster implements ServiceCluster {
+    
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+    
+    private final String inventoryJdbcUrl;
+    private final String inventoryUrl;
+    private final String orderUrl;
+    private final List<Process> processes = new ArrayList<>();
+    
+    public ProcessCluster(LoadOptions options) throws IOException, InterruptedException {
+        Path databaseDir = options.getOutputDir().resolve("db").toAbsolutePath();
+        deleteRecursively(databaseDir);
+        Files.createDirectories(databaseDir);
+        
+        this.inventoryJdbcUrl = "jdbc:h2:file:" + databaseDir.resolve("inventory") + ";AUTO_SERVER=TRUE;LOCK_TIMEOUT=10000";
+        String orderJdbcUrl = "jdbc:h2:file:" + databaseDir.resolve("orders") + ";AUTO_SERVER=TRUE";
+        this.inventoryUrl = "http://localhost:" + options.getInventoryPort();
+        this.orderUrl = "http://localhost:" + options.getOrderPort();
+        
+        try {
+            processes.add(launch(InventoryServiceApplication.class, options.getOutputDir().resolve("inventory-service.log"),
+                    ServiceArguments.inventory(options.getInventoryPort(), inventoryJdbcUrl, options.getServiceLogLevel())));
+            awaitHealthy(inventoryUrl + "/api/inventory/health");
+            
+            processes.add(launch(OrderServiceApplication.class, options.getOutputDir().resolve("order-service.log"),
+                    ServiceArguments.order(options.getOrderPort(), orderJdbcUrl, inventoryUrl, options.getServiceLogLevel())));
+            awaitHealthy(orderUrl + "/api/orders/health");
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+    
+    @Override
+    public String orderServiceUrl() {
+        return orderUrl;
+    }
+    
+    @Override
+    public String inventoryServiceUrl() {
+        return inventoryUrl;
+    }
+    
+    @Override
+    public String inventoryJdbcUrl() {
+        return inventoryJdbcUrl;
+    }
+    
+    @Override
+    public void close() {
+        for (Process process : processes) {
+            process.destroy();
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+    
+    private static Process launch(Class<?> mainClass, Path logFile, String[] args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(List.of(args));
+        
+        Files.createDirectories(logFile.getParent());
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+    }
+    
+    private static void awaitHealthy(String healthUrl) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(healthUrl)).timeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Service did not become healthy in time: " + healthUrl);
+    }
+    
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.distributed.ecommerce.loadgen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the Spring Boot command-line arguments for running a service against H2.
+ * Command-line arguments win over the PostgreSQL settings in each service's
+ * application.properties, which may not even be the one found first on a shared classpath.
+ */
+final class ServiceArguments {
+    
+    private ServiceArguments() {}
+    
+    static String[] inventory(int port, String jdbcUrl, String logLevel) {
+        List<String> args = common("inventory-service", port, jdbcUrl, logLevel);
+        args.add("--inventory.initialize-sample-data=false");
+        args.add("--inventory.invalidation.bus=memory");
+        args.add("--inventory.availability-snapshot.enabled=false");
+        return args.toArray(String[]::new);
+    }
+    
+    static String[] order(int port, String jdbcUrl, String inventoryUrl, String logLevel) {
+        List<String> args = common("order-service", port, jdbcUrl, logLevel);
+        args.add("--inventory.service.url=" + inventoryUrl);
+        args.add("--cors.allowed-methods=GET,POST,PUT,DELETE,OPTIONS");
+        args.add("--cors.allowed-headers=*");
+        return args.toArray(String[]::new);
+    }
+    
+    private static List<String> common(String name, int port, String jdbcUrl, String logLevel) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.application.name=" + name);
+        args.add("--spring.main.banner-mode=off");
+        args.add("--server.port=" + port);
+        args.add("--spring.datasource.url=" + jdbcUrl);
+        args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        args.add("--spring.datasource.username=sa");
+        args.add("--spring.datasource.password=");
+        args.add("--spring.jpa.hibernate.ddl-auto=create");
+        args.add("--spring.flyway.enabled=false");
+        args.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--cors.allowed-origins=http://localhost:3000");
+        args.add("--logging.level.com.distributed.ecommerce=" + logLevel);
+        args.add("--logging.level.org.springframework.web=WARN");
+        return args;
+    }
+}
@@ -0,0 +1,20 @@
+package com.distributed.ecommerce.loadgen;
+
+/**
+ * A running pair of order and inventory services the generator can drive.
+ */
+public interface ServiceCluster extends AutoCloseable {
+    
+    String orderServiceUrl();
+    
+    String inventoryServiceUrl();
+    
+    /**
+     * JDBC URL of the inventory database used to seed the catalog, or null when
+     * the catalog is owned by externally managed services.
+     */
+    String inventoryJdbcUrl();
+    
+    @Override
+    void close();
+}
@@ -0,0 +1,47 @@
+package com.distributed.ecommerce.loadgen;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples indexes in {@code [0, n)} with Zipfian popularity: rank k is chosen with
+ * probability proportional to 1 / k^s. Ranks are shuffled onto indexes so the hot
+ * SKUs are spread through the catalog rather than being the lowest ids.
+ */
+public class ZipfianSampler {
+    
+    private final double[] cumulative;
+    private final int[] rankToIndex;
+    
+    public ZipfianSampler(int n, double exponent, long seed) {
+        this.cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+        
+        this.rankToIndex = new int[n];
+        for (int i = 0; i < n; i++) {
+            rankToIndex[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = rankToIndex[i];
+            rankToIndex[i] = rankToIndex[j];
+            rankToIndex[j] = swap;
+        }
+    }
+    
+    public int next(Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        return rankToIndex[Math.min(rank, rankToIndex.length - 1)];
+    }
+}
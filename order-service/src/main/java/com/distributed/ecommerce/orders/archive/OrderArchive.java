@@ -0,0 +1,275 @@
+package com.distributed.ecommerce.orders.archive;
+
+import com.distributed.ecommerce.orders.dto.OrderResponse;
+import com.distributed.ecommerce.orders.id.OrderIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Files holding the orders of detached partitions, one pair per partition in
+ * {@code order.archive.directory}:
+ * <ul>
+ *   <li>{@code orders_<partition>.ndjson.gz}: one {@link OrderResponse} per line, items included,
+ *       in id order. Every {@link #BLOCK_SIZE} orders start a new gzip member; concatenated members
+ *       are still a single valid gzip file, so {@code zcat} and {@code jq} read it as is.</li>
+ *   <li>{@code orders_<partition>.idx}: the first order id and file offset of every member, as
+ *       pairs of big-endian longs.</li>
+ * </ul>
+ * A lookup picks the member from the index and decompresses only that block. Files are written
+ * under a temporary name and renamed when complete, so readers never see a partial archive.
+ */
+@Component
+public class OrderArchive {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchive.class);
+    
+    /** Orders per gzip member: the most a lookup decompresses. */
+    static final int BLOCK_SIZE = 1000;
+    
+    private static final String DATA_SUFFIX = ".ndjson.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    
+    /** Loaded indexes by partition, as interleaved (first id, offset) pairs. */
+    private final Map<String, long[]> indexes = new ConcurrentHashMap<>();
+    
+    public OrderArchive(ObjectMapper objectMapper,
+                        @Value("${order.archive.directory:./order-archive}") String directory) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+    }
+    
+    /**
+     * Looks an order up in the archive of the month its id was issued in, then in the archive of
+     * the legacy partition, which holds every older id.
+     */
+    public Optional<OrderResponse> find(long orderId) {
+        YearMonth month = YearMonth.from(OrderIdGenerator.timestampOf(orderId).atOffset(ZoneOffset.UTC));
+        for (String partition : List.of(OrderPartitionManager.partitionOf(month), OrderPartitionManager.LEGACY_PARTITION)) {
+            Optional<OrderResponse> order = find(partition, orderId);
+            if (order.isPresent()) {
+                return order;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Starts writing the archive of a partition; nothing is visible until {@link Writer#commit()}.
+     */
+    public Writer open(String partition) throws IOException {
+        Files.createDirectories(directory);
+        return new Writer(partition);
+    }
+    
+    private Optional<OrderResponse> find(String partition, long orderId) {
+        long[] index = index(partition);
+        if (index == null) {
+            return Optional.empty();
+        }
+        // Last block whose first id is not above the order id
+        int low = 0;
+        int high = index.length / 2 - 1;
+        int block = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (index[middle * 2] <= orderId) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (block < 0) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(dataFile(partition), StandardOpenOption.READ)) {
+            channel.position(index[block * 2 + 1]);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Channels.newInputStream(channel)), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                OrderResponse order = objectMapper.readValue(line, OrderResponse.class);
+                if (order.getId() == orderId) {
+                    return Optional.of(order);
+                }
+                if (order.getId() > orderId) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read order {} from archive {}: {}", orderId, partition, e.getMessage());
+        }
+        return Optional.empty();
+    }
+    
+    private long[] index(String partition) {
+        long[] index = indexes.get(partition);
+        if (index != null) {
+            return index;
+        }
+        Path file = indexFile(partition);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+            index = new long[bytes.remaining() / Long.BYTES];
+            bytes.asLongBuffer().get(index);
+        } catch (IOException e) {
+            logger.warn("Could not read archive index {}: {}", file, e.getMessage());
+            return null;
+        }
+        indexes.put(partition, index);
+        return index;
+    }
+    
+    private Path dataFile(String partition) {
+        return directory.resolve("orders_" + partition + DATA_SUFFIX);
+    }
+    
+    private Path indexFile(String partition) {
+        return directory.resolve("orders_" + partition + INDEX_SUFFIX);
+    }
+    
+    /**
+     * Appends orders, in increasing id order, to the archive of one partition.
+     */
+    public final class Writer implements Closeable {
+        
+        private final String partition;
+        private final Path dataTemporary;
+        private final Path indexTemporary;
+        private final FileOutputStream dataFile;
+        private final CountingOutputStream data;
+        private final DataOutputStream index;
+        
+        private GZIPOutputStream block;
+        private int blockOrders;
+        private long orders;
+        private boolean committed;
+        
+        private Writer(String partition) throws IOException {
+            this.partition = partition;
+            this.dataTemporary = Paths.get(dataFile(partition) + TEMPORARY_SUFFIX);
+            this.indexTemporary = Paths.get(indexFile(partition) + TEMPORARY_SUFFIX);
+            this.dataFile = new FileOutputStream(dataTemporary.toFile());
+            this.data = new CountingOutputStream(new BufferedOutputStream(dataFile, 1 << 16));
+            this.index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexTemporary.toFile())));
+        }
+        
+        public void append(OrderResponse order) throws IOException {
+            if (block == null) {
+                index.writeLong(order.getId());
+                index.writeLong(data.count);
+                block = new GZIPOutputStream(data, 1 << 16);
+            }
+            block.write(objectMapper.writeValueAsBytes(order));
+            block.write('\n');
+            orders++;
+            if (++blockOrders == BLOCK_SIZE) {
+                finishBlock();
+            }
+        }
+        
+        /**
+         * Syncs both files to disk and moves them into place, replacing an earlier archive of
+         * the same partition.
+         * 
+         * @return number of orders written
+         */
+        public long commit() throws IOException {
+            finishBlock();
+            data.flush();
+            dataFile.getFD().sync();
+            data.close();
+            index.close();
+            // The index goes last: lookups only open archives whose index exists
+            Files.move(dataTemporary, dataFile(partition), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexTemporary, indexFile(partition), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            indexes.remove(partition);
+            committed = true;
+            return orders;
+        }
+        
+        private void finishBlock() throws IOException {
+            if (block != null) {
+                // finish() writes the gzip trailer without closing the file underneath
+                block.finish();
+                block = null;
+                blockOrders = 0;
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            try {
+                data.close();
+                index.close();
+            } finally {
+                Files.deleteIfExists(dataTemporary);
+                Files.deleteIfExists(indexTemporary);
+            }
+        }
+    }
+    
+    /**
+     * Tracks the offset in the data file, where the next gzip member starts.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        
+        private long count;
+        
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
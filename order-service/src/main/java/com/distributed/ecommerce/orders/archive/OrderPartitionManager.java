@@ -0,0 +1,343 @@
+package com.distributed.ecommerce.orders.archive;
+
+import com.distributed.ecommerce.orders.id.OrderIdGenerator;
+import com.distributed.ecommerce.orders.repository.OrderItemRowHandler;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of {@code orders}, {@code order_items} and
+ * {@code order_customer_tokens}, which are range-partitioned by order id (see migration V3;
+ * ids begin with their creation time, so each month is a contiguous id range). Every
+ * {@code order.partitioning.check-interval-ms} it:
+ * <ol>
+ *   <li>creates the partitions of the current month and the next
+ *       {@code order.partitioning.months-ahead}, so inserts never find a missing range;</li>
+ *   <li>detaches the partitions of months that ended more than
+ *       {@code order.partitioning.retention-months} ago, which drops them from every query plan;</li>
+ *   <li>streams each detached partition into {@link OrderArchive} and drops its tables.</li>
+ * </ol>
+ * Each step runs under a PostgreSQL advisory lock, so with several instances one does the work
+ * and the others skip the round. On any other database, or when the tables are not partitioned,
+ * maintenance stays off.
+ */
+@Component
+public class OrderPartitionManager {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderPartitionManager.class);
+    
+    /** Partition holding every id below the first monthly partition, created by migration V3. */
+    static final String LEGACY_PARTITION = "legacy";
+    
+    private static final DateTimeFormatter MONTH_PARTITION = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("p\\d{4}_\\d{2}|" + LEGACY_PARTITION);
+    private static final Pattern BOUNDS = Pattern.compile("FROM \\('?(MINVALUE|-?\\d+)'?\\) TO \\('?(MAXVALUE|-?\\d+)'?\\)");
+    
+    /** Tables partitioned like orders and referencing it, so they are detached first. */
+    private static final List<String> CHILD_TABLES = List.of("order_customer_tokens", "order_items");
+    
+    /** Every partitioned table, orders first: partitions are created in this order. */
+    private static final List<String> TABLES = List.of("orders", "order_items", "order_customer_tokens");
+    
+    /** Key of the transaction-level advisory lock taken by every maintenance step. */
+    private static final long ADVISORY_LOCK_KEY = 0x6f72646572730001L;
+    
+    private static final int ARCHIVE_FETCH_SIZE = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderArchive orderArchive;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final long checkIntervalMillis;
+    private final String lockTimeout;
+    
+    private ScheduledExecutorService maintainer;
+    
+    /** End of the legacy partition's id range, once looked up. */
+    private volatile Long legacyEnd;
+    
+    public OrderPartitionManager(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 OrderArchive orderArchive,
+                                 @Value("${order.partitioning.enabled:true}") boolean enabled,
+                                 @Value("${order.partitioning.months-ahead:3}") int monthsAhead,
+                                 @Value("${order.partitioning.retention-months:12}") int retentionMonths,
+                                 @Value("${order.partitioning.check-interval-ms:3600000}") long checkIntervalMillis,
+                                 @Value("${order.partitioning.lock-timeout-ms:5000}") long lockTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(ARCHIVE_FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderArchive = orderArchive;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.lockTimeout = lockTimeoutMillis + "ms";
+    }
+    
+    /**
+     * Name suffix of the partitions holding the orders of a month, e.g. {@code p2025_03} for
+     * {@code orders_p2025_03}.
+     */
+    static String partitionOf(YearMonth month) {
+        return MONTH_PARTITION.format(month);
+    }
+    
+    /**
+     * First order id issued in a month, UTC.
+     */
+    static long firstIdOf(YearMonth month) {
+        return OrderIdGenerator.firstIdAt(month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+    }
+    
+    /**
+     * Returns the end of the legacy partition's id range, or {@link Long#MIN_VALUE} when there
+     * is no legacy partition (orders is not partitioned, or the partition was archived). Ids
+     * below it may have been issued before {@link OrderIdGenerator} and say nothing of when
+     * their order was created. Looked up once: the bound never moves.
+     */
+    public long getLegacyEnd() {
+        Long end = legacyEnd;
+        if (end == null) {
+            end = !isPartitioned() ? Long.MIN_VALUE : partitions().stream()
+                    .filter(partition -> partition.name.equals("orders_" + LEGACY_PARTITION))
+                    .mapToLong(Partition::to)
+                    .findFirst()
+                    .orElse(Long.MIN_VALUE);
+            legacyEnd = end;
+        }
+        return end;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!isPartitioned()) {
+            logger.info("orders is not a partitioned PostgreSQL table, order partition maintenance is off");
+            return;
+        }
+        maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintainer.scheduleWithFixedDelay(this::maintain, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stop() {
+        if (maintainer != null) {
+            maintainer.shutdownNow();
+        }
+    }
+    
+    void maintain() {
+        YearMonth now = YearMonth.now(ZoneOffset.UTC);
+        try {
+            createPartitions(now);
+            detachPartitions(now);
+            for (String partition : detachedPartitions()) {
+                archivePartition(partition);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Order partition maintenance failed, retrying in {} ms: {}", checkIntervalMillis, e.getMessage());
+        }
+    }
+    
+    private void createPartitions(YearMonth now) {
+        inLockedTransaction(() -> {
+            List<Partition> partitions = partitions();
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = now.plusMonths(i);
+                long from = firstIdOf(month);
+                long to = firstIdOf(month.plusMonths(1));
+                if (partitions.stream().anyMatch(partition -> partition.from < to && from < partition.to)) {
+                    // Already covered, by its own partition or by the legacy one
+                    continue;
+                }
+                String partition = partitionOf(month);
+                // Created apart and then attached: ATTACH PARTITION takes a weaker lock on the
+                // parent than CREATE TABLE ... PARTITION OF, so inserts keep flowing. orders goes
+                // first, the children's foreign keys point to it
+                for (String table : TABLES) {
+                    jdbcTemplate.execute("CREATE TABLE " + table + "_" + partition
+                            + " (LIKE " + table + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                    jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + table + "_" + partition
+                            + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+                }
+                logger.info("Created order partitions {} for {}", partition, month);
+            }
+            return null;
+        });
+    }
+    
+    private void detachPartitions(YearMonth now) {
+        long cutoff = firstIdOf(now.minusMonths(retentionMonths));
+        inLockedTransaction(() -> {
+            for (Partition partition : partitions()) {
+                if (partition.to > cutoff) {
+                    continue;
+                }
+                String suffix = partition.name.substring("orders_".length());
+                for (String child : CHILD_TABLES) {
+                    String table = child + "_" + suffix;
+                    if (isPartition(table)) {
+                        jdbcTemplate.execute("ALTER TABLE " + child + " DETACH PARTITION " + table);
+                    }
+                    // A detached partition keeps its foreign key, which would stop the orders
+                    // partition it references from being detached
+                    jdbcTemplate.execute("ALTER TABLE IF EXISTS " + table + " DROP CONSTRAINT IF EXISTS fk_" + child + "_order");
+                }
+                jdbcTemplate.execute("ALTER TABLE orders DETACH PARTITION " + partition.name);
+                logger.info("Detached order partitions {}", suffix);
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Writes the orders of a detached partition to the archive and drops its tables. If the
+     * transaction fails after the file is written, the next round writes it again.
+     */
+    private void archivePartition(String partition) {
+        long start = System.nanoTime();
+        Long archived = inLockedTransaction(() -> {
+            if (isPartition("orders_" + partition) || !tableExists("orders_" + partition)) {
+                // Reattached or archived by another instance since it was listed
+                return null;
+            }
+            long orders;
+            try (OrderArchive.Writer writer = orderArchive.open(partition)) {
+                OrderItemRowHandler rows = new OrderItemRowHandler(writer::append);
+                streamingJdbcTemplate.query("SELECT " + OrderItemRowHandler.COLUMNS
+                                + " FROM orders_" + partition + " o "
+                                + "LEFT JOIN order_items_" + partition + " i ON i.order_id = o.id "
+                                + "ORDER BY o.id, i.id",
+                        rows);
+                rows.finish();
+                orders = writer.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (String table : CHILD_TABLES) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + table + "_" + partition);
+            }
+            jdbcTemplate.execute("DROP TABLE orders_" + partition);
+            return orders;
+        });
+        if (archived != null) {
+            logger.info("Archived {} orders of partition {} in {} ms", archived, partition,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+    
+    /**
+     * Runs the work in a transaction holding the maintenance advisory lock, or returns null
+     * without running it when another instance holds the lock.
+     */
+    private <T> T inLockedTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return null;
+            }
+            // DDL waiting on a long query would queue every insert behind it; give up instead
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeout + "'");
+            return work.get();
+        });
+    }
+    
+    private boolean isPartitioned() {
+        try {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                return false;
+            }
+            Integer partitioned = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('orders')", Integer.class);
+            return partitioned != null && partitioned > 0;
+        } catch (RuntimeException e) {
+            logger.warn("Could not inspect the orders table: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Attached partitions of orders with their id ranges.
+     */
+    private List<Partition> partitions() {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'orders'::regclass",
+                row -> {
+                    Matcher bounds = BOUNDS.matcher(row.getString(2));
+                    if (!bounds.find()) {
+                        logger.warn("Ignoring order partition {} with bounds {}", row.getString(1), row.getString(2));
+                        return;
+                    }
+                    long from = "MINVALUE".equals(bounds.group(1)) ? Long.MIN_VALUE : Long.parseLong(bounds.group(1));
+                    long to = "MAXVALUE".equals(bounds.group(2)) ? Long.MAX_VALUE : Long.parseLong(bounds.group(2));
+                    partitions.add(new Partition(row.getString(1), from, to));
+                });
+        return partitions;
+    }
+    
+    /**
+     * Name suffixes of order tables that were detached but not archived yet.
+     */
+    private List<String> detachedPartitions() {
+        List<String> partitions = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList("SELECT c.relname FROM pg_class c "
+                + "WHERE c.relkind = 'r' AND NOT c.relispartition AND c.relnamespace = current_schema()::regnamespace "
+                + "AND c.relname LIKE 'orders\\_%' ORDER BY c.relname", String.class)) {
+            String suffix = name.substring("orders_".length());
+            if (PARTITION_NAME.matcher(suffix).matches()) {
+                partitions.add(suffix);
+            }
+        }
+        return partitions;
+    }
+    
+    private boolean isPartition(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_inherits WHERE inhrelid = to_regclass(?)", Integer.class, table);
+        return count != null && count > 0;
+    }
+    
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+    
+    private record Partition(String name, long from, long to) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.distributed.ecommerce.orders.cache;
+
+import com.distributed.ecommerce.orders.dto.OrderResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of {@link OrderResponse} by order id, plus a secondary index of
+ * order ids by customer email. Both are Caffeine caches, whose W-TinyLFU policy admits a new
+ * entry only when it is estimated to be used more often than the one it would evict, so a
+ * burst of one-off lookups cannot flush the orders customers are actively polling.
+ * <p>
+ * Entries are written through by {@link #putOrder} whenever this service stores an order, so
+ * the cached copy is the latest state. The email index is refreshed from the database after
+ * {@code order.cache.customer-index.ttl-seconds} to pick up orders written elsewhere.
+ * Concurrent misses on the same key share a single database load.
+ */
+@Component
+public class OrderCache {
+    
+    private final boolean enabled;
+    private final Cache<Long, OrderResponse> orders;
+    private final Cache<String, List<Long>> orderIdsByEmail;
+    
+    public OrderCache(@Value("${order.cache.enabled:true}") boolean enabled,
+                      @Value("${order.cache.maximum-size:10000}") long maximumSize,
+                      @Value("${order.cache.customer-index.maximum-size:5000}") long customerIndexMaximumSize,
+                      @Value("${order.cache.customer-index.ttl-seconds:60}") long customerIndexTtlSeconds) {
+        this.enabled = enabled;
+        this.orders = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.orderIdsByEmail = Caffeine.newBuilder()
+                .maximumSize(customerIndexMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(customerIndexTtlSeconds))
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * Returns the cached order, or loads it with {@code loader} and caches the result.
+     * Orders that do not exist are not cached.
+     */
+    public Optional<OrderResponse> getOrder(Long orderId, Function<Long, Optional<OrderResponse>> loader) {
+        if (!enabled) {
+            return loader.apply(orderId);
+        }
+        return Optional.ofNullable(orders.get(orderId, id -> loader.apply(id).orElse(null)));
+    }
+    
+    /**
+     * Returns the orders of a customer, oldest first. On an index miss all of them are loaded
+     * with {@code loader}; on a hit, only orders that were evicted from the id cache are loaded,
+     * in one call to {@code missingLoader}.
+     */
+    public List<OrderResponse> getCustomerOrders(String customerEmail,
+                                                 Function<String, List<OrderResponse>> loader,
+                                                 Function<Collection<Long>, List<OrderResponse>> missingLoader) {
+        if (!enabled) {
+            return loader.apply(customerEmail);
+        }
+        
+        List<Long> orderIds = orderIdsByEmail.get(customerEmail, email -> {
+            List<OrderResponse> loaded = loader.apply(email);
+            List<Long> ids = new ArrayList<>(loaded.size());
+            for (OrderResponse order : loaded) {
+                orders.put(order.getId(), order);
+                ids.add(order.getId());
+            }
+            ids.sort(null);
+            return List.copyOf(ids);
+        });
+        
+        // Resolve quietly so that list reads do not skew the id cache hit rate
+        Map<Long, OrderResponse> resolved = new HashMap<>(orderIds.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            OrderResponse order = orders.policy().getIfPresentQuietly(orderId);
+            if (order != null) {
+                resolved.put(orderId, order);
+            } else {
+                missing.add(orderId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (OrderResponse order : missingLoader.apply(missing)) {
+                orders.put(order.getId(), order);
+                resolved.put(order.getId(), order);
+            }
+        }
+        
+        List<OrderResponse> result = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            OrderResponse order = resolved.get(orderId);
+            if (order != null) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Stores the current state of an order and appends it to its customer's index entry,
+     * if that entry is cached. Called after every write of an order.
+     */
+    public void putOrder(OrderResponse order) {
+        if (!enabled) {
+            return;
+        }
+        orders.put(order.getId(), order);
+        orderIdsByEmail.asMap().computeIfPresent(order.getCustomerEmail(), (email, ids) -> {
+            if (ids.contains(order.getId())) {
+                return ids;
+            }
+            List<Long> appended = new ArrayList<>(ids.size() + 1);
+            appended.addAll(ids);
+            appended.add(order.getId());
+            return List.copyOf(appended);
+        });
+    }
+    
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(enabled,
+                new Statistics(orders.stats(), orders.estimatedSize()),
+                new Statistics(orderIdsByEmail.stats(), orderIdsByEmail.estimatedSize()));
+    }
+    
+    // Inner classes for cache statistics
+    public static class CacheStatistics {
+        private final boolean enabled;
+        private final Statistics orders;
+        private final Statistics customerIndex;
+        
+        public CacheStatistics(boolean enabled, Statistics orders, Statistics customerIndex) {
+            this.enabled = enabled;
+            this.orders = orders;
+            this.customerIndex = customerIndex;
+        }
+        
+        public boolean isEnabled() { return enabled; }
+        public Statistics getOrders() { return orders; }
+        public Statistics getCustomerIndex() { return customerIndex; }
+    }
+    
+    public static class Statistics {
+        private final long size;
+        private final long hits;
+        private final long misses;
+        private final double hitRate;
+        private final long evictions;
+        private final double averageLoadMillis;
+        
+        public Statistics(CacheStats stats, long size) {
+            this.size = size;
+            this.hits = stats.hitCount();
+            this.misses = stats.missCount();
+            this.hitRate = stats.hitRate();
+            this.evictions = stats.evictionCount();
+            this.averageLoadMillis = stats.averageLoadPenalty() / 1_000_000.0;
+        }
+        
+        public long getSize() { return size; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public double getHitRate() { return hitRate; }
+        public long getEvictions() { return evictions; }
+        public double getAverageLoadMillis() { return averageLoadMillis; }
+    }
+}
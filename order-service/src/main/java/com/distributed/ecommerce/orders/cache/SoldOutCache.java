@@ -0,0 +1,175 @@
+package com.distributed.ecommerce.orders.cache;
+
+import com.distributed.ecommerce.orders.dto.InventoryAvailabilityResponse;
+import com.distributed.ecommerce.orders.dto.InventoryItemRequest;
+import com.distributed.ecommerce.orders.service.InventoryService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Product ids the inventory service recently reported as sold out, learned from rejected
+ * reservations, so orders containing them can be refused without writing the order or calling
+ * inventory. A background task re-probes the cached products with the bulk availability check
+ * every {@code order.sold-out-cache.refresh-interval-ms} and reopens those that were restocked;
+ * products still sold out are kept, and entries the probe cannot confirm expire after
+ * {@code order.sold-out-cache.ttl-seconds}.
+ * <p>
+ * The cache is advisory: an order for a product that sold out on another replica still goes
+ * to inventory, which remains the only authority on stock.
+ */
+@Component
+public class SoldOutCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SoldOutCache.class);
+    
+    /** Largest batch the inventory availability endpoint accepts. */
+    private static final int PROBE_BATCH_SIZE = 1000;
+    
+    private final InventoryService inventoryService;
+    private final boolean enabled;
+    private final long refreshIntervalMillis;
+    private final Cache<Long, Boolean> soldOut;
+    
+    private final LongAdder rejectedOrders = new LongAdder();
+    private final LongAdder reopenedProducts = new LongAdder();
+    
+    private ScheduledExecutorService refresher;
+    
+    public SoldOutCache(InventoryService inventoryService,
+                        @Value("${order.sold-out-cache.enabled:true}") boolean enabled,
+                        @Value("${order.sold-out-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${order.sold-out-cache.ttl-seconds:30}") long ttlSeconds,
+                        @Value("${order.sold-out-cache.refresh-interval-ms:1000}") long refreshIntervalMillis) {
+        this.inventoryService = inventoryService;
+        this.enabled = enabled;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.soldOut = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+    
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sold-out-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+    
+    /**
+     * Records products that inventory reported as having no available stock.
+     */
+    public void markSoldOut(Collection<Long> productIds) {
+        if (!enabled || productIds == null) {
+            return;
+        }
+        for (Long productId : productIds) {
+            soldOut.put(productId, Boolean.TRUE);
+        }
+    }
+    
+    /**
+     * Returns the given products that are currently cached as sold out, and counts a rejected
+     * order when there are any.
+     */
+    public List<Long> findSoldOut(Collection<Long> productIds) {
+        if (!enabled || soldOut.estimatedSize() == 0) {
+            return List.of();
+        }
+        List<Long> found = new ArrayList<>();
+        for (Long productId : productIds) {
+            if (soldOut.getIfPresent(productId) != null && !found.contains(productId)) {
+                found.add(productId);
+            }
+        }
+        if (!found.isEmpty()) {
+            rejectedOrders.increment();
+        }
+        return found;
+    }
+    
+    /**
+     * Asks inventory about every cached product and reopens the ones with stock again.
+     */
+    void refresh() {
+        try {
+            List<Long> productIds = new ArrayList<>(soldOut.asMap().keySet());
+            for (int from = 0; from < productIds.size(); from += PROBE_BATCH_SIZE) {
+                List<InventoryItemRequest> probe = new ArrayList<>();
+                for (Long productId : productIds.subList(from, Math.min(from + PROBE_BATCH_SIZE, productIds.size()))) {
+                    probe.add(new InventoryItemRequest(productId, 1));
+                }
+                Optional<InventoryAvailabilityResponse> response = inventoryService.checkAvailability(probe).join();
+                if (response.isEmpty()) {
+                    // Inventory did not answer; entries expire on their own if this persists
+                    return;
+                }
+                for (InventoryAvailabilityResponse.ItemAvailability item : response.get().getItems()) {
+                    if (item.isAvailable()) {
+                        soldOut.invalidate(item.getProductId());
+                        reopenedProducts.increment();
+                    } else if (item.isFound()) {
+                        // Confirmed sold out, so it stays cached for another TTL
+                        soldOut.put(item.getProductId(), Boolean.TRUE);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Sold-out cache refresh failed: {}", e.getMessage());
+        }
+    }
+    
+    public SoldOutStatistics getStatistics() {
+        return new SoldOutStatistics(enabled, new ArrayList<>(soldOut.asMap().keySet()),
+                rejectedOrders.sum(), reopenedProducts.sum());
+    }
+    
+    // Inner class for sold-out cache statistics
+    public static class SoldOutStatistics {
+        private final boolean enabled;
+        private final List<Long> soldOutProductIds;
+        private final long rejectedOrders;
+        private final long reopenedProducts;
+        
+        public SoldOutStatistics(boolean enabled, List<Long> soldOutProductIds, long rejectedOrders, long reopenedProducts) {
+            this.enabled = enabled;
+            this.soldOutProductIds = soldOutProductIds;
+            this.rejectedOrders = rejectedOrders;
+            this.reopenedProducts = reopenedProducts;
+        }
+        
+        public boolean isEnabled() { return enabled; }
+        public List<Long> getSoldOutProductIds() { return soldOutProductIds; }
+        public long getRejectedOrders() { return rejectedOrders; }
+        public long getReopenedProducts() { return reopenedProducts; }
+    }
+}
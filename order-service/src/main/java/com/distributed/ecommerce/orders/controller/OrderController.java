@@ -1,20 +1,37 @@
 package com.distributed.ecommerce.orders.controller;
 
+import com.distributed.ecommerce.orders.cache.OrderCache;
+import com.distributed.ecommerce.orders.cache.SoldOutCache;
 import com.distributed.ecommerce.orders.dto.CreateOrderRequest;
+import com.distributed.ecommerce.orders.dto.InventoryAvailabilityRequest;
+import com.distributed.ecommerce.orders.dto.InventoryAvailabilityResponse;
+import com.distributed.ecommerce.orders.dto.OrderPageResponse;
 import com.distributed.ecommerce.orders.dto.OrderResponse;
+import com.distributed.ecommerce.orders.export.OrderExportFormat;
+import com.distributed.ecommerce.orders.export.OrderExporter;
+import com.distributed.ecommerce.orders.search.CustomerOrderSearch;
 import com.distributed.ecommerce.orders.model.OrderStatus;
 import com.distributed.ecommerce.orders.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -25,9 +42,23 @@ public class OrderController {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
     
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private OrderCache orderCache;
+    
+    @Autowired
+    private SoldOutCache soldOutCache;
+    
+    @Autowired
+    private OrderExporter orderExporter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Creates a new order.
      * 
@@ -36,17 +67,22 @@ public class OrderController {
      */
     @PostMapping
     public ResponseEntity<?> createOrder(@Valid @RequestBody CreateOrderRequest createOrderRequest) {
-        logger.info("Received order creation request from customer: {}", createOrderRequest.getCustomerName());
-        logger.debug("Order request details: {}", createOrderRequest);
-        
         try {
+            List<Long> soldOutProductIds = orderService.findSoldOutProducts(createOrderRequest);
+            if (!soldOutProductIds.isEmpty()) {
+                // Refused before anything is written or reserved
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of(
+                                "message", "Order rejected because some products are sold out",
+                                "soldOutProductIds", soldOutProductIds
+                        ));
+            }
+            
             OrderResponse orderResponse = orderService.createOrder(createOrderRequest);
             
             if (orderResponse.getStatus() == OrderStatus.APROVADO) {
-                logger.info("Order {} created and approved successfully", orderResponse.getId());
                 return ResponseEntity.status(HttpStatus.CREATED).body(orderResponse);
             } else if (orderResponse.getStatus() == OrderStatus.CANCELADO) {
-                logger.warn("Order {} created but cancelled due to insufficient stock", orderResponse.getId());
                 return ResponseEntity.status(HttpStatus.CONFLICT)
                         .body(Map.of(
                                 "message", "Order cancelled due to insufficient stock",
@@ -71,6 +107,32 @@ public class OrderController {
         }
     }
     
+    /**
+     * Checks whether a basket could be ordered right now, without creating an order or
+     * reserving stock. The answer is advisory; the order itself is still checked on creation.
+     * 
+     * @param availabilityRequest the products and quantities of the basket
+     * @return ResponseEntity with the availability of each item
+     */
+    @PostMapping("/availability")
+    public ResponseEntity<?> checkAvailability(@Valid @RequestBody InventoryAvailabilityRequest availabilityRequest) {
+        try {
+            Optional<InventoryAvailabilityResponse> availability =
+                    orderService.checkAvailability(availabilityRequest.getItems());
+            
+            if (availability.isPresent()) {
+                return ResponseEntity.ok(availability.get());
+            }
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Inventory service temporarily unavailable"));
+                    
+        } catch (Exception e) {
+            logger.error("Unexpected error while checking availability: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while checking availability"));
+        }
+    }
+    
     /**
      * Retrieves an order by its ID.
      * 
@@ -131,6 +193,79 @@ public class OrderController {
         }
     }
     
+    /**
+     * Searches orders by customer name, newest first, a page at a time.
+     * 
+     * @param customerName words the customer name must contain, each matched as a word prefix
+     * @param before order id returned as nextBefore by the previous page
+     * @param size page size, at most 100
+     * @return ResponseEntity with the page of orders
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchOrdersByCustomerName(@RequestParam String customerName,
+                                                        @RequestParam(required = false) Long before,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        if (CustomerOrderSearch.terms(customerName).isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "customerName must contain letters or digits"));
+        }
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "size must be between 1 and " + MAX_SEARCH_PAGE_SIZE));
+        }
+        
+        try {
+            OrderPageResponse page = orderService.searchOrdersByCustomerName(customerName, before, size);
+            return ResponseEntity.ok(page);
+            
+        } catch (Exception e) {
+            logger.error("Error searching orders by customer name: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("message", "Internal server error while searching orders"));
+        }
+    }
+    
+    /**
+     * Streams the orders created in a time range, items included, as NDJSON or CSV.
+     * 
+     * @param from start of the range, inclusive: an ISO date (midnight) or date-time
+     * @param to end of the range, exclusive, in the same format
+     * @param format ndjson or csv
+     * @param gzip compress the download
+     * @return ResponseEntity streaming the orders as they are read
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam String from,
+                                                              @RequestParam String to,
+                                                              @RequestParam(defaultValue = "ndjson") String format,
+                                                              @RequestParam(defaultValue = "false") boolean gzip) {
+        Optional<LocalDateTime> start = parseExportBound(from);
+        Optional<LocalDateTime> end = parseExportBound(to);
+        if (start.isEmpty() || end.isEmpty()) {
+            return exportError("from and to must be ISO dates (2024-05-01) or date-times (2024-05-01T12:00:00)");
+        }
+        if (!start.get().isBefore(end.get())) {
+            return exportError("from must be before to");
+        }
+        Optional<OrderExportFormat> exportFormat = OrderExportFormat.parse(format);
+        if (exportFormat.isEmpty()) {
+            return exportError("format must be ndjson or csv");
+        }
+        
+        String filename = "orders_" + from + "_" + to + "." + exportFormat.get().getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            long started = System.nanoTime();
+            long orders = orderExporter.export(start.get(), end.get(), exportFormat.get(), gzip, out);
+            logger.info("Exported {} orders from {} to {} as {} in {} ms", orders, from, to, exportFormat.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.get().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename.replace(':', '-')).build().toString())
+                .body(body);
+    }
+    
     /**
      * Retrieves order statistics.
      * 
@@ -151,6 +286,26 @@ public class OrderController {
         }
     }
     
+    /**
+     * Retrieves hit, miss and eviction counts of the order cache.
+     * 
+     * @return ResponseEntity with cache statistics
+     */
+    @GetMapping("/cache/statistics")
+    public ResponseEntity<OrderCache.CacheStatistics> getCacheStatistics() {
+        return ResponseEntity.ok(orderCache.getStatistics());
+    }
+    
+    /**
+     * Retrieves the products currently cached as sold out and the orders refused because of them.
+     * 
+     * @return ResponseEntity with sold-out cache statistics
+     */
+    @GetMapping("/cache/sold-out")
+    public ResponseEntity<SoldOutCache.SoldOutStatistics> getSoldOutStatistics() {
+        return ResponseEntity.ok(soldOutCache.getStatistics());
+    }
+    
     /**
      * Health check endpoint.
      * 
@@ -164,4 +319,22 @@ public class OrderController {
                 "timestamp", java.time.LocalDateTime.now().toString()
         ));
     }
+    
+    /**
+     * A 400 with the usual message body; the export's declared body type is the stream, so
+     * the JSON is written through it.
+     */
+    private ResponseEntity<StreamingResponseBody> exportError(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, Map.of("message", message)));
+    }
+    
+    private static Optional<LocalDateTime> parseExportBound(String value) {
+        try {
+            return Optional.of(value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
 }
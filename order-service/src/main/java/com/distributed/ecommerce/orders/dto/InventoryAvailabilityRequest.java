@@ -0,0 +1,37 @@
+package com.distributed.ecommerce.orders.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class InventoryAvailabilityRequest {
+    
+    @NotEmpty(message = "Items list cannot be empty")
+    @Size(max = 1000, message = "At most 1000 items can be checked per request")
+    @Valid
+    private List<InventoryItemRequest> items;
+    
+    // Constructors
+    public InventoryAvailabilityRequest() {}
+    
+    public InventoryAvailabilityRequest(List<InventoryItemRequest> items) {
+        this.items = items;
+    }
+    
+    // Getters and Setters
+    public List<InventoryItemRequest> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<InventoryItemRequest> items) {
+        this.items = items;
+    }
+    
+    @Override
+    public String toString() {
+        return "InventoryAvailabilityRequest{" +
+                "items=" + items +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.distributed.ecommerce.orders.dto;
+
+import java.util.List;
+
+public class InventoryAvailabilityResponse {
+    
+    private boolean allAvailable;
+    private List<ItemAvailability> items;
+    
+    // Constructors
+    public InventoryAvailabilityResponse() {}
+    
+    // Getters and Setters
+    public boolean isAllAvailable() {
+        return allAvailable;
+    }
+    
+    public void setAllAvailable(boolean allAvailable) {
+        this.allAvailable = allAvailable;
+    }
+    
+    public List<ItemAvailability> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<ItemAvailability> items) {
+        this.items = items;
+    }
+    
+    @Override
+    public String toString() {
+        return "InventoryAvailabilityResponse{" +
+                "allAvailable=" + allAvailable +
+                ", items=" + items +
+                '}';
+    }
+    
+    public static class ItemAvailability {
+        
+        private Long productId;
+        private Integer requestedQuantity;
+        private Integer availableQuantity;
+        private boolean found;
+        private boolean available;
+        
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+        public Integer getRequestedQuantity() { return requestedQuantity; }
+        public void setRequestedQuantity(Integer requestedQuantity) { this.requestedQuantity = requestedQuantity; }
+        public Integer getAvailableQuantity() { return availableQuantity; }
+        public void setAvailableQuantity(Integer availableQuantity) { this.availableQuantity = availableQuantity; }
+        public boolean isFound() { return found; }
+        public void setFound(boolean found) { this.found = found; }
+        public boolean isAvailable() { return available; }
+        public void setAvailable(boolean available) { this.available = available; }
+        
+        @Override
+        public String toString() {
+            return "ItemAvailability{" +
+                    "productId=" + productId +
+                    ", requestedQuantity=" + requestedQuantity +
+                    ", availableQuantity=" + availableQuantity +
+                    ", available=" + available +
+                    '}';
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.distributed.ecommerce.orders.dto;
 
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
 public class InventoryItemRequest {
     
+    @NotNull(message = "Product ID is required")
     private Long productId;
+    
+    @NotNull(message = "Quantity is required")
+    @Positive(message = "Quantity must be positive")
     private Integer quantity;
     
     // Constructors
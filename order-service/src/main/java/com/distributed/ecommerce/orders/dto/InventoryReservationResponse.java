@@ -1,10 +1,13 @@
 package com.distributed.ecommerce.orders.dto;
 
+import java.util.List;
+
 public class InventoryReservationResponse {
     
     private boolean success;
     private String message;
     private Long reservationId;
+    private List<Long> soldOutProductIds = List.of();
     
     // Constructors
     public InventoryReservationResponse() {}
@@ -45,12 +48,21 @@ public class InventoryReservationResponse {
         this.reservationId = reservationId;
     }
     
+    public List<Long> getSoldOutProductIds() {
+        return soldOutProductIds;
+    }
+    
+    public void setSoldOutProductIds(List<Long> soldOutProductIds) {
+        this.soldOutProductIds = soldOutProductIds;
+    }
+    
     @Override
     public String toString() {
         return "InventoryReservationResponse{" +
                 "success=" + success +
                 ", message='" + message + '\'' +
                 ", reservationId=" + reservationId +
+                ", soldOutProductIds=" + soldOutProductIds +
                 '}';
     }
 }
@@ -0,0 +1,56 @@
+package com.distributed.ecommerce.orders.dto;
+
+import java.util.List;
+
+public class OrderPageResponse {
+    
+    private List<OrderResponse> orders;
+    private int size;
+    private Long nextBefore;
+    
+    // Constructors
+    public OrderPageResponse() {}
+    
+    public OrderPageResponse(List<OrderResponse> orders, int size, Long nextBefore) {
+        this.orders = orders;
+        this.size = size;
+        this.nextBefore = nextBefore;
+    }
+    
+    // Getters and Setters
+    public List<OrderResponse> getOrders() {
+        return orders;
+    }
+    
+    public void setOrders(List<OrderResponse> orders) {
+        this.orders = orders;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public void setSize(int size) {
+        this.size = size;
+    }
+    
+    /**
+     * Order id to pass as {@code before} for the next page, or null on the last page.
+     */
+    public Long getNextBefore() {
+        return nextBefore;
+    }
+    
+    public void setNextBefore(Long nextBefore) {
+        this.nextBefore = nextBefore;
+    }
+    
+    @Override
+    public String toString() {
+        return "OrderPageResponse{" +
+                "orders=" + orders.size() +
+                ", size=" + size +
+                ", nextBefore=" + nextBefore +
+                '}';
+    }
+}
@@ -0,0 +1,37 @@
+package com.distributed.ecommerce.orders.export;
+
+import java.util.Locale;
+import java.util.Optional;
+
+public enum OrderExportFormat {
+    
+    /** One order per line, items nested, in the format of the orders API. */
+    NDJSON("application/x-ndjson", "ndjson"),
+    
+    /** One line per order item, order columns repeated; orders without items get one line. */
+    CSV("text/csv", "csv");
+    
+    private final String contentType;
+    private final String extension;
+    
+    OrderExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+    
+    public static Optional<OrderExportFormat> parse(String value) {
+        try {
+            return Optional.of(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+}
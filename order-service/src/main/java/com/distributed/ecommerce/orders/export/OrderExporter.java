@@ -0,0 +1,197 @@
+package com.distributed.ecommerce.orders.export;
+
+import com.distributed.ecommerce.orders.archive.OrderPartitionManager;
+import com.distributed.ecommerce.orders.dto.OrderItemDto;
+import com.distributed.ecommerce.orders.dto.OrderResponse;
+import com.distributed.ecommerce.orders.id.OrderIdGenerator;
+import com.distributed.ecommerce.orders.repository.OrderItemRowHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the orders created in a time range, items included, straight from a database cursor
+ * to the response. The query runs in a read-only transaction with a fetch size, so PostgreSQL
+ * sends rows in batches of {@code order.export.fetch-size} instead of the whole result, and
+ * each order is written as soon as its last item is read: memory use does not depend on how
+ * many orders the range holds.
+ * <p>
+ * The time range is also given to the query as an id range, since ids begin with their
+ * creation time: PostgreSQL then skips the partitions of other months, of {@code orders} and
+ * {@code order_items} alike, instead of probing the {@code created_at} index of each.
+ */
+@Component
+public class OrderExporter {
+    
+    private static final String CSV_HEADER = "order_id,created_at,updated_at,status,customer_name,customer_email,"
+            + "customer_address,customer_phone,total_amount,product_id,product_name,quantity,price\n";
+    
+    /** Seconds always present, unlike LocalDateTime.toString(), so every row parses alike. */
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * Widens the id range around the time range. An id is issued just before its order's
+     * {@code createdAt} is taken, from a clock that may run a few seconds ahead of it, and
+     * {@code createdAt} is local time, so the two can differ by a DST shift. Partitions are a
+     * month wide, so the slack only adds a partition near a month boundary.
+     */
+    private static final Duration ID_SLACK = Duration.ofDays(1);
+    
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final OrderPartitionManager partitionManager;
+    
+    public OrderExporter(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         OrderPartitionManager partitionManager,
+                         @Value("${order.export.fetch-size:1000}") int fetchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.partitionManager = partitionManager;
+    }
+    
+    /**
+     * Writes the orders with {@code from <= createdAt < to}, in id order.
+     * 
+     * @return number of orders written
+     */
+    public long export(LocalDateTime from, LocalDateTime to, OrderExportFormat format, boolean gzip,
+                       OutputStream out) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        OutputStream target = new BufferedOutputStream(compressed != null ? compressed : out, BUFFER_SIZE);
+        Writer csv = format == OrderExportFormat.CSV ? new OutputStreamWriter(target, StandardCharsets.UTF_8) : null;
+        if (csv != null) {
+            csv.write(CSV_HEADER);
+        }
+        
+        OrderItemRowHandler rows = new OrderItemRowHandler(order -> {
+            if (csv != null) {
+                writeCsv(csv, order);
+            } else {
+                target.write(objectMapper.writeValueAsBytes(order));
+                target.write('\n');
+            }
+        });
+        long firstId = OrderIdGenerator.firstIdAt(from.atZone(ZoneId.systemDefault()).toInstant().minus(ID_SLACK));
+        // A range starting in the legacy partition reads all of it anyway, ids issued before
+        // OrderIdGenerator included, which are small numbers whatever their time
+        long fromId = firstId < partitionManager.getLegacyEnd() ? Long.MIN_VALUE : firstId;
+        long toId = OrderIdGenerator.firstIdAt(to.atZone(ZoneId.systemDefault()).toInstant().plus(ID_SLACK));
+        
+        long orders;
+        try {
+            // The cursor only stays open, and the fetch size only applies, inside a transaction
+            orders = readOnlyTransaction.execute(status -> {
+                // The bounds are repeated for order_items: PostgreSQL does not carry ranges across the join
+                cursorJdbcTemplate.query("SELECT " + OrderItemRowHandler.COLUMNS
+                                + " FROM orders o LEFT JOIN order_items i ON i.order_id = o.id "
+                                + "AND i.order_id >= ? AND i.order_id < ? "
+                                + "WHERE o.id >= ? AND o.id < ? AND o.created_at >= ? AND o.created_at < ? "
+                                + "ORDER BY o.id, i.id",
+                        rows, fromId, toId, fromId, toId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+                return rows.finish();
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-download
+            throw e.getCause();
+        }
+        
+        if (csv != null) {
+            csv.flush();
+        }
+        target.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        return orders;
+    }
+    
+    private static void writeCsv(Writer csv, OrderResponse order) throws IOException {
+        if (order.getItems().isEmpty()) {
+            writeCsvLine(csv, order, null);
+        }
+        for (OrderItemDto item : order.getItems()) {
+            writeCsvLine(csv, order, item);
+        }
+    }
+    
+    private static void writeCsvLine(Writer csv, OrderResponse order, OrderItemDto item) throws IOException {
+        csv.write(String.valueOf(order.getId()));
+        csv.write(',');
+        csv.write(TIMESTAMP.format(order.getCreatedAt()));
+        csv.write(',');
+        if (order.getUpdatedAt() != null) {
+            csv.write(TIMESTAMP.format(order.getUpdatedAt()));
+        }
+        csv.write(',');
+        csv.write(order.getStatus().name());
+        csv.write(',');
+        writeCsvField(csv, order.getCustomerName());
+        csv.write(',');
+        writeCsvField(csv, order.getCustomerEmail());
+        csv.write(',');
+        writeCsvField(csv, order.getCustomerAddress());
+        csv.write(',');
+        writeCsvField(csv, order.getCustomerPhone());
+        csv.write(',');
+        csv.write(order.getTotalAmount().toPlainString());
+        csv.write(',');
+        if (item != null) {
+            csv.write(String.valueOf(item.getProductId()));
+            csv.write(',');
+            writeCsvField(csv, item.getProductName());
+            csv.write(',');
+            csv.write(String.valueOf(item.getQuantity()));
+            csv.write(',');
+            csv.write(item.getPrice().toPlainString());
+        } else {
+            csv.write(",,,");
+        }
+        csv.write('\n');
+    }
+    
+    /**
+     * Writes a field quoted when it holds a separator, quote or line break (RFC 4180).
+     */
+    private static void writeCsvField(Writer csv, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            csv.write(value);
+            return;
+        }
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+    }
+}
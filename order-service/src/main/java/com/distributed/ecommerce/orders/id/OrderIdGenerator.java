@@ -0,0 +1,126 @@
+package com.distributed.ecommerce.orders.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered order ids without a database round trip, Snowflake style:
+ * milliseconds since {@link #EPOCH} in the high bits, then the node id, then a per-millisecond
+ * sequence. Ids from one node are strictly increasing; ids from different nodes never collide
+ * as long as every order-service instance has its own {@code order.id.node-id}.
+ * <p>
+ * The layout is 41 + 5 + 7 bits, so ids stay below 2^53 and are represented exactly by
+ * JavaScript numbers in the frontend: 32 nodes, 128 ids per millisecond per node, until 2093.
+ * <p>
+ * Without {@code order.id.node-id}, the node id is a hash of the host name. That is only safe
+ * for a single instance: with 32 node ids, about one pair of hosts in 32 gets the same one, and
+ * their orders created in the same millisecond get the same ids. Setting
+ * {@code order.id.require-node-id=true} makes a replicated deployment fail at startup instead.
+ */
+@Component
+public class OrderIdGenerator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdGenerator.class);
+    
+    /** 2024-01-01T00:00:00Z */
+    public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    
+    /** How far the clock may step back before generation fails instead of waiting it out. */
+    private static final long MAX_CLOCK_BACKWARDS_MILLIS = 5_000;
+    
+    private final long nodeId;
+    
+    /** Last issued (timestamp << SEQUENCE_BITS | sequence), advanced with CAS. */
+    private final AtomicLong lastState = new AtomicLong();
+    
+    public OrderIdGenerator(@Value("${order.id.node-id:-1}") int configuredNodeId,
+                            @Value("${order.id.require-node-id:false}") boolean requireNodeId) {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("order.id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        if (configuredNodeId >= 0) {
+            this.nodeId = configuredNodeId;
+        } else if (requireNodeId) {
+            throw new IllegalStateException("order.id.node-id must be set, unique per instance, "
+                    + "when order.id.require-node-id=true");
+        } else {
+            this.nodeId = deriveNodeId();
+            logger.warn("order.id.node-id not set, derived node id {} from the host name; this is only safe for " +
+                        "a single order-service instance, set it explicitly when running more than one", nodeId);
+        }
+    }
+    
+    /**
+     * Returns the next id. Never blocks on I/O; spins only when 128 ids were already issued
+     * in the current millisecond or the clock stepped back.
+     */
+    public long nextId() {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH;
+            long last = lastState.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond, or the clock went back: keep counting on the last timestamp
+                next = last + 1;
+            } else {
+                if (lastTimestamp - now > MAX_CLOCK_BACKWARDS_MILLIS) {
+                    throw new IllegalStateException("System clock moved back " + (lastTimestamp - now) + " ms");
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+    
+    public long getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * Extracts the creation time encoded in an id.
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH);
+    }
+    
+    /**
+     * Returns the smallest id any node can generate at the given instant, so the ids of a time
+     * range {@code [from, to)} are exactly {@code [firstIdAt(from), firstIdAt(to))}.
+     */
+    public static long firstIdAt(Instant instant) {
+        return (instant.toEpochMilli() - EPOCH) << (NODE_BITS + SEQUENCE_BITS);
+    }
+    
+    private static long deriveNodeId() {
+        String host = System.getenv("HOSTNAME");
+        if (host == null || host.isBlank()) {
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                host = "localhost";
+            }
+        }
+        return Math.floorMod(host.hashCode(), MAX_NODE_ID + 1);
+    }
+}
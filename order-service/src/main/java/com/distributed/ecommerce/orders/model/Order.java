@@ -1,20 +1,26 @@
 package com.distributed.ecommerce.orders.model;
 
+import com.distributed.ecommerce.orders.search.CustomerNameTokens;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.data.domain.Persistable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
 @Table(name = "orders")
-public class Order {
+public class Order implements Persistable<Long> {
     
+    /**
+     * Assigned by {@link com.distributed.ecommerce.orders.id.OrderIdGenerator} before the order is saved.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
     @NotBlank(message = "Customer name is required")
@@ -50,6 +56,22 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> items = new ArrayList<>();
     
+    /**
+     * Words of the customer name, inserted with the order so customer searches use the
+     * {@code (token, order_id)} index; see {@link com.distributed.ecommerce.orders.search.CustomerOrderSearch}.
+     */
+    @ElementCollection
+    @CollectionTable(name = "order_customer_tokens",
+                     joinColumns = @JoinColumn(name = "order_id"),
+                     indexes = @Index(name = "idx_order_customer_tokens_token", columnList = "token, order_id"))
+    @Column(name = "token", nullable = false, length = CustomerNameTokens.MAX_TOKEN_LENGTH)
+    private Set<String> customerNameTokens = new HashSet<>();
+    
+    // With an assigned id Spring Data cannot tell new orders apart by a null id, and would
+    // SELECT before every insert through merge()
+    @Transient
+    private boolean isNew = true;
+    
     // Constructors
     public Order() {
         this.createdAt = LocalDateTime.now();
@@ -59,7 +81,7 @@ public class Order {
     public Order(String customerName, String customerEmail, String customerAddress, 
                  String customerPhone, BigDecimal totalAmount) {
         this();
-        this.customerName = customerName;
+        setCustomerName(customerName);
         this.customerEmail = customerEmail;
         this.customerAddress = customerAddress;
         this.customerPhone = customerPhone;
@@ -72,6 +94,17 @@ public class Order {
         this.updatedAt = LocalDateTime.now();
     }
     
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
     // Business methods
     public void addItem(OrderItem item) {
         items.add(item);
@@ -113,6 +146,8 @@ public class Order {
     
     public void setCustomerName(String customerName) {
         this.customerName = customerName;
+        this.customerNameTokens.clear();
+        this.customerNameTokens.addAll(CustomerNameTokens.of(customerName));
     }
     
     public String getCustomerEmail() {
@@ -0,0 +1,81 @@
+package com.distributed.ecommerce.orders.repository;
+
+import com.distributed.ecommerce.orders.dto.OrderItemDto;
+import com.distributed.ecommerce.orders.dto.OrderResponse;
+import com.distributed.ecommerce.orders.model.OrderStatus;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+
+/**
+ * Rebuilds orders from the rows of {@code orders o LEFT JOIN order_items i}, selected with
+ * {@link #COLUMNS} and sorted by order id, handing each one over as soon as its last item was
+ * read. Only the current order is held, so a cursor over millions of orders runs in constant
+ * memory. Call {@link #finish()} after the query to hand over the last order.
+ */
+public class OrderItemRowHandler implements RowCallbackHandler {
+    
+    public static final String COLUMNS = "o.id, o.customer_name, o.customer_email, o.customer_address, "
+            + "o.customer_phone, o.total_amount, o.status, o.created_at, o.updated_at, "
+            + "i.product_id, i.product_name, i.quantity, i.price";
+    
+    private final OrderSink sink;
+    private OrderResponse current;
+    private long orders;
+    
+    public OrderItemRowHandler(OrderSink sink) {
+        this.sink = sink;
+    }
+    
+    @Override
+    public void processRow(ResultSet row) throws SQLException {
+        long id = row.getLong("id");
+        if (current == null || current.getId() != id) {
+            emit();
+            Timestamp updatedAt = row.getTimestamp("updated_at");
+            current = new OrderResponse(id, row.getString("customer_name"), row.getString("customer_email"),
+                    row.getString("customer_address"), row.getString("customer_phone"),
+                    row.getBigDecimal("total_amount"), OrderStatus.valueOf(row.getString("status")),
+                    row.getTimestamp("created_at").toLocalDateTime(),
+                    updatedAt == null ? null : updatedAt.toLocalDateTime(), new ArrayList<>());
+        }
+        if (row.getObject("product_id") != null) {
+            current.getItems().add(new OrderItemDto(row.getLong("product_id"), row.getString("product_name"),
+                    row.getInt("quantity"), row.getBigDecimal("price")));
+        }
+    }
+    
+    /**
+     * Hands over the last order.
+     * 
+     * @return number of orders handed over
+     */
+    public long finish() {
+        emit();
+        return orders;
+    }
+    
+    private void emit() {
+        if (current == null) {
+            return;
+        }
+        try {
+            sink.accept(current);
+        } catch (IOException e) {
+            // RowCallbackHandler cannot throw it; callers unwrap it after the query
+            throw new UncheckedIOException(e);
+        }
+        orders++;
+        current = null;
+    }
+    
+    @FunctionalInterface
+    public interface OrderSink {
+        void accept(OrderResponse order) throws IOException;
+    }
+}
@@ -7,7 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,14 +18,15 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     List<Order> findByCustomerEmail(String customerEmail);
     
-    List<Order> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
-    
-    @Query("SELECT o FROM Order o WHERE o.customerName LIKE %:customerName%")
-    List<Order> findByCustomerNameContaining(@Param("customerName") String customerName);
-    
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
     Optional<Order> findByIdWithItems(@Param("id") Long id);
     
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findAllByIdWithItems(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.customerEmail = :customerEmail")
+    List<Order> findByCustomerEmailWithItems(@Param("customerEmail") String customerEmail);
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     Long countByStatus(@Param("status") OrderStatus status);
 }
@@ -0,0 +1,74 @@
+package com.distributed.ecommerce.orders.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits customer names into the words stored in {@code order_customer_tokens}. Accents are
+ * removed, letters lowercased and anything other than letters and digits becomes a word break,
+ * so "João da Silva" and "JOAO DA SILVA" produce the same tokens.
+ */
+public final class CustomerNameTokens {
+    
+    /** Length of the token column; longer words are truncated, which keeps prefix matches exact. */
+    public static final int MAX_TOKEN_LENGTH = 32;
+    
+    /** Words kept per name, so a pathological name cannot write hundreds of rows. */
+    static final int MAX_TOKENS = 16;
+    
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    
+    private CustomerNameTokens() {
+    }
+    
+    /**
+     * Returns the distinct words of the name, in order of appearance.
+     */
+    public static List<String> of(String name) {
+        List<String> tokens = new ArrayList<>();
+        if (name == null || name.isEmpty()) {
+            return tokens;
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < stripped.length() && tokens.size() < MAX_TOKENS) {
+            while (i < stripped.length() && !Character.isLetterOrDigit(stripped.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < stripped.length() && Character.isLetterOrDigit(stripped.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                String token = stripped.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH));
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+            }
+        }
+        return tokens;
+    }
+    
+    /**
+     * Returns the smallest string greater than every token starting with {@code prefix}, or
+     * {@code null} when there is none. Digits and unaccented letters are kept within
+     * {@code [0-9a-z]} ({@code "9"} is followed by {@code "a"}, a trailing {@code "z"} carries
+     * over), so the range {@code [prefix, bound)} means the same under the C collation and the
+     * linguistic ones PostgreSQL databases are usually created with.
+     */
+    public static String prefixUpperBound(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c == 'z' || c == Character.MAX_VALUE) {
+                continue;
+            }
+            char next = c == '9' ? 'a' : (char) (c + 1);
+            return prefix.substring(0, i) + next;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,140 @@
+package com.distributed.ecommerce.orders.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds orders by customer name through {@code order_customer_tokens}, the words of each
+ * customer name written in the same transaction as the order (see {@link CustomerNameTokens}).
+ * Every word of the query is matched as a prefix of a token with a range scan on the
+ * {@code (token, order_id)} index, instead of the {@code LIKE '%...%'} that read the whole
+ * orders table. Results come newest first and are paged by order id, so deep pages cost the
+ * same as the first.
+ * <p>
+ * Orders stored before the table existed have no tokens; they are backfilled in batches on a
+ * background thread at startup while {@code order.customer-search.backfill-on-startup} is set.
+ */
+@Component
+public class CustomerOrderSearch {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CustomerOrderSearch.class);
+    
+    /** Query words beyond this are dropped, shortest first; each one adds a join. */
+    static final int MAX_TERMS = 4;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean backfillOnStartup;
+    private final int backfillBatchSize;
+    
+    public CustomerOrderSearch(JdbcTemplate jdbcTemplate,
+                               @Value("${order.customer-search.backfill-on-startup:true}") boolean backfillOnStartup,
+                               @Value("${order.customer-search.backfill-batch-size:1000}") int backfillBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.backfillOnStartup = backfillOnStartup;
+        this.backfillBatchSize = backfillBatchSize;
+    }
+    
+    /**
+     * Returns the search terms of a query, longest first, or an empty list when it has no
+     * letters or digits.
+     */
+    public static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>(CustomerNameTokens.of(query));
+        terms.sort(Comparator.comparingInt(String::length).reversed());
+        return terms.size() > MAX_TERMS ? terms.subList(0, MAX_TERMS) : terms;
+    }
+    
+    /**
+     * Returns the ids of up to {@code limit} orders whose customer name has a word starting with
+     * each term, in descending id order and below {@code beforeId} when it is given.
+     */
+    public List<Long> findOrderIds(List<String> terms, Long beforeId, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT DISTINCT t0.order_id FROM order_customer_tokens t0");
+        for (int i = 1; i < terms.size(); i++) {
+            sql.append(" JOIN order_customer_tokens t").append(i)
+                    .append(" ON t").append(i).append(".order_id = t0.order_id AND ");
+            appendPrefix(sql, "t" + i, terms.get(i), args);
+        }
+        // The longest term leads, as it usually matches the fewest tokens
+        sql.append(" WHERE ");
+        appendPrefix(sql, "t0", terms.get(0), args);
+        if (beforeId != null) {
+            sql.append(" AND t0.order_id < ?");
+            args.add(beforeId);
+        }
+        sql.append(" ORDER BY t0.order_id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+    
+    private static void appendPrefix(StringBuilder sql, String alias, String term, List<Object> args) {
+        sql.append(alias).append(".token >= ?");
+        args.add(term);
+        String upperBound = CustomerNameTokens.prefixUpperBound(term);
+        if (upperBound != null) {
+            sql.append(" AND ").append(alias).append(".token < ?");
+            args.add(upperBound);
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Thread thread = new Thread(this::backfill, "customer-token-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Writes the tokens of orders that have none, walking the orders table in id order.
+     */
+    void backfill() {
+        long start = System.nanoTime();
+        long lastId = Long.MIN_VALUE;
+        long backfilled = 0;
+        try {
+            while (true) {
+                List<Object[]> rows = new ArrayList<>();
+                List<Long> ids = new ArrayList<>();
+                jdbcTemplate.query("SELECT o.id, o.customer_name FROM orders o WHERE o.id > ? "
+                                + "AND NOT EXISTS (SELECT 1 FROM order_customer_tokens t WHERE t.order_id = o.id) "
+                                + "ORDER BY o.id LIMIT ?",
+                        row -> {
+                            long orderId = row.getLong(1);
+                            ids.add(orderId);
+                            for (String token : CustomerNameTokens.of(row.getString(2))) {
+                                rows.add(new Object[] {orderId, token});
+                            }
+                        }, lastId, backfillBatchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                // Orders commit together with their tokens, so the ones read here cannot gain
+                // tokens concurrently
+                jdbcTemplate.batchUpdate("INSERT INTO order_customer_tokens (order_id, token) VALUES (?, ?)", rows);
+                lastId = ids.get(ids.size() - 1);
+                backfilled += ids.size();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Customer name token backfill stopped after {} orders: {}", backfilled, e.getMessage());
+            return;
+        }
+        if (backfilled > 0) {
+            logger.info("Backfilled customer name tokens of {} orders in {} ms", backfilled,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.distributed.ecommerce.orders.service;
 
+import com.distributed.ecommerce.eventlog.EventLog;
+import com.distributed.ecommerce.orders.dto.InventoryAvailabilityRequest;
+import com.distributed.ecommerce.orders.dto.InventoryAvailabilityResponse;
+import com.distributed.ecommerce.orders.dto.InventoryItemRequest;
 import com.distributed.ecommerce.orders.dto.InventoryReservationRequest;
 import com.distributed.ecommerce.orders.dto.InventoryReservationResponse;
+import com.distributed.ecommerce.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +17,9 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class InventoryService {
@@ -20,59 +28,101 @@ public class InventoryService {
     
     private final WebClient webClient;
     
+    private final EventLog eventLog;
+    
     @Value("${inventory.service.url}")
     private String inventoryServiceUrl;
     
     @Value("${inventory.service.timeout:30000}")
     private int timeoutMillis;
     
-    public InventoryService() {
+    public InventoryService(Tracer tracer, EventLog eventLog) {
+        this.eventLog = eventLog;
         this.webClient = WebClient.builder()
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
+                .defaultRequest(spec -> spec.headers(tracer::inject))
                 .build();
     }
     
     /**
-     * Attempts to reserve inventory for the given order items.
+     * Starts an inventory reservation for the given order items without blocking.
+     * The request (including trace headers) is built on the calling thread; failures are
+     * mapped to an unsuccessful response, so the returned future does not complete exceptionally
+     * for HTTP or timeout errors.
      * 
      * @param reservationRequest the reservation request containing order details and items
-     * @return InventoryReservationResponse indicating success or failure
+     * @return future InventoryReservationResponse indicating success or failure
      */
-    public InventoryReservationResponse reserveInventory(InventoryReservationRequest reservationRequest) {
-        logger.info("Attempting to reserve inventory for order {}: {}", 
-                   reservationRequest.getOrderId(), reservationRequest);
-        
-        try {
-            InventoryReservationResponse response = webClient
-                    .post()
-                    .uri(inventoryServiceUrl + "/api/inventory/reserve")
-                    .bodyValue(reservationRequest)
-                    .retrieve()
-                    .bodyToMono(InventoryReservationResponse.class)
-                    .timeout(Duration.ofMillis(timeoutMillis))
-                    .block();
-            
-            logger.info("Inventory reservation response for order {}: {}", 
-                       reservationRequest.getOrderId(), response);
-            
-            return response != null ? response : new InventoryReservationResponse(false, "Empty response from inventory service");
+    public CompletableFuture<InventoryReservationResponse> reserveInventory(InventoryReservationRequest reservationRequest) {
+        return webClient
+                .post()
+                .uri(inventoryServiceUrl + "/api/inventory/reserve")
+                .bodyValue(reservationRequest)
+                .retrieve()
+                .bodyToMono(InventoryReservationResponse.class)
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .defaultIfEmpty(new InventoryReservationResponse(false, "Empty response from inventory service"))
+                .onErrorResume(e -> Mono.just(toFailedReservation(reservationRequest.getOrderId(), e)))
+                .toFuture();
+    }
+    
+    /**
+     * Asks the inventory service whether the given items could be reserved right now, without
+     * reserving anything. The answer is advisory: stock may change before a reservation is made.
+     * 
+     * @param items the products and quantities to check
+     * @return future availability, empty if the inventory service could not answer
+     */
+    public CompletableFuture<Optional<InventoryAvailabilityResponse>> checkAvailability(List<InventoryItemRequest> items) {
+        return webClient
+                .post()
+                .uri(inventoryServiceUrl + "/api/inventory/availability")
+                .bodyValue(new InventoryAvailabilityRequest(items))
+                .retrieve()
+                .bodyToMono(InventoryAvailabilityResponse.class)
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(e -> {
+                    logger.warn("Availability check of {} items failed: {}", items.size(), e.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .toFuture();
+    }
+    
+    private InventoryReservationResponse toFailedReservation(Long orderId, Throwable error) {
+        if (error instanceof WebClientResponseException e) {
+            if (e.getStatusCode() == HttpStatus.CONFLICT) {
+                // Expected rejection when stock runs out; OrderService records the cancellation
+                InventoryReservationResponse rejection = new InventoryReservationResponse(false, "Insufficient stock for one or more items");
+                InventoryReservationResponse body = decodeRejection(e);
+                if (body != null && body.getSoldOutProductIds() != null) {
+                    rejection.setSoldOutProductIds(body.getSoldOutProductIds());
+                }
+                return rejection;
+            }
             
-        } catch (WebClientResponseException e) {
             logger.error("HTTP error while reserving inventory for order {}: Status={}, Body={}", 
-                        reservationRequest.getOrderId(), e.getStatusCode(), e.getResponseBodyAsString());
+                        orderId, e.getStatusCode(), e.getResponseBodyAsString());
             
-            if (e.getStatusCode() == HttpStatus.CONFLICT) {
-                return new InventoryReservationResponse(false, "Insufficient stock for one or more items");
-            } else if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+            if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
                 return new InventoryReservationResponse(false, "Inventory service temporarily unavailable");
             } else {
                 return new InventoryReservationResponse(false, "Error communicating with inventory service: " + e.getMessage());
             }
-            
-        } catch (Exception e) {
-            logger.error("Unexpected error while reserving inventory for order {}: {}", 
-                        reservationRequest.getOrderId(), e.getMessage(), e);
-            return new InventoryReservationResponse(false, "Failed to communicate with inventory service: " + e.getMessage());
+        }
+        
+        logger.error("Unexpected error while reserving inventory for order {}: {}", 
+                    orderId, error.getMessage(), error);
+        return new InventoryReservationResponse(false, "Failed to communicate with inventory service: " + error.getMessage());
+    }
+    
+    private InventoryReservationResponse decodeRejection(WebClientResponseException e) {
+        try {
+            return e.getResponseBodyAs(InventoryReservationResponse.class);
+        } catch (RuntimeException decodingError) {
+            logger.debug("Could not decode reservation rejection: {}", decodingError.getMessage());
+            return null;
         }
     }
     
@@ -84,8 +134,6 @@ public class InventoryService {
      * @return true if successful, false otherwise
      */
     public boolean releaseInventoryReservation(Long orderId) {
-        logger.info("Attempting to release inventory reservation for order {}", orderId);
-        
         try {
             String response = webClient
                     .post()
@@ -96,7 +144,7 @@ public class InventoryService {
                     .timeout(Duration.ofMillis(timeoutMillis))
                     .block();
             
-            logger.info("Inventory release response for order {}: {}", orderId, response);
+            eventLog.info("inventory.released").with("orderId", orderId).log();
             return true;
             
         } catch (Exception e) {
@@ -1,18 +1,26 @@
 package com.distributed.ecommerce.orders.service;
 
+import com.distributed.ecommerce.eventlog.EventLog;
+import com.distributed.ecommerce.orders.archive.OrderArchive;
+import com.distributed.ecommerce.orders.cache.OrderCache;
+import com.distributed.ecommerce.orders.cache.SoldOutCache;
 import com.distributed.ecommerce.orders.dto.*;
+import com.distributed.ecommerce.orders.id.OrderIdGenerator;
 import com.distributed.ecommerce.orders.model.Order;
 import com.distributed.ecommerce.orders.model.OrderItem;
 import com.distributed.ecommerce.orders.model.OrderStatus;
 import com.distributed.ecommerce.orders.repository.OrderRepository;
+import com.distributed.ecommerce.orders.search.CustomerOrderSearch;
+import com.distributed.ecommerce.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,18 +34,69 @@ public class OrderService {
     @Autowired
     private InventoryService inventoryService;
     
+    @Autowired
+    private EventLog eventLog;
+    
+    @Autowired
+    private OrderIdGenerator orderIdGenerator;
+    
+    @Autowired
+    private Tracer tracer;
+    
+    @Autowired
+    private OrderCache orderCache;
+    
+    @Autowired
+    private SoldOutCache soldOutCache;
+    
+    @Autowired
+    private CustomerOrderSearch customerOrderSearch;
+    
+    @Autowired
+    private OrderArchive orderArchive;
+    
+    /**
+     * Returns the products of the request that inventory recently reported as sold out.
+     * An order containing any of them can be refused without being created.
+     * 
+     * @param createOrderRequest the order creation request
+     * @return ids of the sold-out products, empty if none
+     */
+    public List<Long> findSoldOutProducts(CreateOrderRequest createOrderRequest) {
+        return soldOutCache.findSoldOut(createOrderRequest.getItems().stream()
+                .map(OrderItemDto::getProductId)
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Checks with the inventory service whether the items could be reserved right now, so a
+     * basket that cannot be fulfilled is refused before any order is created. Nothing is
+     * reserved, and stock may still change before the order is placed.
+     * 
+     * @param items the products and quantities to check
+     * @return availability of each item, empty if the inventory service could not answer
+     */
+    public Optional<InventoryAvailabilityResponse> checkAvailability(List<InventoryItemRequest> items) {
+        return inventoryService.checkAvailability(items).join();
+    }
+    
     /**
      * Creates a new order and processes it by attempting to reserve inventory.
+     * The order id is generated up front, so the reservation is sent before anything is written
+     * and the order row is inserted once, already carrying its final status. No transaction is
+     * held open while the inventory service is called.
      * 
      * @param createOrderRequest the order creation request
      * @return OrderResponse with the created order and its final status
      */
-    @Transactional
     public OrderResponse createOrder(CreateOrderRequest createOrderRequest) {
-        logger.info("Creating new order for customer: {}", createOrderRequest.getCustomerName());
-        logger.debug("Order details: {}", createOrderRequest);
+        long orderId = orderIdGenerator.nextId();
+        
+        // Dispatch the reservation first; the order entity is built while it is in flight
+        Tracer.SpanScope reservationSpan = tracer.startSpan("OrderService.awaitReservation");
+        CompletableFuture<InventoryReservationResponse> reservation =
+                inventoryService.reserveInventory(createInventoryReservationRequest(orderId, createOrderRequest));
         
-        // Create and save the order entity
         Order order = new Order(
                 createOrderRequest.getCustomerName(),
                 createOrderRequest.getCustomerEmail(),
@@ -45,6 +104,7 @@ public class OrderService {
                 createOrderRequest.getCustomerPhone(),
                 createOrderRequest.getTotalAmount()
         );
+        order.setId(orderId);
         
         // Add order items
         for (OrderItemDto itemDto : createOrderRequest.getItems()) {
@@ -57,40 +117,62 @@ public class OrderService {
             order.addItem(orderItem);
         }
         
-        // Save the order with PENDENTE status
-        order = orderRepository.save(order);
-        logger.info("Order created with ID: {} and status: {}", order.getId(), order.getStatus());
+        eventLog.info("order.created").with("orderId", orderId).with("items", order.getItems().size()).log();
+        if (eventLog.isSampled(orderId)) {
+            for (OrderItem item : order.getItems()) {
+                eventLog.detail(orderId, "order.item").with("orderId", orderId)
+                        .with("productId", item.getProductId()).with("quantity", item.getQuantity())
+                        .with("price", item.getPrice()).log();
+            }
+        }
         
-        // Attempt to reserve inventory
+        // Wait for the reservation outcome
+        boolean reserved = false;
         try {
-            InventoryReservationRequest reservationRequest = createInventoryReservationRequest(order);
-            InventoryReservationResponse reservationResponse = inventoryService.reserveInventory(reservationRequest);
+            InventoryReservationResponse reservationResponse = reservation.join();
+            eventLog.detail(orderId, "inventory.reserved").with("orderId", orderId)
+                    .with("success", reservationResponse.isSuccess()).log();
             
             if (reservationResponse.isSuccess()) {
                 order.approve();
-                logger.info("Order {} approved - inventory reserved successfully", order.getId());
+                reserved = true;
             } else {
                 order.cancel();
-                logger.warn("Order {} cancelled - inventory reservation failed: {}", 
-                           order.getId(), reservationResponse.getMessage());
+                soldOutCache.markSoldOut(reservationResponse.getSoldOutProductIds());
+                eventLog.warn("order.cancelled").with("orderId", orderId)
+                        .with("reason", reservationResponse.getMessage()).log();
             }
             
         } catch (Exception e) {
             logger.error("Unexpected error during inventory reservation for order {}: {}", 
-                        order.getId(), e.getMessage(), e);
+                        orderId, e.getMessage(), e);
             order.fail();
+        } finally {
+            reservationSpan.close();
         }
         
-        // Save the updated order status
-        order = orderRepository.save(order);
+        // Single write with the final status
+        try {
+            order = orderRepository.save(order);
+        } catch (RuntimeException e) {
+            if (reserved) {
+                // Do not leave stock held for an order that was never stored
+                inventoryService.releaseInventoryReservation(orderId);
+            }
+            throw e;
+        }
         
-        logger.info("Order {} processing completed with final status: {}", order.getId(), order.getStatus());
+        eventLog.info("order.completed").with("orderId", orderId).with("status", order.getStatus()).log();
         
-        return convertToOrderResponse(order);
+        // Write through so the status polls that follow checkout never reach the database
+        OrderResponse response = convertToOrderResponse(order);
+        orderCache.putOrder(response);
+        return response;
     }
     
     /**
-     * Retrieves an order by its ID.
+     * Retrieves an order by its ID, from the order cache when possible. Orders of archived
+     * partitions are read from the archive files.
      * 
      * @param orderId the order ID
      * @return Optional containing the OrderResponse if found
@@ -98,20 +180,19 @@ public class OrderService {
     public Optional<OrderResponse> getOrderById(Long orderId) {
         logger.debug("Retrieving order with ID: {}", orderId);
         
-        Optional<Order> orderOpt = orderRepository.findByIdWithItems(orderId);
+        Optional<OrderResponse> response = orderCache.getOrder(orderId,
+                id -> orderRepository.findByIdWithItems(id).map(this::convertToOrderResponse)
+                        .or(() -> orderArchive.find(id)));
         
-        if (orderOpt.isPresent()) {
-            OrderResponse response = convertToOrderResponse(orderOpt.get());
-            logger.debug("Order found: {}", response);
-            return Optional.of(response);
-        } else {
+        if (response.isEmpty()) {
             logger.warn("Order not found with ID: {}", orderId);
-            return Optional.empty();
         }
+        return response;
     }
     
     /**
-     * Retrieves all orders for a specific customer email.
+     * Retrieves all orders for a specific customer email, oldest first, from the order cache
+     * when possible.
      * 
      * @param customerEmail the customer email
      * @return List of OrderResponse
@@ -119,11 +200,31 @@ public class OrderService {
     public List<OrderResponse> getOrdersByCustomerEmail(String customerEmail) {
         logger.debug("Retrieving orders for customer: {}", customerEmail);
         
-        List<Order> orders = orderRepository.findByCustomerEmail(customerEmail);
+        return orderCache.getCustomerOrders(customerEmail,
+                email -> convertToOrderResponses(orderRepository.findByCustomerEmailWithItems(email)),
+                ids -> convertToOrderResponses(orderRepository.findAllByIdWithItems(ids)));
+    }
+    
+    /**
+     * Searches orders by customer name, newest first. Every word of the query must start a word
+     * of the customer name, ignoring case and accents.
+     * 
+     * @param customerName the words to search for, at least one letter or digit
+     * @param before only orders with a smaller id are returned; null for the first page
+     * @param size maximum number of orders
+     * @return OrderPageResponse with the orders and the cursor of the next page
+     */
+    public OrderPageResponse searchOrdersByCustomerName(String customerName, Long before, int size) {
+        logger.debug("Searching orders by customer name: {} before {}", customerName, before);
         
-        return orders.stream()
-                .map(this::convertToOrderResponse)
-                .collect(Collectors.toList());
+        List<Long> ids = customerOrderSearch.findOrderIds(CustomerOrderSearch.terms(customerName), before, size);
+        if (ids.isEmpty()) {
+            return new OrderPageResponse(List.of(), size, null);
+        }
+        List<OrderResponse> orders = convertToOrderResponses(orderRepository.findAllByIdWithItems(ids));
+        orders.sort(Comparator.comparing(OrderResponse::getId).reversed());
+        Long nextBefore = ids.size() == size ? ids.get(ids.size() - 1) : null;
+        return new OrderPageResponse(orders, size, nextBefore);
     }
     
     /**
@@ -185,15 +286,21 @@ public class OrderService {
         );
     }
     
+    private List<OrderResponse> convertToOrderResponses(List<Order> orders) {
+        return orders.stream()
+                .map(this::convertToOrderResponse)
+                .collect(Collectors.toList());
+    }
+    
     /**
-     * Creates an inventory reservation request from an order.
+     * Creates an inventory reservation request for a new order.
      */
-    private InventoryReservationRequest createInventoryReservationRequest(Order order) {
-        List<InventoryItemRequest> inventoryItems = order.getItems().stream()
+    private InventoryReservationRequest createInventoryReservationRequest(long orderId, CreateOrderRequest createOrderRequest) {
+        List<InventoryItemRequest> inventoryItems = createOrderRequest.getItems().stream()
                 .map(item -> new InventoryItemRequest(item.getProductId(), item.getQuantity()))
                 .collect(Collectors.toList());
         
-        return new InventoryReservationRequest(order.getId(), inventoryItems);
+        return new InventoryReservationRequest(orderId, inventoryItems);
     }
     
     // Inner class for order statistics
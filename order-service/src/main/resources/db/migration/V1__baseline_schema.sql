@@ -0,0 +1,42 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update. Every statement is
+-- guarded with IF NOT EXISTS, so the migration creates a fresh database and also runs on one
+-- the service already ran against (Flyway baselines those at version 0, see application.properties).
+-- Such a database predates the sequence: order_items got IDENTITY ids.
+
+CREATE SEQUENCE IF NOT EXISTS order_items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS orders (
+    id               bigint         NOT NULL,
+    customer_name    varchar(255)   NOT NULL,
+    customer_email   varchar(255)   NOT NULL,
+    customer_address varchar(255)   NOT NULL,
+    customer_phone   varchar(255),
+    total_amount     numeric(10, 2) NOT NULL,
+    status           varchar(255)   NOT NULL CHECK (status IN ('PENDENTE', 'APROVADO', 'CANCELADO', 'FALHOU')),
+    created_at       timestamp(6)   NOT NULL,
+    updated_at       timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id           bigint         NOT NULL,
+    order_id     bigint         NOT NULL,
+    product_id   bigint         NOT NULL,
+    product_name varchar(255)   NOT NULL,
+    quantity     integer        NOT NULL,
+    price        numeric(10, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders
+);
+
+CREATE TABLE IF NOT EXISTS order_customer_tokens (
+    order_id bigint      NOT NULL,
+    token    varchar(32) NOT NULL,
+    PRIMARY KEY (order_id, token),
+    CONSTRAINT fk_order_customer_tokens_order FOREIGN KEY (order_id) REFERENCES orders
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_customer_tokens_token ON order_customer_tokens (token, order_id);
+
+-- Start the sequence past the ids already in the table (IDENTITY ids on an upgraded database)
+SELECT setval('order_items_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM order_items));
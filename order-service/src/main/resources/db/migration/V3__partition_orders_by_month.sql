@@ -0,0 +1,90 @@
+-- Range-partitions orders, order_items and order_customer_tokens by order id. Order ids start
+-- with the milliseconds of their creation (OrderIdGenerator), so an id range is a time range:
+-- the three tables are split on the same monthly boundaries, every primary and foreign key
+-- already contains the partition key, and an order, its items and its tokens always live in
+-- partitions of the same month. Partitioning on created_at would have forced created_at into
+-- every key and into order_items.
+--
+-- The existing tables become the "legacy" partitions, covering every id up to the end of the
+-- current month, ids issued before OrderIdGenerator included. OrderPartitionManager creates
+-- the monthly partitions that follow and detaches and archives the old ones.
+
+ALTER TABLE order_customer_tokens RENAME TO order_customer_tokens_legacy;
+ALTER TABLE order_items RENAME TO order_items_legacy;
+ALTER TABLE orders RENAME TO orders_legacy;
+
+-- Foreign keys are redefined on the partitioned tables below; the ones created by
+-- ddl-auto=update had generated names
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN SELECT conrelid::regclass AS table_name, conname FROM pg_constraint
+              WHERE contype = 'f'
+                AND conrelid IN ('order_customer_tokens_legacy'::regclass, 'order_items_legacy'::regclass)
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END $$;
+
+-- Free the names for the partitioned tables; the renamed indexes are attached to the new
+-- partitioned indexes instead of being rebuilt
+ALTER TABLE orders_legacy RENAME CONSTRAINT orders_pkey TO orders_legacy_pkey;
+ALTER INDEX idx_orders_customer_email RENAME TO orders_legacy_customer_email_idx;
+ALTER INDEX idx_orders_status RENAME TO orders_legacy_status_idx;
+ALTER INDEX idx_orders_created_at RENAME TO orders_legacy_created_at_idx;
+ALTER TABLE order_customer_tokens_legacy RENAME CONSTRAINT order_customer_tokens_pkey TO order_customer_tokens_legacy_pkey;
+ALTER INDEX idx_order_customer_tokens_token RENAME TO order_customer_tokens_legacy_token_idx;
+ALTER INDEX idx_order_items_order RENAME TO order_items_legacy_order_idx;
+-- order_items gets a wider primary key that includes the partition key
+ALTER TABLE order_items_legacy DROP CONSTRAINT order_items_pkey;
+
+CREATE TABLE orders (
+    id               bigint         NOT NULL,
+    customer_name    varchar(255)   NOT NULL,
+    customer_email   varchar(255)   NOT NULL,
+    customer_address varchar(255)   NOT NULL,
+    customer_phone   varchar(255),
+    total_amount     numeric(10, 2) NOT NULL,
+    status           varchar(255)   NOT NULL,
+    created_at       timestamp(6)   NOT NULL,
+    updated_at       timestamp(6),
+    PRIMARY KEY (id),
+    -- Named like the legacy table's check: attaching a partition requires matching names
+    CONSTRAINT orders_status_check CHECK (status IN ('PENDENTE', 'APROVADO', 'CANCELADO', 'FALHOU'))
+) PARTITION BY RANGE (id);
+
+CREATE TABLE order_items (
+    id           bigint         NOT NULL,
+    order_id     bigint         NOT NULL,
+    product_id   bigint         NOT NULL,
+    product_name varchar(255)   NOT NULL,
+    quantity     integer        NOT NULL,
+    price        numeric(10, 2) NOT NULL,
+    PRIMARY KEY (id, order_id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders
+) PARTITION BY RANGE (order_id);
+
+CREATE TABLE order_customer_tokens (
+    order_id bigint      NOT NULL,
+    token    varchar(32) NOT NULL,
+    PRIMARY KEY (order_id, token),
+    CONSTRAINT fk_order_customer_tokens_order FOREIGN KEY (order_id) REFERENCES orders
+) PARTITION BY RANGE (order_id);
+
+CREATE INDEX idx_orders_customer_email ON orders (customer_email, id);
+CREATE INDEX idx_orders_status ON orders (status);
+CREATE INDEX idx_orders_created_at ON orders USING brin (created_at);
+CREATE INDEX idx_order_items_order ON order_items (order_id);
+CREATE INDEX idx_order_customer_tokens_token ON order_customer_tokens (token, order_id);
+
+-- First id of the next month (UTC): (milliseconds since 2024-01-01) << (5 node + 7 sequence bits)
+DO $$
+DECLARE
+    legacy_end bigint := ((extract(epoch FROM date_trunc('month', now() AT TIME ZONE 'UTC') + interval '1 month') * 1000)::bigint
+                          - 1704067200000) << 12;
+BEGIN
+    EXECUTE format('ALTER TABLE orders ATTACH PARTITION orders_legacy FOR VALUES FROM (MINVALUE) TO (%s)', legacy_end);
+    EXECUTE format('ALTER TABLE order_items ATTACH PARTITION order_items_legacy FOR VALUES FROM (MINVALUE) TO (%s)', legacy_end);
+    EXECUTE format('ALTER TABLE order_customer_tokens ATTACH PARTITION order_customer_tokens_legacy FOR VALUES FROM (MINVALUE) TO (%s)', legacy_end);
+END $$;
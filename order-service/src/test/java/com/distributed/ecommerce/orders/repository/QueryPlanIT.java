@@ -0,0 +1,136 @@
+package com.distributed.ecommerce.orders.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Migrates a throwaway schema with Flyway and checks that the repository queries are planned
+ * on the indexes of V2__query_indexes.sql, as recreated on the partitioned tables by V3.
+ * Sequential scans are disabled, so a query picks an index whenever one can answer it,
+ * whatever the table sizes.
+ * <p>
+ * Needs a PostgreSQL database: {@code mvn -pl order-service verify -Pquery-plans
+ * [-Dquery-plans.url=... -Dquery-plans.username=... -Dquery-plans.password=...]}.
+ */
+class QueryPlanIT {
+    
+    private static final String SCHEMA = "query_plans_" + System.currentTimeMillis();
+    
+    private static Connection connection;
+    
+    @BeforeAll
+    static void migrate() throws SQLException {
+        // currentSchema makes the schema the whole search path: with the default one, the
+        // unqualified DROP INDEX IF EXISTS of the migrations would reach the indexes in public
+        String url = System.getProperty("query-plans.url");
+        url += (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA;
+        String username = System.getProperty("query-plans.username");
+        String password = System.getProperty("query-plans.password");
+        connection = DriverManager.getConnection(url, username, password);
+        Flyway.configure()
+                .dataSource(url, username, password)
+                .schemas(SCHEMA)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+        }
+    }
+    
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        } finally {
+            connection.close();
+        }
+    }
+    
+    @Test
+    void findByIdWithItemsJoinsItemsByOrder() throws SQLException {
+        assertUsesIndex("SELECT o.*, i.* FROM orders o LEFT JOIN order_items i ON i.order_id = o.id "
+                + "WHERE o.id = 1", "idx_order_items_order");
+    }
+    
+    @Test
+    void findAllByIdWithItemsJoinsItemsByOrder() throws SQLException {
+        assertUsesIndex("SELECT DISTINCT o.*, i.* FROM orders o LEFT JOIN order_items i ON i.order_id = o.id "
+                + "WHERE o.id IN (1, 2, 3)", "idx_order_items_order");
+    }
+    
+    @Test
+    void findByCustomerEmailWithItemsUsesEmailIndex() throws SQLException {
+        String query = "SELECT DISTINCT o.*, i.* FROM orders o LEFT JOIN order_items i ON i.order_id = o.id "
+                + "WHERE o.customer_email = 'ana@example.com'";
+        assertUsesIndex(query, "idx_orders_customer_email");
+        assertUsesIndex(query, "idx_order_items_order");
+    }
+    
+    @Test
+    void findByCustomerEmailUsesEmailIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM orders o WHERE o.customer_email = 'ana@example.com'", "idx_orders_customer_email");
+    }
+    
+    @Test
+    void findByStatusUsesStatusIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM orders o WHERE o.status = 'PENDENTE'", "idx_orders_status");
+    }
+    
+    @Test
+    void countByStatusUsesStatusIndex() throws SQLException {
+        assertUsesIndex("SELECT count(o.id) FROM orders o WHERE o.status = 'APROVADO'", "idx_orders_status");
+    }
+    
+    /**
+     * Orders are partitioned, so the plan names the partitions' copies of the index; any of
+     * them counts.
+     */
+    private static void assertUsesIndex(String query, String index) throws SQLException {
+        String plan = explain(query);
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("WITH RECURSIVE tree(oid) AS ("
+                + "SELECT ?::regclass::oid UNION ALL SELECT i.inhrelid FROM pg_inherits i JOIN tree t ON i.inhparent = t.oid) "
+                + "SELECT c.relname FROM tree t JOIN pg_class c ON c.oid = t.oid")) {
+            statement.setString(1, index);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    names.add(rows.getString(1));
+                }
+            }
+        }
+        assertTrue(names.stream().anyMatch(name -> Pattern.compile("\\b" + Pattern.quote(name) + "\\b").matcher(plan).find()),
+                () -> "Expected one of " + names + " in the plan of " + query + "\n" + plan);
+    }
+    
+    private static String explain(String query) throws SQLException {
+        StringJoiner plan = new StringJoiner("\n", "", "\n");
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("EXPLAIN " + query)) {
+            while (rows.next()) {
+                plan.add(rows.getString(1));
+            }
+        }
+        return plan.toString();
+    }
+}
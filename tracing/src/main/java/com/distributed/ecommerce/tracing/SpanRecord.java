@@ -0,0 +1,42 @@
+package com.distributed.ecommerce.tracing;
+
+/**
+ * A completed span inside a trace. Offsets and durations are kept in nanoseconds
+ * and exposed in milliseconds for the JSON breakdown.
+ */
+public class SpanRecord {
+    
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long offsetNanos;
+    private final long durationNanos;
+    
+    public SpanRecord(String spanId, String parentSpanId, String name, long offsetNanos, long durationNanos) {
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.offsetNanos = offsetNanos;
+        this.durationNanos = durationNanos;
+    }
+    
+    public String getSpanId() { return spanId; }
+    public String getParentSpanId() { return parentSpanId; }
+    public String getName() { return name; }
+    public double getOffsetMillis() { return offsetNanos / 1_000_000.0; }
+    public double getDurationMillis() { return durationNanos / 1_000_000.0; }
+    
+    public long durationNanos() {
+        return durationNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return "SpanRecord{" +
+                "spanId='" + spanId + '\'' +
+                ", parentSpanId='" + parentSpanId + '\'' +
+                ", name='" + name + '\'' +
+                ", durationMillis=" + getDurationMillis() +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package com.distributed.ecommerce.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring buffer holding the most recent finished traces.
+ * Writers claim a slot with a single atomic increment and overwrite the oldest entry,
+ * so recording never blocks the request thread.
+ */
+public class TraceBuffer {
+    
+    private final AtomicReferenceArray<TraceRecord> slots;
+    private final AtomicLong cursor = new AtomicLong();
+    
+    public TraceBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("tracing.buffer-size must be positive");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+    
+    public void add(TraceRecord trace) {
+        int slot = (int) (cursor.getAndIncrement() % slots.length());
+        slots.set(slot, trace);
+    }
+    
+    /**
+     * Returns the slowest traces currently held in the buffer.
+     * 
+     * @param limit the maximum number of traces to return
+     * @return traces ordered by descending duration
+     */
+    public List<TraceRecord> slowest(int limit) {
+        List<TraceRecord> snapshot = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            TraceRecord trace = slots.get(i);
+            if (trace != null) {
+                snapshot.add(trace);
+            }
+        }
+        snapshot.sort(Comparator.comparingLong(TraceRecord::durationNanos).reversed());
+        return snapshot.subList(0, Math.min(limit, snapshot.size()));
+    }
+    
+    public long getRecordedCount() {
+        return cursor.get();
+    }
+    
+    public int getCapacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,104 @@
+package com.distributed.ecommerce.tracing;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-request trace state. An instance is confined to the thread handling the request,
+ * so the span stack and the finished span list need no synchronization.
+ */
+public class TraceContext {
+    
+    private final String traceId;
+    private final String name;
+    private final Instant startedAt;
+    private final long startNanos;
+    private final int maxSpans;
+    private final OpenSpan root;
+    private final Deque<OpenSpan> openSpans = new ArrayDeque<>();
+    private final List<SpanRecord> spans = new ArrayList<>();
+    private int droppedSpans;
+    
+    TraceContext(String traceId, String remoteParentSpanId, String name, int maxSpans) {
+        this.traceId = traceId != null ? traceId : newTraceId();
+        this.name = name;
+        this.startedAt = Instant.now();
+        this.startNanos = System.nanoTime();
+        this.maxSpans = maxSpans;
+        this.root = new OpenSpan(newSpanId(), remoteParentSpanId, name, startNanos);
+        this.openSpans.push(root);
+    }
+    
+    public String getTraceId() {
+        return traceId;
+    }
+    
+    /**
+     * Returns the id of the innermost open span, used as the parent for outgoing calls.
+     */
+    public String currentSpanId() {
+        OpenSpan current = openSpans.peek();
+        return current != null ? current.spanId : root.spanId;
+    }
+    
+    OpenSpan openSpan(String spanName) {
+        OpenSpan span = new OpenSpan(newSpanId(), currentSpanId(), spanName, System.nanoTime());
+        openSpans.push(span);
+        return span;
+    }
+    
+    void closeSpan(OpenSpan span) {
+        long endNanos = System.nanoTime();
+        if (openSpans.peek() == span) {
+            openSpans.pop();
+        } else {
+            openSpans.remove(span);
+        }
+        record(span, endNanos);
+    }
+    
+    TraceRecord finish() {
+        long endNanos = System.nanoTime();
+        openSpans.clear();
+        record(root, endNanos);
+        return new TraceRecord(traceId, name, startedAt, endNanos - startNanos,
+                Collections.unmodifiableList(spans), droppedSpans);
+    }
+    
+    private void record(OpenSpan span, long endNanos) {
+        if (span != root && spans.size() >= maxSpans) {
+            droppedSpans++;
+            return;
+        }
+        spans.add(new SpanRecord(span.spanId, span.parentSpanId, span.name,
+                span.startNanos - startNanos, endNanos - span.startNanos));
+    }
+    
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+    
+    static String newSpanId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+    
+    static final class OpenSpan {
+        private final String spanId;
+        private final String parentSpanId;
+        private final String name;
+        private final long startNanos;
+        
+        private OpenSpan(String spanId, String parentSpanId, String name, long startNanos) {
+            this.spanId = spanId;
+            this.parentSpanId = parentSpanId;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+    }
+}
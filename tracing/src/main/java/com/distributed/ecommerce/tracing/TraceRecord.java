@@ -0,0 +1,49 @@
+package com.distributed.ecommerce.tracing;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A finished trace as seen by this service: the root span plus every local span
+ * recorded while the request was being handled.
+ */
+public class TraceRecord {
+    
+    private final String traceId;
+    private final String name;
+    private final Instant startedAt;
+    private final long durationNanos;
+    private final List<SpanRecord> spans;
+    private final int droppedSpans;
+    
+    public TraceRecord(String traceId, String name, Instant startedAt, long durationNanos,
+                       List<SpanRecord> spans, int droppedSpans) {
+        this.traceId = traceId;
+        this.name = name;
+        this.startedAt = startedAt;
+        this.durationNanos = durationNanos;
+        this.spans = spans;
+        this.droppedSpans = droppedSpans;
+    }
+    
+    public String getTraceId() { return traceId; }
+    public String getName() { return name; }
+    public Instant getStartedAt() { return startedAt; }
+    public double getDurationMillis() { return durationNanos / 1_000_000.0; }
+    public List<SpanRecord> getSpans() { return spans; }
+    public int getDroppedSpans() { return droppedSpans; }
+    
+    public long durationNanos() {
+        return durationNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return "TraceRecord{" +
+                "traceId='" + traceId + '\'' +
+                ", name='" + name + '\'' +
+                ", durationMillis=" + getDurationMillis() +
+                ", spans=" + spans.size() +
+                '}';
+    }
+}
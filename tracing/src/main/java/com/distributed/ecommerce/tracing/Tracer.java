@@ -0,0 +1,107 @@
+package com.distributed.ecommerce.tracing;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Entry point for in-process tracing. Trace state lives in a thread local for the
+ * duration of a request; spans are recorded against it and the finished trace is
+ * pushed into the {@link TraceBuffer}.
+ */
+public class Tracer {
+    
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    public static final String PARENT_SPAN_ID_HEADER = "X-Parent-Span-Id";
+    
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+    
+    private final TraceBuffer traceBuffer;
+    private final boolean enabled;
+    private final int maxSpansPerTrace;
+    
+    public Tracer(TraceBuffer traceBuffer, boolean enabled, int maxSpansPerTrace) {
+        this.traceBuffer = traceBuffer;
+        this.enabled = enabled;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public TraceContext current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Starts a trace on the current thread, continuing the remote trace when ids are given.
+     * 
+     * @param name the root span name
+     * @param traceId the propagated trace id, or null to start a new trace
+     * @param parentSpanId the propagated parent span id, or null
+     * @return the new context, or null when tracing is disabled
+     */
+    public TraceContext beginTrace(String name, String traceId, String parentSpanId) {
+        if (!enabled) {
+            return null;
+        }
+        TraceContext context = new TraceContext(blankToNull(traceId), blankToNull(parentSpanId), name, maxSpansPerTrace);
+        CURRENT.set(context);
+        return context;
+    }
+    
+    /**
+     * Finishes the trace started on this thread and records it.
+     */
+    public void endTrace(TraceContext context) {
+        CURRENT.remove();
+        if (context != null) {
+            traceBuffer.add(context.finish());
+        }
+    }
+    
+    /**
+     * Opens a child span under the current span. Returns a no-op scope when no trace is active.
+     */
+    public SpanScope startSpan(String name) {
+        TraceContext context = CURRENT.get();
+        if (context == null) {
+            return SpanScope.NOOP;
+        }
+        return new SpanScope(context, context.openSpan(name));
+    }
+    
+    /**
+     * Adds the trace headers for the current span to an outgoing request.
+     */
+    public void inject(HttpHeaders headers) {
+        TraceContext context = CURRENT.get();
+        if (context != null) {
+            headers.set(TRACE_ID_HEADER, context.getTraceId());
+            headers.set(PARENT_SPAN_ID_HEADER, context.currentSpanId());
+        }
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+    
+    public static class SpanScope implements AutoCloseable {
+        
+        static final SpanScope NOOP = new SpanScope(null, null);
+        
+        private final TraceContext context;
+        private final TraceContext.OpenSpan span;
+        
+        private SpanScope(TraceContext context, TraceContext.OpenSpan span) {
+            this.context = context;
+            this.span = span;
+        }
+        
+        @Override
+        public void close() {
+            if (context != null) {
+                context.closeSpan(span);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.distributed.ecommerce.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records a span around every service method and repository call made while a trace is active.
+ * Runs ahead of the transaction interceptor so service spans include the commit.
+ * <p>
+ * Each service subclasses it as an {@code @Aspect} that names its own service package in
+ * {@link #applicationServices()}.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public abstract class TracingAspect {
+    
+    private static final String APPLICATION_PACKAGE = "com.distributed.ecommerce";
+    
+    private final Tracer tracer;
+    private final Map<Class<?>, String> typeLabels = new ConcurrentHashMap<>();
+    
+    protected TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+    
+    /**
+     * The service methods to trace, typically the public methods of the service package.
+     */
+    @Pointcut
+    protected abstract void applicationServices();
+    
+    @Around("applicationServices() || execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object traceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (tracer.current() == null) {
+            return joinPoint.proceed();
+        }
+        
+        String label = typeLabels.computeIfAbsent(joinPoint.getThis().getClass(), TracingAspect::resolveLabel);
+        try (Tracer.SpanScope ignored = tracer.startSpan(label + "." + joinPoint.getSignature().getName())) {
+            return joinPoint.proceed();
+        }
+    }
+    
+    /**
+     * Repository proxies are named after the application interface they implement,
+     * service proxies after the user class they wrap.
+     */
+    private static String resolveLabel(Class<?> proxyClass) {
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(proxyClass)) {
+            if (type.getName().startsWith(APPLICATION_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return ClassUtils.getUserClass(proxyClass).getSimpleName();
+    }
+}
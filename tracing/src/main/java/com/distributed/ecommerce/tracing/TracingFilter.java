@@ -0,0 +1,47 @@
+package com.distributed.ecommerce.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens the root span for each API request, continuing the caller's trace
+ * when trace headers are present.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+    
+    private final Tracer tracer;
+    
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !tracer.isEnabled() || !path.startsWith("/api/") || path.startsWith("/api/traces");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        TraceContext context = tracer.beginTrace(
+                request.getMethod() + " " + request.getRequestURI(),
+                request.getHeader(Tracer.TRACE_ID_HEADER),
+                request.getHeader(Tracer.PARENT_SPAN_ID_HEADER));
+        
+        if (context != null) {
+            response.setHeader(Tracer.TRACE_ID_HEADER, context.getTraceId());
+        }
+        
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tracer.endTrace(context);
+        }
+    }
+}